@@ -1,26 +1,37 @@
 package org.togetherjava.tjbot;
 
-import net.dv8tion.jda.api.JDA;
-import net.dv8tion.jda.api.JDABuilder;
 import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
+import net.dv8tion.jda.api.events.session.ReadyEvent;
 import net.dv8tion.jda.api.exceptions.InvalidTokenException;
+import net.dv8tion.jda.api.hooks.EventListener;
 import net.dv8tion.jda.api.requests.GatewayIntent;
+import net.dv8tion.jda.api.sharding.DefaultShardManagerBuilder;
+import net.dv8tion.jda.api.sharding.ShardManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.togetherjava.tjbot.config.Config;
+import org.togetherjava.tjbot.config.GatewayRecordingConfig;
+import org.togetherjava.tjbot.config.ShardingConfig;
 import org.togetherjava.tjbot.db.Database;
 import org.togetherjava.tjbot.features.Features;
 import org.togetherjava.tjbot.features.SlashCommandAdapter;
+import org.togetherjava.tjbot.features.analytics.MetricRollups;
 import org.togetherjava.tjbot.features.analytics.Metrics;
 import org.togetherjava.tjbot.features.system.BotCore;
+import org.togetherjava.tjbot.features.system.GatewayEventRecorder;
 import org.togetherjava.tjbot.logging.LogMarkers;
 import org.togetherjava.tjbot.logging.discord.DiscordLogging;
 
+import javax.annotation.Nullable;
+
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.sql.SQLException;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Main class of the application. Use {@link #main(String[])} to start an instance of it.
@@ -67,7 +78,8 @@ public class Application {
     }
 
     /**
-     * Runs an instance of the bot, connecting to the given token and using the given database.
+     * Runs an instance of the bot, connecting to the shards given by the configuration and using
+     * the given database.
      *
      * @param config the configuration to run the bot with
      */
@@ -75,29 +87,68 @@ public class Application {
     public static void runBot(Config config) {
         logger.info("Starting bot...");
 
+        StartupTimer startup = new StartupTimer();
         Path databasePath = Path.of(config.getDatabasePath());
         try {
-            Path parentDatabasePath = databasePath.toAbsolutePath().getParent();
-            if (parentDatabasePath != null) {
-                Files.createDirectories(parentDatabasePath);
+            // Connecting to Discord takes a while, the database is opened in the meantime
+            ShardingConfig sharding = config.getSharding();
+            CountDownLatch shardsReady = new CountDownLatch(sharding.shardCount());
+            EventListener readyListener = event -> {
+                if (event instanceof ReadyEvent) {
+                    shardsReady.countDown();
+                }
+            };
+            DefaultShardManagerBuilder shardManagerBuilder =
+                    DefaultShardManagerBuilder.createDefault(config.getToken())
+                        .enableIntents(GatewayIntent.GUILD_MEMBERS, GatewayIntent.MESSAGE_CONTENT)
+                        .setShardsTotal(sharding.totalShards())
+                        .setShards(sharding.firstShardId(), sharding.lastShardId())
+                        // Shut down by our own hook, which has to do so before closing the database
+                        .setEnableShutdownHook(false)
+                        .addEventListeners(readyListener);
+            createGatewayRecorder(config.getGatewayRecording()).ifPresent(recorder -> {
+                shardManagerBuilder.setRawEventsEnabled(true).addEventListeners(recorder);
+                Runtime.getRuntime()
+                    .addShutdownHook(new Thread(recorder::close, "gateway-recorder-shutdown"));
+            });
+            ShardManager shardManager = shardManagerBuilder.build();
+            startup.completePhase("login");
+
+            Database database;
+            try {
+                database = openDatabase(databasePath, config);
+            } catch (SQLException | IOException e) {
+                shardManager.shutdown();
+                throw e;
             }
-            Database database = new Database("jdbc:sqlite:" + databasePath.toAbsolutePath());
-
-            Metrics metrics = new Metrics(database);
-
-            JDA jda = JDABuilder.createDefault(config.getToken())
-                .enableIntents(GatewayIntent.GUILD_MEMBERS, GatewayIntent.MESSAGE_CONTENT)
-                .build();
-
-            jda.awaitReady();
-
-            BotCore core = new BotCore(jda, database, config, metrics);
-            CommandReloading.reloadCommands(jda, core);
-            core.scheduleRoutines(jda);
-
-            jda.addEventListener(core);
-
-            logger.info("Bot is ready");
+            Metrics metrics = new Metrics(database,
+                    new MetricRollups(database, config.getMetricRollups()));
+            // The core is created only once all shards are ready, it is closed if it exists by then
+            AtomicReference<BotCore> coreReference = new AtomicReference<>();
+            Runtime.getRuntime()
+                .addShutdownHook(new Thread(
+                        () -> closeResources(shardManager, coreReference.get(), metrics,
+                                database),
+                        "resource-shutdown"));
+            startup.completePhase("database");
+
+            logger.info("Waiting for shards {} to {} of {} to be ready...",
+                    sharding.firstShardId(), sharding.lastShardId(), sharding.totalShards());
+            shardsReady.await();
+            shardManager.removeEventListener(readyListener);
+            startup.completePhase("gateway");
+
+            BotCore core = new BotCore(shardManager, database, config, metrics);
+            coreReference.set(core);
+            startup.completePhase("features");
+            CommandReloading.reloadCommands(shardManager, core, database);
+            core.scheduleRoutines();
+
+            shardManager.addEventListener(core);
+            startup.completePhase("commands and routines");
+
+            logger.info("Bot is ready, {}ms after the process started ({})",
+                    StartupTimer.getProcessUptime().toMillis(), startup);
         } catch (InvalidTokenException e) {
             logger.error(LogMarkers.SENSITIVE, "Failed to login", e);
         } catch (InterruptedException e) {
@@ -111,6 +162,34 @@ public class Application {
         }
     }
 
+    private static Database openDatabase(Path databasePath, Config config)
+            throws SQLException, IOException {
+        Path parentDatabasePath = databasePath.toAbsolutePath().getParent();
+        if (parentDatabasePath != null) {
+            Files.createDirectories(parentDatabasePath);
+        }
+        return new Database("jdbc:sqlite:" + databasePath.toAbsolutePath(), config.getDatabase());
+    }
+
+    private static Optional<GatewayEventRecorder> createGatewayRecorder(
+            GatewayRecordingConfig config) {
+        if (!config.enabled()) {
+            return Optional.empty();
+        }
+
+        Path recordingPath = Path.of(config.path());
+        try {
+            GatewayEventRecorder recorder = new GatewayEventRecorder(recordingPath);
+            logger.info("Recording gateway events to: {}", recordingPath.toAbsolutePath());
+            return Optional.of(recorder);
+        } catch (IOException e) {
+            // Recording is a diagnostic aid, the bot runs fine without it
+            logger.warn("Failed to open the gateway recording at: {}, not recording",
+                    recordingPath.toAbsolutePath(), e);
+            return Optional.empty();
+        }
+    }
+
     private static void onShutdown() {
         // This may be called during JVM shutdown via a hook and hence only has minimal time to
         // react.
@@ -119,6 +198,27 @@ public class Application {
         logger.info("Bot has been stopped");
     }
 
+    private static void closeResources(ShardManager shardManager, @Nullable BotCore core,
+            Metrics metrics, Database database) {
+        // Stops receiving events first, so features no longer use the database. Then flushes the
+        // heat of component IDs and pending metric events, which need the database to still be open
+        try {
+            shardManager.shutdown();
+        } finally {
+            try {
+                if (core != null) {
+                    core.close();
+                }
+            } finally {
+                try {
+                    metrics.close();
+                } finally {
+                    database.close();
+                }
+            }
+        }
+    }
+
     private static void onUncaughtException(Thread failingThread, Throwable failure) {
         logger.error("Unknown error in thread {}.", failingThread.getName(), failure);
     }
@@ -2,24 +2,39 @@ package org.togetherjava.tjbot;
 
 import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.interactions.commands.Command;
+import net.dv8tion.jda.api.interactions.commands.build.CommandData;
 import net.dv8tion.jda.api.requests.RestAction;
 import net.dv8tion.jda.api.requests.restaction.CommandListUpdateAction;
-import org.jetbrains.annotations.Contract;
+import net.dv8tion.jda.api.sharding.ShardManager;
+import org.jooq.InsertValuesStep4;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.togetherjava.tjbot.db.Database;
+import org.togetherjava.tjbot.db.generated.tables.records.RegisteredCommandsRecord;
 import org.togetherjava.tjbot.features.BotCommand;
 import org.togetherjava.tjbot.features.CommandVisibility;
 import org.togetherjava.tjbot.features.system.CommandProvider;
+import org.togetherjava.tjbot.features.utils.Hashing;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
 import java.util.List;
-import java.util.function.Predicate;
-import java.util.stream.Stream;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.togetherjava.tjbot.db.generated.tables.RegisteredCommandSets.REGISTERED_COMMAND_SETS;
+import static org.togetherjava.tjbot.db.generated.tables.RegisteredCommands.REGISTERED_COMMANDS;
 
 /**
  * Offers utility functions for reloading all commands.
+ * <p>
+ * Commands are only registered at Discord if they changed since they were last registered. For
+ * that, the hashes of the registered commands are stored in the database.
  */
 public class CommandReloading {
     private static final Logger logger = LoggerFactory.getLogger(CommandReloading.class);
@@ -34,69 +49,192 @@ public class CommandReloading {
      */
     public static final int MAX_COMMAND_COUNT = 110;
 
+    private static final String GLOBAL_SCOPE = "global";
+    private static final String HASH_METHOD = "SHA-256";
+
     private CommandReloading() {
         throw new UnsupportedOperationException("Utility class");
     }
 
     /**
      * Reloads all commands based on the given {@link CommandProvider}.
+     * <p>
+     * Guild commands are reloaded for the guilds of all shards owned by this process. Global
+     * commands are reloaded only by the process owning the shard with id 0, so that they are
+     * reloaded once across all processes.
+     * <p>
+     * Each scope, i.e. the global commands and the commands of each guild, is skipped if its
+     * commands are unchanged since they were last registered. Otherwise, if commands have only been
+     * added or changed, only those are sent. If commands have been removed, or the scope was never
+     * registered before, all its commands are sent.
      *
-     * @param jda the JDA to update commands on
+     * @param shardManager the shard manager to update commands on
      * @param commandProvider the {@link CommandProvider} to grab commands from
+     * @param database the database to store the hashes of the registered commands in
      */
-    public static void reloadCommands(final JDA jda, final CommandProvider commandProvider) {
+    public static void reloadCommands(final ShardManager shardManager,
+            final CommandProvider commandProvider, final Database database) {
         logger.info("Reloading commands...");
-        List<CommandListUpdateAction> actions =
-                Collections.synchronizedList(new ArrayList<>(MAX_COMMAND_COUNT));
+        List<BotCommand> commands = commandProvider.getInteractors()
+            .stream()
+            .filter(BotCommand.class::isInstance)
+            .map(BotCommand.class::cast)
+            .toList();
+        int reloadedScopes = 0;
 
         // Reload global commands
-        actions.add(updateCommandsIf(command -> CommandVisibility.GLOBAL == command.getVisibility(),
-                getGlobalUpdateAction(jda), commandProvider));
+        JDA firstShard = shardManager.getShardById(0);
+        if (firstShard != null && reloadScope(GLOBAL_SCOPE,
+                getCommandsWithVisibility(commands, CommandVisibility.GLOBAL),
+                firstShard::updateCommands, firstShard::upsertCommand, database)) {
+            reloadedScopes++;
+        }
 
         // Reload guild commands (potentially many guilds)
-        // NOTE Storing the guild actions in a list is potentially dangerous since the
-        // bot might theoretically be part of so many guilds that it exceeds the max size of
-        // list. However, correctly reducing RestActions in a stream is not trivial.
-        getGuildUpdateActions(jda)
-            .map(updateAction -> updateCommandsIf(
-                    command -> CommandVisibility.GUILD == command.getVisibility(), updateAction,
-                    commandProvider))
-            .forEach(actions::add);
-        logger.debug("Reloading commands over {} action-upstreams", actions.size());
-
-        // Send message when all are done
-        RestAction.allOf(actions).queue(a -> logger.debug("Commands successfully reloaded!"));
+        List<CommandData> guildCommands =
+                getCommandsWithVisibility(commands, CommandVisibility.GUILD);
+        for (Guild guild : shardManager.getGuildCache()) {
+            if (reloadScope(guild.getId(), guildCommands, guild::updateCommands,
+                    guild::upsertCommand, database)) {
+                reloadedScopes++;
+            }
+        }
+
+        logger.info("Reloading commands of {} scopes, the others are unchanged", reloadedScopes);
+    }
+
+    private static List<CommandData> getCommandsWithVisibility(List<BotCommand> commands,
+            CommandVisibility visibility) {
+        return commands.stream()
+            .filter(command -> visibility == command.getVisibility())
+            .map(BotCommand::getData)
+            .toList();
     }
 
     /**
-     * Updates all commands given by the command provider which pass the given filter by pushing
-     * through the given action upstream.
+     * Registers the given commands of a scope, if they changed since they were last registered.
      *
-     * @param commandFilter filter that matches commands that should be uploaded
-     * @param updateAction the upstream to update commands
-     * @return the given upstream for chaining
+     * @param scope the scope of the commands, {@value GLOBAL_SCOPE} or the id of a guild
+     * @param commands all commands of the scope
+     * @param updateAll supplies the action to replace all commands of the scope
+     * @param upsert creates the action to add or change a single command of the scope
+     * @param database the database to look up and store the hashes of the registered commands in
+     * @return whether commands are registered, {@code false} if the scope is unchanged
      */
-    @Contract("_, _, _ -> param2")
-    private static CommandListUpdateAction updateCommandsIf(
-            final Predicate<? super BotCommand> commandFilter,
-            final CommandListUpdateAction updateAction, final CommandProvider commandProvider) {
-        commandProvider.getInteractors()
+    static boolean reloadScope(String scope, List<CommandData> commands,
+            Supplier<CommandListUpdateAction> updateAll,
+            Function<CommandData, ? extends RestAction<Command>> upsert, Database database) {
+        Map<CommandKey, CommandData> keyToCommand = commands.stream()
+            .collect(Collectors.toMap(CommandKey::of, Function.identity()));
+        Map<CommandKey, String> keyToHash = keyToCommand.entrySet()
             .stream()
-            .filter(BotCommand.class::isInstance)
-            .map(BotCommand.class::cast)
-            .filter(commandFilter)
-            .map(BotCommand::getData)
-            .forEach(updateAction::addCommands);
+            .collect(Collectors.toMap(Map.Entry::getKey, entry -> hash(entry.getValue())));
+        String commandSetHash = hashCommandSet(keyToHash);
+
+        Optional<String> registeredCommandSetHash = database.read(context -> context
+            .select(REGISTERED_COMMAND_SETS.HASH)
+            .from(REGISTERED_COMMAND_SETS)
+            .where(REGISTERED_COMMAND_SETS.SCOPE.eq(scope))
+            .fetchOptional(REGISTERED_COMMAND_SETS.HASH));
+        if (registeredCommandSetHash.filter(commandSetHash::equals).isPresent()) {
+            return false;
+        }
 
-        return updateAction;
+        Map<CommandKey, String> registeredKeyToHash = registeredCommandSetHash.isEmpty() ? Map.of()
+                : database.read(context -> context.selectFrom(REGISTERED_COMMANDS)
+                    .where(REGISTERED_COMMANDS.SCOPE.eq(scope))
+                    .fetch()
+                    .stream()
+                    .collect(Collectors.toMap(CommandKey::ofRecord,
+                            RegisteredCommandsRecord::getHash)));
+        boolean hasRemovedCommands = !keyToHash.keySet().containsAll(registeredKeyToHash.keySet());
+        List<CommandData> changedCommands = keyToCommand.entrySet()
+            .stream()
+            .filter(entry -> !keyToHash.get(entry.getKey())
+                .equals(registeredKeyToHash.get(entry.getKey())))
+            .map(Map.Entry::getValue)
+            .toList();
+
+        RestAction<?> action;
+        if (registeredCommandSetHash.isEmpty() || hasRemovedCommands
+                || changedCommands.isEmpty()) {
+            logger.debug("Registering all {} commands of scope {}", commands.size(), scope);
+            action = updateAll.get().addCommands(commands);
+        } else {
+            logger.debug("Registering {} added or changed commands of scope {}",
+                    changedCommands.size(), scope);
+            action = RestAction.allOf(changedCommands.stream().map(upsert).toList());
+        }
+
+        action.queue(_ -> storeRegisteredCommands(scope, commandSetHash, keyToHash, database),
+                failure -> logger.warn("Failed to register the commands of scope {}", scope,
+                        failure));
+        return true;
+    }
+
+    private static void storeRegisteredCommands(String scope, String commandSetHash,
+            Map<CommandKey, String> keyToHash, Database database) {
+        database.writeTransaction(context -> {
+            context.deleteFrom(REGISTERED_COMMANDS)
+                .where(REGISTERED_COMMANDS.SCOPE.eq(scope))
+                .execute();
+
+            if (!keyToHash.isEmpty()) {
+                InsertValuesStep4<RegisteredCommandsRecord, String, String, String, String> insert =
+                        context.insertInto(REGISTERED_COMMANDS, REGISTERED_COMMANDS.SCOPE,
+                                REGISTERED_COMMANDS.TYPE, REGISTERED_COMMANDS.NAME,
+                                REGISTERED_COMMANDS.HASH);
+                keyToHash.forEach(
+                        (key, hash) -> insert.values(scope, key.type().name(), key.name(), hash));
+                insert.execute();
+            }
+
+            context.insertInto(REGISTERED_COMMAND_SETS)
+                .set(REGISTERED_COMMAND_SETS.SCOPE, scope)
+                .set(REGISTERED_COMMAND_SETS.HASH, commandSetHash)
+                .onConflict(REGISTERED_COMMAND_SETS.SCOPE)
+                .doUpdate()
+                .set(REGISTERED_COMMAND_SETS.HASH, commandSetHash)
+                .execute();
+        });
+        logger.debug("Registered the commands of scope {}", scope);
     }
 
-    private static CommandListUpdateAction getGlobalUpdateAction(final JDA jda) {
-        return jda.updateCommands();
+    private static String hash(CommandData command) {
+        return Hashing.bytesToHex(Hashing.hash(HASH_METHOD, command.toData().toJson()));
     }
 
-    private static Stream<CommandListUpdateAction> getGuildUpdateActions(final JDA jda) {
-        return jda.getGuildCache().stream().map(Guild::updateCommands);
+    private static String hashCommandSet(Map<CommandKey, String> keyToHash) {
+        String commandSet = keyToHash.entrySet()
+            .stream()
+            .sorted(Map.Entry.comparingByKey(CommandKey.COMPARATOR))
+            .map(entry -> entry.getKey() + "=" + entry.getValue())
+            .collect(Collectors.joining("\n"));
+        return Hashing
+            .bytesToHex(Hashing.hash(HASH_METHOD, commandSet.getBytes(StandardCharsets.UTF_8)));
     }
 
+    /**
+     * Identifies a command within its scope.
+     *
+     * @param type the type of the command
+     * @param name the name of the command
+     */
+    private record CommandKey(Command.Type type, String name) {
+        private static final Comparator<CommandKey> COMPARATOR =
+                Comparator.comparing(CommandKey::type).thenComparing(CommandKey::name);
+
+        static CommandKey of(CommandData command) {
+            return new CommandKey(command.getType(), command.getName());
+        }
+
+        static CommandKey ofRecord(RegisteredCommandsRecord record) {
+            return new CommandKey(Command.Type.valueOf(record.getType()), record.getName());
+        }
+
+        @Override
+        public String toString() {
+            return type + ":" + name;
+        }
+    }
 }
@@ -0,0 +1,54 @@
+package org.togetherjava.tjbot;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Times the consecutive phases of the startup of the bot.
+ * <p>
+ * A phase starts when the previous one has been completed, the first one when the timer was
+ * created. {@link #toString()} summarizes the durations of all completed phases.
+ */
+final class StartupTimer {
+    private static final Logger logger = LoggerFactory.getLogger(StartupTimer.class);
+
+    private final Map<String, Duration> phaseToDuration = new LinkedHashMap<>();
+    private long phaseStartedAtNanos = System.nanoTime();
+
+    /**
+     * Completes the current phase and starts the next one.
+     *
+     * @param phase the name of the completed phase, e.g. {@code "database"}
+     */
+    void completePhase(String phase) {
+        long nowNanos = System.nanoTime();
+        Duration duration = Duration.ofNanos(nowNanos - phaseStartedAtNanos);
+        phaseStartedAtNanos = nowNanos;
+
+        phaseToDuration.put(phase, duration);
+        logger.debug("Startup phase '{}' completed after {}ms", phase, duration.toMillis());
+    }
+
+    /**
+     * Gets the time since the process, i.e. the JVM, was started.
+     *
+     * @return the uptime of the process
+     */
+    static Duration getProcessUptime() {
+        return Duration.ofMillis(ManagementFactory.getRuntimeMXBean().getUptime());
+    }
+
+    @Override
+    public String toString() {
+        return phaseToDuration.entrySet()
+            .stream()
+            .map(entry -> "%s %dms".formatted(entry.getKey(), entry.getValue().toMillis()))
+            .collect(Collectors.joining(", "));
+    }
+}
@@ -5,6 +5,8 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 
+import org.togetherjava.tjbot.db.DatabaseConfig;
+
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.Collections;
@@ -17,8 +19,10 @@ import java.util.Objects;
  */
 public final class Config {
     private final String token;
+    private final String componentIdSigningKey;
     private final String githubApiKey;
     private final String databasePath;
+    private final DatabaseConfig database;
     private final String projectWebsite;
     private final String discordGuildInvite;
     private final String modAuditLogChannelPattern;
@@ -51,12 +55,20 @@ public final class Config {
     private final QuoteBoardConfig quoteBoardConfig;
     private final TopHelpersConfig topHelpers;
     private final DynamicVoiceChatConfig dynamicVoiceChatConfig;
+    private final MetricRollupsConfig metricRollups;
+    private final InteractionLimitsConfig interactionLimits;
+    private final InteractionDeadlineConfig interactionDeadline;
+    private final ShardingConfig sharding;
+    private final GatewayRecordingConfig gatewayRecording;
 
     @SuppressWarnings("ConstructorWithTooManyParameters")
     @JsonCreator(mode = JsonCreator.Mode.PROPERTIES)
     private Config(@JsonProperty(value = "token", required = true) String token,
+            @JsonProperty(value = "componentIdSigningKey",
+                    required = true) String componentIdSigningKey,
             @JsonProperty(value = "githubApiKey", required = true) String githubApiKey,
             @JsonProperty(value = "databasePath", required = true) String databasePath,
+            @JsonProperty(value = "database", required = true) DatabaseConfig database,
             @JsonProperty(value = "projectWebsite", required = true) String projectWebsite,
             @JsonProperty(value = "discordGuildInvite", required = true) String discordGuildInvite,
             @JsonProperty(value = "modAuditLogChannelPattern",
@@ -108,10 +120,21 @@ public final class Config {
                     required = true) QuoteBoardConfig quoteBoardConfig,
             @JsonProperty(value = "topHelpers", required = true) TopHelpersConfig topHelpers,
             @JsonProperty(value = "dynamicVoiceChatConfig",
-                    required = true) DynamicVoiceChatConfig dynamicVoiceChatConfig) {
+                    required = true) DynamicVoiceChatConfig dynamicVoiceChatConfig,
+            @JsonProperty(value = "metricRollups",
+                    required = true) MetricRollupsConfig metricRollups,
+            @JsonProperty(value = "interactionLimits",
+                    required = true) InteractionLimitsConfig interactionLimits,
+            @JsonProperty(value = "interactionDeadline",
+                    required = true) InteractionDeadlineConfig interactionDeadline,
+            @JsonProperty(value = "sharding", required = true) ShardingConfig sharding,
+            @JsonProperty(value = "gatewayRecording",
+                    required = true) GatewayRecordingConfig gatewayRecording) {
         this.token = Objects.requireNonNull(token);
+        this.componentIdSigningKey = Objects.requireNonNull(componentIdSigningKey);
         this.githubApiKey = Objects.requireNonNull(githubApiKey);
         this.databasePath = Objects.requireNonNull(databasePath);
+        this.database = Objects.requireNonNull(database);
         this.projectWebsite = Objects.requireNonNull(projectWebsite);
         this.memberCountCategoryPattern = Objects.requireNonNull(memberCountCategoryPattern);
         this.discordGuildInvite = Objects.requireNonNull(discordGuildInvite);
@@ -146,6 +169,11 @@ public final class Config {
         this.quoteBoardConfig = Objects.requireNonNull(quoteBoardConfig);
         this.topHelpers = Objects.requireNonNull(topHelpers);
         this.dynamicVoiceChatConfig = Objects.requireNonNull(dynamicVoiceChatConfig);
+        this.metricRollups = Objects.requireNonNull(metricRollups);
+        this.interactionLimits = Objects.requireNonNull(interactionLimits);
+        this.interactionDeadline = Objects.requireNonNull(interactionDeadline);
+        this.sharding = Objects.requireNonNull(sharding);
+        this.gatewayRecording = Objects.requireNonNull(gatewayRecording);
     }
 
     /**
@@ -208,6 +236,17 @@ public final class Config {
         return token;
     }
 
+    /**
+     * Gets the secret key to sign component IDs with. It must be the same for all processes of the
+     * bot. Changing it invalidates the buttons and other components of all messages with signed
+     * IDs.
+     *
+     * @return the component ID signing key
+     */
+    public String getComponentIdSigningKey() {
+        return componentIdSigningKey;
+    }
+
     /**
      * Gets the API Key of GitHub.
      *
@@ -229,6 +268,15 @@ public final class Config {
         return databasePath;
     }
 
+    /**
+     * Gets the tuning options of the database, such as the size of its read connection pool.
+     *
+     * @return the database configuration
+     */
+    public DatabaseConfig getDatabase() {
+        return database;
+    }
+
     /**
      * Gets a URL of the project's website, for example to tell the user where he can contribute.
      *
@@ -486,4 +534,49 @@ public final class Config {
     public DynamicVoiceChatConfig getDynamicVoiceChatConfig() {
         return dynamicVoiceChatConfig;
     }
+
+    /**
+     * Gets the config for the rollups of metric events.
+     *
+     * @return the configuration
+     */
+    public MetricRollupsConfig getMetricRollups() {
+        return metricRollups;
+    }
+
+    /**
+     * Gets the config for the concurrency limits of user interactors, such as slash commands.
+     *
+     * @return the configuration
+     */
+    public InteractionLimitsConfig getInteractionLimits() {
+        return interactionLimits;
+    }
+
+    /**
+     * Gets the config for guarding the deadline of acknowledging interactions.
+     *
+     * @return the configuration
+     */
+    public InteractionDeadlineConfig getInteractionDeadline() {
+        return interactionDeadline;
+    }
+
+    /**
+     * Gets the config for sharding the connection to Discord over possibly multiple processes.
+     *
+     * @return the configuration
+     */
+    public ShardingConfig getSharding() {
+        return sharding;
+    }
+
+    /**
+     * Gets the config for recording gateway events to replay them offline.
+     *
+     * @return the configuration
+     */
+    public GatewayRecordingConfig getGatewayRecording() {
+        return gatewayRecording;
+    }
 }
@@ -0,0 +1,25 @@
+package org.togetherjava.tjbot.config;
+
+import java.util.Objects;
+
+/**
+ * Config for recording gateway events, such as received messages, to replay them offline, for
+ * example for load testing.
+ * <p>
+ * Recorded events are scrubbed of the text users typed, but still contain ids of users, channels
+ * and messages.
+ *
+ * @param enabled whether gateway events are recorded
+ * @param path the path to the file the events are appended to, one JSON object per line
+ */
+public record GatewayRecordingConfig(boolean enabled, String path) {
+    /**
+     * Creates a new instance.
+     *
+     * @param enabled whether gateway events are recorded
+     * @param path the path to the file the events are appended to, one JSON object per line
+     */
+    public GatewayRecordingConfig {
+        Objects.requireNonNull(path);
+    }
+}
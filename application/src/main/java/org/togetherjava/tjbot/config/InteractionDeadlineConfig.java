@@ -0,0 +1,59 @@
+package org.togetherjava.tjbot.config;
+
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Config for guarding the deadline Discord imposes on acknowledging interactions.
+ *
+ * @param autoDeferAfterMillis after how many milliseconds since receiving an interaction it is
+ *        deferred automatically, if not acknowledged by then; must be below the deadline of 3
+ *        seconds
+ * @param autoDeferredInteractors the names of the interactors whose interactions may be deferred
+ *        automatically, publicly; their handlers must cope with an already acknowledged event, for
+ *        example by responding through its hook
+ * @param ephemerallyAutoDeferredInteractors the names of the interactors whose interactions may be
+ *        deferred automatically, ephemerally; for interactors that respond ephemerally, for
+ *        example with error messages, so that responses through the hook stay ephemeral
+ */
+public record InteractionDeadlineConfig(int autoDeferAfterMillis,
+        Set<String> autoDeferredInteractors, Set<String> ephemerallyAutoDeferredInteractors) {
+    /**
+     * Creates a new instance.
+     *
+     * @param autoDeferAfterMillis after how many milliseconds since receiving an interaction it is
+     *        deferred automatically, if not acknowledged by then; must be below the deadline of 3
+     *        seconds
+     * @param autoDeferredInteractors the names of the interactors whose interactions may be
+     *        deferred automatically, publicly; their handlers must cope with an already
+     *        acknowledged event, for example by responding through its hook
+     * @param ephemerallyAutoDeferredInteractors the names of the interactors whose interactions
+     *        may be deferred automatically, ephemerally; for interactors that respond ephemerally,
+     *        for example with error messages, so that responses through the hook stay ephemeral
+     */
+    public InteractionDeadlineConfig {
+        if (autoDeferAfterMillis <= 0 || autoDeferAfterMillis >= 3_000) {
+            throw new IllegalArgumentException(
+                    "autoDeferAfterMillis must be between 0 and 3000 exclusive");
+        }
+        autoDeferredInteractors = Set.copyOf(Objects.requireNonNull(autoDeferredInteractors));
+        ephemerallyAutoDeferredInteractors =
+                Set.copyOf(Objects.requireNonNull(ephemerallyAutoDeferredInteractors));
+        if (autoDeferredInteractors.stream()
+            .anyMatch(ephemerallyAutoDeferredInteractors::contains)) {
+            throw new IllegalArgumentException(
+                    "Interactors can not be deferred both publicly and ephemerally");
+        }
+    }
+
+    /**
+     * Gets whether interactions of the given interactor may be deferred automatically.
+     *
+     * @param interactorName the name of the interactor
+     * @return whether its interactions may be deferred automatically, publicly or ephemerally
+     */
+    public boolean isAutoDeferred(String interactorName) {
+        return autoDeferredInteractors.contains(interactorName)
+                || ephemerallyAutoDeferredInteractors.contains(interactorName);
+    }
+}
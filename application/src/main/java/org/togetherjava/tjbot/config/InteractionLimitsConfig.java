@@ -0,0 +1,60 @@
+package org.togetherjava.tjbot.config;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Config for the concurrency limits of user interactors, such as slash commands.
+ *
+ * @param defaults the limits of interactors without an override
+ * @param overrides the limits of specific interactors, by their name, for example to restrict
+ *        expensive commands such as {@code chatgpt} more tightly
+ */
+public record InteractionLimitsConfig(Bulkhead defaults, Map<String, Bulkhead> overrides) {
+    /**
+     * Creates a new instance.
+     *
+     * @param defaults the limits of interactors without an override
+     * @param overrides the limits of specific interactors, by their name, for example to restrict
+     *        expensive commands such as {@code chatgpt} more tightly
+     */
+    public InteractionLimitsConfig {
+        Objects.requireNonNull(defaults);
+        overrides = Map.copyOf(Objects.requireNonNull(overrides));
+    }
+
+    /**
+     * Gets the limits of the given interactor.
+     *
+     * @param interactorName the name of the interactor
+     * @return the limits of the interactor, its override if present, the defaults otherwise
+     */
+    public Bulkhead limitsOf(String interactorName) {
+        return overrides.getOrDefault(interactorName, defaults);
+    }
+
+    /**
+     * Concurrency limits of a single interactor.
+     *
+     * @param maxConcurrent the maximal amount of interactions processed at the same time
+     * @param maxQueued the maximal amount of interactions waiting for processing, further
+     *        interactions are rejected
+     */
+    public record Bulkhead(int maxConcurrent, int maxQueued) {
+        /**
+         * Creates a new instance.
+         *
+         * @param maxConcurrent the maximal amount of interactions processed at the same time
+         * @param maxQueued the maximal amount of interactions waiting for processing, further
+         *        interactions are rejected
+         */
+        public Bulkhead {
+            if (maxConcurrent <= 0) {
+                throw new IllegalArgumentException("maxConcurrent must be positive");
+            }
+            if (maxQueued < 0) {
+                throw new IllegalArgumentException("maxQueued must not be negative");
+            }
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package org.togetherjava.tjbot.config;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Config for the rollups of metric events, see
+ * {@link org.togetherjava.tjbot.features.analytics.MetricRollups}.
+ *
+ * @param rawEventsRetentionDays after how many days raw metric events are compacted, they are only
+ *        available as rollups afterwards
+ * @param minuteRollupsRetentionDays after how many days per-minute rollups are deleted, per-hour
+ *        rollups are kept forever
+ * @param rolledUpDimensions for each event, the names of the dimensions the rollups of the event
+ *        are keyed by, in addition to the event itself; dimensions of events not listed are not
+ *        rolled up
+ */
+public record MetricRollupsConfig(int rawEventsRetentionDays, int minuteRollupsRetentionDays,
+        Map<String, List<String>> rolledUpDimensions) {
+    /**
+     * Creates a new instance.
+     *
+     * @param rawEventsRetentionDays after how many days raw metric events are compacted, they are
+     *        only available as rollups afterwards
+     * @param minuteRollupsRetentionDays after how many days per-minute rollups are deleted,
+     *        per-hour rollups are kept forever
+     * @param rolledUpDimensions for each event, the names of the dimensions the rollups of the
+     *        event are keyed by, in addition to the event itself; dimensions of events not listed
+     *        are not rolled up
+     */
+    public MetricRollupsConfig {
+        if (rawEventsRetentionDays <= 0 || minuteRollupsRetentionDays <= 0) {
+            throw new IllegalArgumentException("Retention must be at least one day");
+        }
+        rolledUpDimensions = Map.copyOf(Objects.requireNonNull(rolledUpDimensions));
+    }
+}
@@ -0,0 +1,49 @@
+package org.togetherjava.tjbot.config;
+
+/**
+ * Config for sharding the connection to Discord, possibly over multiple processes that share the
+ * same database.
+ * <p>
+ * Each process connects to the shards from {@code firstShardId} to {@code lastShardId}, inclusive.
+ * The ranges of all processes must cover each shard exactly once. A single process connecting to a
+ * single shard is the default, unsharded deployment.
+ * <p>
+ * For now, each process must connect to exactly one shard. Features are created with the JDA
+ * instance of a single shard, so they would not see the guilds of any further shard of the same
+ * process. Scale out by running one process per shard instead.
+ *
+ * @param totalShards the amount of shards across all processes
+ * @param firstShardId the id of the first shard this process connects to
+ * @param lastShardId the id of the last shard this process connects to, inclusive
+ */
+public record ShardingConfig(int totalShards, int firstShardId, int lastShardId) {
+    /**
+     * Creates a new instance.
+     *
+     * @param totalShards the amount of shards across all processes
+     * @param firstShardId the id of the first shard this process connects to
+     * @param lastShardId the id of the last shard this process connects to, inclusive
+     */
+    public ShardingConfig {
+        if (totalShards <= 0) {
+            throw new IllegalArgumentException("totalShards must be positive");
+        }
+        if (firstShardId < 0 || firstShardId > lastShardId || lastShardId >= totalShards) {
+            throw new IllegalArgumentException(
+                    "The shard ids must form a range within 0 and totalShards exclusive");
+        }
+        if (firstShardId != lastShardId) {
+            throw new IllegalArgumentException(
+                    "Each process must connect to exactly one shard, run one process per shard");
+        }
+    }
+
+    /**
+     * Gets the amount of shards this process connects to.
+     *
+     * @return the amount of shards of this process
+     */
+    public int shardCount() {
+        return lastShardId - firstShardId + 1;
+    }
+}
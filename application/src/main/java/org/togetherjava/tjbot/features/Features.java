@@ -7,6 +7,7 @@ import org.togetherjava.tjbot.config.FeatureBlacklist;
 import org.togetherjava.tjbot.config.FeatureBlacklistConfig;
 import org.togetherjava.tjbot.db.Database;
 import org.togetherjava.tjbot.features.analytics.EmojiTrackerListener;
+import org.togetherjava.tjbot.features.analytics.MetricRollupRoutine;
 import org.togetherjava.tjbot.features.analytics.Metrics;
 import org.togetherjava.tjbot.features.basic.MemberCountDisplayRoutine;
 import org.togetherjava.tjbot.features.basic.PingCommand;
@@ -71,6 +72,7 @@ import org.togetherjava.tjbot.features.reminder.RemindRoutine;
 import org.togetherjava.tjbot.features.reminder.ReminderCommand;
 import org.togetherjava.tjbot.features.rss.RSSHandlerRoutine;
 import org.togetherjava.tjbot.features.system.BotCore;
+import org.togetherjava.tjbot.features.system.DatabaseStatisticsRoutine;
 import org.togetherjava.tjbot.features.system.LogLevelCommand;
 import org.togetherjava.tjbot.features.tags.TagCommand;
 import org.togetherjava.tjbot.features.tags.TagManageCommand;
@@ -142,7 +144,7 @@ public class Features {
 
         // Routines
         features.add(new ModAuditLogRoutine(database, config, modAuditLogWriter));
-        features.add(new TemporaryModerationRoutine(jda, actionsStore, config));
+        features.add(new TemporaryModerationRoutine(actionsStore, config));
         features.add(new TopHelpersPurgeMessagesRoutine(database));
         features.add(new RemindRoutine(database));
         features.add(new ScamHistoryPurgeRoutine(scamHistoryStore));
@@ -156,6 +158,8 @@ public class Features {
         features.add(new MemberCountDisplayRoutine(config));
         features.add(new RSSHandlerRoutine(config, database, metrics));
         features.add(topHelpersAssignmentRoutine);
+        features.add(new DatabaseStatisticsRoutine(database));
+        features.add(new MetricRollupRoutine(metrics.getRollups()));
 
         // Message receivers
         features.add(new TopHelpersMessageListener(database, config));
@@ -5,6 +5,8 @@ import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
 import net.dv8tion.jda.api.events.message.MessageUpdateEvent;
 import net.dv8tion.jda.api.events.message.react.MessageReactionAddEvent;
 
+import org.togetherjava.tjbot.features.utils.MessageAnalysis;
+
 import java.util.regex.Pattern;
 
 /**
@@ -18,6 +20,9 @@ import java.util.regex.Pattern;
  * After registration, the system will notify a receiver whenever a new message was sent or an
  * existing message was updated in any channel matching the {@link #getChannelNamePattern()} the bot
  * is added to.
+ * <p>
+ * Events of a channel are delivered one after another, in the order they were received. Events of
+ * different channels may be delivered concurrently, so implementations have to be thread-safe.
  */
 public interface MessageReceiver extends Feature {
     /**
@@ -40,6 +45,22 @@ public interface MessageReceiver extends Feature {
      */
     void onMessageReceived(MessageReceivedEvent event);
 
+    /**
+     * Triggered by the core system whenever a new message was sent and received in a text channel
+     * of a guild the bot has been added to.
+     * <p>
+     * Receivers that need facts about the message, such as its code, should override this variant
+     * instead of {@link #onMessageReceived(MessageReceivedEvent)}, to share computing them with all
+     * other receivers. By default, it delegates to the variant without analysis.
+     *
+     * @param event the event that triggered this, containing information about the corresponding
+     *        message that was sent and received
+     * @param analysis the analysis of the message, shared by all receivers
+     */
+    default void onMessageReceived(MessageReceivedEvent event, MessageAnalysis analysis) {
+        onMessageReceived(event);
+    }
+
     /**
      * Triggered by the core system whenever an existing message was edited in a text channel of a
      * guild the bot has been added to.
@@ -49,6 +70,22 @@ public interface MessageReceiver extends Feature {
      */
     void onMessageUpdated(MessageUpdateEvent event);
 
+    /**
+     * Triggered by the core system whenever an existing message was edited in a text channel of a
+     * guild the bot has been added to.
+     * <p>
+     * Receivers that need facts about the message, such as its code, should override this variant
+     * instead of {@link #onMessageUpdated(MessageUpdateEvent)}, to share computing them with all
+     * other receivers. By default, it delegates to the variant without analysis.
+     *
+     * @param event the event that triggered this, containing information about the corresponding
+     *        message that was edited
+     * @param analysis the analysis of the edited message, shared by all receivers
+     */
+    default void onMessageUpdated(MessageUpdateEvent event, MessageAnalysis analysis) {
+        onMessageUpdated(event);
+    }
+
     /**
      * Triggered by the core system whenever an existing message was deleted in a text channel of a
      * guild the bot has been added to.
@@ -11,6 +11,7 @@ import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Objects;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.function.BiFunction;
@@ -24,7 +25,11 @@ import java.util.stream.Collectors;
  * <p>
  * <p>
  * After registration, the system will automatically start and execute {@link #runRoutine(JDA)} on
- * the schedule defined by {@link #createSchedule()}.
+ * the schedule defined by {@link #createSchedule()}. Executions of a routine never overlap, if an
+ * execution takes longer than the schedule allows, the missed executions are skipped.
+ * <p>
+ * If the bot is sharded, possibly over multiple processes, {@link #getScope()} decides for which
+ * shards and in which processes the routine is executed.
  */
 public interface Routine extends Feature {
     /**
@@ -44,6 +49,18 @@ public interface Routine extends Feature {
      */
     void runRoutine(JDA jda);
 
+    /**
+     * Retrieves the scope of this routine, deciding where it is executed if the bot is sharded.
+     * Called by the core system once during the startup.
+     * <p>
+     * By default, routines are executed for each shard, see {@link Scope#SHARD}.
+     *
+     * @return the scope of this routine
+     */
+    default Scope getScope() {
+        return Scope.SHARD;
+    }
+
     /**
      * The schedule of routines.
      *
@@ -55,10 +72,50 @@ public interface Routine extends Feature {
      *        finished ({@link ScheduleMode#FIXED_DELAY}).
      * @param unit the time unit for both, {@link #initialDuration} and {@link #duration}, e.g.
      *        seconds
+     * @param startJitter the maximal random time the first execution is delayed by, in addition to
+     *        {@link #initialDuration}, to spread out routines starting at the same time
      */
-    record Schedule(ScheduleMode mode, long initialDuration, long duration, TimeUnit unit) {
+    record Schedule(ScheduleMode mode, long initialDuration, long duration, TimeUnit unit,
+            Duration startJitter) {
 
         private static final int HOURS_OF_DAY = 24;
+        /**
+         * The start jitter of schedules that do not specify one.
+         */
+        public static final Duration DEFAULT_START_JITTER = Duration.ofSeconds(30);
+
+        /**
+         * Creates a new schedule.
+         *
+         * @param mode whether subsequent executions are executed at a fixed rate or are delayed,
+         *        influences how {@link #duration} is interpreted
+         * @param initialDuration the time which the first execution of the routine is delayed
+         * @param duration the time all subsequent executions of the routine are delayed
+         * @param unit the time unit for both, {@link #initialDuration} and {@link #duration}
+         * @param startJitter the maximal random time the first execution is delayed by, in
+         *        addition to {@link #initialDuration}
+         */
+        public Schedule {
+            Objects.requireNonNull(mode);
+            Objects.requireNonNull(unit);
+            if (Objects.requireNonNull(startJitter).isNegative()) {
+                throw new IllegalArgumentException("The start jitter must not be negative");
+            }
+        }
+
+        /**
+         * Creates a new schedule whose first execution is spread out by the
+         * {@link #DEFAULT_START_JITTER}.
+         *
+         * @param mode whether subsequent executions are executed at a fixed rate or are delayed,
+         *        influences how {@link #duration} is interpreted
+         * @param initialDuration the time which the first execution of the routine is delayed
+         * @param duration the time all subsequent executions of the routine are delayed
+         * @param unit the time unit for both, {@link #initialDuration} and {@link #duration}
+         */
+        public Schedule(ScheduleMode mode, long initialDuration, long duration, TimeUnit unit) {
+            this(mode, initialDuration, duration, unit, DEFAULT_START_JITTER);
+        }
 
         /**
          * Creates a schedule for execution at a fixed hour of the day. The initial first execution
@@ -126,7 +183,7 @@ public interface Routine extends Feature {
                     computeClosestNextScheduleDate(now, fixedScheduleHours, periodHours);
             return new Schedule(ScheduleMode.FIXED_RATE,
                     ChronoUnit.SECONDS.between(now, nextFixedTime),
-                    TimeUnit.HOURS.toSeconds(periodHours), TimeUnit.SECONDS);
+                    TimeUnit.HOURS.toSeconds(periodHours), TimeUnit.SECONDS, Duration.ZERO);
         }
 
         private static Instant computeClosestNextScheduleDate(Instant instant,
@@ -165,4 +222,28 @@ public interface Routine extends Feature {
          */
         FIXED_DELAY
     }
+
+    /**
+     * Where a routine is executed, if the bot is sharded over possibly multiple processes.
+     */
+    enum Scope {
+        /**
+         * The routine is executed once for each shard owned by this process, given the JDA
+         * instance of the shard. Suited for routines working on the guilds of the given instance,
+         * for example by iterating {@link JDA#getGuildCache()}.
+         */
+        SHARD,
+        /**
+         * The routine is executed once in each process, given the JDA instance of the first shard
+         * owned by the process. Suited for routines working on the state of the process itself.
+         */
+        PROCESS,
+        /**
+         * The routine is executed only in a single process across all processes, the leader
+         * elected via the shared database. It is given the JDA instance of the first shard owned
+         * by the leader, entities of other shards have to be retrieved via their id. Suited for
+         * routines working on the shared database or on external sources.
+         */
+        SINGLETON
+    }
 }
@@ -0,0 +1,171 @@
+package org.togetherjava.tjbot.features.analytics;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Record;
+import org.jooq.Row3;
+import org.jooq.Table;
+import org.jooq.impl.DSL;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.togetherjava.tjbot.db.generated.tables.MetricDimensionKeys.METRIC_DIMENSION_KEYS;
+import static org.togetherjava.tjbot.db.generated.tables.MetricDimensionValues.METRIC_DIMENSION_VALUES;
+import static org.togetherjava.tjbot.db.generated.tables.MetricEventDimensions.METRIC_EVENT_DIMENSIONS;
+
+/**
+ * Dictionary encoding of the dimensions of metric events.
+ * <p>
+ * Instead of storing the dimensions of each event as JSON object, their keys and values are
+ * interned in lookup tables and events reference them by id. Values are interned JSON-encoded, to
+ * preserve their type. The view {@code metric_events_with_dimensions} presents the events with
+ * their dimensions as JSON object again, for queries by hand.
+ * <p>
+ * Ids are cached in memory, but only once the transaction that interned them has been committed,
+ * see {@link Encoder#commit()}. Entries are interned with {@code INSERT ... ON CONFLICT DO NOTHING}
+ * followed by a lookup, so that entries interned by someone else in the meantime are reused.
+ */
+final class MetricDimensionDictionary {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    /**
+     * Values include high-cardinality ones, such as user ids, hence the cache is reset when growing
+     * beyond this size.
+     */
+    private static final int MAX_CACHED_VALUES = 100_000;
+
+    private final Map<String, Integer> keyIds = new ConcurrentHashMap<>();
+    private final Map<String, Integer> valueIds = new ConcurrentHashMap<>();
+
+    /**
+     * Encodes the values of the given dimensions into their JSON form, as stored in the
+     * dictionary.
+     *
+     * @param dimensions the dimensions to encode
+     * @return the dimensions with JSON-encoded values
+     * @throws IllegalArgumentException if a value can not be encoded
+     */
+    static Map<String, String> encodeValues(Map<String, Object> dimensions) {
+        Map<String, String> encodedDimensions = HashMap.newHashMap(dimensions.size());
+        dimensions.forEach((key, value) -> {
+            try {
+                encodedDimensions.put(key, OBJECT_MAPPER.writeValueAsString(value));
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException(
+                        "Failed to serialize the value of dimension " + key, e);
+            }
+        });
+        return encodedDimensions;
+    }
+
+    /**
+     * Loads the dimensions of the given events.
+     *
+     * @param context the context to read with
+     * @param eventIds the ids of the events to load the dimensions of
+     * @return the dimensions per event id, events without dimensions are omitted
+     */
+    static Map<Integer, Map<String, Object>> decode(DSLContext context,
+            Collection<Integer> eventIds) {
+        Map<Integer, Map<String, Object>> dimensionsByEvent = new HashMap<>();
+        context
+            .select(METRIC_EVENT_DIMENSIONS.EVENT_ID, METRIC_DIMENSION_KEYS.NAME,
+                    METRIC_DIMENSION_VALUES.VALUE)
+            .from(METRIC_EVENT_DIMENSIONS)
+            .join(METRIC_DIMENSION_KEYS)
+            .on(METRIC_DIMENSION_KEYS.ID.eq(METRIC_EVENT_DIMENSIONS.KEY_ID))
+            .join(METRIC_DIMENSION_VALUES)
+            .on(METRIC_DIMENSION_VALUES.ID.eq(METRIC_EVENT_DIMENSIONS.VALUE_ID))
+            .where(METRIC_EVENT_DIMENSIONS.EVENT_ID.in(eventIds))
+            .forEach(dimension -> dimensionsByEvent
+                .computeIfAbsent(dimension.value1(), _ -> new HashMap<>())
+                .put(dimension.value2(), decodeValue(dimension.value3())));
+        return dimensionsByEvent;
+    }
+
+    private static Object decodeValue(String encodedValue) {
+        try {
+            return OBJECT_MAPPER.readValue(encodedValue, Object.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(
+                    "Malformed dimension value in the database: " + encodedValue, e);
+        }
+    }
+
+    /**
+     * Creates an encoder that interns dimensions within the transaction of the given context.
+     *
+     * @param context the context of the write transaction
+     * @return the new encoder
+     */
+    Encoder newEncoder(DSLContext context) {
+        return new Encoder(context);
+    }
+
+    /**
+     * Encodes dimensions of events into rows of {@code metric_event_dimensions}, interning new
+     * keys and values on the fly.
+     * <p>
+     * Not thread-safe.
+     */
+    final class Encoder {
+        private final DSLContext context;
+        private final Map<String, Integer> newKeyIds = new HashMap<>();
+        private final Map<String, Integer> newValueIds = new HashMap<>();
+
+        private Encoder(DSLContext context) {
+            this.context = context;
+        }
+
+        /**
+         * Encodes the given dimensions of an event.
+         *
+         * @param eventId the id of the event
+         * @param encodedDimensions the dimensions of the event, with values as given by
+         *        {@link #encodeValues(Map)}
+         * @param target the rows to add the encoded dimensions to
+         */
+        void encode(int eventId, Map<String, String> encodedDimensions,
+                List<? super Row3<Integer, Integer, Integer>> target) {
+            encodedDimensions.forEach((key, value) -> target.add(DSL.row(eventId,
+                    idOf(key, keyIds, newKeyIds, METRIC_DIMENSION_KEYS,
+                            METRIC_DIMENSION_KEYS.ID, METRIC_DIMENSION_KEYS.NAME),
+                    idOf(value, valueIds, newValueIds, METRIC_DIMENSION_VALUES,
+                            METRIC_DIMENSION_VALUES.ID, METRIC_DIMENSION_VALUES.VALUE))));
+        }
+
+        /**
+         * Caches the keys and values interned by this encoder. Must only be called once the
+         * transaction of the encoder has been committed.
+         */
+        void commit() {
+            keyIds.putAll(newKeyIds);
+            if (valueIds.size() + newValueIds.size() > MAX_CACHED_VALUES) {
+                valueIds.clear();
+            }
+            valueIds.putAll(newValueIds);
+        }
+
+        private <R extends Record> int idOf(String entry, Map<String, Integer> committedIds,
+                Map<String, Integer> pendingIds, Table<R> table, Field<Integer> idField,
+                Field<String> entryField) {
+            Integer id = committedIds.get(entry);
+            if (id != null) {
+                return id;
+            }
+
+            return pendingIds.computeIfAbsent(entry, _ -> {
+                context.insertInto(table, entryField).values(entry).onConflictDoNothing().execute();
+                return context.select(idField)
+                    .from(table)
+                    .where(entryField.eq(entry))
+                    .fetchSingle(idField);
+            });
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package org.togetherjava.tjbot.features.analytics;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, lock-free ring buffer collecting events from many producers for a single consumer.
+ * <p>
+ * Producers never block: {@link #offer(Object)} claims a slot with a single CAS and returns
+ * immediately. If the buffer is full, the event is dropped and counted instead, see
+ * {@link #getDroppedCount()}.
+ * <p>
+ * Consumption via {@link #drainTo(Collection)} is serialized internally, so that it may be
+ * triggered from multiple threads, e.g. a regular flusher and a final flush during shutdown.
+ *
+ * @param <E> the type of the events
+ */
+final class MetricEventBuffer<E> {
+    private final AtomicReferenceArray<E> slots;
+    private final int mask;
+    /**
+     * Sequence of the next slot to be claimed by a producer.
+     */
+    private final AtomicLong tail = new AtomicLong();
+    /**
+     * Sequence of the next slot to be consumed, only written by the consumer.
+     */
+    private volatile long head;
+    private final LongAdder droppedCount = new LongAdder();
+    private final Object consumerLock = new Object();
+
+    /**
+     * Creates a new empty buffer.
+     *
+     * @param capacity the maximal amount of events held by the buffer, rounded up to the next power
+     *        of two
+     */
+    MetricEventBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive, but was " + capacity);
+        }
+
+        int roundedCapacity = Integer.highestOneBit(capacity - 1) << 1;
+        if (capacity == 1) {
+            roundedCapacity = 1;
+        }
+        slots = new AtomicReferenceArray<>(roundedCapacity);
+        mask = roundedCapacity - 1;
+    }
+
+    /**
+     * Adds the given event to the buffer, unless it is full.
+     *
+     * @param event the event to add
+     * @return whether the event was added, {@code false} if it was dropped since the buffer is full
+     */
+    boolean offer(E event) {
+        long claimed;
+        do {
+            claimed = tail.get();
+            if (claimed - head >= slots.length()) {
+                droppedCount.increment();
+                return false;
+            }
+        } while (!tail.compareAndSet(claimed, claimed + 1));
+
+        slots.lazySet(indexOf(claimed), event);
+        return true;
+    }
+
+    /**
+     * Moves all events that are currently published in the buffer to the given collection, in
+     * insertion order.
+     *
+     * @param target the collection to add the events to
+     * @return the amount of moved events
+     */
+    int drainTo(Collection<? super E> target) {
+        synchronized (consumerLock) {
+            int drained = 0;
+            long current = head;
+            while (true) {
+                int index = indexOf(current);
+                E event = slots.get(index);
+                if (event == null) {
+                    // Either empty, or the producer claimed the slot but did not publish yet
+                    break;
+                }
+
+                slots.lazySet(index, null);
+                target.add(event);
+                current++;
+                head = current;
+                drained++;
+            }
+            return drained;
+        }
+    }
+
+    /**
+     * Gets the amount of events dropped so far since the buffer was full.
+     *
+     * @return the amount of dropped events
+     */
+    long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    private int indexOf(long sequence) {
+        return (int) (sequence & mask);
+    }
+}
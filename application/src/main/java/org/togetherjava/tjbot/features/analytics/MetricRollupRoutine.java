@@ -0,0 +1,39 @@
+package org.togetherjava.tjbot.features.analytics;
+
+import net.dv8tion.jda.api.JDA;
+
+import org.togetherjava.tjbot.features.Routine;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Routine that regularly compacts old metric events into the {@link MetricRollups}, keeping the
+ * table of raw events bounded.
+ */
+public final class MetricRollupRoutine implements Routine {
+    private final MetricRollups rollups;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param rollups the rollups to compact old metric events into
+     */
+    public MetricRollupRoutine(MetricRollups rollups) {
+        this.rollups = rollups;
+    }
+
+    @Override
+    public Schedule createSchedule() {
+        return new Schedule(ScheduleMode.FIXED_RATE, 0, 1, TimeUnit.HOURS);
+    }
+
+    @Override
+    public Scope getScope() {
+        return Scope.SINGLETON;
+    }
+
+    @Override
+    public void runRoutine(JDA jda) {
+        rollups.compact();
+    }
+}
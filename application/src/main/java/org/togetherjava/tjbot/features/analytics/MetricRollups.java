@@ -0,0 +1,290 @@
+package org.togetherjava.tjbot.features.analytics;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Query;
+import org.jooq.Record2;
+import org.jooq.impl.DSL;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.togetherjava.tjbot.config.MetricRollupsConfig;
+import org.togetherjava.tjbot.db.Database;
+import org.togetherjava.tjbot.db.PurgeEngine;
+import org.togetherjava.tjbot.db.generated.tables.records.MetricEventsRecord;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.togetherjava.tjbot.db.generated.tables.MetricEvents.METRIC_EVENTS;
+import static org.togetherjava.tjbot.db.generated.tables.MetricRollups.METRIC_ROLLUPS;
+
+/**
+ * Pre-aggregated counters of metric events, per minute and per hour.
+ * <p>
+ * Each counter is keyed by the event and the dimensions selected for the event in
+ * {@link MetricRollupsConfig#rolledUpDimensions()}, for example the name of a slash command. The
+ * selected dimensions are stored as canonical JSON object, with sorted keys, or {@code {}} if none
+ * were selected.
+ * <p>
+ * The counters are updated incrementally by {@link Metrics}, in the same transaction that inserts
+ * the raw events. Raw events older than the configured horizon are compacted, i.e. deleted, by
+ * {@link #compact()}, as are per-minute counters. Analysis over longer periods should hence be
+ * answered from the rollups, e.g. with
+ * {@link #countPerBucket(Granularity, String, Instant, Instant)} or
+ * {@link #countPerDimension(Granularity, String, String, Instant, Instant)}.
+ */
+public final class MetricRollups {
+    private static final Logger logger = LoggerFactory.getLogger(MetricRollups.class);
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final String NO_DIMENSIONS = "{}";
+    /**
+     * Names of dimensions that can be inlined into a JSON path as is.
+     */
+    private static final Pattern DIMENSION_NAME = Pattern.compile("\\w+");
+
+    private final Database database;
+    private final MetricRollupsConfig config;
+    private final PurgeEngine purgeEngine;
+
+    /**
+     * Granularity of the time buckets the events are counted in.
+     */
+    public enum Granularity {
+        /**
+         * Counters per minute, only kept for a limited time.
+         */
+        MINUTE(ChronoUnit.MINUTES),
+        /**
+         * Counters per hour.
+         */
+        HOUR(ChronoUnit.HOURS);
+
+        private final ChronoUnit unit;
+
+        Granularity(ChronoUnit unit) {
+            this.unit = unit;
+        }
+
+        Instant bucketOf(Instant instant) {
+            return instant.truncatedTo(unit);
+        }
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param database the database containing the metric events and their rollups
+     * @param config the configuration of the rollups
+     */
+    public MetricRollups(Database database, MetricRollupsConfig config) {
+        this.database = database;
+        this.config = config;
+        purgeEngine = new PurgeEngine(database);
+    }
+
+    /**
+     * Creates an accumulator, which counts events in memory until written to the rollups.
+     *
+     * @return the new accumulator
+     */
+    Accumulator newAccumulator() {
+        return new Accumulator();
+    }
+
+    /**
+     * Counts the events per bucket in the given time range.
+     *
+     * @param granularity the granularity of the buckets, per-minute counters are only available
+     *        for the configured retention
+     * @param event the event to count
+     * @param from the start of the range, inclusive
+     * @param to the end of the range, exclusive
+     * @return the count per start of the bucket, buckets without events are omitted
+     */
+    public SortedMap<Instant, Long> countPerBucket(Granularity granularity, String event,
+            Instant from, Instant to) {
+        Field<Long> count = DSL.sum(METRIC_ROLLUPS.EVENT_COUNT).cast(Long.class);
+
+        return database.read(context -> context.select(METRIC_ROLLUPS.BUCKET_START, count)
+            .from(METRIC_ROLLUPS)
+            .where(METRIC_ROLLUPS.GRANULARITY.eq(granularity.name())
+                .and(METRIC_ROLLUPS.EVENT.eq(event))
+                .and(METRIC_ROLLUPS.BUCKET_START.greaterOrEqual(granularity.bucketOf(from)))
+                .and(METRIC_ROLLUPS.BUCKET_START.lessThan(to)))
+            .groupBy(METRIC_ROLLUPS.BUCKET_START)
+            .collect(Collectors.toMap(Record2::value1, Record2::value2, Long::sum, TreeMap::new)));
+    }
+
+    /**
+     * Counts the events per value of the given dimension in the given time range, e.g. the usage
+     * of each emoji by its id.
+     *
+     * @param granularity the granularity of the rollups to read, per-minute counters are only
+     *        available for the configured retention
+     * @param event the event to count
+     * @param dimension the name of the dimension to group by, it must be one of the rolled up
+     *        dimensions of the event
+     * @param from the start of the range, inclusive
+     * @param to the end of the range, exclusive
+     * @return the count per value of the dimension, in descending order of the count; events
+     *         without the dimension are counted under {@code "null"}
+     * @throws IllegalArgumentException if the name of the dimension is not a plain word, i.e.
+     *         consists of other characters than letters, digits and underscores
+     */
+    public Map<String, Long> countPerDimension(Granularity granularity, String event,
+            String dimension, Instant from, Instant to) {
+        if (!DIMENSION_NAME.matcher(dimension).matches()) {
+            throw new IllegalArgumentException(
+                    "The dimension name must be a plain word, but was: " + dimension);
+        }
+        Field<Object> value = DSL.field("json_extract({0}, {1})", Object.class,
+                METRIC_ROLLUPS.DIMENSIONS, DSL.inline("$." + dimension));
+        Field<Long> count = DSL.sum(METRIC_ROLLUPS.EVENT_COUNT).cast(Long.class);
+
+        return database.read(context -> context.select(value, count)
+            .from(METRIC_ROLLUPS)
+            .where(METRIC_ROLLUPS.GRANULARITY.eq(granularity.name())
+                .and(METRIC_ROLLUPS.EVENT.eq(event))
+                .and(METRIC_ROLLUPS.BUCKET_START.greaterOrEqual(granularity.bucketOf(from)))
+                .and(METRIC_ROLLUPS.BUCKET_START.lessThan(to)))
+            .groupBy(value)
+            .orderBy(count.desc())
+            .collect(Collectors.toMap(record -> String.valueOf(record.value1()), Record2::value2,
+                    Long::sum, LinkedHashMap::new)));
+    }
+
+    /**
+     * Compacts raw metric events older than the configured horizon into the rollups, and deletes
+     * per-minute rollups older than their configured retention.
+     * <p>
+     * Since rollups are usually updated on insertion of the events already, this mostly deletes
+     * rows. Only events that were recorded before rollups existed are counted during compaction.
+     */
+    public void compact() {
+        Instant now = Instant.now();
+
+        Instant rawEventsHorizon = now.minus(config.rawEventsRetentionDays(), ChronoUnit.DAYS);
+        PurgeEngine.PurgeResult rawResult = purgeEngine.purgeTransactionally(METRIC_EVENTS,
+                METRIC_EVENTS.HAPPENED_AT.lessThan(rawEventsHorizon), this::rollUpRemaining);
+
+        Instant minuteRollupsHorizon =
+                now.minus(config.minuteRollupsRetentionDays(), ChronoUnit.DAYS);
+        PurgeEngine.PurgeResult minuteResult = purgeEngine.purge(METRIC_ROLLUPS,
+                METRIC_ROLLUPS.GRANULARITY.eq(Granularity.MINUTE.name())
+                    .and(METRIC_ROLLUPS.BUCKET_START.lessThan(minuteRollupsHorizon)));
+
+        logger.debug("Compacted {} raw metric events and {} per-minute rollups",
+                rawResult.deletedRows(), minuteResult.deletedRows());
+    }
+
+    private void rollUpRemaining(DSLContext context, List<MetricEventsRecord> events) {
+        List<MetricEventsRecord> remainingEvents = events.stream()
+            .filter(event -> !Boolean.TRUE.equals(event.getRolledUp()))
+            .toList();
+        if (remainingEvents.isEmpty()) {
+            return;
+        }
+
+        Map<Integer, Map<String, Object>> dimensionsByEvent = MetricDimensionDictionary
+            .decode(context, remainingEvents.stream().map(MetricEventsRecord::getId).toList());
+        Accumulator accumulator = newAccumulator();
+        for (MetricEventsRecord event : remainingEvents) {
+            accumulator.add(event.getEvent(), event.getHappenedAt(),
+                    dimensionsByEvent.getOrDefault(event.getId(), Map.of()));
+        }
+        accumulator.writeTo(context);
+    }
+
+    private String selectDimensions(String event, Map<String, ?> dimensions) {
+        List<String> selectedNames = config.rolledUpDimensions().getOrDefault(event, List.of());
+        if (selectedNames.isEmpty() || dimensions.isEmpty()) {
+            return NO_DIMENSIONS;
+        }
+
+        SortedMap<String, Object> selected = new TreeMap<>();
+        for (String name : selectedNames) {
+            Object value = dimensions.get(name);
+            if (value != null) {
+                selected.put(name, value);
+            }
+        }
+
+        try {
+            return OBJECT_MAPPER.writeValueAsString(selected);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Failed to serialize dimensions", e);
+        }
+    }
+
+    private record RollupKey(Granularity granularity, Instant bucketStart, String event,
+            String dimensions) {
+    }
+
+    /**
+     * Counts events in memory, to write them to the rollups in a single go.
+     * <p>
+     * Not thread-safe.
+     */
+    final class Accumulator {
+        private final Map<RollupKey, Long> counts = new HashMap<>();
+
+        private Accumulator() {}
+
+        /**
+         * Counts the given event.
+         *
+         * @param event the name of the event
+         * @param happenedAt the moment the event happened
+         * @param dimensions the dimensions of the event, only the ones configured for rollup are
+         *        considered
+         */
+        void add(String event, Instant happenedAt, Map<String, ?> dimensions) {
+            String selectedDimensions = selectDimensions(event, dimensions);
+            for (Granularity granularity : Granularity.values()) {
+                RollupKey key = new RollupKey(granularity, granularity.bucketOf(happenedAt),
+                        event, selectedDimensions);
+                counts.merge(key, 1L, Long::sum);
+            }
+        }
+
+        /**
+         * Adds the counted events to the rollups, using the given context.
+         *
+         * @param context the context of the transaction to write in
+         */
+        void writeTo(DSLContext context) {
+            if (counts.isEmpty()) {
+                return;
+            }
+
+            List<Query> upserts = counts.entrySet()
+                .stream()
+                .<Query>map(entry -> context
+                    .insertInto(METRIC_ROLLUPS, METRIC_ROLLUPS.GRANULARITY,
+                            METRIC_ROLLUPS.BUCKET_START, METRIC_ROLLUPS.EVENT,
+                            METRIC_ROLLUPS.DIMENSIONS, METRIC_ROLLUPS.EVENT_COUNT)
+                    .values(entry.getKey().granularity().name(), entry.getKey().bucketStart(),
+                            entry.getKey().event(), entry.getKey().dimensions(),
+                            entry.getValue().intValue())
+                    .onConflict(METRIC_ROLLUPS.GRANULARITY, METRIC_ROLLUPS.EVENT,
+                            METRIC_ROLLUPS.BUCKET_START, METRIC_ROLLUPS.DIMENSIONS)
+                    .doUpdate()
+                    .set(METRIC_ROLLUPS.EVENT_COUNT,
+                            METRIC_ROLLUPS.EVENT_COUNT
+                                .plus(DSL.excluded(METRIC_ROLLUPS.EVENT_COUNT))))
+                .toList();
+            context.batch(upserts).execute();
+        }
+    }
+}
@@ -1,38 +1,75 @@
 package org.togetherjava.tjbot.features.analytics;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import org.jooq.DSLContext;
+import org.jooq.Row3;
+import org.jooq.impl.DSL;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.togetherjava.tjbot.db.Database;
-import org.togetherjava.tjbot.db.generated.tables.MetricEvents;
 
 import javax.annotation.Nullable;
 
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.togetherjava.tjbot.db.generated.tables.MetricEventDimensions.METRIC_EVENT_DIMENSIONS;
+import static org.togetherjava.tjbot.db.generated.tables.MetricEvents.METRIC_EVENTS;
 
 /**
  * Service for tracking and recording events for analytics purposes.
+ * <p>
+ * Counting an event never blocks the caller. Events are collected in a bounded buffer and
+ * periodically inserted into the database in bulk, within a single transaction per flush. Their
+ * dimensions are stored dictionary-encoded, see {@link MetricDimensionDictionary}, and the
+ * {@link MetricRollups} are updated in the same transaction. If events arrive faster than they can
+ * be flushed and the buffer is full, new events are dropped and the amount of dropped events is
+ * logged.
+ * <p>
+ * Call {@link #close()} during shutdown to flush all remaining events.
  */
-public final class Metrics {
+public final class Metrics implements AutoCloseable {
     private static final Logger logger = LoggerFactory.getLogger(Metrics.class);
-    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
 
-    private final Database database;
+    private static final int BUFFER_CAPACITY = 8_192;
+    private static final Duration FLUSH_INTERVAL = Duration.ofSeconds(1);
+    /**
+     * Rows per {@code INSERT} statement, each row binds at most 4 parameters, which has to stay
+     * below the SQLite limit of bind parameters per statement.
+     */
+    private static final int MAX_ROWS_PER_INSERT = 500;
 
-    private final ExecutorService service = Executors.newSingleThreadExecutor();
+    private final Database database;
+    private final MetricRollups rollups;
+    private final MetricDimensionDictionary dictionary = new MetricDimensionDictionary();
+    private final MetricEventBuffer<MetricEvent> buffer = new MetricEventBuffer<>(BUFFER_CAPACITY);
+    private final ScheduledExecutorService flusher =
+            Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "metrics-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+    private long reportedDroppedCount;
 
     /**
      * Creates a new instance.
      *
      * @param database the database to use for storing and retrieving analytics data
+     * @param rollups the rollups to update with all recorded events
      */
-    public Metrics(Database database) {
+    public Metrics(Database database, MetricRollups rollups) {
         this.database = database;
+        this.rollups = rollups;
+
+        flusher.scheduleWithFixedDelay(this::flushSafely, FLUSH_INTERVAL.toMillis(),
+                FLUSH_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
     }
 
     /**
@@ -52,38 +89,147 @@ public final class Metrics {
      *        often referred to as "metadata" and can include things like: userId: "12345", name:
      *        "John Smith", channel_name: "chit-chat" etc. This data helps with filtering, grouping,
      *        and analyzing events later. Note: A value for a metric should be a Java primitive
-     *        (String, int, double, long float).
+     *        (String, int, double, long float). The map must not be modified afterwards.
      */
     public void count(String event, Map<String, Object> dimensions) {
         logger.debug("Counting new record for event: {}", event);
 
-        Instant happenedAt = Instant.now();
-        String serializedDimensions = serializeDimensions(dimensions);
+        buffer.offer(new MetricEvent(event, Instant.now(), dimensions));
+    }
 
-        service.submit(() -> processEvent(event, happenedAt,
-                dimensions.isEmpty() ? null : serializedDimensions));
+    /**
+     * Gets the rollups that are updated with all recorded events.
+     *
+     * @return the rollups
+     */
+    public MetricRollups getRollups() {
+        return rollups;
     }
 
-    private static String serializeDimensions(Map<String, Object> dimensions) {
+    /**
+     * Stops the regular flushing and flushes all remaining events.
+     */
+    @Override
+    public void close() {
+        flusher.shutdown();
+        try {
+            if (!flusher.awaitTermination(FLUSH_INTERVAL.toMillis(), TimeUnit.MILLISECONDS)) {
+                logger.warn("Metrics flusher did not finish in time, flushing anyway");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        flushSafely();
+    }
+
+    private void flushSafely() {
         try {
-            return OBJECT_MAPPER.writeValueAsString(dimensions);
-        } catch (JsonProcessingException e) {
-            throw new IllegalArgumentException("Failed to serialize dimensions", e);
+            flush();
+        } catch (Exception e) {
+            logger.warn("Failed to flush metric events", e);
         }
     }
 
+    private void flush() {
+        reportDroppedEvents();
+
+        List<MetricEvent> events = new ArrayList<>();
+        buffer.drainTo(events);
+        if (events.isEmpty()) {
+            return;
+        }
+
+        List<EncodedEvent> encodedEvents = new ArrayList<>(events.size());
+        MetricRollups.Accumulator rollupCounts = rollups.newAccumulator();
+        for (MetricEvent event : events) {
+            Map<String, String> encodedDimensions = encodeDimensions(event);
+            if (encodedDimensions != null) {
+                encodedEvents.add(new EncodedEvent(event, encodedDimensions));
+                rollupCounts.add(event.event(), event.happenedAt(), event.dimensions());
+            }
+        }
+
+        MetricDimensionDictionary.Encoder encoder = database.writeTransactionAndProvide(context -> {
+            MetricDimensionDictionary.Encoder transactionEncoder = dictionary.newEncoder(context);
+            List<Row3<Integer, Integer, Integer>> dimensionRows = new ArrayList<>();
+
+            forEachChunk(encodedEvents, chunk -> {
+                List<Integer> eventIds = insertEvents(context, chunk);
+                for (int i = 0; i < chunk.size(); i++) {
+                    transactionEncoder.encode(eventIds.get(i), chunk.get(i).dimensions(),
+                            dimensionRows);
+                }
+            });
+            forEachChunk(dimensionRows, chunk -> context
+                .insertInto(METRIC_EVENT_DIMENSIONS, METRIC_EVENT_DIMENSIONS.EVENT_ID,
+                        METRIC_EVENT_DIMENSIONS.KEY_ID, METRIC_EVENT_DIMENSIONS.VALUE_ID)
+                .valuesOfRows(chunk)
+                .execute());
+            rollupCounts.writeTo(context);
+            return transactionEncoder;
+        });
+        encoder.commit();
+
+        logger.debug("Flushed {} metric events", encodedEvents.size());
+    }
+
     /**
+     * Inserts the given events in a single statement.
      *
-     * @param event the event to save
-     * @param happenedAt the moment when the event is dispatched
-     * @param dimensionsJson optional JSON-serialized dimensions, or null
+     * @param context the context of the transaction to insert the events in
+     * @param encodedEvents the events to insert
+     * @return the ids assigned to the events, in the same order
      */
-    private void processEvent(String event, Instant happenedAt, @Nullable String dimensionsJson) {
-        database.write(context -> context.newRecord(MetricEvents.METRIC_EVENTS)
-            .setEvent(event)
-            .setHappenedAt(happenedAt)
-            .setDimensions(dimensionsJson)
-            .insert());
+    private static List<Integer> insertEvents(DSLContext context,
+            List<EncodedEvent> encodedEvents) {
+        List<Row3<String, Instant, Boolean>> eventRows = encodedEvents.stream()
+            .map(EncodedEvent::event)
+            .map(event -> DSL.row(event.event(), event.happenedAt(), true))
+            .toList();
+
+        // The rows of a statement are inserted in order, with increasing ids. However, the order
+        // of the returned ids is unspecified, so they are sorted back into the order of the rows.
+        List<Integer> eventIds = new ArrayList<>(context
+            .insertInto(METRIC_EVENTS, METRIC_EVENTS.EVENT, METRIC_EVENTS.HAPPENED_AT,
+                    METRIC_EVENTS.ROLLED_UP)
+            .valuesOfRows(eventRows)
+            .returningResult(METRIC_EVENTS.ID)
+            .fetch()
+            .getValues(METRIC_EVENTS.ID));
+        eventIds.sort(null);
+        return eventIds;
+    }
+
+    private void reportDroppedEvents() {
+        long droppedCount = buffer.getDroppedCount();
+        if (droppedCount > reportedDroppedCount) {
+            logger.warn("Dropped {} metric events since the buffer was full ({} in total)",
+                    droppedCount - reportedDroppedCount, droppedCount);
+            reportedDroppedCount = droppedCount;
+        }
     }
 
+    @Nullable
+    private static Map<String, String> encodeDimensions(MetricEvent event) {
+        try {
+            return MetricDimensionDictionary.encodeValues(event.dimensions());
+        } catch (IllegalArgumentException e) {
+            logger.warn("Dropping metric event {} with invalid dimensions", event.event(), e);
+            return null;
+        }
+    }
+
+    private static <R> void forEachChunk(List<R> rows, Consumer<List<R>> chunkAction) {
+        for (int from = 0; from < rows.size(); from += MAX_ROWS_PER_INSERT) {
+            chunkAction
+                .accept(rows.subList(from, Math.min(from + MAX_ROWS_PER_INSERT, rows.size())));
+        }
+    }
+
+    private record MetricEvent(String event, Instant happenedAt, Map<String, Object> dimensions) {
+    }
+
+    private record EncodedEvent(MetricEvent event, Map<String, String> dimensions) {
+    }
 }
@@ -8,6 +8,7 @@ import net.dv8tion.jda.api.entities.channel.unions.MessageChannelUnion;
 
 import org.togetherjava.tjbot.config.Config;
 import org.togetherjava.tjbot.db.Database;
+import org.togetherjava.tjbot.db.PurgeEngine;
 import org.togetherjava.tjbot.db.generated.tables.records.BookmarksRecord;
 
 import javax.annotation.Nullable;
@@ -39,6 +40,7 @@ public final class BookmarksSystem {
     static final Color COLOR_FAILURE = new Color(238, 153, 160);
 
     private final Database database;
+    private final PurgeEngine purgeEngine;
     private final Predicate<String> isHelpForumName;
 
     /**
@@ -49,6 +51,7 @@ public final class BookmarksSystem {
      */
     public BookmarksSystem(Config config, Database database) {
         this.database = database;
+        purgeEngine = new PurgeEngine(database);
 
         isHelpForumName =
                 Pattern.compile(config.getHelpSystem().getHelpForumPattern()).asMatchPredicate();
@@ -121,9 +124,8 @@ public final class BookmarksSystem {
     }
 
     void deleteLeftoverBookmarks() {
-        database.write(context -> context.deleteFrom(BOOKMARKS)
-            .where(BOOKMARKS.DELETE_AT.isNotNull(), BOOKMARKS.DELETE_AT.lessThan(Instant.now()))
-            .execute());
+        purgeEngine.purge(BOOKMARKS,
+                BOOKMARKS.DELETE_AT.isNotNull().and(BOOKMARKS.DELETE_AT.lessThan(Instant.now())));
     }
 
     private static MessageEmbed createColoredEmbed(String content, Color color) {
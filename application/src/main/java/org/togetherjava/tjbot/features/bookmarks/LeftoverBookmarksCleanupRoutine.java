@@ -27,6 +27,11 @@ public final class LeftoverBookmarksCleanupRoutine implements Routine {
         return new Schedule(ScheduleMode.FIXED_RATE, 0, 6, TimeUnit.HOURS);
     }
 
+    @Override
+    public Scope getScope() {
+        return Scope.SINGLETON;
+    }
+
     @Override
     public void runRoutine(JDA jda) {
         bookmarksSystem.deleteLeftoverBookmarks();
@@ -22,6 +22,7 @@ import org.togetherjava.tjbot.features.componentids.ComponentIdGenerator;
 import org.togetherjava.tjbot.features.componentids.ComponentIdInteractor;
 import org.togetherjava.tjbot.features.jshell.JShellEval;
 import org.togetherjava.tjbot.features.utils.CodeFence;
+import org.togetherjava.tjbot.features.utils.MessageAnalysis;
 import org.togetherjava.tjbot.features.utils.MessageUtils;
 
 import javax.annotation.Nullable;
@@ -209,7 +210,7 @@ public final class CodeMessageHandler extends MessageReceiverAdapter implements
     }
 
     @Override
-    public void onMessageUpdated(MessageUpdateEvent event) {
+    public void onMessageUpdated(MessageUpdateEvent event, MessageAnalysis analysis) {
         long originalMessageId = event.getMessageIdLong();
 
         Long codeReplyMessageId = originalMessageToCodeReply.getIfPresent(originalMessageId);
@@ -219,7 +220,8 @@ public final class CodeMessageHandler extends MessageReceiverAdapter implements
         }
 
         // Edit the code reply as well by re-applying the current action
-        CodeFence code = extractCodeOrFallback(event.getMessage().getContentRaw());
+        CodeFence code = analysis.getCodeFence()
+            .orElseGet(() -> fallbackCode(event.getMessage().getContentRaw()));
 
         event.getChannel().retrieveMessageById(codeReplyMessageId).flatMap(codeReplyMessage -> {
             Optional<CodeAction> maybeCodeAction = getCurrentActionFromCodeReply(codeReplyMessage);
@@ -266,6 +268,10 @@ public final class CodeMessageHandler extends MessageReceiverAdapter implements
     }
 
     private static CodeFence extractCodeOrFallback(String content) {
-        return MessageUtils.extractCode(content).orElseGet(() -> new CodeFence("java", content));
+        return MessageUtils.extractCode(content).orElseGet(() -> fallbackCode(content));
+    }
+
+    private static CodeFence fallbackCode(String content) {
+        return new CodeFence("java", content);
     }
 }
@@ -0,0 +1,124 @@
+package org.togetherjava.tjbot.features.componentids;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Serializes component IDs to the form they are stored in the database, see
+ * {@link ComponentIdStore}.
+ * <p>
+ * The format is versioned. It starts with the control character {@code U+0001}, which can not
+ * start the legacy format, followed by the version, currently {@code 1}. Then the name of the user
+ * interactor and each element follow, each as its length in decimal, a colon and the text itself.
+ * For example, the component ID {@code ("s-tag", ["java", ""])} is serialized to
+ * {@code U+0001 1 5:s-tag4:java0:}, without the spaces. Unlike CSV, nothing has to be quoted or
+ * escaped, so encoding is a single pass over the text.
+ * <p>
+ * Component IDs stored before the format was introduced are serialized as CSV, which is still
+ * supported for decoding, see {@link #isLegacy(String)}.
+ */
+final class ComponentIdCodec {
+    private static final char FORMAT_MARKER = '\u0001';
+    private static final char VERSION = '1';
+    private static final char LENGTH_DELIMITER = ':';
+    /**
+     * Prefix of all component IDs serialized in the current format.
+     */
+    static final String CURRENT_PREFIX = String.valueOf(FORMAT_MARKER) + VERSION;
+
+    private static final ObjectReader LEGACY_READER;
+
+    static {
+        CsvMapper csv = new CsvMapper();
+        LEGACY_READER =
+                csv.readerFor(ComponentId.class).with(csv.schemaFor(ComponentId.class));
+    }
+
+    private ComponentIdCodec() {
+        throw new UnsupportedOperationException("Utility class, construction not supported");
+    }
+
+    /**
+     * Serializes the given component ID in the current format.
+     *
+     * @param componentId the component ID to serialize
+     * @return the serialized component ID
+     */
+    static String encode(ComponentId componentId) {
+        StringBuilder encoded = new StringBuilder(CURRENT_PREFIX);
+        appendField(encoded, componentId.userInteractorName());
+        componentId.elements().forEach(element -> appendField(encoded, element));
+        return encoded.toString();
+    }
+
+    private static void appendField(StringBuilder encoded, String field) {
+        encoded.append(field.length()).append(LENGTH_DELIMITER).append(field);
+    }
+
+    /**
+     * Deserializes the given component ID, in the current or in the legacy format.
+     *
+     * @param encoded the serialized component ID
+     * @return the deserialized component ID
+     * @throws InvalidComponentIdFormatException if the component ID is malformed
+     */
+    static ComponentId decode(String encoded) {
+        if (isLegacy(encoded)) {
+            return decodeLegacy(encoded);
+        }
+        if (!encoded.startsWith(CURRENT_PREFIX)) {
+            throw new InvalidComponentIdFormatException(
+                    "Unsupported version of the component ID format");
+        }
+
+        List<String> fields = new ArrayList<>();
+        int position = CURRENT_PREFIX.length();
+        while (position < encoded.length()) {
+            int delimiter = encoded.indexOf(LENGTH_DELIMITER, position);
+            if (delimiter == -1) {
+                throw new InvalidComponentIdFormatException("Missing the length of a field");
+            }
+
+            int length;
+            try {
+                length = Integer.parseInt(encoded, position, delimiter, 10);
+            } catch (NumberFormatException e) {
+                throw new InvalidComponentIdFormatException(e);
+            }
+            int fieldEnd = delimiter + 1 + length;
+            if (length < 0 || fieldEnd > encoded.length()) {
+                throw new InvalidComponentIdFormatException("A field exceeds the component ID");
+            }
+
+            fields.add(encoded.substring(delimiter + 1, fieldEnd));
+            position = fieldEnd;
+        }
+
+        if (fields.isEmpty()) {
+            throw new InvalidComponentIdFormatException("Missing the user interactor name");
+        }
+        return new ComponentId(fields.getFirst(), fields.subList(1, fields.size()));
+    }
+
+    /**
+     * Whether the given serialized component ID is in the legacy CSV format.
+     *
+     * @param encoded the serialized component ID
+     * @return whether it has to be rewritten to be in the current format
+     */
+    static boolean isLegacy(String encoded) {
+        return encoded.isEmpty() || encoded.charAt(0) != FORMAT_MARKER;
+    }
+
+    private static ComponentId decodeLegacy(String encoded) {
+        try {
+            return LEGACY_READER.readValue(encoded);
+        } catch (JsonProcessingException e) {
+            throw new InvalidComponentIdFormatException(e);
+        }
+    }
+}
@@ -1,20 +1,20 @@
 package org.togetherjava.tjbot.features.componentids;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.dataformat.csv.CsvMapper;
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
-import org.jooq.Result;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.togetherjava.tjbot.db.Database;
+import org.togetherjava.tjbot.db.PurgeEngine;
 import org.togetherjava.tjbot.db.generated.tables.ComponentIds;
 import org.togetherjava.tjbot.db.generated.tables.records.ComponentIdsRecord;
 import org.togetherjava.tjbot.features.SlashCommand;
 import org.togetherjava.tjbot.logging.LogMarkers;
 
+import javax.annotation.Nullable;
+
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.time.temporal.TemporalUnit;
@@ -22,15 +22,19 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
@@ -51,6 +55,16 @@ import java.util.stream.Collectors;
  * <strong>LRU-cache</strong> and each call of {@link #get(UUID)} will update the usage-timestamp
  * for the component ID.
  * <p>
+ * Lookups are served from an in-memory cache without locking. On a cache miss, the component ID is
+ * loaded from the database once, concurrent lookups of the same UUID wait for that load. Usage
+ * timestamps are collected in memory and written to the database in a single batched update every
+ * minute. New component IDs are written behind, i.e. they are available right away but committed
+ * to the database asynchronously, together with other writes.
+ * <p>
+ * Component IDs are stored in the format of {@link ComponentIdCodec}. Records written in a previous
+ * format are still readable and are rewritten to the current format in the background, in small
+ * batches.
+ * <p>
  * Users can react to eviction by adding a listener to
  * {@link #addComponentIdRemovedListener(Consumer)}.
  * <p>
@@ -59,7 +73,6 @@ import java.util.stream.Collectors;
 @SuppressWarnings("ClassWithTooManyFields")
 public final class ComponentIdStore implements AutoCloseable {
     private static final Logger logger = LoggerFactory.getLogger(ComponentIdStore.class);
-    private static final CsvMapper CSV = new CsvMapper();
 
     private static final long EVICT_DATABASE_EVERY_INITIAL_DELAY = 1;
     private static final long EVICT_DATABASE_EVERY_DELAY = 15;
@@ -71,8 +84,18 @@ public final class ComponentIdStore implements AutoCloseable {
     private static final int EVICT_CACHE_OLDER_THAN = 2;
     private static final ChronoUnit EVICT_CACHE_OLDER_THAN_UNIT = ChronoUnit.HOURS;
 
-    private final Object storeLock = new Object();
+    private static final long HEAT_FLUSH_INTERVAL_SECONDS = 60;
+    /**
+     * UUIDs per {@code UPDATE} statement, which has to stay below the SQLite limit of bind
+     * parameters per statement.
+     */
+    private static final int MAX_HEATED_PER_UPDATE = 500;
+
+    private static final long MIGRATE_EVERY_MINUTES = 5;
+    private static final int MIGRATION_BATCH_SIZE = 500;
+
     private final Database database;
+    private final PurgeEngine purgeEngine;
     /**
      * In-memory cache which is used as first stage before the database, to speedup look-ups. Should
      * cover the majority of all queries, as most queries (e.g. button clicks) come from messages
@@ -81,12 +104,28 @@ public final class ComponentIdStore implements AutoCloseable {
     private final Cache<UUID, ComponentId> storeCache;
     private final Collection<Consumer<ComponentId>> componentIdRemovedListeners =
             Collections.synchronizedCollection(new ArrayList<>());
-    private final ExecutorService heatService = Executors.newCachedThreadPool();
+    /**
+     * Component IDs that have been put but are not committed to the database yet.
+     */
+    private final Map<UUID, ComponentId> uuidToPendingComponentId = new ConcurrentHashMap<>();
+    /**
+     * UUIDs of the component IDs used since the last heat flush, see {@link #flushHeat()}.
+     */
+    private final Set<UUID> heatedUuids = ConcurrentHashMap.newKeySet();
     private final ExecutorService componentIdRemovedListenerService =
             Executors.newCachedThreadPool();
     private final ScheduledExecutorService evictionService =
             Executors.newSingleThreadScheduledExecutor();
     private final ScheduledFuture<?> evictionTask;
+    private final ScheduledFuture<?> heatFlushTask;
+    private final ScheduledFuture<?> migrationTask;
+    /**
+     * UUID after which the next batch of component IDs is migrated to the current format, see
+     * {@link #migrateLegacy()}. {@code null} once all have been migrated. Only accessed by the
+     * eviction service.
+     */
+    @Nullable
+    private String migrationCursor = "";
     private final long evictDatabaseOlderThan;
     private final TemporalUnit evictDatabaseOlderThanUnit;
 
@@ -117,6 +156,7 @@ public final class ComponentIdStore implements AutoCloseable {
     public ComponentIdStore(Database database, long evictEveryInitialDelay, long evictEveryDelay,
             ChronoUnit evictEveryUnit, long evictOlderThan, ChronoUnit evictOlderThanUnit) {
         this.database = database;
+        purgeEngine = new PurgeEngine(database);
         evictDatabaseOlderThan = evictOlderThan;
         evictDatabaseOlderThanUnit = evictOlderThanUnit;
 
@@ -134,8 +174,13 @@ public final class ComponentIdStore implements AutoCloseable {
         };
         evictionTask = evictionService.scheduleWithFixedDelay(evictCommand, evictEveryInitialDelay,
                 evictEveryDelay, TimeUnit.of(evictEveryUnit));
+        heatFlushTask = evictionService.scheduleWithFixedDelay(this::flushHeatSafely,
+                HEAT_FLUSH_INTERVAL_SECONDS, HEAT_FLUSH_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        migrationTask = evictionService.scheduleWithFixedDelay(this::migrateLegacySafely,
+                MIGRATE_EVERY_MINUTES, MIGRATE_EVERY_MINUTES, TimeUnit.MINUTES);
 
-        logDebugSizeStatistics();
+        // Counting the records takes a while on large stores, it should not delay the startup
+        evictionService.execute(this::logDebugSizeStatistics);
     }
 
     /**
@@ -165,21 +210,23 @@ public final class ComponentIdStore implements AutoCloseable {
      * @throws InvalidComponentIdFormatException if the given component ID was in an unexpected
      *         format and could not be serialized
      */
-    @SuppressWarnings({"WeakerAccess", "squid:S2259"})
+    @SuppressWarnings("WeakerAccess")
     public Optional<ComponentId> get(UUID uuid) {
-        synchronized (storeLock) {
-            // Get it from the cache or, if not found, the database
-            return Optional.ofNullable(storeCache.getIfPresent(uuid)).or(() -> {
-                Optional<ComponentId> databaseComponentId = getFromDatabase(uuid);
-                databaseComponentId.ifPresent(id -> {
-                    // Put it back into the cache
-                    storeCache.put(uuid, id);
-
-                    heatService.execute(() -> heatRecord(uuid));
-                });
-                return databaseComponentId;
-            });
+        // Get it from the cache or, if not found, load it into the cache. Caffeine loads each key
+        // at most once at a time, concurrent lookups of the same UUID wait for that load
+        Optional<ComponentId> componentId = Optional.ofNullable(storeCache.get(uuid, this::load));
+        componentId.ifPresent(_ -> heatedUuids.add(uuid));
+        return componentId;
+    }
+
+    @Nullable
+    private ComponentId load(UUID uuid) {
+        // Not committed yet, but maybe already evicted from the cache
+        ComponentId pendingComponentId = uuidToPendingComponentId.get(uuid);
+        if (pendingComponentId != null) {
+            return pendingComponentId;
         }
+        return getFromDatabase(uuid).orElse(null);
     }
 
     /**
@@ -188,6 +235,9 @@ public final class ComponentIdStore implements AutoCloseable {
      * The method throws if the UUID is already associated to a component ID. After a component ID
      * has been evicted (see {@link #addComponentIdRemovedListener(Consumer)}), it is safe to call
      * this method again for the evicted UUID.
+     * <p>
+     * The component ID is available right away, but written to the database asynchronously. The
+     * method does not wait for the write to be committed.
      *
      * @param uuid the UUID to associate the component ID with
      * @param componentId the component ID to add to the store
@@ -203,28 +253,30 @@ public final class ComponentIdStore implements AutoCloseable {
                 () -> "The UUID '%s' already exists and is associated to a component id."
                     .formatted(uuid);
 
-        synchronized (storeLock) {
-            if (storeCache.getIfPresent(uuid) != null) {
-                throw new IllegalArgumentException(alreadyExistsMessageSupplier.get());
-            }
-            storeCache.put(uuid, componentId);
-
-            database.writeTransaction(context -> {
-                String uuidText = uuid.toString();
-                if (context.fetchExists(ComponentIds.COMPONENT_IDS,
-                        ComponentIds.COMPONENT_IDS.UUID.eq(uuidText))) {
-                    throw new IllegalArgumentException(alreadyExistsMessageSupplier.get());
+        String uuidText = uuid.toString();
+        String serializedComponentId = ComponentIdCodec.encode(componentId);
+        if (storeCache.getIfPresent(uuid) != null
+                || database.read(context -> context.fetchExists(ComponentIds.COMPONENT_IDS,
+                        ComponentIds.COMPONENT_IDS.UUID.eq(uuidText)))
+                || uuidToPendingComponentId.putIfAbsent(uuid, componentId) != null) {
+            throw new IllegalArgumentException(alreadyExistsMessageSupplier.get());
+        }
+        storeCache.put(uuid, componentId);
+
+        Instant lastUsed = Instant.now();
+        database.writeAsync(context -> context.newRecord(ComponentIds.COMPONENT_IDS)
+            .setUuid(uuidText)
+            .setComponentId(serializedComponentId)
+            .setLastUsed(lastUsed)
+            .setLifespan(lifespan.name())
+            .insert())
+            .whenComplete((_, failure) -> {
+                uuidToPendingComponentId.remove(uuid);
+                if (failure != null) {
+                    logger.error("Failed to persist the component id with uuid '{}'", uuid,
+                            failure);
                 }
-
-                ComponentIdsRecord componentIdsRecord =
-                        context.newRecord(ComponentIds.COMPONENT_IDS)
-                            .setUuid(uuid.toString())
-                            .setComponentId(serializeComponentId(componentId))
-                            .setLastUsed(Instant.now())
-                            .setLifespan(lifespan.name());
-                componentIdsRecord.insert();
             });
-        }
     }
 
     private Optional<ComponentId> getFromDatabase(UUID uuid) {
@@ -233,93 +285,136 @@ public final class ComponentIdStore implements AutoCloseable {
                 .where(ComponentIds.COMPONENT_IDS.UUID.eq(uuid.toString()))
                 .fetchOne())
             .map(ComponentIdsRecord::getComponentId)
-            .map(ComponentIdStore::deserializeComponentId));
+            .map(ComponentIdCodec::decode));
+    }
+
+    private void flushHeatSafely() {
+        try {
+            flushHeat();
+        } catch (Exception e) {
+            logger.error("Unknown error while heating the component ID store database.", e);
+        }
     }
 
     /**
-     * Updates the <b>last_used</b> timestamp for the given UUID in the database to the current
-     * time. This effectively heats the record, so that it will not be targeted for the next
-     * evictions.
-     *
-     * @param uuid the uuid to heat
-     * @throws IllegalArgumentException if there is no, or multiple, records associated to that UUID
+     * Updates the <b>last_used</b> timestamp of all component IDs used since the last flush in
+     * the database to the current time. This effectively heats the records, so that they will not
+     * be targeted for the next evictions.
      */
-    private void heatRecord(UUID uuid) {
-        int updatedRecords;
-        synchronized (storeLock) {
-            updatedRecords =
-                    database.writeAndProvide(context -> context.update(ComponentIds.COMPONENT_IDS)
-                        .set(ComponentIds.COMPONENT_IDS.LAST_USED, Instant.now())
-                        .where(ComponentIds.COMPONENT_IDS.UUID.eq(uuid.toString()))
-                        .execute());
+    private void flushHeat() {
+        List<String> uuids = new ArrayList<>(heatedUuids.size());
+        for (Iterator<UUID> heatedIterator = heatedUuids.iterator(); heatedIterator.hasNext();) {
+            uuids.add(heatedIterator.next().toString());
+            heatedIterator.remove();
         }
-
-        // NOTE Case 0, where no records are updated, is ignored on purpose.
-        // This happens when the entry has been evicted before the heating was executed.
-        if (updatedRecords > 1) {
-            throw new AssertionError(
-                    "Multiple records had the UUID '%s' even though it is unique.".formatted(uuid));
+        if (uuids.isEmpty()) {
+            return;
         }
+
+        // NOTE Records that are not updated, since they have been evicted or are not committed
+        // yet, are ignored on purpose
+        Instant now = Instant.now();
+        database.writeTransaction(context -> {
+            for (int from = 0; from < uuids.size(); from += MAX_HEATED_PER_UPDATE) {
+                List<String> batch =
+                        uuids.subList(from, Math.min(from + MAX_HEATED_PER_UPDATE, uuids.size()));
+                context.update(ComponentIds.COMPONENT_IDS)
+                    .set(ComponentIds.COMPONENT_IDS.LAST_USED, now)
+                    .where(ComponentIds.COMPONENT_IDS.UUID.in(batch))
+                    .execute();
+            }
+        });
+        logger.debug("Heated {} component ids in the database", uuids.size());
     }
 
     private void evictDatabase() {
         logger.debug("Evicting old non-permanent component ids from the database...");
-        AtomicInteger evictedCounter = new AtomicInteger(0);
-        synchronized (storeLock) {
-            database.write(context -> {
-                Result<ComponentIdsRecord> oldRecords = context
-                    .selectFrom(ComponentIds.COMPONENT_IDS)
-                    .where(ComponentIds.COMPONENT_IDS.LIFESPAN.notEqual(Lifespan.PERMANENT.name())
-                        .and(ComponentIds.COMPONENT_IDS.LAST_USED.lessOrEqual(Instant.now()
-                            .minus(evictDatabaseOlderThan, evictDatabaseOlderThanUnit))))
-                    .fetch();
-
-                oldRecords.forEach(recordToDelete -> {
-                    UUID uuid = UUID
-                        .fromString(recordToDelete.getValue(ComponentIds.COMPONENT_IDS.UUID));
-                    ComponentId componentId = deserializeComponentId(
-                            recordToDelete.getValue(ComponentIds.COMPONENT_IDS.COMPONENT_ID));
-                    Instant lastUsed = recordToDelete.getLastUsed();
-
-                    recordToDelete.delete();
-                    evictedCounter.getAndIncrement();
-                    logger.debug(
-                            "Evicted component id with uuid '{}' from user interactor '{}', last used '{}'",
-                            uuid, componentId.userInteractorName(), lastUsed);
-
-                    // Remove them from the cache if still in there
-                    storeCache.invalidate(uuid);
-                    // Notify all listeners, but non-blocking to not delay eviction
-                    componentIdRemovedListeners
-                        .forEach(listener -> componentIdRemovedListenerService
-                            .execute(() -> listener.accept(componentId)));
-                });
-            });
+        // Deleted in batches, so that the eviction does not block button clicks and other writes
+        Instant evictOlderThan =
+                Instant.now().minus(evictDatabaseOlderThan, evictDatabaseOlderThanUnit);
+        long evictedCount = purgeEngine.purge(ComponentIds.COMPONENT_IDS,
+                ComponentIds.COMPONENT_IDS.LIFESPAN.notEqual(Lifespan.PERMANENT.name())
+                    .and(ComponentIds.COMPONENT_IDS.LAST_USED.lessOrEqual(evictOlderThan)),
+                evictedRecords -> evictedRecords.forEach(this::onRecordEvicted))
+            .deletedRows();
+
+        if (evictedCount != 0) {
+            logger.info("Evicted {} old non-permanent component ids from the database",
+                    evictedCount);
         }
+    }
 
-        if (evictedCounter.get() != 0) {
-            logger.info("Evicted {} old non-permanent component ids from the database",
-                    evictedCounter.get());
+    private void onRecordEvicted(ComponentIdsRecord evictedRecord) {
+        UUID uuid = UUID.fromString(evictedRecord.getUuid());
+        // Remove them from the cache if still in there
+        storeCache.invalidate(uuid);
+
+        // Deserializing is only needed for the log and the listeners, which are often neither
+        // enabled nor registered
+        if (!logger.isDebugEnabled() && componentIdRemovedListeners.isEmpty()) {
+            return;
         }
+        ComponentId componentId = ComponentIdCodec.decode(evictedRecord.getComponentId());
+        logger.debug(
+                "Evicted component id with uuid '{}' from user interactor '{}', last used '{}'",
+                uuid, componentId.userInteractorName(), evictedRecord.getLastUsed());
+
+        // Notify all listeners, but non-blocking to not delay eviction
+        componentIdRemovedListeners.forEach(listener -> componentIdRemovedListenerService
+            .execute(() -> listener.accept(componentId)));
     }
 
-    private static String serializeComponentId(ComponentId componentId) {
+    private void migrateLegacySafely() {
         try {
-            return CSV.writerFor(ComponentId.class)
-                .with(CSV.schemaFor(ComponentId.class))
-                .writeValueAsString(componentId);
-        } catch (JsonProcessingException e) {
-            throw new InvalidComponentIdFormatException(e);
+            migrateLegacy();
+        } catch (Exception e) {
+            logger.error("Unknown error while migrating the component ID store database.", e);
         }
     }
 
-    private static ComponentId deserializeComponentId(String componentId) {
-        try {
-            return CSV.readerFor(ComponentId.class)
-                .with(CSV.schemaFor(ComponentId.class))
-                .readValue(componentId);
-        } catch (JsonProcessingException e) {
-            throw new InvalidComponentIdFormatException(e);
+    /**
+     * Rewrites a batch of component IDs still stored in a previous format to the current format,
+     * see {@link ComponentIdCodec}. Batches are small and walked by UUID, so that the migration
+     * neither blocks other writes nor gets stuck on records that can not be deserialized.
+     */
+    private void migrateLegacy() {
+        if (migrationCursor == null) {
+            return;
+        }
+
+        List<ComponentIdsRecord> legacyRecords =
+                database.read(context -> context.selectFrom(ComponentIds.COMPONENT_IDS)
+                    .where(ComponentIds.COMPONENT_IDS.COMPONENT_ID
+                        .startsWith(ComponentIdCodec.CURRENT_PREFIX)
+                        .not())
+                    .and(ComponentIds.COMPONENT_IDS.UUID.greaterThan(migrationCursor))
+                    .orderBy(ComponentIds.COMPONENT_IDS.UUID)
+                    .limit(MIGRATION_BATCH_SIZE)
+                    .fetch());
+
+        Map<String, String> uuidToMigrated = new LinkedHashMap<>();
+        for (ComponentIdsRecord legacyRecord : legacyRecords) {
+            try {
+                uuidToMigrated.put(legacyRecord.getUuid(), ComponentIdCodec
+                    .encode(ComponentIdCodec.decode(legacyRecord.getComponentId())));
+            } catch (InvalidComponentIdFormatException e) {
+                logger.warn("Unable to migrate the malformed component id with uuid '{}'",
+                        legacyRecord.getUuid(), e);
+            }
+        }
+        // NOTE Records evicted in the meantime are not updated, which is fine
+        database.writeTransaction(context -> uuidToMigrated
+            .forEach((uuid, migrated) -> context.update(ComponentIds.COMPONENT_IDS)
+                .set(ComponentIds.COMPONENT_IDS.COMPONENT_ID, migrated)
+                .where(ComponentIds.COMPONENT_IDS.UUID.eq(uuid))
+                .execute()));
+
+        if (legacyRecords.size() < MIGRATION_BATCH_SIZE) {
+            migrationCursor = null;
+            logger.debug("Migrated all component ids to the current format");
+        } else {
+            migrationCursor = legacyRecords.getLast().getUuid();
+            logger.debug("Migrated {} component ids to the current format", uuidToMigrated.size());
         }
     }
 
@@ -341,11 +436,13 @@ public final class ComponentIdStore implements AutoCloseable {
 
     @Override
     public void close() {
-        heatService.shutdown();
         if (evictionTask != null) {
             evictionTask.cancel(false);
         }
+        heatFlushTask.cancel(false);
+        migrationTask.cancel(false);
         evictionService.shutdown();
+        flushHeatSafely();
         componentIdRemovedListenerService.shutdown();
     }
 }
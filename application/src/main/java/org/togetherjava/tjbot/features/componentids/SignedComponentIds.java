@@ -0,0 +1,247 @@
+package org.togetherjava.tjbot.features.componentids;
+
+import org.togetherjava.tjbot.features.utils.Hashing;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.InstantSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Encodes small component IDs directly into the ID transported by Discord, instead of storing them
+ * in a {@link ComponentIdStore}. Parsing them back needs neither the database nor a cache.
+ * <p>
+ * Discord allows IDs of up to {@value MAX_ID_LENGTH} characters. A signed ID consists of the
+ * {@value PREFIX} prefix, followed by the URL-safe Base64 encoding of:
+ * <ul>
+ * <li>the version of the format, 1 byte</li>
+ * <li>when the ID was issued, as seconds since the epoch, 4 bytes unsigned</li>
+ * <li>the id of the user interactor, the first {@value INTERACTOR_ID_BYTES} bytes of the SHA-256
+ * hash of its name</li>
+ * <li>the amount of elements, 1 byte</li>
+ * <li>each element as its length, 1 byte, followed by its UTF-8 bytes</li>
+ * <li>the HMAC-SHA256 of all of the above, truncated to {@value SIGNATURE_BYTES} bytes</li>
+ * </ul>
+ * The signature prevents users from crafting component IDs with arbitrary elements. Component IDs
+ * that do not fit must be stored instead, see {@link #encode(ComponentId)}.
+ * <p>
+ * Since signed IDs do not occupy any storage, they can not be evicted. Instead, they expire
+ * {@value MAX_AGE_DAYS} days after they were issued, as long as regular IDs are kept in the store.
+ * They also become invalid if the key changes or their user interactor is removed. Hence, only IDs
+ * with a {@link Lifespan#REGULAR regular} lifespan should be signed, while
+ * {@link Lifespan#PERMANENT permanent} IDs are stored, so that they survive a rotation of the key.
+ * <p>
+ * Instances are thread-safe.
+ */
+public final class SignedComponentIds {
+    private static final String PREFIX = "~";
+    private static final int MAX_ID_LENGTH = 100;
+    /**
+     * The most bytes whose Base64 encoding, without padding, still fits into an ID.
+     */
+    private static final int MAX_ENCODED_BYTES = (MAX_ID_LENGTH - PREFIX.length()) * 3 / 4;
+    private static final byte VERSION = 2;
+    private static final int MAX_AGE_DAYS = 20;
+    private static final Duration MAX_AGE = Duration.ofDays(MAX_AGE_DAYS);
+    private static final int INTERACTOR_ID_BYTES = 3;
+    private static final int SIGNATURE_BYTES = 8;
+    private static final int MAX_UNSIGNED_BYTE = 0xFF;
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+
+    private final SecretKeySpec key;
+    private final InstantSource clock;
+    private final Map<String, Integer> nameToInteractorId = new HashMap<>();
+    private final Map<Integer, String> interactorIdToName = new HashMap<>();
+
+    /**
+     * Creates a new instance.
+     * <p>
+     * The key and the names must be the same for all processes of the bot, and should stay the
+     * same across restarts, for IDs to remain valid.
+     *
+     * @param key the secret key to sign IDs with
+     * @param userInteractorNames the names of all user interactors, as used in
+     *        {@link ComponentId#userInteractorName()}
+     */
+    public SignedComponentIds(byte[] key, Collection<String> userInteractorNames) {
+        this(key, userInteractorNames, InstantSource.system());
+    }
+
+    /**
+     * Creates a new instance, which issues and expires IDs according to the given clock.
+     *
+     * @param key the secret key to sign IDs with
+     * @param userInteractorNames the names of all user interactors, as used in
+     *        {@link ComponentId#userInteractorName()}
+     * @param clock the source of the current time
+     */
+    SignedComponentIds(byte[] key, Collection<String> userInteractorNames, InstantSource clock) {
+        this.key = new SecretKeySpec(key.clone(), MAC_ALGORITHM);
+        this.clock = clock;
+
+        Set<Integer> collidingIds = new HashSet<>();
+        for (String name : userInteractorNames) {
+            int interactorId = computeInteractorId(name);
+            if (interactorIdToName.putIfAbsent(interactorId, name) != null) {
+                collidingIds.add(interactorId);
+            }
+        }
+        // Interactors with colliding ids are not signed, their IDs are stored instead
+        collidingIds.forEach(interactorIdToName::remove);
+        interactorIdToName
+            .forEach((interactorId, name) -> nameToInteractorId.put(name, interactorId));
+    }
+
+    /**
+     * Whether the given ID is a signed ID, as opposed to the UUID of a stored component ID.
+     *
+     * @param id the ID to check
+     * @return whether the ID is signed
+     */
+    public static boolean isSigned(String id) {
+        return id.startsWith(PREFIX);
+    }
+
+    /**
+     * Encodes the given component ID into a signed ID, if it fits.
+     *
+     * @param componentId the component ID to encode
+     * @return the signed ID, or empty if the component ID is too large or its user interactor is
+     *         unknown
+     */
+    public Optional<String> encode(ComponentId componentId) {
+        Integer interactorId = nameToInteractorId.get(componentId.userInteractorName());
+        List<String> elements = componentId.elements();
+        if (interactorId == null || elements.size() > MAX_UNSIGNED_BYTE) {
+            return Optional.empty();
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(MAX_ENCODED_BYTES);
+        buffer.put(VERSION);
+        buffer.putInt((int) clock.instant().getEpochSecond());
+        putInteractorId(buffer, interactorId);
+        buffer.put((byte) elements.size());
+        for (String element : elements) {
+            byte[] elementBytes = element.getBytes(StandardCharsets.UTF_8);
+            if (elementBytes.length > MAX_UNSIGNED_BYTE
+                    || buffer.remaining() < 1 + elementBytes.length + SIGNATURE_BYTES) {
+                return Optional.empty();
+            }
+            buffer.put((byte) elementBytes.length);
+            buffer.put(elementBytes);
+        }
+        if (buffer.remaining() < SIGNATURE_BYTES) {
+            return Optional.empty();
+        }
+        buffer.put(sign(buffer.array(), buffer.position()));
+
+        return Optional.of(PREFIX + Base64.getUrlEncoder()
+            .withoutPadding()
+            .encodeToString(Arrays.copyOf(buffer.array(), buffer.position())));
+    }
+
+    /**
+     * Decodes the given signed ID, see {@link #isSigned(String)}.
+     *
+     * @param id the signed ID to decode
+     * @return the component ID encoded in the ID, or empty if the ID has expired
+     * @throws InvalidComponentIdFormatException if the ID is malformed, its signature is invalid or
+     *         its user interactor is unknown
+     */
+    public Optional<ComponentId> decode(String id) {
+        if (!isSigned(id)) {
+            throw new InvalidComponentIdFormatException("The ID is not signed");
+        }
+
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(id.substring(PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidComponentIdFormatException(e);
+        }
+        int signedLength = bytes.length - SIGNATURE_BYTES;
+        if (signedLength < 1 + Integer.BYTES + INTERACTOR_ID_BYTES + 1) {
+            throw new InvalidComponentIdFormatException("The ID is too short");
+        }
+        if (!MessageDigest.isEqual(sign(bytes, signedLength),
+                Arrays.copyOfRange(bytes, signedLength, bytes.length))) {
+            throw new InvalidComponentIdFormatException("The signature of the ID is invalid");
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, signedLength);
+        byte version = buffer.get();
+        if (version != VERSION) {
+            throw new InvalidComponentIdFormatException("Unsupported version " + version);
+        }
+        Instant issuedAt = Instant.ofEpochSecond(Integer.toUnsignedLong(buffer.getInt()));
+        if (issuedAt.plus(MAX_AGE).isBefore(clock.instant())) {
+            return Optional.empty();
+        }
+        String userInteractorName = interactorIdToName.get(getInteractorId(buffer));
+        if (userInteractorName == null) {
+            throw new InvalidComponentIdFormatException("The user interactor is unknown");
+        }
+
+        try {
+            int elementCount = Byte.toUnsignedInt(buffer.get());
+            List<String> elements = new ArrayList<>(elementCount);
+            for (int i = 0; i < elementCount; i++) {
+                int elementLength = Byte.toUnsignedInt(buffer.get());
+                elements.add(new String(bytes, buffer.position(), elementLength,
+                        StandardCharsets.UTF_8));
+                buffer.position(buffer.position() + elementLength);
+            }
+            return Optional.of(new ComponentId(userInteractorName, elements));
+        } catch (RuntimeException e) {
+            // Only possible for a correctly signed but malformed ID, i.e. a bug in the encoding
+            throw new InvalidComponentIdFormatException(e);
+        }
+    }
+
+    private byte[] sign(byte[] data, int length) {
+        try {
+            Mac mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(key);
+            mac.update(data, 0, length);
+            return Arrays.copyOf(mac.doFinal(), SIGNATURE_BYTES);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is supported by every JVM", e);
+        }
+    }
+
+    private static int computeInteractorId(String userInteractorName) {
+        byte[] hash =
+                Hashing.hash("SHA-256", userInteractorName.getBytes(StandardCharsets.UTF_8));
+        return getInteractorId(ByteBuffer.wrap(hash));
+    }
+
+    private static void putInteractorId(ByteBuffer buffer, int interactorId) {
+        for (int i = INTERACTOR_ID_BYTES - 1; i >= 0; i--) {
+            buffer.put((byte) (interactorId >>> (Byte.SIZE * i)));
+        }
+    }
+
+    private static int getInteractorId(ByteBuffer buffer) {
+        int interactorId = 0;
+        for (int i = 0; i < INTERACTOR_ID_BYTES; i++) {
+            interactorId = (interactorId << Byte.SIZE) | Byte.toUnsignedInt(buffer.get());
+        }
+        return interactorId;
+    }
+}
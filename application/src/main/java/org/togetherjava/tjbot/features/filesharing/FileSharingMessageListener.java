@@ -3,8 +3,6 @@ package org.togetherjava.tjbot.features.filesharing;
 import net.dv8tion.jda.api.entities.Member;
 import net.dv8tion.jda.api.entities.Message;
 import net.dv8tion.jda.api.entities.User;
-import net.dv8tion.jda.api.entities.channel.ChannelType;
-import net.dv8tion.jda.api.entities.channel.concrete.ThreadChannel;
 import net.dv8tion.jda.api.events.interaction.component.ButtonInteractionEvent;
 import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
 import net.dv8tion.jda.api.interactions.components.buttons.Button;
@@ -22,6 +20,7 @@ import org.togetherjava.tjbot.features.analytics.Metrics;
 import org.togetherjava.tjbot.features.componentids.ComponentIdGenerator;
 import org.togetherjava.tjbot.features.componentids.ComponentIdInteractor;
 import org.togetherjava.tjbot.features.utils.Guilds;
+import org.togetherjava.tjbot.features.utils.MessageAnalysis;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -51,7 +50,6 @@ public final class FileSharingMessageListener extends MessageReceiverAdapter
     private final Set<String> extensionFilter = Set.of("txt", "java", "gradle", "xml", "kt", "json",
             "fxml", "css", "c", "h", "cpp", "py", "yml");
 
-    private final Predicate<String> isHelpForumName;
     private final Predicate<String> isSoftModRole;
 
     /**
@@ -65,16 +63,14 @@ public final class FileSharingMessageListener extends MessageReceiverAdapter
         super(Pattern.compile(".*"));
         githubApiKey = config.getGitHubApiKey();
         this.metrics = metrics;
-        isHelpForumName =
-                Pattern.compile(config.getHelpSystem().getHelpForumPattern()).asMatchPredicate();
         isSoftModRole = Pattern.compile(config.getSoftModerationRolePattern()).asMatchPredicate();
     }
 
     @Override
-    public void onMessageReceived(MessageReceivedEvent event) {
+    public void onMessageReceived(MessageReceivedEvent event, MessageAnalysis analysis) {
         User author = event.getAuthor();
 
-        if (author.isBot() || event.isWebhookMessage() || !isHelpThread(event)) {
+        if (author.isBot() || event.isWebhookMessage() || !analysis.isInHelpThread()) {
             return;
         }
 
@@ -199,16 +195,6 @@ public final class FileSharingMessageListener extends MessageReceiverAdapter
         message.reply(messageContent).setActionRow(gist, delete).queue();
     }
 
-    private boolean isHelpThread(MessageReceivedEvent event) {
-        if (event.getChannelType() != ChannelType.GUILD_PUBLIC_THREAD) {
-            return false;
-        }
-
-        ThreadChannel thread = event.getChannel().asThreadChannel();
-        String rootChannelName = thread.getParentChannel().getName();
-        return isHelpForumName.test(rootChannelName);
-    }
-
     @Override
     public String getName() {
         return "filesharing";
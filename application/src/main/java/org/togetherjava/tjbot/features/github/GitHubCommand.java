@@ -20,7 +20,6 @@ import java.util.Comparator;
 import java.util.List;
 import java.util.PriorityQueue;
 import java.util.Queue;
-import java.util.concurrent.CompletableFuture;
 import java.util.function.ToIntFunction;
 import java.util.regex.Matcher;
 import java.util.stream.Stream;
@@ -71,14 +70,13 @@ public final class GitHubCommand extends SlashCommandAdapter {
         getData().addOption(OptionType.STRING, TITLE_OPTION,
                 "Title of the issue you're looking for", true, true);
 
-        CompletableFuture.runAsync(() -> {
+        reference.whenReady(() -> {
             try {
                 updateCache();
             } catch (Exception e) {
                 logger.error("Unknown error updating the GitHub cache", e);
             }
         });
-
     }
 
     @Override
@@ -95,6 +93,13 @@ public final class GitHubCommand extends SlashCommandAdapter {
             return;
         }
 
+        if (!reference.isReady()) {
+            event.reply("The GitHub repositories are still loading, please try again in a moment.")
+                .setEphemeral(true)
+                .queue();
+            return;
+        }
+
         int issueId = Integer.parseInt(matcher.group(GitHubReference.ID_GROUP));
         // extracting issue title from "[#10] add more stuff"
         String[] issueData = titleOption.split(" ", 2);
@@ -130,7 +135,7 @@ public final class GitHubCommand extends SlashCommandAdapter {
         }
         event.replyChoiceStrings(choices).queue();
 
-        if (isCacheExpired()) {
+        if (reference.isReady() && isCacheExpired()) {
             updateCache();
         }
     }
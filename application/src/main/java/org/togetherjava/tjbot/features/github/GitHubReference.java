@@ -33,6 +33,7 @@ import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Predicate;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -71,15 +72,16 @@ public final class GitHubReference extends MessageReceiverAdapter {
     private final Metrics metrics;
 
     /**
-     * The repositories that are searched when looking for an issue.
+     * The repositories that are searched when looking for an issue, acquired in the background.
      */
-    private List<GHRepository> repositories;
+    private final CompletableFuture<List<GHRepository>> repositories;
 
     /**
      * Constructs an instance of GitHubReference.
      *
      * This constructor initializes a new GitHubReference with the specified Config. It also sets up
-     * a predicate for matching allowed channels for feature and acquires repositories.
+     * a predicate for matching allowed channels for feature and starts acquiring repositories in
+     * the background, see {@link #isReady()}.
      *
      * @param config The Config to get allowed channel pattern for feature.
      * @param metrics to track events
@@ -90,26 +92,45 @@ public final class GitHubReference extends MessageReceiverAdapter {
         this.hasGithubIssueReferenceEnabled =
                 Pattern.compile(config.getGitHubReferencingEnabledChannelPattern())
                     .asMatchPredicate();
-        acquireRepositories();
+        repositories = CompletableFuture.supplyAsync(this::acquireRepositories);
     }
 
     /**
      * Acquires the list of repositories to use as a source for lookup.
      */
-    private void acquireRepositories() {
+    private List<GHRepository> acquireRepositories() {
+        List<GHRepository> acquiredRepositories = new ArrayList<>();
         try {
-            repositories = new ArrayList<>();
-
             GitHub githubApi = GitHub.connectUsingOAuth(config.getGitHubApiKey());
 
             for (long repoId : config.getGitHubRepositories()) {
-                repositories.add(githubApi.getRepositoryById(repoId));
+                acquiredRepositories.add(githubApi.getRepositoryById(repoId));
             }
         } catch (IOException ex) {
             logger.warn(
                     "The GitHub key ({}) used in this config is invalid. Skipping GitHubReference feature – {}",
                     config.getGitHubApiKey(), ex.getMessage());
         }
+        logger.debug("Acquired {} GitHub repositories", acquiredRepositories.size());
+        return acquiredRepositories;
+    }
+
+    /**
+     * Whether the repositories have been acquired. Until then, no issues are found.
+     *
+     * @return whether the repositories are ready
+     */
+    boolean isReady() {
+        return repositories.isDone();
+    }
+
+    /**
+     * Runs the given action asynchronously, once the repositories have been acquired.
+     *
+     * @param action the action to run
+     */
+    void whenReady(Runnable action) {
+        repositories.thenRunAsync(action);
     }
 
     @Override
@@ -236,7 +257,7 @@ public final class GitHubReference extends MessageReceiverAdapter {
      * Looks through all of the given repositories for an issue/pr with the given id.
      */
     Optional<GHIssue> findIssue(int id, String targetIssueTitle) {
-        return repositories.stream().map(repository -> {
+        return getRepositories().stream().map(repository -> {
             try {
                 GHIssue issue = repository.getIssue(id);
                 if (issue.isPullRequest()) {
@@ -255,7 +276,7 @@ public final class GitHubReference extends MessageReceiverAdapter {
     }
 
     Optional<GHIssue> findIssue(int id, long defaultRepoId) {
-        return repositories.stream()
+        return getRepositories().stream()
             .filter(repository -> repository.getId() == defaultRepoId)
             .map(repository -> {
                 try {
@@ -276,10 +297,10 @@ public final class GitHubReference extends MessageReceiverAdapter {
     }
 
     /**
-     * All repositories monitored by this instance.
+     * All repositories monitored by this instance, empty until they have been acquired.
      */
     List<GHRepository> getRepositories() {
-        return repositories;
+        return repositories.getNow(List.of());
     }
 
     private boolean isAllowedChannelOrChildThread(MessageReceivedEvent event) {
@@ -5,6 +5,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.togetherjava.tjbot.db.Database;
+import org.togetherjava.tjbot.db.PurgeEngine;
 import org.togetherjava.tjbot.db.generated.tables.HelpThreads;
 import org.togetherjava.tjbot.features.Routine;
 
@@ -16,7 +17,7 @@ import java.util.concurrent.TimeUnit;
  * Purge Routine to get rid of old thread creations in the database.
  */
 public class HelpThreadMetadataPurger implements Routine {
-    private final Database database;
+    private final PurgeEngine purgeEngine;
     private static final Logger logger = LoggerFactory.getLogger(HelpThreadMetadataPurger.class);
     private static final Period DELETE_MESSAGE_RECORDS_AFTER = Period.ofDays(180);
 
@@ -26,7 +27,7 @@ public class HelpThreadMetadataPurger implements Routine {
      * @param database the database used to purge help thread metadata
      */
     public HelpThreadMetadataPurger(Database database) {
-        this.database = database;
+        purgeEngine = new PurgeEngine(database);
     }
 
     @Override
@@ -34,13 +35,18 @@ public class HelpThreadMetadataPurger implements Routine {
         return new Schedule(ScheduleMode.FIXED_RATE, 0, 1, TimeUnit.DAYS);
     }
 
+    @Override
+    public Scope getScope() {
+        return Scope.SINGLETON;
+    }
+
     @Override
     public void runRoutine(JDA jda) {
-        int recordsDeleted =
-                database.writeAndProvide(content -> content.deleteFrom(HelpThreads.HELP_THREADS))
-                    .where(HelpThreads.HELP_THREADS.CREATED_AT
+        long recordsDeleted = purgeEngine
+            .purge(HelpThreads.HELP_THREADS,
+                    HelpThreads.HELP_THREADS.CREATED_AT
                         .lessOrEqual(Instant.now().minus(DELETE_MESSAGE_RECORDS_AFTER)))
-                    .execute();
+            .deletedRows();
         if (recordsDeleted > 0) {
             logger.debug("{} old thread channels deleted because they are older than {}.",
                     recordsDeleted, DELETE_MESSAGE_RECORDS_AFTER);
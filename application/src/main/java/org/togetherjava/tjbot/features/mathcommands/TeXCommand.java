@@ -15,6 +15,7 @@ import org.slf4j.LoggerFactory;
 
 import org.togetherjava.tjbot.features.CommandVisibility;
 import org.togetherjava.tjbot.features.SlashCommandAdapter;
+import org.togetherjava.tjbot.features.utils.InteractionAcknowledgements;
 
 import javax.imageio.ImageIO;
 
@@ -75,11 +76,21 @@ public final class TeXCommand extends SlashCommandAdapter {
             }
             formula = new TeXFormula(latex);
         } catch (ParseException e) {
-            event.reply(BAD_LATEX_ERROR_PREFIX + e.getMessage()).setEphemeral(true).queue();
+            String message = BAD_LATEX_ERROR_PREFIX + e.getMessage();
+            if (InteractionAcknowledgements.claim(event)) {
+                event.reply(message).setEphemeral(true).queue();
+            } else {
+                // Deferred automatically already, which is ephemeral for this command
+                event.getHook().editOriginal(message).queue();
+            }
             return;
         }
 
-        event.deferReply().queue();
+        // Rendering is slow, the interaction might have been deferred automatically already. The
+        // image is then only shown to the user, since errors have to stay ephemeral.
+        if (InteractionAcknowledgements.claim(event)) {
+            event.deferReply().queue();
+        }
 
         try {
             Image image = renderImage(formula);
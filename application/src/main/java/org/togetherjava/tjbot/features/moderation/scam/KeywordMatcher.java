@@ -0,0 +1,164 @@
+package org.togetherjava.tjbot.features.moderation.scam;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Matches tokens against a fixed set of keywords, all at once.
+ * <p>
+ * Keywords support some regex-inspired syntax:
+ * <ul>
+ * <li>{@code foo} matches tokens containing {@code foo}</li>
+ * <li>{@code ^foo} matches tokens starting with {@code foo}</li>
+ * <li>{@code foo$} matches tokens ending with {@code foo}</li>
+ * <li>{@code ^foo$} matches the token {@code foo} only</li>
+ * </ul>
+ * Matching is case-insensitive.
+ * <p>
+ * The keywords are compiled into an Aho-Corasick automaton once, so that matching a token is a
+ * single pass over its characters, regardless of the amount of keywords. Instances are immutable
+ * and thread-safe.
+ */
+final class KeywordMatcher {
+    private final Node root = new Node();
+    /**
+     * Whether a keyword matches every non-empty token, such as {@code ^foo} with an empty
+     * {@code foo}.
+     */
+    private final boolean matchesAnyToken;
+    /**
+     * Whether a keyword matches the empty token, i.e. {@code ^$}.
+     */
+    private final boolean matchesEmptyToken;
+
+    /**
+     * Compiles the given keywords.
+     *
+     * @param keywords the keywords to match, see the class documentation for their syntax
+     */
+    KeywordMatcher(Collection<String> keywords) {
+        boolean hasEmptyKeyword = false;
+        boolean hasEmptyExactKeyword = false;
+        for (String keyword : keywords) {
+            Keyword parsedKeyword = Keyword.parse(keyword.toLowerCase(Locale.US));
+            if (!parsedKeyword.text().isEmpty()) {
+                add(parsedKeyword);
+            } else if (parsedKeyword.isPrefix() && parsedKeyword.isSuffix()) {
+                hasEmptyExactKeyword = true;
+            } else {
+                hasEmptyKeyword = true;
+            }
+        }
+        matchesAnyToken = hasEmptyKeyword;
+        matchesEmptyToken = hasEmptyKeyword || hasEmptyExactKeyword;
+
+        computeFailureLinks();
+    }
+
+    private void add(Keyword keyword) {
+        Node node = root;
+        String text = keyword.text();
+        for (int i = 0; i < text.length(); i++) {
+            node = node.children.computeIfAbsent(text.charAt(i), _ -> new Node());
+        }
+        node.matches.add(keyword);
+    }
+
+    private void computeFailureLinks() {
+        // Breadth-first, so that the failure link of the parent is always computed already
+        Queue<Node> queue = new ArrayDeque<>();
+        root.children.values().forEach(child -> {
+            child.failure = root;
+            queue.add(child);
+        });
+
+        while (!queue.isEmpty()) {
+            Node node = queue.remove();
+            node.children.forEach((character, child) -> {
+                Node failure = node.failure;
+                while (failure != root && !failure.children.containsKey(character)) {
+                    failure = failure.failure;
+                }
+                child.failure = failure.children.getOrDefault(character, root);
+                // A node also matches all keywords that are a suffix of it
+                child.matches.addAll(child.failure.matches);
+                queue.add(child);
+            });
+        }
+    }
+
+    /**
+     * Whether the given token matches any of the keywords.
+     *
+     * @param token the token to match
+     * @return whether the token matches any keyword
+     */
+    boolean matches(String token) {
+        if (token.isEmpty()) {
+            return matchesEmptyToken;
+        }
+        if (matchesAnyToken) {
+            return true;
+        }
+
+        String preparedToken = token.toLowerCase(Locale.US);
+        int length = preparedToken.length();
+        Node node = root;
+        for (int i = 0; i < length; i++) {
+            char character = preparedToken.charAt(i);
+            while (node != root && !node.children.containsKey(character)) {
+                node = node.failure;
+            }
+            node = node.children.getOrDefault(character, root);
+
+            int end = i + 1;
+            for (Keyword keyword : node.matches) {
+                if (keyword.matchesAt(end - keyword.text().length(), end, length)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static final class Node {
+        private final Map<Character, Node> children = new HashMap<>();
+        private final List<Keyword> matches = new ArrayList<>();
+        private Node failure;
+    }
+
+    /**
+     * A parsed keyword.
+     *
+     * @param text the text to match, without the syntax
+     * @param isPrefix whether the text must start the token
+     * @param isSuffix whether the text must end the token
+     */
+    private record Keyword(String text, boolean isPrefix, boolean isSuffix) {
+        static Keyword parse(String keyword) {
+            // Exact match "^foo$"
+            if (keyword.length() >= 2 && keyword.startsWith("^") && keyword.endsWith("$")) {
+                return new Keyword(keyword.substring(1, keyword.length() - 1), true, true);
+            }
+            // Simple regex-inspired syntax "^foo"
+            if (keyword.startsWith("^")) {
+                return new Keyword(keyword.substring(1), true, false);
+            }
+            // Simple regex-inspired syntax "foo$"
+            if (keyword.endsWith("$")) {
+                return new Keyword(keyword.substring(0, keyword.length() - 1), false, true);
+            }
+            return new Keyword(keyword, false, false);
+        }
+
+        boolean matchesAt(int start, int end, int tokenLength) {
+            return (!isPrefix || start == 0) && (!isSuffix || end == tokenLength);
+        }
+    }
+}
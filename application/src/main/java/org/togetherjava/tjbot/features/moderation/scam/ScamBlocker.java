@@ -35,6 +35,7 @@ import org.togetherjava.tjbot.features.moderation.ModerationActionsStore;
 import org.togetherjava.tjbot.features.moderation.ModerationUtils;
 import org.togetherjava.tjbot.features.moderation.modmail.ModMailCommand;
 import org.togetherjava.tjbot.features.utils.Guilds;
+import org.togetherjava.tjbot.features.utils.MessageAnalysis;
 import org.togetherjava.tjbot.features.utils.MessageUtils;
 import org.togetherjava.tjbot.logging.LogMarkers;
 
@@ -125,7 +126,7 @@ public final class ScamBlocker extends MessageReceiverAdapter implements UserInt
     }
 
     @Override
-    public void onMessageReceived(MessageReceivedEvent event) {
+    public void onMessageReceived(MessageReceivedEvent event, MessageAnalysis analysis) {
         if (event.getAuthor().isBot() || event.isWebhookMessage()) {
             return;
         }
@@ -141,7 +142,7 @@ public final class ScamBlocker extends MessageReceiverAdapter implements UserInt
         }
 
         Message message = event.getMessage();
-        if (isSafe && scamDetector.isScam(message)) {
+        if (isSafe && scamDetector.isScam(analysis)) {
             isSafe = false;
         }
 
@@ -6,10 +6,12 @@ import net.dv8tion.jda.api.entities.Message;
 import org.togetherjava.tjbot.config.Config;
 import org.togetherjava.tjbot.config.ScamBlockerConfig;
 import org.togetherjava.tjbot.features.utils.Guilds;
+import org.togetherjava.tjbot.features.utils.MessageAnalysis;
 
 import java.util.Collection;
 import java.util.List;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.regex.Pattern;
 import java.util.stream.Stream;
 
@@ -20,7 +22,6 @@ import java.util.stream.Stream;
  * {@link #isScam(CharSequence)}.
  */
 public final class ScamDetector {
-    private static final Pattern TOKENIZER = Pattern.compile("[\\s,]");
     private final ScamBlockerConfig config;
     private final Predicate<String> isSuspiciousAttachmentName;
     private final Predicate<String> hasTrustedRole;
@@ -50,6 +51,21 @@ public final class ScamDetector {
      * @return Whether the message classifies as scam
      */
     public boolean isScam(Message message) {
+        return isScam(message, () -> MessageAnalysis.tokenize(message.getContentDisplay()));
+    }
+
+    /**
+     * Detects whether the analyzed message classifies as scam or not, using certain heuristics.
+     * Reuses the tokens of the analysis, see {@link MessageAnalysis#getTokens()}.
+     *
+     * @param analysis the analysis of the message to analyze
+     * @return Whether the message classifies as scam
+     */
+    public boolean isScam(MessageAnalysis analysis) {
+        return isScam(analysis.getMessage(), analysis::getTokens);
+    }
+
+    private boolean isScam(Message message, Supplier<List<String>> contentTokens) {
         Member author = message.getMember();
         boolean isTrustedUser = author != null && Guilds.hasMemberRole(author, hasTrustedRole);
         if (isTrustedUser) {
@@ -64,7 +80,7 @@ public final class ScamDetector {
             return areAttachmentsScam(attachments);
         }
 
-        return isScam(content);
+        return isScam(contentTokens.get());
     }
 
     /**
@@ -74,8 +90,12 @@ public final class ScamDetector {
      * @return Whether the message classifies as scam
      */
     public boolean isScam(CharSequence message) {
+        return isScam(MessageAnalysis.tokenize(message));
+    }
+
+    private boolean isScam(List<String> tokens) {
         AnalyseResults results = new AnalyseResults();
-        TOKENIZER.splitAsStream(message).forEach(token -> tokenAnalyse.analyze(token, results));
+        tokens.forEach(token -> tokenAnalyse.analyze(token, results));
         return isScam(results);
     }
 
@@ -2,16 +2,26 @@ package org.togetherjava.tjbot.features.moderation.scam;
 
 import net.dv8tion.jda.api.entities.Message;
 import org.jooq.Result;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import org.togetherjava.tjbot.db.Database;
+import org.togetherjava.tjbot.db.PurgeEngine;
 import org.togetherjava.tjbot.db.generated.tables.records.ScamHistoryRecord;
 import org.togetherjava.tjbot.features.utils.Hashing;
 
+import javax.annotation.Nullable;
+
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayDeque;
 import java.util.Collection;
+import java.util.Deque;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.togetherjava.tjbot.db.generated.tables.ScamHistory.SCAM_HISTORY;
 
@@ -27,13 +37,28 @@ import static org.togetherjava.tjbot.db.generated.tables.ScamHistory.SCAM_HISTOR
  * Entries are only kept for a certain amount of time and will be purged regularly by
  * {@link ScamHistoryPurgeRoutine}.
  * <p>
+ * Recent scam is additionally indexed in memory, so that {@link #hasRecentScamDuplicate(Message)}
+ * does not have to query the database, which matters during raids. The index is rebuilt from the
+ * database on creation and new scam is written through to the database asynchronously.
+ * <p>
  * The store persists the actions and is thread safe.
  */
 public final class ScamHistoryStore {
+    private static final Logger logger = LoggerFactory.getLogger(ScamHistoryStore.class);
     private final Database database;
+    private final PurgeEngine purgeEngine;
     private static final Duration RECENT_SCAM_DURATION = Duration.ofMinutes(15);
+    private static final Duration PRUNE_RECENT_SCAM_EVERY = Duration.ofMinutes(1);
     private static final String HASH_METHOD = "SHA";
 
+    /**
+     * When the scam sharing a key has been sent, only covering the recent scam duration. Each deque
+     * is only accessed while computing its entry in the map.
+     */
+    private final Map<RecentScamKey, Deque<Instant>> keyToRecentSentAts =
+            new ConcurrentHashMap<>();
+    private final AtomicReference<Instant> lastPruneAt = new AtomicReference<>(Instant.now());
+
     /**
      * Creates a new instance.
      *
@@ -41,6 +66,17 @@ public final class ScamHistoryStore {
      */
     public ScamHistoryStore(Database database) {
         this.database = database;
+        purgeEngine = new PurgeEngine(database);
+
+        Instant recentScamThreshold = Instant.now().minus(RECENT_SCAM_DURATION);
+        database
+            .read(context -> context.selectFrom(SCAM_HISTORY)
+                .where(SCAM_HISTORY.SENT_AT.greaterOrEqual(recentScamThreshold))
+                .orderBy(SCAM_HISTORY.SENT_AT)
+                .fetch())
+            .forEach(scamRecord -> indexRecentScam(new RecentScamKey(scamRecord.getGuildId(),
+                    scamRecord.getAuthorId(), scamRecord.getContentHash()),
+                    scamRecord.getSentAt()));
     }
 
     /**
@@ -52,15 +88,37 @@ public final class ScamHistoryStore {
     public void addScam(Message scam, boolean isDeleted) {
         Objects.requireNonNull(scam);
 
-        database.write(context -> context.newRecord(SCAM_HISTORY)
-            .setSentAt(scam.getTimeCreated().toInstant())
+        Instant sentAt = scam.getTimeCreated().toInstant();
+        String contentHash = hashMessageContent(scam);
+        indexRecentScam(
+                new RecentScamKey(scam.getGuild().getIdLong(), scam.getAuthor().getIdLong(),
+                        contentHash),
+                sentAt);
+        pruneRecentScamIfDue();
+
+        database.writeAsync(context -> context.newRecord(SCAM_HISTORY)
+            .setSentAt(sentAt)
             .setGuildId(scam.getGuild().getIdLong())
             .setChannelId(scam.getChannel().getIdLong())
             .setMessageId(scam.getIdLong())
             .setAuthorId(scam.getAuthor().getIdLong())
-            .setContentHash(hashMessageContent(scam))
+            .setContentHash(contentHash)
             .setIsDeleted(isDeleted)
-            .insert());
+            .insert())
+            .whenComplete((_, failure) -> {
+                if (failure != null) {
+                    logger.error("Failed to persist the scam message '{}' to the history",
+                            scam.getIdLong(), failure);
+                }
+            });
+    }
+
+    private void indexRecentScam(RecentScamKey key, Instant sentAt) {
+        keyToRecentSentAts.compute(key, (_, sentAts) -> {
+            Deque<Instant> updatedSentAts = sentAts == null ? new ArrayDeque<>() : sentAts;
+            updatedSentAts.add(sentAt);
+            return updatedSentAts;
+        });
     }
 
     /**
@@ -88,7 +146,8 @@ public final class ScamHistoryStore {
      */
     public Collection<ScamIdentification> markScamDuplicatesDeleted(long guildId, long authorId,
             String contentHash) {
-        return database.writeAndProvide(context -> {
+        // Queued behind the asynchronous writes of addScam, so that all duplicates are included
+        return database.writeAsyncAndProvide(context -> {
             Result<ScamHistoryRecord> undeletedDuplicates = context.selectFrom(SCAM_HISTORY)
                 .where(SCAM_HISTORY.GUILD_ID.eq(guildId)
                     .and(SCAM_HISTORY.AUTHOR_ID.eq(authorId))
@@ -100,7 +159,7 @@ public final class ScamHistoryStore {
                 .forEach(undeletedDuplicate -> undeletedDuplicate.setIsDeleted(true).update());
 
             return undeletedDuplicates.stream().map(ScamIdentification::ofDatabaseRecord).toList();
-        });
+        }).join();
     }
 
     /**
@@ -112,23 +171,52 @@ public final class ScamHistoryStore {
      */
     public boolean hasRecentScamDuplicate(Message scam) {
         Instant recentScamThreshold = Instant.now().minus(RECENT_SCAM_DURATION);
+        RecentScamKey key = new RecentScamKey(scam.getGuild().getIdLong(),
+                scam.getAuthor().getIdLong(), hashMessageContent(scam));
 
-        return database.read(context -> context.fetchCount(SCAM_HISTORY,
-                SCAM_HISTORY.SENT_AT.greaterOrEqual(recentScamThreshold)
-                    .and(SCAM_HISTORY.GUILD_ID.eq(scam.getGuild().getIdLong()))
-                    .and(SCAM_HISTORY.AUTHOR_ID.eq(scam.getAuthor().getIdLong()))
-                    .and(SCAM_HISTORY.CONTENT_HASH.eq(hashMessageContent(scam))))) != 0;
+        // Drops the scam that is not recent anymore, and the entry once none is left
+        return keyToRecentSentAts.computeIfPresent(key,
+                (_, sentAts) -> removeOlderThan(sentAts, recentScamThreshold)) != null;
+    }
+
+    private void pruneRecentScamIfDue() {
+        Instant now = Instant.now();
+        Instant lastPrune = lastPruneAt.get();
+        if (now.isBefore(lastPrune.plus(PRUNE_RECENT_SCAM_EVERY))
+                || !lastPruneAt.compareAndSet(lastPrune, now)) {
+            return;
+        }
+
+        // Entries of authors that did not send scam again would never be dropped otherwise
+        Instant recentScamThreshold = now.minus(RECENT_SCAM_DURATION);
+        keyToRecentSentAts.keySet()
+            .forEach(key -> keyToRecentSentAts.computeIfPresent(key,
+                    (_, sentAts) -> removeOlderThan(sentAts, recentScamThreshold)));
+    }
+
+    /**
+     * Removes all times from the given deque that are older than the given threshold.
+     *
+     * @param sentAts the times to remove from, in the order they have been added
+     * @param threshold times older than this are removed
+     * @return the given deque, or {@code null} if it is empty now
+     */
+    @Nullable
+    private static Deque<Instant> removeOlderThan(Deque<Instant> sentAts, Instant threshold) {
+        // Mostly in chronological order, except for messages that were flagged late
+        sentAts.removeIf(sentAt -> sentAt.isBefore(threshold));
+        return sentAts.isEmpty() ? null : sentAts;
     }
 
     /**
      * Deletes all scam records from the history, which have been sent earlier than the given time.
+     * <p>
+     * Records are deleted in batches, not blocking other writes for the whole duration.
      *
      * @param olderThan all records older than this will be deleted
      */
     public void deleteHistoryOlderThan(Instant olderThan) {
-        database.write(context -> context.deleteFrom(SCAM_HISTORY)
-            .where(SCAM_HISTORY.SENT_AT.lessOrEqual(olderThan))
-            .execute());
+        purgeEngine.purge(SCAM_HISTORY, SCAM_HISTORY.SENT_AT.lessOrEqual(olderThan));
     }
 
     /**
@@ -142,6 +230,9 @@ public final class ScamHistoryStore {
                 message.getContentRaw().getBytes(StandardCharsets.UTF_8)));
     }
 
+    private record RecentScamKey(long guildId, long authorId, String contentHash) {
+    }
+
     /**
      * Identification of a scam message, consisting mostly of IDs that uniquely identify it.
      *
@@ -4,7 +4,6 @@ import org.togetherjava.tjbot.config.ScamBlockerConfig;
 import org.togetherjava.tjbot.features.utils.StringDistances;
 
 import java.net.URI;
-import java.util.Locale;
 import java.util.function.Predicate;
 import java.util.regex.Pattern;
 
@@ -21,9 +20,11 @@ final class TokenAnalyse {
             Pattern.compile("(org|com|de|dev)(\\.[^.()]+){4,15}\\([^.()]+\\.java:\\d+\\)")
                 .asMatchPredicate();
     private final ScamBlockerConfig config;
+    private final KeywordMatcher suspiciousKeywords;
 
     TokenAnalyse(ScamBlockerConfig config) {
         this.config = config;
+        suspiciousKeywords = new KeywordMatcher(config.getSuspiciousKeywords());
     }
 
     /**
@@ -42,7 +43,7 @@ final class TokenAnalyse {
             results.markPingsEveryone();
         }
 
-        if (!results.containsSuspiciousKeyword() && containsSuspiciousKeyword(token)) {
+        if (!results.containsSuspiciousKeyword() && suspiciousKeywords.matches(token)) {
             results.markContainsSuspiciousKeyword();
         }
 
@@ -58,31 +59,6 @@ final class TokenAnalyse {
         }
     }
 
-    private boolean containsSuspiciousKeyword(String token) {
-        String preparedToken = token.toLowerCase(Locale.US);
-
-        // Checks the token against various keywords from the config
-        // The keywords support some regex-inspired syntax
-        return config.getSuspiciousKeywords()
-            .stream()
-            .map(keyword -> keyword.toLowerCase(Locale.US))
-            .anyMatch(keyword -> {
-                // Exact match "^foo$"
-                if (startsWith(keyword, '^') && endsWith(keyword, '$')) {
-                    return preparedToken.equals(keyword.substring(1, keyword.length() - 1));
-                }
-                // Simple regex-inspired syntax "^foo"
-                if (startsWith(keyword, '^')) {
-                    return preparedToken.startsWith(keyword.substring(1));
-                }
-                // Simple regex-inspired syntax "foo$"
-                if (endsWith(keyword, '$')) {
-                    return preparedToken.endsWith(keyword.substring(0, keyword.length() - 1));
-                }
-                return preparedToken.contains(keyword);
-            });
-    }
-
     private void analyzeUrl(String url, AnalyseResults results) {
         String host;
         String path;
@@ -131,33 +107,9 @@ final class TokenAnalyse {
     }
 
     private boolean isHostSimilarToKeyword(String host, String keyword) {
-        // NOTE This algorithm is far from optimal.
-        // It is good enough for our purpose though and not that complex.
-
         // Rolling window of keyword-size over host.
         // If any window has a small distance, it is similar
-        int windowStart = 0;
-        int windowEnd = keyword.length();
-        while (windowEnd <= host.length()) {
-            String window = host.substring(windowStart, windowEnd);
-            int distance = StringDistances.editDistance(keyword, window);
-
-            if (distance <= config.getIsHostSimilarToKeywordDistanceThreshold()) {
-                return true;
-            }
-
-            windowStart++;
-            windowEnd++;
-        }
-
-        return false;
-    }
-
-    private static boolean startsWith(CharSequence text, char prefixToTest) {
-        return !text.isEmpty() && text.charAt(0) == prefixToTest;
-    }
-
-    private static boolean endsWith(CharSequence text, char suffixToTest) {
-        return !text.isEmpty() && text.charAt(text.length() - 1) == suffixToTest;
+        return StringDistances.hasSimilarWindow(host, keyword,
+                config.getIsHostSimilarToKeywordDistanceThreshold());
     }
 }
@@ -13,6 +13,7 @@ import org.togetherjava.tjbot.features.moderation.ActionRecord;
 import org.togetherjava.tjbot.features.moderation.ModerationAction;
 import org.togetherjava.tjbot.features.moderation.ModerationActionsStore;
 import org.togetherjava.tjbot.features.moderation.audit.AuditCommand;
+import org.togetherjava.tjbot.features.utils.Guilds;
 import org.togetherjava.tjbot.logging.LogMarkers;
 
 import java.util.Map;
@@ -34,19 +35,16 @@ public final class TemporaryModerationRoutine implements Routine {
     private static final Logger logger = LoggerFactory.getLogger(TemporaryModerationRoutine.class);
 
     private final ModerationActionsStore actionsStore;
-    private final JDA jda;
     private final Map<ModerationAction, RevocableModerationAction> typeToRevocableAction;
 
     /**
      * Creates a new instance.
      *
-     * @param jda the JDA instance to use to send messages and retrieve information
      * @param actionsStore the store used to retrieve temporary moderation actions
      * @param config the config to use for this
      */
-    public TemporaryModerationRoutine(JDA jda, ModerationActionsStore actionsStore, Config config) {
+    public TemporaryModerationRoutine(ModerationActionsStore actionsStore, Config config) {
         this.actionsStore = actionsStore;
-        this.jda = jda;
 
         typeToRevocableAction = Stream
             .of(new TemporaryBanAction(), new TemporaryMuteAction(config),
@@ -57,7 +55,7 @@ public final class TemporaryModerationRoutine implements Routine {
 
     @Override
     public void runRoutine(JDA jda) {
-        checkExpiredActions();
+        checkExpiredActions(jda);
     }
 
     @Override
@@ -65,20 +63,22 @@ public final class TemporaryModerationRoutine implements Routine {
         return new Schedule(ScheduleMode.FIXED_DELAY, 5, 5, TimeUnit.MINUTES);
     }
 
-    private void checkExpiredActions() {
+    private void checkExpiredActions(JDA jda) {
         logger.debug("Checking expired temporary moderation actions to revoke...");
 
+        // The routine runs for each shard, each revokes only the actions of its own guilds
         actionsStore.getExpiredActionsAscending()
             .stream()
             .filter(action -> typeToRevocableAction.containsKey(action.actionType()))
+            .filter(action -> Guilds.isGuildOfShard(action.guildId(), jda))
             .map(RevocationGroupIdentifier::of)
             .collect(Collectors.toSet())
-            .forEach(this::processGroupedActions);
+            .forEach(groupIdentifier -> processGroupedActions(jda, groupIdentifier));
 
         logger.debug("Finished checking expired temporary moderation actions to revoke.");
     }
 
-    private void processGroupedActions(RevocationGroupIdentifier groupIdentifier) {
+    private void processGroupedActions(JDA jda, RevocationGroupIdentifier groupIdentifier) {
         // Do not revoke an action which was overwritten by a still effective action that was issued
         // afterwards
         // For example if a user was perm-banned after being temp-banned
@@ -105,10 +105,10 @@ public final class TemporaryModerationRoutine implements Routine {
             }
         }
 
-        revokeAction(groupIdentifier);
+        revokeAction(jda, groupIdentifier);
     }
 
-    private void revokeAction(RevocationGroupIdentifier groupIdentifier) {
+    private void revokeAction(JDA jda, RevocationGroupIdentifier groupIdentifier) {
         Guild guild = jda.getGuildById(groupIdentifier.guildId);
         if (guild == null) {
             logger.debug(
@@ -130,8 +130,8 @@ public final class TemporaryModerationRoutine implements Routine {
         RevocableModerationAction action = getRevocableActionByType(actionType);
 
         String reason = "Automatic revocation of temporary action.";
-        actionsStore.addAction(guild.getIdLong(), jda.getSelfUser().getIdLong(), target.getIdLong(),
-                action.getRevokeType(), null, reason);
+        actionsStore.addAction(guild.getIdLong(), guild.getJDA().getSelfUser().getIdLong(),
+                target.getIdLong(), action.getRevokeType(), null, reason);
 
         return action.revokeAction(guild, target, reason);
     }
@@ -14,6 +14,7 @@ import org.slf4j.LoggerFactory;
 import org.togetherjava.tjbot.db.Database;
 import org.togetherjava.tjbot.db.generated.tables.records.PendingRemindersRecord;
 import org.togetherjava.tjbot.features.Routine;
+import org.togetherjava.tjbot.features.utils.Guilds;
 
 import javax.annotation.Nullable;
 
@@ -60,6 +61,8 @@ public final class RemindRoutine implements Routine {
         database.write(context -> context.selectFrom(PENDING_REMINDERS)
             .where(PENDING_REMINDERS.REMIND_AT.lessOrEqual(now))
             .stream()
+            // Each shard sends the reminders of its own guilds only
+            .filter(pendingReminder -> Guilds.isGuildOfShard(pendingReminder.getGuildId(), jda))
             .forEach(pendingReminder -> {
                 sendReminder(jda, pendingReminder);
 
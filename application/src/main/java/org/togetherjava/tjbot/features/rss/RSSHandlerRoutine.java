@@ -69,7 +69,9 @@ import static org.togetherjava.tjbot.db.generated.tables.RssFeed.RSS_FEED;
  * feed posts.</li>
  * <li>{@code dateFormatterPattern} denotes the pattern for parsing the date and time information in
  * the feed.</li>
- * </ul>
+ * </ul> * <p>
+ * The routine runs for each shard, posting to the channels of the guilds of the shard. Hence, the
+ * last posted date of a feed is tracked per shard.
  */
 public final class RSSHandlerRoutine implements Routine {
 
@@ -154,8 +156,11 @@ public final class RSSHandlerRoutine implements Routine {
     private void sendRSS(JDA jda, RSSFeed feedConfig) {
         List<TextChannel> textChannels = getTextChannelsFromFeed(jda, feedConfig);
         if (textChannels.isEmpty()) {
-            logger.warn(
-                    "Tried to send an RSS post, but neither a target channel nor a fallback channel was found.");
+            // Shards without any guild have nothing to post to, which is expected
+            if (!jda.getGuildCache().isEmpty()) {
+                logger.warn(
+                        "Tried to send an RSS post, but neither a target channel nor a fallback channel was found.");
+            }
             return;
         }
 
@@ -173,7 +178,7 @@ public final class RSSHandlerRoutine implements Routine {
         }
 
         final Optional<Predicate<Item>> shouldItemBePosted =
-                prepareItemPostPredicate(feedConfig, rssItems);
+                prepareItemPostPredicate(jda, feedConfig, rssItems);
         if (shouldItemBePosted.isEmpty()) {
             return;
         }
@@ -183,14 +188,15 @@ public final class RSSHandlerRoutine implements Routine {
             .forEachOrdered(item -> postItem(textChannels, item, feedConfig));
     }
 
-    private Optional<Predicate<Item>> prepareItemPostPredicate(RSSFeed feedConfig,
+    private Optional<Predicate<Item>> prepareItemPostPredicate(JDA jda, RSSFeed feedConfig,
             List<Item> rssItems) {
-        Optional<RssFeedRecord> rssFeedRecord = getRssFeedRecordFromDatabase(feedConfig);
+        int shardId = jda.getShardInfo().getShardId();
+        Optional<RssFeedRecord> rssFeedRecord = getRssFeedRecordFromDatabase(feedConfig, shardId);
         Optional<ZonedDateTime> lastPostedDate =
                 getLatestPostDateFromItems(rssItems, feedConfig.dateFormatterPattern());
 
-        lastPostedDate.ifPresent(
-                date -> updateLastDateToDatabase(feedConfig, rssFeedRecord.orElse(null), date));
+        lastPostedDate.ifPresent(date -> updateLastDateToDatabase(feedConfig, shardId,
+                rssFeedRecord.orElse(null), date));
 
         if (rssFeedRecord.isEmpty()) {
             return Optional.empty();
@@ -214,11 +220,13 @@ public final class RSSHandlerRoutine implements Routine {
      * Retrieves an RSS feed record from the database based on the provided RSS feed configuration.
      *
      * @param feedConfig the RSS feed configuration to retrieve the record for
+     * @param shardId the id of the shard posting the feed
      * @return an optional RSS feed record retrieved from the database
      */
-    private Optional<RssFeedRecord> getRssFeedRecordFromDatabase(RSSFeed feedConfig) {
+    private Optional<RssFeedRecord> getRssFeedRecordFromDatabase(RSSFeed feedConfig,
+            int shardId) {
         return Optional.ofNullable(database.read(context -> context.selectFrom(RSS_FEED)
-            .where(RSS_FEED.URL.eq(feedConfig.url()))
+            .where(RSS_FEED.URL.eq(feedConfig.url()), RSS_FEED.SHARD_ID.eq(shardId))
             .limit(1)
             .fetchAny()));
     }
@@ -277,13 +285,14 @@ public final class RSSHandlerRoutine implements Routine {
      * null.
      *
      * @param feedConfig the RSS feed configuration
+     * @param shardId the id of the shard posting the feed
      * @param rssFeedRecord the record representing the RSS feed, can be null if not found in the
      *        database
      * @param lastPostedDate the last posted date to be updated
      * @throws DateTimeParseException if the date cannot be parsed
      */
-    private void updateLastDateToDatabase(RSSFeed feedConfig, @Nullable RssFeedRecord rssFeedRecord,
-            ZonedDateTime lastPostedDate) {
+    private void updateLastDateToDatabase(RSSFeed feedConfig, int shardId,
+            @Nullable RssFeedRecord rssFeedRecord, ZonedDateTime lastPostedDate) {
         DateTimeFormatter dateTimeFormatter =
                 DateTimeFormatter.ofPattern(feedConfig.dateFormatterPattern());
         String lastDateStr = lastPostedDate.format(dateTimeFormatter);
@@ -291,6 +300,7 @@ public final class RSSHandlerRoutine implements Routine {
         if (rssFeedRecord == null) {
             database.write(context -> context.newRecord(RSS_FEED)
                 .setUrl(feedConfig.url())
+                .setShardId(shardId)
                 .setLastDate(lastDateStr)
                 .insert());
             return;
@@ -298,7 +308,7 @@ public final class RSSHandlerRoutine implements Routine {
 
         database.write(context -> context.update(RSS_FEED)
             .set(RSS_FEED.LAST_DATE, lastDateStr)
-            .where(RSS_FEED.URL.eq(feedConfig.url()))
+            .where(RSS_FEED.URL.eq(feedConfig.url()), RSS_FEED.SHARD_ID.eq(shardId))
             .executeAsync());
     }
 
@@ -348,9 +358,10 @@ public final class RSSHandlerRoutine implements Routine {
     }
 
     /**
-     * Attempts to find text channels from a given RSS feed configuration.
+     * Attempts to find text channels from a given RSS feed configuration, among the guilds of the
+     * given shard.
      *
-     * @param jda the JDA instance
+     * @param jda the JDA instance of the shard
      * @param feed the RSS feed configuration to search for text channels
      * @return an {@link List} of the text channels found, or empty if none are found
      */
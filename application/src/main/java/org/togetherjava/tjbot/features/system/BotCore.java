@@ -3,6 +3,9 @@ package org.togetherjava.tjbot.features.system;
 import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.entities.channel.Channel;
 import net.dv8tion.jda.api.entities.channel.unions.AudioChannelUnion;
+import net.dv8tion.jda.api.events.channel.ChannelCreateEvent;
+import net.dv8tion.jda.api.events.channel.ChannelDeleteEvent;
+import net.dv8tion.jda.api.events.channel.update.ChannelUpdateNameEvent;
 import net.dv8tion.jda.api.events.guild.voice.GuildVoiceDeafenEvent;
 import net.dv8tion.jda.api.events.guild.voice.GuildVoiceMuteEvent;
 import net.dv8tion.jda.api.events.guild.voice.GuildVoiceStreamEvent;
@@ -23,12 +26,14 @@ import net.dv8tion.jda.api.events.message.react.MessageReactionAddEvent;
 import net.dv8tion.jda.api.hooks.ListenerAdapter;
 import net.dv8tion.jda.api.interactions.callbacks.IReplyCallback;
 import net.dv8tion.jda.api.interactions.components.ComponentInteraction;
+import net.dv8tion.jda.api.sharding.ShardManager;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.annotations.Unmodifiable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.togetherjava.tjbot.config.Config;
+import org.togetherjava.tjbot.config.ShardingConfig;
 import org.togetherjava.tjbot.db.Database;
 import org.togetherjava.tjbot.features.EventReceiver;
 import org.togetherjava.tjbot.features.Feature;
@@ -46,22 +51,27 @@ import org.togetherjava.tjbot.features.componentids.ComponentId;
 import org.togetherjava.tjbot.features.componentids.ComponentIdParser;
 import org.togetherjava.tjbot.features.componentids.ComponentIdStore;
 import org.togetherjava.tjbot.features.componentids.InvalidComponentIdFormatException;
+import org.togetherjava.tjbot.features.componentids.Lifespan;
+import org.togetherjava.tjbot.features.componentids.SignedComponentIds;
+import org.togetherjava.tjbot.features.utils.MessageAnalysis;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
-import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.stream.IntStream;
 
 /**
  * The bot core is the core of command handling in this application.
@@ -70,62 +80,78 @@ import java.util.stream.Stream;
  * events. It forwards events to their corresponding commands and does the heavy lifting on all sort
  * of event parsing.
  * <p>
- * Commands are made available via {@link Features}, then the system has to be added to JDA as an
- * event listener, using {@link net.dv8tion.jda.api.JDA#addEventListener(Object...)}. Afterwards,
+ * Commands are made available via {@link Features}, then the system has to be added to the shard
+ * manager as an event listener, using {@link ShardManager#addEventListener(Object...)}. Afterwards,
  * the system is ready and will correctly forward events to all commands.
  */
-public final class BotCore extends ListenerAdapter implements CommandProvider {
+public final class BotCore extends ListenerAdapter implements CommandProvider, AutoCloseable {
     private static final Logger logger = LoggerFactory.getLogger(BotCore.class);
-    private static final ExecutorService COMMAND_SERVICE = Executors.newCachedThreadPool();
-    private static final ScheduledExecutorService ROUTINE_SERVICE =
-            Executors.newScheduledThreadPool(5);
+    private static final ScheduledExecutorService STATISTICS_SERVICE =
+            Executors.newSingleThreadScheduledExecutor();
     private final Map<String, UserInteractor> prefixedNameToInteractor;
-    private final List<Routine> routines;
+    private final List<JDA> shards;
+    private final RoutineScheduler routineScheduler;
     private final ComponentIdParser componentIdParser;
     private final ComponentIdStore componentIdStore;
-    private final Map<Pattern, MessageReceiver> channelNameToMessageReceiver = new HashMap<>();
-    private final Map<Pattern, VoiceReceiver> channelNameToVoiceReceiver = new HashMap<>();
+    private final SignedComponentIds signedComponentIds;
+    private final ChannelRoutingTable<MessageReceiver> messageRoutes;
+    private final ChannelRoutingTable<VoiceReceiver> voiceRoutes;
+    private final MessageReceiverDispatcher messageDispatcher = new MessageReceiverDispatcher();
+    private final Predicate<String> isHelpForumName;
+    private final InteractionExecutor interactionExecutor;
+    private final InteractionDeadlineGuard deadlineGuard;
     private final Metrics metrics;
 
     /**
      * Creates a new command system which uses the given database to allow commands to persist data.
      * <p>
-     * Commands are fetched from {@link Features}.
+     * Commands are fetched from {@link Features}, which are given the JDA instance of the shard
+     * owned by this process, see {@link ShardingConfig}.
      *
-     * @param jda the JDA instance that this command system will be used with
+     * @param shardManager the ready shard manager that this command system will be used with
      * @param database the database that commands may use to persist data
      * @param config the configuration to use for this system
      * @param metrics the metrics service for tracking analytics
      */
-    public BotCore(JDA jda, Database database, Config config, Metrics metrics) {
+    public BotCore(ShardManager shardManager, Database database, Config config, Metrics metrics) {
         this.metrics = metrics;
-        Collection<Feature> features = Features.createFeatures(jda, database, config, metrics);
+        ShardingConfig sharding = config.getSharding();
+        shards = IntStream.rangeClosed(sharding.firstShardId(), sharding.lastShardId())
+            .mapToObj(shardManager::getShardById)
+            .map(Objects::requireNonNull)
+            .toList();
+
+        interactionExecutor = new InteractionExecutor(config.getInteractionLimits());
+        deadlineGuard = new InteractionDeadlineGuard(config.getInteractionDeadline(), metrics);
+        isHelpForumName =
+                Pattern.compile(config.getHelpSystem().getHelpForumPattern()).asMatchPredicate();
+        Collection<Feature> features = new ArrayList<>(
+                Features.createFeatures(shards.getFirst(), database, config, metrics));
 
         // Message receivers
-        features.stream()
+        messageRoutes = new ChannelRoutingTable<>(features.stream()
             .filter(MessageReceiver.class::isInstance)
             .map(MessageReceiver.class::cast)
-            .forEach(messageReceiver -> channelNameToMessageReceiver
-                .put(messageReceiver.getChannelNamePattern(), messageReceiver));
+            .toList(), MessageReceiver::getChannelNamePattern);
 
         // Voice receivers
-        features.stream()
+        voiceRoutes = new ChannelRoutingTable<>(features.stream()
             .filter(VoiceReceiver.class::isInstance)
             .map(VoiceReceiver.class::cast)
-            .forEach(voiceReceiver -> channelNameToVoiceReceiver
-                .put(voiceReceiver.getChannelNamePattern(), voiceReceiver));
+            .toList(), VoiceReceiver::getChannelNamePattern);
 
         // Event receivers
         features.stream()
             .filter(EventReceiver.class::isInstance)
             .map(EventReceiver.class::cast)
-            .forEach(jda::addEventListener);
+            .forEach(shardManager::addEventListener);
 
         // Routines (are scheduled once the core is ready)
-        routines = features.stream()
+        routineScheduler = new RoutineScheduler(features.stream()
             .filter(Routine.class::isInstance)
             .map(Routine.class::cast)
-            .toList();
+            .toList(), new LeaderElection(database, sharding), metrics);
+        features.add(new RoutinesCommand(routineScheduler));
 
         // User Interactors (e.g. slash commands)
         prefixedNameToInteractor =
@@ -142,22 +168,38 @@ public final class BotCore extends ListenerAdapter implements CommandProvider {
 
         // Component Id Store
         componentIdStore = new ComponentIdStore(database);
-        componentIdStore.addComponentIdRemovedListener(BotCore::onComponentIdRemoved);
-        componentIdParser = uuid -> componentIdStore.get(UUID.fromString(uuid));
+        // NOTE As of now, we do not act on evicted component IDs. A removal listener could be used
+        // in the future to, for example, disable buttons or delete the associated message
+        // Small component IDs are signed and sent along instead of being stored, unless permanent
+        signedComponentIds = new SignedComponentIds(
+                config.getComponentIdSigningKey().getBytes(StandardCharsets.UTF_8),
+                prefixedNameToInteractor.keySet());
+        componentIdParser = id -> SignedComponentIds.isSigned(id)
+                ? signedComponentIds.decode(id)
+                : componentIdStore.get(UUID.fromString(id));
         Collection<UserInteractor> interactors = getInteractors();
 
         interactors.forEach(
-                interactor -> interactor.acceptComponentIdGenerator(((componentId, lifespan) -> {
-                    UUID uuid = UUID.randomUUID();
-                    componentIdStore.putOrThrow(uuid, componentId, lifespan);
-                    return uuid.toString();
-                })));
+                interactor -> interactor.acceptComponentIdGenerator(this::generateComponentId));
 
         if (logger.isInfoEnabled()) {
             logger.info("Available user interactors: {}", interactors);
         }
     }
 
+    private String generateComponentId(ComponentId componentId, Lifespan lifespan) {
+        // Signed IDs expire and die with a rotation of the signing key, permanent IDs are stored
+        Optional<String> signedId = lifespan == Lifespan.REGULAR
+                ? signedComponentIds.encode(componentId)
+                : Optional.empty();
+
+        return signedId.orElseGet(() -> {
+            UUID uuid = UUID.randomUUID();
+            componentIdStore.putOrThrow(uuid, componentId, lifespan);
+            return uuid.toString();
+        });
+    }
+
     /**
      * Returns a predicate, which validates the given interactor
      *
@@ -203,65 +245,57 @@ public final class BotCore extends ListenerAdapter implements CommandProvider {
     }
 
     /**
-     * Schedules the registered routines.
-     * <p>
-     * This needs a ready {@link JDA} instance.
-     *
-     * @param jda a ready JDA instance
+     * Schedules the registered routines on the shards owned by this process.
      */
-    public void scheduleRoutines(JDA jda) {
-        routines.forEach(routine -> {
-            Runnable command = () -> {
-                String routineName = routine.getClass().getSimpleName();
-                try {
-                    logger.debug("Running routine %s...".formatted(routineName));
-                    routine.runRoutine(jda);
-                    logger.debug("Finished routine %s.".formatted(routineName));
-                } catch (Exception e) {
-                    logger.error("Unknown error in routine {}.", routineName, e);
-                }
-            };
-
-            Routine.Schedule schedule = routine.createSchedule();
-            switch (schedule.mode()) {
-                case FIXED_RATE -> ROUTINE_SERVICE.scheduleAtFixedRate(command,
-                        schedule.initialDuration(), schedule.duration(), schedule.unit());
-                case FIXED_DELAY -> ROUTINE_SERVICE.scheduleWithFixedDelay(command,
-                        schedule.initialDuration(), schedule.duration(), schedule.unit());
-                default -> throw new AssertionError("Unsupported schedule mode");
-            }
-        });
+    public void scheduleRoutines() {
+        routineScheduler.start(shards);
+
+        STATISTICS_SERVICE.scheduleAtFixedRate(messageDispatcher::logStatistics, 1, 1,
+                TimeUnit.HOURS);
+        STATISTICS_SERVICE.scheduleAtFixedRate(deadlineGuard::logStatistics, 1, 1,
+                TimeUnit.HOURS);
+    }
+
+    /**
+     * Closes the resources of the core, such as the component ID store, persisting their remaining
+     * state. Must be called during shutdown, before the database is closed.
+     */
+    @Override
+    public void close() {
+        componentIdStore.close();
     }
 
     @Override
     public void onMessageReceived(final MessageReceivedEvent event) {
         if (event.isFromGuild()) {
-            getMessageReceiversSubscribedTo(event.getChannel())
-                .forEach(messageReceiver -> messageReceiver.onMessageReceived(event));
+            MessageAnalysis analysis = new MessageAnalysis(event.getMessage(), isHelpForumName);
+            dispatchToMessageReceivers(event.getChannel(),
+                    messageReceiver -> messageReceiver.onMessageReceived(event, analysis));
         }
     }
 
     @Override
     public void onMessageUpdate(final MessageUpdateEvent event) {
         if (event.isFromGuild()) {
-            getMessageReceiversSubscribedTo(event.getChannel())
-                .forEach(messageReceiver -> messageReceiver.onMessageUpdated(event));
+            MessageAnalysis analysis = new MessageAnalysis(event.getMessage(), isHelpForumName);
+            dispatchToMessageReceivers(event.getChannel(),
+                    messageReceiver -> messageReceiver.onMessageUpdated(event, analysis));
         }
     }
 
     @Override
     public void onMessageDelete(final MessageDeleteEvent event) {
         if (event.isFromGuild()) {
-            getMessageReceiversSubscribedTo(event.getChannel())
-                .forEach(messageReceiver -> messageReceiver.onMessageDeleted(event));
+            dispatchToMessageReceivers(event.getChannel(),
+                    messageReceiver -> messageReceiver.onMessageDeleted(event));
         }
     }
 
     @Override
     public void onMessageReactionAdd(final MessageReactionAddEvent event) {
         if (event.isFromGuild()) {
-            getMessageReceiversSubscribedTo(event.getChannel())
-                .forEach(messageReceiver -> messageReceiver.onMessageReactionAdd(event));
+            dispatchToMessageReceivers(event.getChannel(),
+                    messageReceiver -> messageReceiver.onMessageReactionAdd(event));
         }
     }
 
@@ -355,24 +389,35 @@ public final class BotCore extends ListenerAdapter implements CommandProvider {
             .forEach(voiceReceiver -> voiceReceiver.onDeafenToggle(event));
     }
 
-    private Stream<MessageReceiver> getMessageReceiversSubscribedTo(Channel channel) {
-        String channelName = channel.getName();
-        return channelNameToMessageReceiver.entrySet()
-            .stream()
-            .filter(patternAndReceiver -> patternAndReceiver.getKey()
-                .matcher(channelName)
-                .matches())
-            .map(Map.Entry::getValue);
+    private void dispatchToMessageReceivers(Channel channel,
+            Consumer<? super MessageReceiver> receiverAction) {
+        List<MessageReceiver> receivers =
+                messageRoutes.getReceiversSubscribedTo(channel.getIdLong(), channel.getName());
+        messageDispatcher.dispatch(channel.getIdLong(), receivers, receiverAction);
+    }
+
+    private List<VoiceReceiver> getVoiceReceiversSubscribedTo(Channel channel) {
+        return voiceRoutes.getReceiversSubscribedTo(channel.getIdLong(), channel.getName());
+    }
+
+    @Override
+    public void onChannelCreate(ChannelCreateEvent event) {
+        invalidateChannelRoutes(event.getChannel());
+    }
+
+    @Override
+    public void onChannelDelete(ChannelDeleteEvent event) {
+        invalidateChannelRoutes(event.getChannel());
     }
 
-    private Stream<VoiceReceiver> getVoiceReceiversSubscribedTo(Channel channel) {
-        String channelName = channel.getName();
-        return channelNameToVoiceReceiver.entrySet()
-            .stream()
-            .filter(patternAndReceiver -> patternAndReceiver.getKey()
-                .matcher(channelName)
-                .matches())
-            .map(Map.Entry::getValue);
+    @Override
+    public void onChannelUpdateName(ChannelUpdateNameEvent event) {
+        invalidateChannelRoutes(event.getChannel());
+    }
+
+    private void invalidateChannelRoutes(Channel channel) {
+        messageRoutes.invalidate(channel.getIdLong());
+        voiceRoutes.invalidate(channel.getIdLong());
     }
 
     @Override
@@ -381,18 +426,16 @@ public final class BotCore extends ListenerAdapter implements CommandProvider {
 
         logger.debug("Received slash command '{}' (#{}) on guild '{}'", name, event.getId(),
                 event.getGuild());
-        COMMAND_SERVICE.execute(() -> {
+        submitInteraction(event, name, () -> {
             SlashCommand interactor = requireUserInteractor(
                     UserInteractionType.SLASH_COMMAND.getPrefixedName(name), SlashCommand.class);
 
-            Map<String, Object> dimensions = new HashMap<>();
-            dimensions.put("name", name);
-            dimensions.put("user", event.getUser().getName());
-            dimensions.put("userId", event.getUser().getIdLong());
-
-            if (event.getSubcommandName() != null) {
-                dimensions.put("subCommandName", event.getSubcommandName());
-            }
+            String subcommandName = event.getSubcommandName();
+            Map<String, Object> dimensions = subcommandName == null
+                    ? Map.of("name", name, "user", event.getUser().getName(), "userId",
+                            event.getUser().getIdLong())
+                    : Map.of("name", name, "user", event.getUser().getName(), "userId",
+                            event.getUser().getIdLong(), "subCommandName", subcommandName);
 
             metrics.count("slash", dimensions);
 
@@ -406,45 +449,51 @@ public final class BotCore extends ListenerAdapter implements CommandProvider {
 
         logger.debug("Received auto completion from command '{}' (#{}) on guild '{}'",
                 event.getFullCommandName(), event.getId(), event.getGuild());
-        COMMAND_SERVICE.execute(
+        interactionExecutor.submit(name,
                 () -> requireUserInteractor(UserInteractionType.SLASH_COMMAND.getPrefixedName(name),
                         SlashCommand.class)
-                    .onAutoComplete(event));
+                    .onAutoComplete(event),
+                () -> event.replyChoices(List.of()).queue());
     }
 
     @Override
     public void onButtonInteraction(ButtonInteractionEvent event) {
         logger.debug("Received button click '{}' (#{}) on guild '{}'", event.getComponentId(),
                 event.getId(), event.getGuild());
-        COMMAND_SERVICE
-            .execute(() -> forwardComponentCommand(event, UserInteractor::onButtonClick));
+        InteractionDeadlineGuard.TrackedInteraction interaction = deadlineGuard.track(event, null);
+        interactionExecutor.execute(() -> forwardComponentCommand(event, interaction,
+                UserInteractor::onButtonClick));
     }
 
     @Override
     public void onEntitySelectInteraction(EntitySelectInteractionEvent event) {
         logger.debug("Received entity selection menu event '{}' (#{}) on guild '{}'",
                 event.getComponentId(), event.getId(), event.getGuild());
-        COMMAND_SERVICE
-            .execute(() -> forwardComponentCommand(event, UserInteractor::onEntitySelectSelection));
+        InteractionDeadlineGuard.TrackedInteraction interaction = deadlineGuard.track(event, null);
+        interactionExecutor.execute(() -> forwardComponentCommand(event, interaction,
+                UserInteractor::onEntitySelectSelection));
     }
 
     @Override
     public void onStringSelectInteraction(StringSelectInteractionEvent event) {
         logger.debug("Received string selection menu event '{}' (#{}) on guild '{}'",
                 event.getComponentId(), event.getId(), event.getGuild());
-        COMMAND_SERVICE
-            .execute(() -> forwardComponentCommand(event, UserInteractor::onStringSelectSelection));
+        InteractionDeadlineGuard.TrackedInteraction interaction = deadlineGuard.track(event, null);
+        interactionExecutor.execute(() -> forwardComponentCommand(event, interaction,
+                UserInteractor::onStringSelectSelection));
     }
 
     @Override
     public void onModalInteraction(final ModalInteractionEvent event) {
         logger.debug("Received modal event '{}' (#{}) on guild '{}'", event.getModalId(),
                 event.getId(), event.getGuild());
-        COMMAND_SERVICE.execute(() -> {
+        InteractionDeadlineGuard.TrackedInteraction interaction = deadlineGuard.track(event, null);
+        interactionExecutor.execute(() -> {
             Optional<ComponentId> componentIdOptional =
                     handleParseComponentId(event, event.getModalId());
 
             if (componentIdOptional.isEmpty()) {
+                interaction.untrack();
                 return;
             }
 
@@ -454,7 +503,8 @@ public final class BotCore extends ListenerAdapter implements CommandProvider {
                     requireUserInteractor(componentId.userInteractorName(), UserInteractor.class);
             logger.trace("Routing a modal event with id '{}' back to user interactor '{}'",
                     event.getModalId(), interactor.getName());
-            interactor.onModalSubmitted(event, componentId.elements());
+            runInteraction(event, interaction, interactor.getName(),
+                    () -> interactor.onModalSubmitted(event, componentId.elements()));
         });
     }
 
@@ -464,7 +514,7 @@ public final class BotCore extends ListenerAdapter implements CommandProvider {
 
         logger.debug("Received message context command '{}' (#{}) on guild '{}'", name,
                 event.getId(), event.getGuild());
-        COMMAND_SERVICE.execute(() -> {
+        submitInteraction(event, name, () -> {
             MessageContextCommand userInteractor = requireUserInteractor(
                     UserInteractionType.MESSAGE_CONTEXT_COMMAND.getPrefixedName(name),
                     MessageContextCommand.class);
@@ -479,7 +529,7 @@ public final class BotCore extends ListenerAdapter implements CommandProvider {
 
         logger.debug("Received user context command '{}' (#{}) on guild '{}'", name, event.getId(),
                 event.getGuild());
-        COMMAND_SERVICE.execute(() -> {
+        submitInteraction(event, name, () -> {
             UserContextCommand userInteractor = requireUserInteractor(
                     UserInteractionType.USER_CONTEXT_COMMAND.getPrefixedName(name),
                     UserContextCommand.class);
@@ -532,22 +582,25 @@ public final class BotCore extends ListenerAdapter implements CommandProvider {
      *
      * <pre>
      * {@code
-     * forwardComponentCommand(event, UserInteractor::onSelectionMenu);
+     * forwardComponentCommand(event, interaction, UserInteractor::onSelectionMenu);
      * }
      * </pre>
      *
      * @param event the component event that should be forwarded
+     * @param interaction the event, as tracked by the deadline guard
      * @param interactorArgumentConsumer the action to trigger on the associated user interactor,
      *        providing the event and list of arguments for consumption
      * @param <T> the type of the component interaction that should be forwarded
      */
     private <T extends ComponentInteraction> void forwardComponentCommand(T event,
+            InteractionDeadlineGuard.TrackedInteraction interaction,
             TriConsumer<? super UserInteractor, ? super T, ? super List<String>> interactorArgumentConsumer) {
 
         Optional<ComponentId> componentIdOptional =
                 handleParseComponentId(event, event.getComponentId());
 
         if (componentIdOptional.isEmpty()) {
+            interaction.untrack();
             return;
         }
 
@@ -557,7 +610,61 @@ public final class BotCore extends ListenerAdapter implements CommandProvider {
                 requireUserInteractor(componentId.userInteractorName(), UserInteractor.class);
         logger.trace("Routing a component event with id '{}' back to user interactor '{}'",
                 event.getComponentId(), interactor.getName());
-        interactorArgumentConsumer.accept(interactor, event, componentId.elements());
+        runInteraction(event, interaction, interactor.getName(),
+                () -> interactorArgumentConsumer.accept(interactor, event, componentId.elements()));
+    }
+
+    /**
+     * Submits the handler of the given interaction to the bulkhead of its interactor, tracking its
+     * deadline.
+     *
+     * @param event the received interaction
+     * @param interactorName the name of the interactor handling the interaction
+     * @param handler the handler of the interaction
+     */
+    private void submitInteraction(IReplyCallback event, String interactorName,
+            Runnable handler) {
+        InteractionDeadlineGuard.TrackedInteraction interaction =
+                deadlineGuard.track(event, interactorName);
+        interactionExecutor.submit(interactorName, () -> interaction.run(interactorName, handler),
+                () -> {
+                    interaction.untrack();
+                    rejectInteraction(event, interactorName);
+                });
+    }
+
+    /**
+     * Runs the handler of the given interaction on the current thread, within the bulkhead of its
+     * interactor.
+     *
+     * @param event the received interaction
+     * @param interaction the event, as tracked by the deadline guard
+     * @param interactorName the name of the interactor handling the interaction
+     * @param handler the handler of the interaction
+     */
+    private void runInteraction(IReplyCallback event,
+            InteractionDeadlineGuard.TrackedInteraction interaction, String interactorName,
+            Runnable handler) {
+        // Known only now, but the interaction may still wait for the bulkhead of its interactor
+        interaction.identify(interactorName);
+        interactionExecutor.runLimited(interactorName,
+                () -> interaction.run(interactorName, handler), () -> {
+                    interaction.untrack();
+                    rejectInteraction(event, interactorName);
+                });
+    }
+
+    /**
+     * Tells the user that their interaction was rejected, since the interactor is already
+     * processing too many interactions.
+     *
+     * @param event the rejected interaction
+     * @param interactorName the name of the saturated interactor
+     */
+    private void rejectInteraction(IReplyCallback event, String interactorName) {
+        metrics.count("interaction_rejected", Map.of("name", interactorName));
+        event.reply("Sorry, I am too busy with '%s' right now. Please try again in a moment."
+            .formatted(interactorName)).setEphemeral(true).queue();
     }
 
     /**
@@ -585,12 +692,6 @@ public final class BotCore extends ListenerAdapter implements CommandProvider {
     }
 
 
-    @SuppressWarnings("EmptyMethod")
-    private static void onComponentIdRemoved(ComponentId componentId) {
-        // NOTE As of now, we do not act on this event, but we could use it
-        // in the future to, for example, disable buttons or delete the associated message
-    }
-
     /**
      * Extension of {@link java.util.function.BiConsumer} but for 3 elements.
      * <p>
@@ -0,0 +1,77 @@
+package org.togetherjava.tjbot.features.system;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import net.dv8tion.jda.api.entities.channel.Channel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Routes events of a channel to all receivers subscribed to the channel by name.
+ * <p>
+ * The receivers of a channel are resolved once, by matching the channel name against the pattern
+ * of each receiver, and then cached by the id of the channel. Dispatching an event is hence a
+ * single lookup, without evaluating any pattern. Threads are routed by their own name, like any
+ * other channel, independent of the name of their parent channel.
+ * <p>
+ * The cache of a channel must be invalidated using {@link #invalidate(long)} whenever its name
+ * changes. Since the cache grows with every channel an event is dispatched for, including threads,
+ * it is bounded, evicting the channels that are used least.
+ * <p>
+ * Instances are thread-safe.
+ *
+ * @param <R> the type of the receivers
+ */
+final class ChannelRoutingTable<R> {
+    private static final int MAX_CACHED_CHANNELS = 10_000;
+
+    private final List<R> receivers;
+    private final List<Pattern> channelNamePatterns;
+    private final Cache<Long, List<R>> channelIdToReceivers =
+            Caffeine.newBuilder().maximumSize(MAX_CACHED_CHANNELS).build();
+
+    /**
+     * Creates a new routing table for the given receivers.
+     *
+     * @param receivers all receivers to route events to
+     * @param channelNamePattern gets the pattern of the channel names a receiver is subscribed to
+     */
+    ChannelRoutingTable(List<? extends R> receivers,
+            Function<? super R, Pattern> channelNamePattern) {
+        this.receivers = List.copyOf(receivers);
+        channelNamePatterns = this.receivers.stream().map(channelNamePattern).toList();
+    }
+
+    /**
+     * Gets all receivers subscribed to the given channel.
+     *
+     * @param channelId the id of the channel, see {@link Channel#getIdLong()}
+     * @param channelName the current name of the channel, only used if the channel is not cached
+     * @return the subscribed receivers, possibly empty
+     */
+    List<R> getReceiversSubscribedTo(long channelId, String channelName) {
+        return channelIdToReceivers.get(channelId, _ -> resolveReceivers(channelName));
+    }
+
+    /**
+     * Removes the cached receivers of the given channel, for example since it has been renamed.
+     *
+     * @param channelId the id of the channel to invalidate
+     */
+    void invalidate(long channelId) {
+        channelIdToReceivers.invalidate(channelId);
+    }
+
+    private List<R> resolveReceivers(String channelName) {
+        List<R> subscribedReceivers = new ArrayList<>();
+        for (int i = 0; i < receivers.size(); i++) {
+            if (channelNamePatterns.get(i).matcher(channelName).matches()) {
+                subscribedReceivers.add(receivers.get(i));
+            }
+        }
+        return List.copyOf(subscribedReceivers);
+    }
+}
@@ -0,0 +1,69 @@
+package org.togetherjava.tjbot.features.system;
+
+import net.dv8tion.jda.api.JDA;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.togetherjava.tjbot.db.Database;
+import org.togetherjava.tjbot.db.LatencyHistogram;
+import org.togetherjava.tjbot.db.QueryStatistics;
+import org.togetherjava.tjbot.features.Routine;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Routine that regularly logs the {@link QueryStatistics} of the database, to identify which
+ * queries, and hence which stores, are responsible for database latency.
+ */
+public final class DatabaseStatisticsRoutine implements Routine {
+    private static final Logger logger = LoggerFactory.getLogger(DatabaseStatisticsRoutine.class);
+    private static final int LOG_TOP_QUERIES = 10;
+
+    private final Database database;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param database the database to report statistics of
+     */
+    public DatabaseStatisticsRoutine(Database database) {
+        this.database = database;
+    }
+
+    @Override
+    public Schedule createSchedule() {
+        return new Schedule(ScheduleMode.FIXED_RATE, 1, 1, TimeUnit.HOURS);
+    }
+
+    @Override
+    public Scope getScope() {
+        return Scope.PROCESS;
+    }
+
+    @Override
+    public void runRoutine(JDA jda) {
+        if (!logger.isInfoEnabled()) {
+            return;
+        }
+
+        QueryStatistics statistics = database.getQueryStatistics();
+        LatencyHistogram lockWaits = statistics.getWriteLockWaits();
+        LatencyHistogram transactions = statistics.getTransactionDurations();
+
+        StringBuilder report = new StringBuilder();
+        report.append("Database statistics since start:")
+            .append("\nWrite lock waits: %d×, mean %s, p99 %s, max %s".formatted(
+                    lockWaits.getCount(), lockWaits.getMean(), lockWaits.getPercentile(0.99),
+                    lockWaits.getMax()))
+            .append("\nTransactions: %d×, mean %s, p99 %s, max %s".formatted(
+                    transactions.getCount(), transactions.getMean(),
+                    transactions.getPercentile(0.99), transactions.getMax()))
+            .append("\nQueries with the most total time spent:");
+        statistics.getQueries()
+            .stream()
+            .limit(LOG_TOP_QUERIES)
+            .forEach(query -> report.append("\n").append(query.summarize()));
+
+        logger.info(report.toString());
+    }
+}
@@ -0,0 +1,215 @@
+package org.togetherjava.tjbot.features.system;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import net.dv8tion.jda.api.entities.channel.Channel;
+import net.dv8tion.jda.api.events.GenericEvent;
+import net.dv8tion.jda.api.events.RawGatewayEvent;
+import net.dv8tion.jda.api.hooks.EventListener;
+import net.dv8tion.jda.api.utils.data.DataObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records gateway events, such as received messages, to a file, to replay them offline, for
+ * example for load testing.
+ * <p>
+ * Only created and updated messages are recorded, the events the replay can turn back into JDA
+ * events, see {@code GatewayReplay} in the tests. They are appended to the file one per line, see
+ * {@link RecordedGatewayEvent}. Requires raw gateway events to be enabled, see
+ * {@link net.dv8tion.jda.api.sharding.DefaultShardManagerBuilder#setRawEventsEnabled(boolean)}.
+ * <p>
+ * Events are scrubbed before they are written. In all text users typed, such as the content of
+ * messages and embeds, the names and topics of threads, the names of users and the names of
+ * attached files, letters are replaced by {@code x} and digits by {@code 0}. That keeps the shape
+ * of the traffic, such as the length of messages and their code blocks, but not what was written.
+ * Secrets, such as tokens, and images are dropped. Ids are kept, so that events can still be
+ * related to each other.
+ * <p>
+ * Scrubbing and writing happens on a background thread, recording never blocks the gateway. If
+ * events arrive faster than they can be written, further events are dropped and counted instead.
+ * Call {@link #close()} during shutdown to write all remaining events.
+ */
+public final class GatewayEventRecorder implements EventListener, AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(GatewayEventRecorder.class);
+
+    private static final int QUEUE_CAPACITY = 4_096;
+    private static final Set<String> RECORDED_TYPES = Set.of("MESSAGE_CREATE", "MESSAGE_UPDATE");
+    private static final Set<String> SCRUBBED_FIELDS = Set.of("content", "username",
+            "global_name", "nick", "name", "topic", "title", "description", "value", "filename",
+            "url", "proxy_url", "text", "placeholder", "label");
+    private static final Set<String> DROPPED_FIELDS = Set.of("token", "session_id", "avatar",
+            "banner", "avatar_decoration_data", "collectibles", "clan", "primary_guild");
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final BufferedWriter writer;
+    private final ThreadPoolExecutor executor;
+    private final LongAdder droppedEvents = new LongAdder();
+
+    /**
+     * Creates a new recorder, which appends to the given file.
+     *
+     * @param recording the path to the file to append events to, created if it does not exist
+     * @throws IOException if the file could not be opened
+     */
+    public GatewayEventRecorder(Path recording) throws IOException {
+        writer = Files.newBufferedWriter(recording, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY), runnable -> {
+                    Thread thread = new Thread(runnable, "gateway-recorder");
+                    thread.setDaemon(true);
+                    return thread;
+                }, (_, _) -> droppedEvents.increment());
+    }
+
+    @Override
+    public void onEvent(GenericEvent event) {
+        if (!(event instanceof RawGatewayEvent rawEvent)
+                || !RECORDED_TYPES.contains(rawEvent.getType())) {
+            return;
+        }
+
+        long recordedAtMillis = System.currentTimeMillis();
+        DataObject payload = rawEvent.getPayload();
+        String type = rawEvent.getType();
+        String channelType = getChannelType(rawEvent, payload);
+        byte[] payloadJson = payload.toJson();
+
+        executor.execute(() -> write(recordedAtMillis, type, channelType, payloadJson));
+    }
+
+    @Nullable
+    private static String getChannelType(RawGatewayEvent event, DataObject payload) {
+        if (!payload.hasKey("channel_id")) {
+            return null;
+        }
+
+        Channel channel =
+                event.getJDA().getChannelById(Channel.class, payload.getUnsignedLong("channel_id"));
+        return channel == null ? null : channel.getType().name();
+    }
+
+    private void write(long recordedAtMillis, String type, @Nullable String channelType,
+            byte[] payloadJson) {
+        try {
+            JsonNode data = OBJECT_MAPPER.readTree(payloadJson);
+            scrub(data);
+
+            writer.write(new RecordedGatewayEvent(recordedAtMillis, type, channelType, data)
+                .toLine());
+            writer.newLine();
+            if (executor.getQueue().isEmpty()) {
+                writer.flush();
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to record a gateway event of type {}", type, e);
+        }
+    }
+
+    /**
+     * Scrubs the given payload in place, see the class documentation.
+     *
+     * @param node the payload to scrub
+     */
+    static void scrub(JsonNode node) {
+        if (node instanceof ArrayNode array) {
+            array.forEach(GatewayEventRecorder::scrub);
+            return;
+        }
+        if (!(node instanceof ObjectNode object)) {
+            return;
+        }
+
+        object.remove(DROPPED_FIELDS);
+        List<String> fieldNames = new ArrayList<>();
+        object.fieldNames().forEachRemaining(fieldNames::add);
+        for (String fieldName : fieldNames) {
+            JsonNode value = object.get(fieldName);
+            if (value.isNull()) {
+                object.remove(fieldName);
+            } else if (value.isTextual() && SCRUBBED_FIELDS.contains(fieldName)) {
+                object.put(fieldName, "filename".equals(fieldName)
+                        ? scrubFileName(value.textValue()) : scrubText(value.textValue()));
+            } else {
+                scrub(value);
+            }
+        }
+    }
+
+    /**
+     * Replaces all letters of the given text by {@code x} and all digits by {@code 0}, keeping
+     * everything else, such as whitespace, punctuation and emojis.
+     *
+     * @param text the text to scrub
+     * @return the scrubbed text, of the same length
+     */
+    static String scrubText(String text) {
+        StringBuilder scrubbed = new StringBuilder(text.length());
+        text.codePoints().forEach(codePoint -> {
+            if (Character.isLetter(codePoint)) {
+                scrubbed.append('x');
+            } else if (Character.isDigit(codePoint)) {
+                scrubbed.append('0');
+            } else {
+                scrubbed.appendCodePoint(codePoint);
+            }
+        });
+        return scrubbed.toString();
+    }
+
+    private static String scrubFileName(String fileName) {
+        // The extension is kept, features such as file sharing depend on it
+        int extensionStart = fileName.lastIndexOf('.');
+        if (extensionStart <= 0) {
+            return scrubText(fileName);
+        }
+        return scrubText(fileName.substring(0, extensionStart))
+                + fileName.substring(extensionStart);
+    }
+
+    /**
+     * Stops recording and writes all remaining events.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                logger.warn("Gateway recorder did not finish writing in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        try {
+            writer.close();
+        } catch (IOException e) {
+            logger.warn("Failed to close the gateway recording", e);
+        }
+
+        long dropped = droppedEvents.sum();
+        if (dropped > 0) {
+            logger.warn("Dropped {} gateway events while recording, writing could not keep up",
+                    dropped);
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package org.togetherjava.tjbot.features.system;
+
+import net.dv8tion.jda.api.interactions.callbacks.IReplyCallback;
+import net.dv8tion.jda.api.interactions.components.ComponentInteraction;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.togetherjava.tjbot.config.InteractionDeadlineConfig;
+import org.togetherjava.tjbot.db.LatencyHistogram;
+import org.togetherjava.tjbot.features.UserInteractor;
+import org.togetherjava.tjbot.features.analytics.Metrics;
+import org.togetherjava.tjbot.features.utils.InteractionAcknowledgements;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Guards the deadline of 3 seconds Discord imposes on acknowledging interactions, after which it
+ * shows "interaction failed" to the user.
+ * <p>
+ * Interactions are tracked from receiving them until they are acknowledged. Interactions of the
+ * interactors configured in {@link InteractionDeadlineConfig#autoDeferredInteractors()} and
+ * {@link InteractionDeadlineConfig#ephemerallyAutoDeferredInteractors()} that have not been
+ * acknowledged within the configured budget are deferred automatically, publicly or ephemerally.
+ * Since Discord accepts only a single acknowledgement, this is opt-in; the handlers of such
+ * interactors must claim the acknowledgement through {@link InteractionAcknowledgements#claim}
+ * before they acknowledge, and otherwise respond through the hook of the event.
+ * <p>
+ * For each interactor, the time interactions wait for processing, the time their handler takes and
+ * the time until they are acknowledged are recorded, see {@link #logStatistics()}. Acknowledgement
+ * is detected by polling, hence the latter is only accurate to the polling interval.
+ */
+final class InteractionDeadlineGuard {
+    private static final Logger logger = LoggerFactory.getLogger(InteractionDeadlineGuard.class);
+
+    private static final Duration ACKNOWLEDGE_DEADLINE = Duration.ofSeconds(3);
+    private static final long POLL_INTERVAL_MILLIS = 50;
+
+    private final InteractionDeadlineConfig config;
+    private final Metrics metrics;
+    private final Set<TrackedInteraction> unacknowledgedInteractions =
+            ConcurrentHashMap.newKeySet();
+    private final Map<String, InteractorLatencies> interactorNameToLatencies =
+            new ConcurrentHashMap<>();
+    private final ScheduledExecutorService poller =
+            Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "interaction-deadline-guard");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    /**
+     * Creates a new instance and starts polling tracked interactions.
+     *
+     * @param config the configuration of the guard
+     * @param metrics to count automatically deferred and expired interactions
+     */
+    InteractionDeadlineGuard(InteractionDeadlineConfig config, Metrics metrics) {
+        this.config = config;
+        this.metrics = metrics;
+
+        poller.scheduleWithFixedDelay(this::checkUnacknowledgedInteractions, POLL_INTERVAL_MILLIS,
+                POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Starts tracking the given interaction. Should be called as soon as the interaction has been
+     * received.
+     *
+     * @param event the received interaction
+     * @param interactorName the name of the interactor handling the interaction, see
+     *        {@link UserInteractor#getName()}, or {@code null} if not known yet
+     * @return the tracked interaction, to run its handler with
+     */
+    TrackedInteraction track(IReplyCallback event, @Nullable String interactorName) {
+        TrackedInteraction interaction = new TrackedInteraction(event, interactorName);
+        unacknowledgedInteractions.add(interaction);
+        return interaction;
+    }
+
+    /**
+     * Logs the latencies of each interactor, slowest to acknowledge first.
+     */
+    void logStatistics() {
+        if (!logger.isInfoEnabled()) {
+            return;
+        }
+
+        StringBuilder report = new StringBuilder("Interaction latencies:");
+        interactorNameToLatencies.entrySet()
+            .stream()
+            .sorted(Comparator.comparing((Map.Entry<String, InteractorLatencies> entry) -> entry
+                .getValue()
+                .timeToAcknowledge()
+                .getPercentile(0.99)).reversed())
+            .forEach(entry -> {
+                InteractorLatencies latencies = entry.getValue();
+                report.append(
+                        "\n%s: %d× queue wait p99 %s, handler mean %s p99 %s, acknowledged p99 %s max %s"
+                            .formatted(entry.getKey(), latencies.handler().getCount(),
+                                    latencies.queueWait().getPercentile(0.99),
+                                    latencies.handler().getMean(),
+                                    latencies.handler().getPercentile(0.99),
+                                    latencies.timeToAcknowledge().getPercentile(0.99),
+                                    latencies.timeToAcknowledge().getMax()));
+            });
+
+        logger.info(report.toString());
+    }
+
+    private InteractorLatencies latenciesOf(String interactorName) {
+        return interactorNameToLatencies.computeIfAbsent(interactorName,
+                _ -> new InteractorLatencies(new LatencyHistogram(), new LatencyHistogram(),
+                        new LatencyHistogram()));
+    }
+
+    private void checkUnacknowledgedInteractions() {
+        long nowNanos = System.nanoTime();
+        for (TrackedInteraction interaction : unacknowledgedInteractions) {
+            try {
+                interaction.check(nowNanos);
+            } catch (Exception e) {
+                unacknowledgedInteractions.remove(interaction);
+                logger.warn("Failed to check the acknowledgement of interaction (#{})",
+                        interaction.event.getId(), e);
+            }
+        }
+    }
+
+    private record InteractorLatencies(LatencyHistogram queueWait, LatencyHistogram handler,
+            LatencyHistogram timeToAcknowledge) {
+    }
+
+    /**
+     * An interaction tracked by the guard.
+     */
+    final class TrackedInteraction {
+        private final IReplyCallback event;
+        private final long receivedAtNanos = System.nanoTime();
+        @Nullable
+        private volatile String interactorName;
+        private boolean isAutoDeferred;
+
+        private TrackedInteraction(IReplyCallback event, @Nullable String interactorName) {
+            this.event = event;
+            this.interactorName = interactorName;
+        }
+
+        /**
+         * Sets the name of the interactor handling the interaction, as soon as it is known. Until
+         * then, the interaction is neither deferred automatically nor reported when it expires.
+         *
+         * @param handlingInteractorName the name of the interactor handling the interaction
+         */
+        void identify(String handlingInteractorName) {
+            interactorName = handlingInteractorName;
+        }
+
+        /**
+         * Runs the handler of the interaction on the current thread, recording how long it waited
+         * and took.
+         *
+         * @param handlingInteractorName the name of the interactor handling the interaction
+         * @param handler the handler to run
+         */
+        void run(String handlingInteractorName, Runnable handler) {
+            interactorName = handlingInteractorName;
+            InteractorLatencies latencies = latenciesOf(handlingInteractorName);
+
+            long startNanos = System.nanoTime();
+            latencies.queueWait().record(startNanos - receivedAtNanos);
+            try {
+                handler.run();
+            } finally {
+                latencies.handler().record(System.nanoTime() - startNanos);
+            }
+        }
+
+        /**
+         * Stops tracking the interaction, for example since it was rejected without being
+         * handled.
+         */
+        void untrack() {
+            unacknowledgedInteractions.remove(this);
+        }
+
+        private void check(long nowNanos) {
+            long elapsedNanos = nowNanos - receivedAtNanos;
+            String name = interactorName;
+
+            if (event.isAcknowledged()) {
+                unacknowledgedInteractions.remove(this);
+                if (name != null) {
+                    latenciesOf(name).timeToAcknowledge().record(elapsedNanos);
+                }
+                return;
+            }
+
+            if (elapsedNanos >= ACKNOWLEDGE_DEADLINE.toNanos()) {
+                unacknowledgedInteractions.remove(this);
+                if (name != null) {
+                    logger.warn("Interaction (#{}) of '{}' was not acknowledged within {}",
+                            event.getId(), name, ACKNOWLEDGE_DEADLINE);
+                    metrics.count("interaction_expired", Map.of("name", name));
+                }
+                return;
+            }
+
+            if (!isAutoDeferred && name != null
+                    && elapsedNanos >= TimeUnit.MILLISECONDS.toNanos(config.autoDeferAfterMillis())
+                    && config.isAutoDeferred(name)) {
+                isAutoDeferred = true;
+                autoDefer(name);
+            }
+        }
+
+        private void autoDefer(String name) {
+            if (!InteractionAcknowledgements.claim(event)) {
+                // The handler is acknowledging the interaction itself already
+                return;
+            }
+
+            logger.debug("Automatically deferring interaction (#{}) of '{}'", event.getId(), name);
+            metrics.count("interaction_auto_deferred", Map.of("name", name));
+
+            if (event instanceof ComponentInteraction componentInteraction) {
+                componentInteraction.deferEdit().queue();
+            } else {
+                event.deferReply(config.ephemerallyAutoDeferredInteractors().contains(name))
+                    .queue();
+            }
+        }
+    }
+}
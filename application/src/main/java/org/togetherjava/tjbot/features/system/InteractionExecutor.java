@@ -0,0 +1,143 @@
+package org.togetherjava.tjbot.features.system;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.togetherjava.tjbot.config.InteractionLimitsConfig;
+import org.togetherjava.tjbot.features.UserInteractor;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executes user interactions, such as slash commands, on virtual threads, isolating the
+ * interactors from each other by bulkheads.
+ * <p>
+ * Each {@link UserInteractor} gets its own bulkhead, limiting how many of its interactions are
+ * processed at the same time and how many may wait for processing, as configured by
+ * {@link InteractionLimitsConfig}. Interactions exceeding both limits are rejected right away,
+ * instead of piling up. Hence, a stalling interactor, for example one waiting on an external
+ * service, can only exhaust its own bulkhead and never delays other interactors.
+ */
+final class InteractionExecutor {
+    private static final Logger logger = LoggerFactory.getLogger(InteractionExecutor.class);
+
+    private final ExecutorService executor = Executors
+        .newThreadPerTaskExecutor(Thread.ofVirtual().name("interaction-", 0).factory());
+    private final InteractionLimitsConfig config;
+    private final Map<String, Bulkhead> interactorNameToBulkhead = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new instance.
+     *
+     * @param config the concurrency limits of the interactors
+     */
+    InteractionExecutor(InteractionLimitsConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * Executes the given task asynchronously, without any limit. Intended for tasks that first
+     * have to resolve the interactor of an interaction, which then continue using
+     * {@link #runLimited(String, Runnable, Runnable)}.
+     *
+     * @param task the task to execute
+     */
+    void execute(Runnable task) {
+        executor.execute(task);
+    }
+
+    /**
+     * Executes the given task of an interactor asynchronously, within the bulkhead of the
+     * interactor. If the bulkhead is saturated, the task is rejected right away, on the calling
+     * thread.
+     *
+     * @param interactorName the name of the interactor, see {@link UserInteractor#getName()}
+     * @param task the task to execute
+     * @param onRejected invoked instead of the task if the bulkhead is saturated, for example to
+     *        tell the user to try again later
+     */
+    void submit(String interactorName, Runnable task, Runnable onRejected) {
+        Bulkhead bulkhead = bulkheadOf(interactorName);
+        if (!bulkhead.tryEnter()) {
+            reject(interactorName, onRejected);
+            return;
+        }
+
+        executor.execute(() -> bulkhead.runAndExit(task));
+    }
+
+    /**
+     * Runs the given task of an interactor on the current thread, within the bulkhead of the
+     * interactor. Blocks while the task is waiting for processing. Intended to be called from
+     * tasks given to {@link #execute(Runnable)}.
+     *
+     * @param interactorName the name of the interactor, see {@link UserInteractor#getName()}
+     * @param task the task to run
+     * @param onRejected invoked instead of the task if the bulkhead is saturated, for example to
+     *        tell the user to try again later
+     */
+    void runLimited(String interactorName, Runnable task, Runnable onRejected) {
+        Bulkhead bulkhead = bulkheadOf(interactorName);
+        if (!bulkhead.tryEnter()) {
+            reject(interactorName, onRejected);
+            return;
+        }
+
+        bulkhead.runAndExit(task);
+    }
+
+    private Bulkhead bulkheadOf(String interactorName) {
+        return interactorNameToBulkhead.computeIfAbsent(interactorName,
+                _ -> new Bulkhead(config.limitsOf(interactorName)));
+    }
+
+    private static void reject(String interactorName, Runnable onRejected) {
+        logger.debug("Rejected an interaction of '{}', too many are being processed already",
+                interactorName);
+        onRejected.run();
+    }
+
+    /**
+     * Limits the amount of tasks being processed, and waiting for processing, at the same time.
+     */
+    private static final class Bulkhead {
+        private final Semaphore processingPermits;
+        private final int capacity;
+        private final AtomicInteger admitted = new AtomicInteger();
+
+        Bulkhead(InteractionLimitsConfig.Bulkhead limits) {
+            processingPermits = new Semaphore(limits.maxConcurrent(), true);
+            capacity = limits.maxConcurrent() + limits.maxQueued();
+        }
+
+        boolean tryEnter() {
+            if (admitted.incrementAndGet() > capacity) {
+                admitted.decrementAndGet();
+                return false;
+            }
+            return true;
+        }
+
+        void runAndExit(Runnable task) {
+            try {
+                processingPermits.acquire();
+            } catch (InterruptedException _) {
+                admitted.decrementAndGet();
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            try {
+                task.run();
+            } finally {
+                processingPermits.release();
+                admitted.decrementAndGet();
+            }
+        }
+    }
+}
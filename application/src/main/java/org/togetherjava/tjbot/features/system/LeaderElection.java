@@ -0,0 +1,92 @@
+package org.togetherjava.tjbot.features.system;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.togetherjava.tjbot.config.ShardingConfig;
+import org.togetherjava.tjbot.db.Database;
+import org.togetherjava.tjbot.db.DatabaseException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.togetherjava.tjbot.db.generated.tables.LeaderLeases.LEADER_LEASES;
+
+/**
+ * Elects a single leader among all processes of the bot sharing the same database, by means of a
+ * lease stored in the database.
+ * <p>
+ * Each process periodically calls {@link #renew()}. The process holding the lease extends it, the
+ * others acquire it only once it has expired, for example since the process holding it crashed.
+ * A process considers itself the leader only until shortly before its lease expires, so that no
+ * two processes lead at the same time.
+ */
+final class LeaderElection {
+    private static final Logger logger = LoggerFactory.getLogger(LeaderElection.class);
+
+    /**
+     * How often {@link #renew()} should be called.
+     */
+    static final Duration RENEW_INTERVAL = Duration.ofSeconds(15);
+    private static final Duration LEASE_DURATION = Duration.ofSeconds(60);
+    private static final Duration SAFETY_MARGIN = Duration.ofSeconds(10);
+    private static final String LEASE_NAME = "leader";
+
+    private final Database database;
+    private final String holder;
+    private volatile Instant isLeaderUntil = Instant.MIN;
+
+    /**
+     * Creates a new instance. The process does not lead until the first call to {@link #renew()}.
+     *
+     * @param database the database shared by all processes
+     * @param sharding the sharding of this process, to identify it in the logs and the database
+     */
+    LeaderElection(Database database, ShardingConfig sharding) {
+        this.database = database;
+        holder = "%s (shards %d-%d)".formatted(UUID.randomUUID(), sharding.firstShardId(),
+                sharding.lastShardId());
+    }
+
+    /**
+     * Extends the lease if this process holds it, or acquires it if it has expired.
+     */
+    void renew() {
+        Instant now = Instant.now();
+        Instant expiresAt = now.plus(LEASE_DURATION);
+
+        boolean isHolding;
+        try {
+            isHolding = database.writeAndProvide(context -> context
+                .insertInto(LEADER_LEASES, LEADER_LEASES.NAME, LEADER_LEASES.HOLDER,
+                        LEADER_LEASES.EXPIRES_AT)
+                .values(LEASE_NAME, holder, expiresAt)
+                .onConflict(LEADER_LEASES.NAME)
+                .doUpdate()
+                .set(LEADER_LEASES.HOLDER, holder)
+                .set(LEADER_LEASES.EXPIRES_AT, expiresAt)
+                .where(LEADER_LEASES.HOLDER.eq(holder).or(LEADER_LEASES.EXPIRES_AT.lessThan(now)))
+                .execute() > 0);
+        } catch (DatabaseException e) {
+            logger.warn("Failed to renew the leader lease", e);
+            isHolding = false;
+        }
+
+        boolean wasLeader = isLeader();
+        isLeaderUntil = isHolding ? expiresAt.minus(SAFETY_MARGIN) : Instant.MIN;
+        if (isHolding != wasLeader) {
+            logger.info(isHolding ? "This process ({}) is now the leader"
+                    : "This process ({}) is not the leader anymore", holder);
+        }
+    }
+
+    /**
+     * Whether this process is the leader right now.
+     *
+     * @return whether this process leads
+     */
+    boolean isLeader() {
+        return Instant.now().isBefore(isLeaderUntil);
+    }
+}
@@ -0,0 +1,245 @@
+package org.togetherjava.tjbot.features.system;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.togetherjava.tjbot.db.LatencyHistogram;
+import org.togetherjava.tjbot.features.MessageReceiver;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Dispatches events to {@link MessageReceiver}s off the JDA event thread, preserving the order of
+ * events per channel.
+ * <p>
+ * Channels are assigned to a fixed amount of lanes, by their id. Each lane processes its events one
+ * after another, on a virtual thread, while different lanes run concurrently. Hence, a slow
+ * receiver only delays events of the channels sharing its lane, instead of stalling all gateway
+ * processing.
+ * <p>
+ * The receivers of a single event run one after another within the lane, so that each receiver
+ * sees the events of a channel in order, and an event is only processed once all receivers are
+ * done with the previous one. Receivers are never abandoned, a receiver taking longer than 10
+ * seconds is logged instead. Failures of a receiver are logged and do not affect other receivers.
+ * <p>
+ * Each lane holds a bounded amount of pending events. If a lane is full, dispatching blocks until
+ * it has room again, pushing back on the gateway instead of buffering events without limit.
+ * <p>
+ * The amount of pending events and the latency of each receiver are exposed, see
+ * {@link #getQueueDepth()} and {@link #getReceiverLatencies()}.
+ */
+final class MessageReceiverDispatcher {
+    private static final Logger logger = LoggerFactory.getLogger(MessageReceiverDispatcher.class);
+
+    private static final int LANES = 64;
+    private static final int LANE_CAPACITY = 256;
+    private static final Duration SLOW_RECEIVER_THRESHOLD = Duration.ofSeconds(10);
+    private static final int QUEUE_DEPTH_WARN_THRESHOLD = 1_000;
+    private static final Duration QUEUE_DEPTH_WARN_INTERVAL = Duration.ofMinutes(1);
+
+    private final ExecutorService executor = Executors
+        .newThreadPerTaskExecutor(Thread.ofVirtual().name("message-receiver-", 0).factory());
+    private final Lane[] lanes;
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final AtomicLong lastQueueDepthWarningNanos =
+            new AtomicLong(System.nanoTime() - QUEUE_DEPTH_WARN_INTERVAL.toNanos());
+    private final Map<String, LatencyHistogram> receiverLatencies = new ConcurrentHashMap<>();
+
+    MessageReceiverDispatcher() {
+        this(LANE_CAPACITY);
+    }
+
+    /**
+     * Creates a new dispatcher.
+     *
+     * @param laneCapacity the maximal amount of pending events per lane
+     */
+    MessageReceiverDispatcher(int laneCapacity) {
+        lanes = new Lane[LANES];
+        for (int i = 0; i < LANES; i++) {
+            lanes[i] = new Lane(laneCapacity);
+        }
+    }
+
+    /**
+     * Dispatches an event of the given channel to the given receivers, asynchronously.
+     * <p>
+     * Blocks while the lane of the channel is full.
+     *
+     * @param channelId the id of the channel the event occurred in
+     * @param receivers the receivers subscribed to the channel
+     * @param receiverAction forwards the event to a receiver
+     */
+    void dispatch(long channelId, List<MessageReceiver> receivers,
+            Consumer<? super MessageReceiver> receiverAction) {
+        if (receivers.isEmpty()) {
+            return;
+        }
+
+        int depth = queueDepth.incrementAndGet();
+        if (depth >= QUEUE_DEPTH_WARN_THRESHOLD) {
+            warnAboutQueueDepth(depth);
+        }
+
+        boolean isSubmitted = lanes[laneOf(channelId)].submit(() -> {
+            try {
+                runReceivers(receivers, receiverAction);
+            } finally {
+                queueDepth.decrementAndGet();
+            }
+        });
+        if (!isSubmitted) {
+            queueDepth.decrementAndGet();
+            logger.warn("Interrupted while waiting for room in the lane of channel {}, dropping"
+                    + " the message event", channelId);
+        }
+    }
+
+    /**
+     * Gets the amount of events that are dispatched but not yet processed by their receivers.
+     *
+     * @return the amount of pending events
+     */
+    int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    /**
+     * Gets the latency of each receiver, by the name of its class.
+     *
+     * @return the latencies, unmodifiable
+     */
+    Map<String, LatencyHistogram> getReceiverLatencies() {
+        return Map.copyOf(receiverLatencies);
+    }
+
+    /**
+     * Logs the queue depth and the latency of each receiver, slowest first.
+     */
+    void logStatistics() {
+        if (!logger.isInfoEnabled()) {
+            return;
+        }
+
+        StringBuilder report = new StringBuilder();
+        report.append("Message receivers, %d events pending:".formatted(getQueueDepth()));
+        receiverLatencies.entrySet()
+            .stream()
+            .sorted(Comparator.comparing(
+                    (Map.Entry<String, LatencyHistogram> entry) -> entry.getValue().getTotal())
+                .reversed())
+            .forEach(entry -> report.append("\n%s: %d× mean %s, p99 %s, max %s".formatted(
+                    entry.getKey(), entry.getValue().getCount(), entry.getValue().getMean(),
+                    entry.getValue().getPercentile(0.99), entry.getValue().getMax())));
+
+        logger.info(report.toString());
+    }
+
+    private static int laneOf(long channelId) {
+        return Math.floorMod(channelId ^ (channelId >>> 32), LANES);
+    }
+
+    private void warnAboutQueueDepth(int depth) {
+        long nowNanos = System.nanoTime();
+        long lastWarningNanos = lastQueueDepthWarningNanos.get();
+        if (nowNanos - lastWarningNanos < QUEUE_DEPTH_WARN_INTERVAL.toNanos()
+                || !lastQueueDepthWarningNanos.compareAndSet(lastWarningNanos, nowNanos)) {
+            return;
+        }
+
+        logger.warn("{} message events are waiting to be processed by the receivers", depth);
+    }
+
+    private void runReceivers(List<MessageReceiver> receivers,
+            Consumer<? super MessageReceiver> receiverAction) {
+        for (MessageReceiver receiver : receivers) {
+            runReceiver(receiver, receiverAction);
+        }
+    }
+
+    private void runReceiver(MessageReceiver receiver,
+            Consumer<? super MessageReceiver> receiverAction) {
+        long startNanos = System.nanoTime();
+        try {
+            receiverAction.accept(receiver);
+        } catch (Exception e) {
+            logger.error("Unknown error in message receiver {}", nameOf(receiver), e);
+        } finally {
+            long elapsedNanos = System.nanoTime() - startNanos;
+            receiverLatencies.computeIfAbsent(nameOf(receiver), _ -> new LatencyHistogram())
+                .record(elapsedNanos);
+            if (elapsedNanos > SLOW_RECEIVER_THRESHOLD.toNanos()) {
+                logger.warn("Message receiver {} took {}, delaying the events of its lane",
+                        nameOf(receiver), Duration.ofNanos(elapsedNanos));
+            }
+        }
+    }
+
+    private static String nameOf(MessageReceiver receiver) {
+        return receiver.getClass().getSimpleName();
+    }
+
+    /**
+     * Runs submitted tasks one after another, in submission order.
+     */
+    private final class Lane {
+        private final BlockingQueue<Runnable> tasks;
+        private final AtomicBoolean isDraining = new AtomicBoolean();
+
+        Lane(int capacity) {
+            tasks = new ArrayBlockingQueue<>(capacity);
+        }
+
+        /**
+         * Submits the given task, waiting for room if the lane is full.
+         *
+         * @param task the task to run
+         * @return whether the task was submitted, {@code false} if interrupted while waiting
+         */
+        boolean submit(Runnable task) {
+            try {
+                tasks.put(task);
+            } catch (InterruptedException _) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            scheduleDrain();
+            return true;
+        }
+
+        private void scheduleDrain() {
+            if (isDraining.compareAndSet(false, true)) {
+                executor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                Runnable task = tasks.poll();
+                while (task != null) {
+                    task.run();
+                    task = tasks.poll();
+                }
+            } finally {
+                isDraining.set(false);
+            }
+
+            // A task might have been submitted after polling the last one, but before resetting
+            if (!tasks.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package org.togetherjava.tjbot.features.system;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * A gateway event recorded by {@link GatewayEventRecorder}.
+ * <p>
+ * Recordings store one event per line, as JSON object, see {@link #toLine()} and
+ * {@link #readRecording(Path)}.
+ *
+ * @param recordedAtMillis when the event was received, in milliseconds since the epoch
+ * @param type the type of the event as named by Discord, e.g. {@code MESSAGE_CREATE}
+ * @param channelType the name of the {@link net.dv8tion.jda.api.entities.channel.ChannelType} of
+ *        the channel the event happened in, if the event belongs to a known channel
+ * @param data the scrubbed payload of the event, as sent by Discord
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record RecordedGatewayEvent(long recordedAtMillis, String type,
+        @Nullable String channelType, JsonNode data) {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    /**
+     * Reads all events of a recording.
+     *
+     * @param recording the path to the recording
+     * @return the recorded events, in the order they were received
+     * @throws IOException if the recording could not be read or contains malformed lines
+     */
+    public static List<RecordedGatewayEvent> readRecording(Path recording) throws IOException {
+        try (Stream<String> lines = Files.lines(recording, StandardCharsets.UTF_8)) {
+            return lines.filter(line -> !line.isBlank())
+                .map(RecordedGatewayEvent::fromLine)
+                .toList();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static RecordedGatewayEvent fromLine(String line) {
+        try {
+            return OBJECT_MAPPER.readValue(line, RecordedGatewayEvent.class);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Serializes this event to a single line of JSON, without the line break.
+     *
+     * @return this event as a line of a recording
+     */
+    public String toLine() {
+        try {
+            return OBJECT_MAPPER.writeValueAsString(this);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Recorded events consist of JSON only", e);
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package org.togetherjava.tjbot.features.system;
+
+import net.dv8tion.jda.api.JDA;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.togetherjava.tjbot.db.LatencyHistogram;
+import org.togetherjava.tjbot.features.Routine;
+import org.togetherjava.tjbot.features.analytics.Metrics;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Executes {@link Routine}s on their {@link Routine.Schedule}.
+ * <p>
+ * Executions of a routine never overlap. The next execution is only planned once the current one
+ * has finished; for {@link Routine.ScheduleMode#FIXED_RATE} schedules, executions missed in the
+ * meantime are skipped instead of being caught up on. The first execution of each routine is
+ * delayed by a random amount of up to its {@link Routine.Schedule#startJitter()}, so routines do
+ * not all start at once.
+ * <p>
+ * Routines execute on virtual threads, but at most {@value MAX_CONCURRENT_ROUTINES} at the same
+ * time; further due routines wait for their turn. The duration and failures of each routine are
+ * recorded, see {@link #getStatuses()}, and routines can be triggered manually, see
+ * {@link #triggerNow(String)}.
+ * <p>
+ * Each execution covers the shards given by the {@link Routine.Scope} of the routine. Executions of
+ * {@link Routine.Scope#SINGLETON} routines are skipped unless this process is the leader, see
+ * {@link LeaderElection}.
+ */
+final class RoutineScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(RoutineScheduler.class);
+    private static final int MAX_CONCURRENT_ROUTINES = 5;
+
+    private final ScheduledExecutorService timer =
+            Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "routine-scheduler");
+                thread.setDaemon(true);
+                return thread;
+            });
+    private final ExecutorService executor =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("routine-", 0).factory());
+    private final Semaphore concurrencyPermits = new Semaphore(MAX_CONCURRENT_ROUTINES, true);
+    private final Map<String, ScheduledRoutine> nameToRoutine;
+    private final LeaderElection leaderElection;
+    private final Metrics metrics;
+    private volatile List<JDA> shards = List.of();
+
+    /**
+     * Creates a new scheduler for the given routines. They are not scheduled until
+     * {@link #start(List)} is called.
+     *
+     * @param routines the routines to schedule, identified by the simple name of their class
+     * @param leaderElection to decide whether singleton routines are executed by this process
+     * @param metrics to count failed executions
+     */
+    RoutineScheduler(List<? extends Routine> routines, LeaderElection leaderElection,
+            Metrics metrics) {
+        this.leaderElection = leaderElection;
+        this.metrics = metrics;
+
+        Map<String, ScheduledRoutine> routinesByName = new LinkedHashMap<>();
+        for (Routine routine : routines) {
+            String name = routine.getClass().getSimpleName();
+            if (routinesByName.putIfAbsent(name, new ScheduledRoutine(name, routine)) != null) {
+                throw new IllegalArgumentException("Multiple routines are named " + name);
+            }
+        }
+        nameToRoutine = routinesByName;
+    }
+
+    /**
+     * Takes part in the leader election and schedules all routines.
+     *
+     * @param shards the ready JDA instances of all shards owned by this process, ordered by their
+     *        shard id, given to the routines
+     */
+    void start(List<JDA> shards) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("Routines need at least one shard to run on");
+        }
+        this.shards = List.copyOf(shards);
+
+        leaderElection.renew();
+        timer.scheduleWithFixedDelay(leaderElection::renew,
+                LeaderElection.RENEW_INTERVAL.toMillis(), LeaderElection.RENEW_INTERVAL.toMillis(),
+                TimeUnit.MILLISECONDS);
+
+        nameToRoutine.values().forEach(ScheduledRoutine::scheduleFirstExecution);
+    }
+
+    /**
+     * Gets the status of all routines, in registration order.
+     *
+     * @return the status of each routine
+     */
+    List<RoutineStatus> getStatuses() {
+        return nameToRoutine.values().stream().map(ScheduledRoutine::getStatus).toList();
+    }
+
+    /**
+     * Gets the names of all routines, in registration order.
+     *
+     * @return the names of the routines
+     */
+    List<String> getRoutineNames() {
+        return List.copyOf(nameToRoutine.keySet());
+    }
+
+    /**
+     * Executes the given routine right away, asynchronously, without affecting its schedule.
+     *
+     * @param routineName the name of the routine to execute
+     * @return the result of the trigger
+     */
+    TriggerResult triggerNow(String routineName) {
+        ScheduledRoutine routine = nameToRoutine.get(routineName);
+        if (routine == null) {
+            return TriggerResult.UNKNOWN_ROUTINE;
+        }
+        if (shards.isEmpty()) {
+            return TriggerResult.NOT_STARTED;
+        }
+        if (routine.scope == Routine.Scope.SINGLETON && !leaderElection.isLeader()) {
+            return TriggerResult.NOT_LEADER;
+        }
+        if (routine.isRunning.get()) {
+            return TriggerResult.ALREADY_RUNNING;
+        }
+
+        executor.execute(routine::executeIfIdle);
+        return TriggerResult.TRIGGERED;
+    }
+
+    /**
+     * The result of manually triggering a routine.
+     */
+    enum TriggerResult {
+        /**
+         * The routine has been triggered.
+         */
+        TRIGGERED,
+        /**
+         * The routine is running already, it has not been triggered again.
+         */
+        ALREADY_RUNNING,
+        /**
+         * There is no routine with the given name.
+         */
+        UNKNOWN_ROUTINE,
+        /**
+         * The scheduler has not been started yet.
+         */
+        NOT_STARTED,
+        /**
+         * The routine is a singleton and another process is the leader, it has to be triggered
+         * there.
+         */
+        NOT_LEADER
+    }
+
+    /**
+     * The status of a routine.
+     *
+     * @param name the name of the routine
+     * @param scope where the routine is executed
+     * @param isRunning whether the routine is running right now
+     * @param lastStartedAt when the last execution started, if any
+     * @param lastDuration how long the last finished execution took, if any
+     * @param nextExecutionAt when the next scheduled execution is planned, if any
+     * @param executions the amount of finished executions
+     * @param failures the amount of executions that failed
+     * @param skippedExecutions the amount of scheduled executions that were skipped, since the
+     *        routine was still running
+     * @param durations the durations of all finished executions
+     */
+    record RoutineStatus(String name, Routine.Scope scope, boolean isRunning,
+            Optional<Instant> lastStartedAt, Optional<Duration> lastDuration,
+            Optional<Instant> nextExecutionAt, long executions, long failures,
+            long skippedExecutions, LatencyHistogram durations) {
+    }
+
+    private final class ScheduledRoutine {
+        private final String name;
+        private final Routine routine;
+        private final Routine.Schedule schedule;
+        private final Routine.Scope scope;
+        private final AtomicBoolean isRunning = new AtomicBoolean();
+        private final LatencyHistogram durations = new LatencyHistogram();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder skippedExecutions = new LongAdder();
+        @Nullable
+        private volatile Instant lastStartedAt;
+        @Nullable
+        private volatile Duration lastDuration;
+        @Nullable
+        private volatile Instant nextExecutionAt;
+
+        ScheduledRoutine(String name, Routine routine) {
+            this.name = name;
+            this.routine = routine;
+            schedule = Objects.requireNonNull(routine.createSchedule());
+            scope = Objects.requireNonNull(routine.getScope());
+        }
+
+        void scheduleFirstExecution() {
+            long jitterNanos = schedule.startJitter().isZero() ? 0
+                    : ThreadLocalRandom.current().nextLong(schedule.startJitter().toNanos());
+            scheduleExecution(
+                    System.nanoTime() + schedule.unit().toNanos(schedule.initialDuration())
+                            + jitterNanos);
+        }
+
+        private void scheduleExecution(long plannedAtNanos) {
+            long delayNanos = Math.max(plannedAtNanos - System.nanoTime(), 0);
+            nextExecutionAt = Instant.now().plusNanos(delayNanos);
+            timer.schedule(() -> executor.execute(() -> executeScheduled(plannedAtNanos)),
+                    delayNanos, TimeUnit.NANOSECONDS);
+        }
+
+        private void executeScheduled(long plannedAtNanos) {
+            nextExecutionAt = null;
+            try {
+                if (scope == Routine.Scope.SINGLETON && !leaderElection.isLeader()) {
+                    logger.debug("Not running routine {}, another process is the leader", name);
+                } else if (!executeIfIdle()) {
+                    skippedExecutions.increment();
+                    logger.warn("Skipped an execution of routine {}, it is still running", name);
+                }
+            } finally {
+                scheduleExecution(nextPlannedAt(plannedAtNanos));
+            }
+        }
+
+        private long nextPlannedAt(long previousPlannedAtNanos) {
+            long periodNanos = schedule.unit().toNanos(schedule.duration());
+            long nowNanos = System.nanoTime();
+            return switch (schedule.mode()) {
+                case FIXED_DELAY -> nowNanos + periodNanos;
+                case FIXED_RATE -> {
+                    long nextPlannedAtNanos = previousPlannedAtNanos + periodNanos;
+                    if (nextPlannedAtNanos - nowNanos < 0) {
+                        long missedExecutions =
+                                (nowNanos - nextPlannedAtNanos) / periodNanos + 1;
+                        skippedExecutions.add(missedExecutions);
+                        logger.warn("Routine {} took too long, skipping {} missed executions",
+                                name, missedExecutions);
+                        nextPlannedAtNanos += missedExecutions * periodNanos;
+                    }
+                    yield nextPlannedAtNanos;
+                }
+            };
+        }
+
+        boolean executeIfIdle() {
+            if (!isRunning.compareAndSet(false, true)) {
+                return false;
+            }
+
+            try {
+                concurrencyPermits.acquire();
+                try {
+                    execute();
+                } finally {
+                    concurrencyPermits.release();
+                }
+            } catch (InterruptedException _) {
+                Thread.currentThread().interrupt();
+            } finally {
+                isRunning.set(false);
+            }
+            return true;
+        }
+
+        private void execute() {
+            lastStartedAt = Instant.now();
+            long startNanos = System.nanoTime();
+            try {
+                logger.debug("Running routine {}...", name);
+                List<JDA> shardsToRunOn =
+                        scope == Routine.Scope.SHARD ? shards : List.of(shards.getFirst());
+                shardsToRunOn.forEach(this::executeOn);
+                logger.debug("Finished routine {}.", name);
+            } finally {
+                long durationNanos = System.nanoTime() - startNanos;
+                durations.record(durationNanos);
+                lastDuration = Duration.ofNanos(durationNanos);
+            }
+        }
+
+        private void executeOn(JDA shard) {
+            try {
+                routine.runRoutine(shard);
+            } catch (Exception e) {
+                failures.increment();
+                metrics.count("routine_failure", Map.of("name", name));
+                logger.error("Unknown error in routine {} on shard {}.", name,
+                        shard.getShardInfo().getShardString(), e);
+            }
+        }
+
+        RoutineStatus getStatus() {
+            return new RoutineStatus(name, scope, isRunning.get(),
+                    Optional.ofNullable(lastStartedAt), Optional.ofNullable(lastDuration),
+                    Optional.ofNullable(nextExecutionAt), durations.getCount(), failures.sum(),
+                    skippedExecutions.sum(), durations);
+        }
+    }
+}
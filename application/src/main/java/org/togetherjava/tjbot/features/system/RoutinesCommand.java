@@ -0,0 +1,122 @@
+package org.togetherjava.tjbot.features.system;
+
+import net.dv8tion.jda.api.EmbedBuilder;
+import net.dv8tion.jda.api.events.interaction.command.CommandAutoCompleteInteractionEvent;
+import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
+import net.dv8tion.jda.api.interactions.commands.OptionType;
+import net.dv8tion.jda.api.interactions.commands.build.SubcommandData;
+import net.dv8tion.jda.api.utils.TimeFormat;
+
+import org.togetherjava.tjbot.features.CommandVisibility;
+import org.togetherjava.tjbot.features.SlashCommandAdapter;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Implements the '/routines' command which can be used to inspect the routines of the bot and to
+ * trigger one right away, while it is running.
+ * <p>
+ * Example usage:
+ *
+ * <pre>
+ * {@code
+ * /routines list
+ * /routines run name: RemindRoutine
+ * }
+ * </pre>
+ */
+public final class RoutinesCommand extends SlashCommandAdapter {
+    private static final String LIST_SUBCOMMAND = "list";
+    private static final String RUN_SUBCOMMAND = "run";
+    private static final String NAME_OPTION = "name";
+    private static final int MAX_SUGGESTED_CHOICES = 25;
+
+    private final RoutineScheduler scheduler;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param scheduler the scheduler executing the routines
+     */
+    RoutinesCommand(RoutineScheduler scheduler) {
+        super("routines", "Inspects the routines of the bot or runs one right away.",
+                CommandVisibility.GUILD);
+        this.scheduler = scheduler;
+
+        getData().addSubcommands(
+                new SubcommandData(LIST_SUBCOMMAND,
+                        "Lists all routines with their last and next execution"),
+                new SubcommandData(RUN_SUBCOMMAND, "Runs a routine right away")
+                    .addOption(OptionType.STRING, NAME_OPTION, "the name of the routine", true,
+                            true));
+    }
+
+    @Override
+    public void onSlashCommand(SlashCommandInteractionEvent event) {
+        switch (Objects.requireNonNull(event.getSubcommandName())) {
+            case LIST_SUBCOMMAND -> listRoutines(event);
+            case RUN_SUBCOMMAND -> runRoutine(event);
+            default -> throw new AssertionError(
+                    "Unexpected subcommand '%s'".formatted(event.getSubcommandName()));
+        }
+    }
+
+    @Override
+    public void onAutoComplete(CommandAutoCompleteInteractionEvent event) {
+        String partialName = event.getFocusedOption().getValue().toLowerCase(Locale.US);
+
+        event
+            .replyChoiceStrings(scheduler.getRoutineNames()
+                .stream()
+                .filter(name -> name.toLowerCase(Locale.US).contains(partialName))
+                .limit(MAX_SUGGESTED_CHOICES)
+                .toList())
+            .queue();
+    }
+
+    private void listRoutines(SlashCommandInteractionEvent event) {
+        StringBuilder description = new StringBuilder();
+        for (RoutineScheduler.RoutineStatus status : scheduler.getStatuses()) {
+            description.append("**%s** (%s)%s%n".formatted(status.name(),
+                    status.scope().name().toLowerCase(Locale.US),
+                    status.isRunning() ? ", running" : ""))
+                .append("last: %s, took %s; next: %s%n".formatted(
+                        status.lastStartedAt().map(TimeFormat.RELATIVE::format).orElse("never"),
+                        status.lastDuration().map(RoutinesCommand::formatDuration).orElse("-"),
+                        status.nextExecutionAt()
+                            .map(TimeFormat.RELATIVE::format)
+                            .orElse("after the current execution")))
+                .append("%d× mean %s, max %s; %d failed, %d skipped%n".formatted(
+                        status.executions(), formatDuration(status.durations().getMean()),
+                        formatDuration(status.durations().getMax()), status.failures(),
+                        status.skippedExecutions()));
+        }
+
+        event
+            .replyEmbeds(new EmbedBuilder().setTitle("Routines")
+                .setDescription(description)
+                .build())
+            .setEphemeral(true)
+            .queue();
+    }
+
+    private void runRoutine(SlashCommandInteractionEvent event) {
+        String name = Objects.requireNonNull(event.getOption(NAME_OPTION)).getAsString();
+
+        String message = switch (scheduler.triggerNow(name)) {
+            case TRIGGERED -> "Triggered the routine '%s'.";
+            case ALREADY_RUNNING -> "The routine '%s' is running already.";
+            case UNKNOWN_ROUTINE -> "There is no routine named '%s'.";
+            case NOT_STARTED -> "The routines have not been started yet, '%s' can not run.";
+            case NOT_LEADER -> "The routine '%s' runs in another process, trigger it there.";
+        };
+        event.reply(message.formatted(name)).setEphemeral(true).queue();
+    }
+
+    private static String formatDuration(Duration duration) {
+        return duration.toMillis() < 1_000 ? duration.toMillis() + "ms"
+                : "%.1fs".formatted(duration.toMillis() / 1_000.0);
+    }
+}
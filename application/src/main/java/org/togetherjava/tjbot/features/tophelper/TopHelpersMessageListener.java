@@ -1,14 +1,16 @@
 package org.togetherjava.tjbot.features.tophelper;
 
-import net.dv8tion.jda.api.entities.channel.ChannelType;
-import net.dv8tion.jda.api.entities.channel.concrete.ThreadChannel;
-import net.dv8tion.jda.api.entities.channel.unions.MessageChannelUnion;
+import net.dv8tion.jda.api.entities.Message;
 import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import org.togetherjava.tjbot.config.Config;
 import org.togetherjava.tjbot.db.Database;
 import org.togetherjava.tjbot.features.MessageReceiverAdapter;
+import org.togetherjava.tjbot.features.utils.MessageAnalysis;
 
+import java.time.Instant;
 import java.util.function.Predicate;
 import java.util.regex.Pattern;
 
@@ -19,13 +21,7 @@ import static org.togetherjava.tjbot.db.generated.tables.HelpChannelMessages.HEL
  * {@link TopHelpersCommand} to pick them up.
  */
 public final class TopHelpersMessageListener extends MessageReceiverAdapter {
-    /**
-     * Matches invisible control characters and unused code points
-     *
-     * @see <a href="https://www.regular-expressions.info/unicode.html#category">Unicode
-     *      Categories</a>
-     */
-    private static final Pattern INVALID_CHARACTERS = Pattern.compile("\\p{C}");
+    private static final Logger logger = LoggerFactory.getLogger(TopHelpersMessageListener.class);
 
     private final Database database;
 
@@ -45,48 +41,49 @@ public final class TopHelpersMessageListener extends MessageReceiverAdapter {
     }
 
     @Override
-    public void onMessageReceived(MessageReceivedEvent event) {
-        if (shouldIgnoreMessage(event)) {
+    public void onMessageReceived(MessageReceivedEvent event, MessageAnalysis analysis) {
+        if (shouldIgnoreMessage(event, analysis)) {
             return;
         }
 
-        addMessageRecord(event);
+        addMessageRecord(event, analysis);
     }
 
-    private void addMessageRecord(MessageReceivedEvent event) {
-        long messageLength = countValidCharacters(event.getMessage().getContentRaw());
-
-        database.write(context -> context.newRecord(HELP_CHANNEL_MESSAGES)
-            .setMessageId(event.getMessage().getIdLong())
-            .setGuildId(event.getGuild().getIdLong())
-            .setChannelId(event.getChannel().getIdLong())
-            .setAuthorId(event.getAuthor().getIdLong())
-            .setSentAt(event.getMessage().getTimeCreated().toInstant())
+    private void addMessageRecord(MessageReceivedEvent event, MessageAnalysis analysis) {
+        Message message = event.getMessage();
+        long messageId = message.getIdLong();
+        long guildId = event.getGuild().getIdLong();
+        long channelId = event.getChannel().getIdLong();
+        long authorId = event.getAuthor().getIdLong();
+        Instant sentAt = message.getTimeCreated().toInstant();
+        long messageLength = analysis.getValidCharacterCount();
+
+        // Not needed by anyone right away, so it can be committed together with other writes
+        database.writeAsync(context -> context.newRecord(HELP_CHANNEL_MESSAGES)
+            .setMessageId(messageId)
+            .setGuildId(guildId)
+            .setChannelId(channelId)
+            .setAuthorId(authorId)
+            .setSentAt(sentAt)
             .setMessageLength(messageLength)
-            .insert());
+            .insert()).exceptionally(failure -> {
+                logger.warn("Failed to record help message {}", messageId, failure);
+                return null;
+            });
     }
 
     boolean shouldIgnoreMessage(MessageReceivedEvent event) {
-        return event.getAuthor().isBot() || event.isWebhookMessage()
-                || !isHelpThread(event.getChannel()) || isSentByOp(event);
+        return shouldIgnoreMessage(event, new MessageAnalysis(event.getMessage(), isHelpForumName));
     }
 
-    boolean isHelpThread(MessageChannelUnion channel) {
-        if (channel.getType() != ChannelType.GUILD_PUBLIC_THREAD) {
-            return false;
-        }
-
-        ThreadChannel thread = channel.asThreadChannel();
-        String rootChannelName = thread.getParentChannel().getName();
-        return isHelpForumName.test(rootChannelName);
+    private static boolean shouldIgnoreMessage(MessageReceivedEvent event,
+            MessageAnalysis analysis) {
+        return event.getAuthor().isBot() || event.isWebhookMessage() || !analysis.isInHelpThread()
+                || isSentByOp(event);
     }
 
-    private boolean isSentByOp(MessageReceivedEvent event) {
+    private static boolean isSentByOp(MessageReceivedEvent event) {
         return event.getChannel().asThreadChannel().getOwnerId().equals(event.getAuthor().getId());
     }
 
-    static long countValidCharacters(String messageContent) {
-        return INVALID_CHARACTERS.matcher(messageContent).replaceAll("").length();
-    }
-
 }
@@ -5,6 +5,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.togetherjava.tjbot.db.Database;
+import org.togetherjava.tjbot.db.PurgeEngine;
 import org.togetherjava.tjbot.features.Routine;
 
 import java.time.Instant;
@@ -21,7 +22,7 @@ public final class TopHelpersPurgeMessagesRoutine implements Routine {
             LoggerFactory.getLogger(TopHelpersPurgeMessagesRoutine.class);
     private static final Period DELETE_MESSAGE_RECORDS_AFTER = Period.ofDays(90);
 
-    private final Database database;
+    private final PurgeEngine purgeEngine;
 
     /**
      * Creates a new cleanup routine.
@@ -29,7 +30,7 @@ public final class TopHelpersPurgeMessagesRoutine implements Routine {
      * @param database the database that contains the messages to purge
      */
     public TopHelpersPurgeMessagesRoutine(Database database) {
-        this.database = database;
+        purgeEngine = new PurgeEngine(database);
     }
 
     @Override
@@ -37,13 +38,18 @@ public final class TopHelpersPurgeMessagesRoutine implements Routine {
         return new Schedule(ScheduleMode.FIXED_RATE, 0, 4, TimeUnit.HOURS);
     }
 
+    @Override
+    public Scope getScope() {
+        return Scope.SINGLETON;
+    }
+
     @Override
     public void runRoutine(JDA jda) {
-        int recordsDeleted =
-                database.writeAndProvide(context -> context.deleteFrom(HELP_CHANNEL_MESSAGES)
-                    .where(HELP_CHANNEL_MESSAGES.SENT_AT
+        long recordsDeleted = purgeEngine
+            .purge(HELP_CHANNEL_MESSAGES,
+                    HELP_CHANNEL_MESSAGES.SENT_AT
                         .lessOrEqual(Instant.now().minus(DELETE_MESSAGE_RECORDS_AFTER)))
-                    .execute());
+            .deletedRows();
 
         if (recordsDeleted > 0) {
             logger.debug(
@@ -1,5 +1,6 @@
 package org.togetherjava.tjbot.features.utils;
 
+import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.entities.Guild;
 import net.dv8tion.jda.api.entities.Member;
 import net.dv8tion.jda.api.entities.Role;
@@ -87,4 +88,22 @@ public final class Guilds {
             .filter(channel -> isChannelName.test(channel.getName()))
             .findAny();
     }
+
+    /**
+     * Whether the given guild belongs to the given shard, following the sharding formula of
+     * Discord. Exactly one shard across all processes is responsible for each guild, even if the
+     * bot is not a member of the guild anymore.
+     * <p>
+     * Routines executed for each shard, see
+     * {@link org.togetherjava.tjbot.features.Routine.Scope#SHARD}, can use this to process shared
+     * data, such as database records, exactly once.
+     *
+     * @param guildId the id of the guild
+     * @param shard the JDA instance of the shard
+     * @return whether the shard is responsible for the guild
+     */
+    public static boolean isGuildOfShard(long guildId, JDA shard) {
+        JDA.ShardInfo shardInfo = shard.getShardInfo();
+        return (guildId >>> 22) % shardInfo.getShardTotal() == shardInfo.getShardId();
+    }
 }
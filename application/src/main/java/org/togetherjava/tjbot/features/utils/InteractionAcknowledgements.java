@@ -0,0 +1,49 @@
+package org.togetherjava.tjbot.features.utils;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import net.dv8tion.jda.api.interactions.Interaction;
+
+/**
+ * Hands out the single acknowledgement Discord accepts for each interaction.
+ * <p>
+ * Interactions may be acknowledged by their handler, or automatically deferred by the core system
+ * if the handler takes too long. Both race each other, so checking
+ * {@link Interaction#isAcknowledged()} before acknowledging is not safe. Instead, whoever wants to
+ * acknowledge an interaction that may also be deferred automatically has to {@link #claim claim}
+ * it first:
+ *
+ * {@snippet :
+ * if (InteractionAcknowledgements.claim(event)) {
+ *     event.reply("Done").queue();
+ * } else {
+ *     event.getHook().editOriginal("Done").queue();
+ * }
+ * }
+ */
+public final class InteractionAcknowledgements {
+    /**
+     * Interactions claimed already. Keys are weak and compared by identity, so entries vanish once
+     * the interaction is not used anymore.
+     */
+    private static final Cache<Interaction, Boolean> CLAIMED_INTERACTIONS =
+            Caffeine.newBuilder().weakKeys().build();
+
+    private InteractionAcknowledgements() {
+        throw new UnsupportedOperationException("Utility class, construction not supported");
+    }
+
+    /**
+     * Atomically claims the acknowledgement of the given interaction. Only the first caller
+     * succeeds, for each interaction.
+     *
+     * @param interaction the interaction to acknowledge
+     * @return {@code true} if the caller has to acknowledge the interaction now, for example by
+     *         replying or deferring; {@code false} if it was claimed by someone else already, the
+     *         caller then has to respond through {@link
+     *         net.dv8tion.jda.api.interactions.callbacks.IDeferrableCallback#getHook()} instead
+     */
+    public static boolean claim(Interaction interaction) {
+        return CLAIMED_INTERACTIONS.asMap().putIfAbsent(interaction, Boolean.TRUE) == null;
+    }
+}
@@ -0,0 +1,161 @@
+package org.togetherjava.tjbot.features.utils;
+
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.channel.ChannelType;
+import net.dv8tion.jda.api.entities.channel.unions.MessageChannelUnion;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Facts about a message that multiple message receivers are interested in, such as its code or
+ * whether it was sent in a help thread.
+ * <p>
+ * Each fact is computed lazily, on first request, and then memoized. The core system creates a
+ * single analysis per message event and hands it to all receivers, so each fact is computed at most
+ * once per message, no matter how many receivers ask for it.
+ * <p>
+ * Instances are thread-safe.
+ */
+public final class MessageAnalysis {
+    private static final Pattern TOKEN_DELIMITER = Pattern.compile("[\\s,]");
+    /**
+     * Matches invisible control characters and unused code points
+     *
+     * @see <a href="https://www.regular-expressions.info/unicode.html#category">Unicode
+     *      Categories</a>
+     */
+    private static final Pattern INVALID_CHARACTERS = Pattern.compile("\\p{C}");
+
+    private final Message message;
+    private final Memoized<Optional<CodeFence>> codeFence;
+    private final Memoized<List<String>> tokens;
+    private final Memoized<Long> validCharacterCount;
+    private final Memoized<Boolean> isInHelpThread;
+
+    /**
+     * Creates a new analysis of the given message.
+     *
+     * @param message the message to analyze
+     * @param isHelpForumName tests whether a channel name is the name of a help forum
+     */
+    public MessageAnalysis(Message message, Predicate<String> isHelpForumName) {
+        this.message = message;
+
+        codeFence = new Memoized<>(() -> MessageUtils.extractCode(message.getContentRaw()));
+        tokens = new Memoized<>(() -> tokenize(message.getContentDisplay()));
+        validCharacterCount =
+                new Memoized<>(() -> countValidCharacters(message.getContentRaw()));
+        isInHelpThread = new Memoized<>(() -> isInHelpThread(message, isHelpForumName));
+    }
+
+    /**
+     * Splits the given text into tokens, at whitespace and commas.
+     *
+     * @param content the text to split
+     * @return the tokens of the text, possibly including empty tokens for consecutive delimiters
+     */
+    public static List<String> tokenize(CharSequence content) {
+        return List.of(TOKEN_DELIMITER.split(content));
+    }
+
+    /**
+     * Counts the characters in the given text, excluding invisible control characters and unused
+     * code points.
+     *
+     * @param content the text to count the characters of
+     * @return the amount of valid characters
+     */
+    public static long countValidCharacters(String content) {
+        return INVALID_CHARACTERS.matcher(content).replaceAll("").length();
+    }
+
+    /**
+     * Gets the analyzed message.
+     *
+     * @return the message
+     */
+    public Message getMessage() {
+        return message;
+    }
+
+    /**
+     * Gets the first code fence in the raw content of the message, see
+     * {@link MessageUtils#extractCode(String)}.
+     *
+     * @return the first code fence, if any
+     */
+    public Optional<CodeFence> getCodeFence() {
+        return codeFence.get();
+    }
+
+    /**
+     * Gets the tokens of the displayed content of the message, see {@link #tokenize(CharSequence)}.
+     *
+     * @return the tokens of the message
+     */
+    public List<String> getTokens() {
+        return tokens.get();
+    }
+
+    /**
+     * Gets the amount of valid characters in the raw content of the message, see
+     * {@link #countValidCharacters(String)}.
+     *
+     * @return the amount of valid characters
+     */
+    public long getValidCharacterCount() {
+        return validCharacterCount.get();
+    }
+
+    /**
+     * Whether the message was sent in a thread of a help forum.
+     *
+     * @return whether the message was sent in a help thread
+     */
+    public boolean isInHelpThread() {
+        return isInHelpThread.get();
+    }
+
+    private static boolean isInHelpThread(Message message, Predicate<String> isHelpForumName) {
+        MessageChannelUnion channel = message.getChannel();
+        if (channel.getType() != ChannelType.GUILD_PUBLIC_THREAD) {
+            return false;
+        }
+
+        String rootChannelName = channel.asThreadChannel().getParentChannel().getName();
+        return isHelpForumName.test(rootChannelName);
+    }
+
+    /**
+     * Computes a value on first access and memoizes it.
+     *
+     * @param <T> the type of the value
+     */
+    private static final class Memoized<T> {
+        private Supplier<T> supplier;
+        private volatile T value;
+
+        Memoized(Supplier<T> supplier) {
+            this.supplier = supplier;
+        }
+
+        T get() {
+            T result = value;
+            if (result != null) {
+                return result;
+            }
+
+            synchronized (this) {
+                if (value == null) {
+                    value = supplier.get();
+                    supplier = null;
+                }
+                return value;
+            }
+        }
+    }
+}
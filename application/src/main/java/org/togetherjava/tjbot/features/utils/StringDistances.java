@@ -1,5 +1,7 @@
 package org.togetherjava.tjbot.features.utils;
 
+import javax.annotation.Nullable;
+
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
@@ -7,7 +9,6 @@ import java.util.List;
 import java.util.Optional;
 import java.util.PriorityQueue;
 import java.util.Queue;
-import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 /**
@@ -108,11 +109,78 @@ public class StringDistances {
      */
     public static int editDistance(CharSequence source, CharSequence destination) {
         // Given by the value in the last row and column
-        int[][] table = computeLevenshteinDistanceTable(source, destination);
-        int rows = table.length;
-        int columns = table[0].length;
+        int[] lastRow = computeLastLevenshteinRow(source, destination, 0, destination.length(),
+                Integer.MAX_VALUE, new int[destination.length() + 1],
+                new int[destination.length() + 1]);
+
+        return lastRow[destination.length()];
+    }
+
+    /**
+     * Distance to receive {@code destination} from {@code source} by editing, if it does not exceed
+     * the given maximum. Gives up early once the distance is known to exceed it, which is much
+     * faster than {@link #editDistance(CharSequence, CharSequence)} for dissimilar strings.
+     * <p>
+     * For example {@code editDistanceAtMost("hello", "hallo", 2)} is {@code 1}, while
+     * {@code editDistanceAtMost("hello", "world", 2)} is {@code 3}.
+     *
+     * @param source the source string to start with
+     * @param destination the destination string to receive by editing the source
+     * @param maxDistance the maximal distance of interest, not negative
+     * @return the edit distance, or {@code maxDistance + 1} if it exceeds the maximum
+     */
+    public static int editDistanceAtMost(CharSequence source, CharSequence destination,
+            int maxDistance) {
+        if (maxDistance < 0) {
+            throw new IllegalArgumentException("maxDistance must not be negative");
+        }
+        // Adding or removing the difference in length is unavoidable
+        if (Math.abs(source.length() - destination.length()) > maxDistance) {
+            return maxDistance + 1;
+        }
 
-        return table[rows - 1][columns - 1];
+        int[] lastRow = computeLastLevenshteinRow(source, destination, 0, destination.length(),
+                maxDistance, new int[destination.length() + 1],
+                new int[destination.length() + 1]);
+
+        return lastRow == null ? maxDistance + 1
+                : Math.min(lastRow[destination.length()], maxDistance + 1);
+    }
+
+    /**
+     * Whether any window of {@code text}, of the same length as {@code pattern}, is within the
+     * given edit distance of {@code pattern}.
+     * <p>
+     * For example {@code hasSimilarWindow("dlscord-gift.com", "discord", 1)} is {@code true},
+     * since the window {@code "dlscord"} is only {@code 1} edit away.
+     * <p>
+     * Equivalent to calling {@link #editDistanceAtMost(CharSequence, CharSequence, int)} for each
+     * window, but without creating them.
+     *
+     * @param text the text to slide the window over
+     * @param pattern the pattern to compare each window with
+     * @param maxDistance the maximal edit distance of a similar window, not negative
+     * @return whether a similar window exists, {@code false} if the text is shorter than the
+     *         pattern
+     */
+    public static boolean hasSimilarWindow(CharSequence text, CharSequence pattern,
+            int maxDistance) {
+        if (maxDistance < 0) {
+            throw new IllegalArgumentException("maxDistance must not be negative");
+        }
+
+        int windowLength = pattern.length();
+        // The rows are reused for all windows
+        int[] previousRow = new int[windowLength + 1];
+        int[] currentRow = new int[windowLength + 1];
+        for (int windowStart = 0; windowStart + windowLength <= text.length(); windowStart++) {
+            int[] lastRow = computeLastLevenshteinRow(pattern, text, windowStart,
+                    windowStart + windowLength, maxDistance, previousRow, currentRow);
+            if (lastRow != null && lastRow[windowLength] <= maxDistance) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
@@ -127,14 +195,15 @@ public class StringDistances {
      */
     public static int prefixEditDistance(CharSequence source, CharSequence destination) {
         // Given by the smallest value in the last row
-        int[][] table = computeLevenshteinDistanceTable(source, destination);
-        int lastRowIndex = table.length - 1;
+        int[] lastRow = computeLastLevenshteinRow(source, destination, 0, destination.length(),
+                Integer.MAX_VALUE, new int[destination.length() + 1],
+                new int[destination.length() + 1]);
 
-        return Arrays.stream(table[lastRowIndex]).min().orElseThrow();
+        return Arrays.stream(lastRow).min().orElseThrow();
     }
 
     /**
-     * Computes the Levenshtein distance table for the given strings. See
+     * Computes the last row of the Levenshtein distance table for the given strings. See
      * <a href="https://en.wikipedia.org/wiki/Levenshtein_distance">Levenshtein distance</a> for
      * details.
      * <p>
@@ -149,43 +218,66 @@ public class StringDistances {
      * c | 3 2 1 0 1 2 3 4
      * </pre>
      *
+     * Only the last row, {@code 3 2 1 0 1 2 3 4}, is returned. Since each row only depends on the
+     * previous row, the table is computed with two rows instead of all of them.
+     * <p>
+     * The values of a row never drop below the smallest value of the previous row. Hence, once all
+     * values of a row exceed {@code maxDistance}, so do all values of the last row and the
+     * computation is aborted.
+     *
      * @param source the source string to start with
-     * @param destination the destination string to receive by editing the source
-     * @return the levenshtein distance table
+     * @param destination the string containing the destination
+     * @param destinationStart the index in {@code destination} the destination starts at,
+     *        inclusive
+     * @param destinationEnd the index in {@code destination} the destination ends at, exclusive
+     * @param maxDistance values above this are of no interest
+     * @param previousRow storage for a row, of the length of the destination plus one
+     * @param currentRow storage for another row, of the length of the destination plus one
+     * @return the last row of the levenshtein distance table, which is one of the given rows; or
+     *         {@code null} if all of its values exceed {@code maxDistance}
      */
-    private static int[][] computeLevenshteinDistanceTable(CharSequence source,
-            CharSequence destination) {
-        int rows = source.length() + 1;
-        int columns = destination.length() + 1;
-        int[][] table = new int[rows][columns];
+    @Nullable
+    @SuppressWarnings("MethodWithTooManyParameters")
+    private static int[] computeLastLevenshteinRow(CharSequence source, CharSequence destination,
+            int destinationStart, int destinationEnd, int maxDistance, int[] previousRow,
+            int[] currentRow) {
+        int columns = destinationEnd - destinationStart + 1;
 
-        // Initialize first row and column for distances from the empty word to the target word
+        // Initialize first row for distances from the empty word to the target word
         for (int y = 0; y < columns; y++) {
-            table[0][y] = y;
-        }
-        for (int x = 0; x < rows; x++) {
-            table[x][0] = x;
+            previousRow[y] = y;
         }
 
         // Process row by row, selecting diagonal candidates
-        for (int x = 1; x < rows; x++) {
+        for (int x = 1; x <= source.length(); x++) {
+            char sourceChar = source.charAt(x - 1);
+            currentRow[0] = x;
+            int rowMinimum = x;
             for (int y = 1; y < columns; y++) {
                 // Take minimum of all candidates
-                int upperCandidate = table[x - 1][y] + 1;
-                int leftCandidate = table[x][y - 1] + 1;
-                int diagonalCandidate = table[x - 1][y - 1];
-                if (source.charAt(x - 1) != destination.charAt(y - 1)) {
+                int upperCandidate = previousRow[y] + 1;
+                int leftCandidate = currentRow[y - 1] + 1;
+                int diagonalCandidate = previousRow[y - 1];
+                if (sourceChar != destination.charAt(destinationStart + y - 1)) {
                     diagonalCandidate++;
                 }
 
-                int bestCandidate = IntStream.of(upperCandidate, leftCandidate, diagonalCandidate)
-                    .min()
-                    .orElseThrow();
-                table[x][y] = bestCandidate;
+                int bestCandidate =
+                        Math.min(Math.min(upperCandidate, leftCandidate), diagonalCandidate);
+                currentRow[y] = bestCandidate;
+                rowMinimum = Math.min(rowMinimum, bestCandidate);
             }
+
+            if (rowMinimum > maxDistance) {
+                return null;
+            }
+
+            int[] swap = previousRow;
+            previousRow = currentRow;
+            currentRow = swap;
         }
 
-        return table;
+        return previousRow;
     }
 
     private record MatchScore(String candidate, double score) implements Comparable<MatchScore> {
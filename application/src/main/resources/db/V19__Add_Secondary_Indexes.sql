@@ -0,0 +1,28 @@
+CREATE INDEX idx_help_channel_messages_guild_sent_at
+    ON help_channel_messages (guild_id, sent_at, author_id, message_length);
+CREATE INDEX idx_help_channel_messages_guild_author_sent_at
+    ON help_channel_messages (guild_id, author_id, sent_at);
+CREATE INDEX idx_help_channel_messages_sent_at ON help_channel_messages (sent_at);
+
+CREATE INDEX idx_scam_history_guild_author_hash
+    ON scam_history (guild_id, author_id, content_hash, sent_at);
+CREATE INDEX idx_scam_history_sent_at ON scam_history (sent_at);
+
+CREATE INDEX idx_moderation_actions_guild_target_type
+    ON moderation_actions (guild_id, target_id, action_type, issued_at);
+CREATE INDEX idx_moderation_actions_guild_author
+    ON moderation_actions (guild_id, author_id, issued_at);
+CREATE INDEX idx_moderation_actions_guild_type
+    ON moderation_actions (guild_id, action_type, issued_at);
+CREATE INDEX idx_moderation_actions_expires_at ON moderation_actions (action_expires_at);
+
+CREATE INDEX idx_pending_reminders_remind_at ON pending_reminders (remind_at);
+CREATE INDEX idx_pending_reminders_author_guild
+    ON pending_reminders (author_id, guild_id, remind_at);
+
+CREATE INDEX idx_component_ids_last_used ON component_ids (last_used);
+
+CREATE INDEX idx_bookmarks_delete_at ON bookmarks (delete_at);
+
+CREATE INDEX idx_help_threads_created_at ON help_threads (created_at);
+CREATE INDEX idx_help_threads_status_created_at ON help_threads (ticket_status, created_at);
@@ -0,0 +1,17 @@
+CREATE TABLE metric_rollups
+(
+    granularity  TEXT      NOT NULL,
+    bucket_start TIMESTAMP NOT NULL,
+    event        TEXT      NOT NULL,
+    dimensions   TEXT      NOT NULL,
+    event_count  INTEGER   NOT NULL,
+    PRIMARY KEY (granularity, event, bucket_start, dimensions)
+);
+
+CREATE INDEX idx_metric_rollups_granularity_bucket_start
+    ON metric_rollups (granularity, bucket_start);
+
+-- Events recorded before rollups existed are not counted yet, they are rolled up when compacted
+ALTER TABLE metric_events ADD COLUMN rolled_up BOOLEAN NOT NULL DEFAULT FALSE;
+
+CREATE INDEX idx_metric_events_happened_at ON metric_events (happened_at);
@@ -0,0 +1,73 @@
+CREATE TABLE metric_dimension_keys
+(
+    id   INTEGER PRIMARY KEY,
+    name TEXT NOT NULL UNIQUE
+);
+
+-- Values are stored JSON-encoded, e.g. '"chit-chat"' or '123', to preserve their type
+CREATE TABLE metric_dimension_values
+(
+    id    INTEGER PRIMARY KEY,
+    value TEXT NOT NULL UNIQUE
+);
+
+CREATE TABLE metric_event_dimensions
+(
+    event_id INTEGER NOT NULL REFERENCES metric_events (id) ON DELETE CASCADE,
+    key_id   INTEGER NOT NULL REFERENCES metric_dimension_keys (id),
+    value_id INTEGER NOT NULL REFERENCES metric_dimension_values (id),
+    PRIMARY KEY (event_id, key_id)
+) WITHOUT ROWID;
+
+CREATE INDEX idx_metric_event_dimensions_key_value
+    ON metric_event_dimensions (key_id, value_id);
+
+-- Move the existing JSON dimensions into the dictionary
+CREATE TEMPORARY VIEW existing_dimensions AS
+SELECT metric_events.id AS event_id,
+       dimension.key    AS name,
+       CASE dimension.type
+           WHEN 'true' THEN 'true'
+           WHEN 'false' THEN 'false'
+           WHEN 'null' THEN 'null'
+           WHEN 'object' THEN dimension.value
+           WHEN 'array' THEN dimension.value
+           ELSE json_quote(dimension.value)
+           END          AS value
+FROM metric_events,
+     json_each(metric_events.dimensions) AS dimension
+WHERE metric_events.dimensions IS NOT NULL;
+
+INSERT INTO metric_dimension_keys (name)
+SELECT DISTINCT name
+FROM existing_dimensions;
+
+INSERT INTO metric_dimension_values (value)
+SELECT DISTINCT value
+FROM existing_dimensions;
+
+INSERT INTO metric_event_dimensions (event_id, key_id, value_id)
+SELECT existing_dimensions.event_id, metric_dimension_keys.id, metric_dimension_values.id
+FROM existing_dimensions
+         JOIN metric_dimension_keys ON metric_dimension_keys.name = existing_dimensions.name
+         JOIN metric_dimension_values ON metric_dimension_values.value = existing_dimensions.value;
+
+DROP VIEW existing_dimensions;
+
+ALTER TABLE metric_events DROP COLUMN dimensions;
+
+-- Presents the events in their previous shape, with dimensions as JSON object
+CREATE VIEW metric_events_with_dimensions AS
+SELECT metric_events.id,
+       metric_events.event,
+       metric_events.happened_at,
+       (SELECT json_group_object(metric_dimension_keys.name, json(metric_dimension_values.value))
+        FROM metric_event_dimensions
+                 JOIN metric_dimension_keys
+                      ON metric_dimension_keys.id = metric_event_dimensions.key_id
+                 JOIN metric_dimension_values
+                      ON metric_dimension_values.id = metric_event_dimensions.value_id
+        WHERE metric_event_dimensions.event_id = metric_events.id
+        HAVING count(*) > 0) AS dimensions,
+       metric_events.rolled_up
+FROM metric_events;
@@ -0,0 +1,7 @@
+-- Leases elect a single leader among multiple processes of the bot, e.g. to run singleton routines
+CREATE TABLE leader_leases
+(
+    name       TEXT      NOT NULL PRIMARY KEY,
+    holder     TEXT      NOT NULL,
+    expires_at TIMESTAMP NOT NULL
+);
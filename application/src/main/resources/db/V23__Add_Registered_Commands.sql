@@ -0,0 +1,17 @@
+-- The commands last registered at Discord, to only register changed commands on startup.
+-- The scope is either 'global' or the id of a guild. Deleting the command set of a scope forces
+-- all its commands to be registered again.
+CREATE TABLE registered_command_sets
+(
+    scope TEXT NOT NULL PRIMARY KEY,
+    hash  TEXT NOT NULL
+);
+
+CREATE TABLE registered_commands
+(
+    scope TEXT NOT NULL,
+    type  TEXT NOT NULL,
+    name  TEXT NOT NULL,
+    hash  TEXT NOT NULL,
+    PRIMARY KEY (scope, type, name)
+);
@@ -0,0 +1,17 @@
+-- Each shard posts feeds to the channels of its own guilds, so it tracks its own last date
+CREATE TABLE rss_feed_by_shard
+(
+    url       TEXT    NOT NULL,
+    shard_id  INTEGER NOT NULL,
+    last_date TEXT    NOT NULL,
+    PRIMARY KEY (url, shard_id)
+);
+
+-- Before, the bot was not sharded, so everything belongs to the first shard
+INSERT INTO rss_feed_by_shard (url, shard_id, last_date)
+SELECT url, 0, last_date
+FROM rss_feed;
+
+DROP TABLE rss_feed;
+
+ALTER TABLE rss_feed_by_shard RENAME TO rss_feed;
@@ -0,0 +1,174 @@
+package org.togetherjava.tjbot;
+
+import net.dv8tion.jda.api.interactions.commands.Command;
+import net.dv8tion.jda.api.interactions.commands.build.CommandData;
+import net.dv8tion.jda.api.interactions.commands.build.Commands;
+import net.dv8tion.jda.api.requests.RestAction;
+import net.dv8tion.jda.api.requests.restaction.CommandListUpdateAction;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import org.togetherjava.tjbot.db.Database;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.togetherjava.tjbot.db.generated.tables.RegisteredCommandSets.REGISTERED_COMMAND_SETS;
+import static org.togetherjava.tjbot.db.generated.tables.RegisteredCommands.REGISTERED_COMMANDS;
+
+final class CommandReloadingTest {
+    private static final String SCOPE = "1";
+
+    private final CommandData pingCommand = Commands.slash("ping", "Pings the bot");
+    private final CommandData tagCommand = Commands.slash("tag", "Displays a tag");
+    private final CommandData transferCommand = Commands.message("transfer-question");
+    private Database database;
+
+    @BeforeEach
+    void setUp() {
+        database = Database.createMemoryDatabase(REGISTERED_COMMANDS, REGISTERED_COMMAND_SETS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.close();
+    }
+
+    @Test
+    @DisplayName("A scope that was never registered before gets all its commands registered")
+    void registersAllCommandsOfNewScope() {
+        // GIVEN a scope without registered commands
+        // WHEN reloading it
+        Registration registration = reload(List.of(pingCommand, tagCommand));
+
+        // THEN all its commands are registered at once
+        assertTrue(registration.isReloaded());
+        assertEquals(Optional.of(List.of(pingCommand, tagCommand)), registration.allCommands());
+        assertEquals(List.of(), registration.upsertedCommands());
+    }
+
+    @Test
+    @DisplayName("A scope with unchanged commands is skipped")
+    void skipsUnchangedScope() {
+        // GIVEN a registered scope
+        reload(List.of(pingCommand, tagCommand));
+
+        // WHEN reloading the same commands, in a different order
+        Registration registration = reload(List.of(tagCommand, pingCommand));
+
+        // THEN nothing is sent
+        assertFalse(registration.isReloaded());
+        assertEquals(Optional.empty(), registration.allCommands());
+        assertEquals(List.of(), registration.upsertedCommands());
+    }
+
+    @Test
+    @DisplayName("Added commands are registered on their own")
+    void registersOnlyAddedCommands() {
+        // GIVEN a registered scope
+        reload(List.of(pingCommand));
+
+        // WHEN adding a command
+        Registration registration = reload(List.of(pingCommand, transferCommand));
+
+        // THEN only the added command is sent
+        assertTrue(registration.isReloaded());
+        assertEquals(Optional.empty(), registration.allCommands());
+        assertEquals(List.of(transferCommand), registration.upsertedCommands());
+    }
+
+    @Test
+    @DisplayName("Changed commands are registered on their own")
+    void registersOnlyChangedCommands() {
+        // GIVEN a registered scope
+        reload(List.of(pingCommand, tagCommand));
+
+        // WHEN changing the description of a command
+        CommandData changedTagCommand = Commands.slash("tag", "Displays a tag by its id");
+        Registration registration = reload(List.of(pingCommand, changedTagCommand));
+
+        // THEN only the changed command is sent
+        assertTrue(registration.isReloaded());
+        assertEquals(Optional.empty(), registration.allCommands());
+        assertEquals(List.of(changedTagCommand), registration.upsertedCommands());
+
+        // AND the change is remembered
+        assertFalse(reload(List.of(pingCommand, changedTagCommand)).isReloaded());
+    }
+
+    @Test
+    @DisplayName("Removing commands registers all remaining commands, replacing the removed ones")
+    void registersAllCommandsIfRemoved() {
+        // GIVEN a registered scope
+        reload(List.of(pingCommand, tagCommand, transferCommand));
+
+        // WHEN removing a command
+        Registration registration = reload(List.of(pingCommand, transferCommand));
+
+        // THEN all remaining commands are sent, so that Discord drops the removed one
+        assertTrue(registration.isReloaded());
+        assertEquals(Optional.of(List.of(pingCommand, transferCommand)),
+                registration.allCommands());
+        assertEquals(List.of(), registration.upsertedCommands());
+    }
+
+    /**
+     * Reloads the scope with the given commands, with Discord accepting all registrations.
+     */
+    private Registration reload(List<CommandData> commands) {
+        AtomicReference<List<CommandData>> allCommands = new AtomicReference<>();
+        CommandListUpdateAction updateAllAction =
+                mock(CommandListUpdateAction.class, RETURNS_SELF);
+        when(updateAllAction.addCommands(anyCollection())).thenAnswer(invocation -> {
+            allCommands.set(List.copyOf(invocation.<Collection<CommandData>>getArgument(0)));
+            return updateAllAction;
+        });
+        succeedOnQueue(updateAllAction);
+
+        List<CommandData> upsertedCommands = new ArrayList<>();
+        @SuppressWarnings("unchecked")
+        RestAction<Command> upsertAction = mock(RestAction.class, RETURNS_SELF);
+        succeedOnQueue(upsertAction);
+
+        boolean isReloaded =
+                CommandReloading.reloadScope(SCOPE, commands, () -> updateAllAction, command -> {
+                    upsertedCommands.add(command);
+                    return upsertAction;
+                }, database);
+        return new Registration(isReloaded, Optional.ofNullable(allCommands.get()),
+                upsertedCommands);
+    }
+
+    private static void succeedOnQueue(RestAction<?> action) {
+        doAnswer(invocation -> {
+            invocation.<Consumer<Object>>getArgument(0).accept(null);
+            return null;
+        }).when(action).queue(any(), any());
+    }
+
+    /**
+     * What was sent to Discord when reloading a scope.
+     *
+     * @param isReloaded whether anything was sent
+     * @param allCommands the commands replacing all commands of the scope, if sent
+     * @param upsertedCommands the commands that were added or changed on their own
+     */
+    private record Registration(boolean isReloaded, Optional<List<CommandData>> allCommands,
+            List<CommandData> upsertedCommands) {
+    }
+}
@@ -0,0 +1,145 @@
+package org.togetherjava.tjbot.db;
+
+import org.jooq.Condition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import org.togetherjava.tjbot.db.generated.tables.records.ScamHistoryRecord;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.togetherjava.tjbot.db.generated.tables.ScamHistory.SCAM_HISTORY;
+
+final class PurgeEngineTest {
+    private static final int BATCH_SIZE = 5;
+    /**
+     * Every other row matches, so that batches have to skip rows that are kept.
+     */
+    private static final Condition ODD_MESSAGE_ID = SCAM_HISTORY.MESSAGE_ID.mod(2L).eq(1L);
+
+    private Database database;
+    private PurgeEngine purgeEngine;
+
+    @BeforeEach
+    void setUp() {
+        database = Database.createMemoryDatabase(SCAM_HISTORY);
+        purgeEngine = new PurgeEngine(database, BATCH_SIZE, Duration.ZERO);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.close();
+    }
+
+    @Test
+    @DisplayName("Matching rows are deleted in batches, other rows are kept")
+    void purgesMatchingRowsInBatches() {
+        // GIVEN 25 rows, of which 12 match
+        insertRows(25);
+
+        // WHEN purging them
+        PurgeEngine.PurgeResult result = purgeEngine.purge(SCAM_HISTORY, ODD_MESSAGE_ID);
+
+        // THEN only the matching rows are deleted, in batches of at most the batch size
+        assertEquals(SCAM_HISTORY.getName(), result.table());
+        assertEquals(12, result.deletedRows());
+        assertEquals(3, result.batches());
+        assertEquals(List.of(0L, 2L, 4L, 6L, 8L, 10L, 12L, 14L, 16L, 18L, 20L, 22L, 24L),
+                remainingMessageIds());
+    }
+
+    @Test
+    @DisplayName("A purge with a multiple of the batch size stops after the last full batch")
+    void purgesFullBatchesOnly() {
+        // GIVEN 20 rows, of which 10 match, twice the batch size
+        insertRows(20);
+
+        // WHEN purging them
+        PurgeEngine.PurgeResult result = purgeEngine.purge(SCAM_HISTORY, ODD_MESSAGE_ID);
+
+        // THEN the empty lookup after the last batch is not counted as batch
+        assertEquals(10, result.deletedRows());
+        assertEquals(2, result.batches());
+        assertEquals(10, remainingMessageIds().size());
+    }
+
+    @Test
+    @DisplayName("Nothing is deleted if no row matches")
+    void purgesNothingWithoutMatches() {
+        insertRows(10);
+
+        PurgeEngine.PurgeResult result =
+                purgeEngine.purge(SCAM_HISTORY, SCAM_HISTORY.MESSAGE_ID.greaterThan(100L));
+
+        assertEquals(0, result.deletedRows());
+        assertEquals(0, result.batches());
+        assertEquals(10, remainingMessageIds().size());
+    }
+
+    @Test
+    @DisplayName("The consumer is given each deleted batch of records")
+    void deletedRecordsAreConsumed() {
+        // GIVEN 25 rows, of which 12 match
+        insertRows(25);
+        List<List<Long>> consumedBatches = new ArrayList<>();
+
+        // WHEN purging them with a consumer
+        purgeEngine.purge(SCAM_HISTORY, ODD_MESSAGE_ID, records -> consumedBatches
+            .add(records.stream().map(ScamHistoryRecord::getMessageId).toList()));
+
+        // THEN it is given all deleted records, batch by batch in ascending order
+        assertEquals(List.of(List.of(1L, 3L, 5L, 7L, 9L), List.of(11L, 13L, 15L, 17L, 19L),
+                List.of(21L, 23L)), consumedBatches);
+    }
+
+    @Test
+    @DisplayName("A failing batch handler rolls back its batch and stops the purge")
+    void failingBatchHandlerStopsPurge() {
+        // GIVEN 25 rows, of which 12 match, and a handler failing on the second batch
+        insertRows(25);
+        List<Integer> handledBatchSizes = new ArrayList<>();
+
+        // WHEN purging them
+        assertThrows(IllegalStateException.class,
+                () -> purgeEngine.purgeTransactionally(SCAM_HISTORY, ODD_MESSAGE_ID,
+                        (_, records) -> {
+                            handledBatchSizes.add(records.size());
+                            if (handledBatchSizes.size() == 2) {
+                                throw new IllegalStateException("Handler failed");
+                            }
+                        }));
+
+        // THEN only the first batch stays deleted
+        assertEquals(List.of(BATCH_SIZE, BATCH_SIZE), handledBatchSizes);
+        assertEquals(25 - BATCH_SIZE, remainingMessageIds().size());
+    }
+
+    private void insertRows(int amount) {
+        Instant sentAt = Instant.now();
+        database.write(context -> LongStream.range(0, amount)
+            .forEach(messageId -> context.newRecord(SCAM_HISTORY)
+                .setSentAt(sentAt)
+                .setGuildId(1L)
+                .setChannelId(2L)
+                .setMessageId(messageId)
+                .setAuthorId(3L)
+                .setContentHash("hash")
+                .setIsDeleted(false)
+                .insert()));
+    }
+
+    private List<Long> remainingMessageIds() {
+        return database.read(context -> context.select(SCAM_HISTORY.MESSAGE_ID)
+            .from(SCAM_HISTORY)
+            .orderBy(SCAM_HISTORY.MESSAGE_ID)
+            .fetch(SCAM_HISTORY.MESSAGE_ID));
+    }
+}
@@ -0,0 +1,247 @@
+package org.togetherjava.tjbot.db;
+
+import org.jooq.Condition;
+import org.jooq.DSLContext;
+import org.jooq.Query;
+import org.jooq.Table;
+import org.jooq.conf.ParamType;
+import org.jooq.impl.DSL;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import org.togetherjava.tjbot.features.analytics.MetricRollups.Granularity;
+import org.togetherjava.tjbot.features.componentids.Lifespan;
+import org.togetherjava.tjbot.features.moderation.ModerationAction;
+
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.togetherjava.tjbot.db.generated.tables.Bookmarks.BOOKMARKS;
+import static org.togetherjava.tjbot.db.generated.tables.ComponentIds.COMPONENT_IDS;
+import static org.togetherjava.tjbot.db.generated.tables.HelpChannelMessages.HELP_CHANNEL_MESSAGES;
+import static org.togetherjava.tjbot.db.generated.tables.HelpThreads.HELP_THREADS;
+import static org.togetherjava.tjbot.db.generated.tables.MetricDimensionKeys.METRIC_DIMENSION_KEYS;
+import static org.togetherjava.tjbot.db.generated.tables.MetricDimensionValues.METRIC_DIMENSION_VALUES;
+import static org.togetherjava.tjbot.db.generated.tables.MetricEventDimensions.METRIC_EVENT_DIMENSIONS;
+import static org.togetherjava.tjbot.db.generated.tables.MetricEvents.METRIC_EVENTS;
+import static org.togetherjava.tjbot.db.generated.tables.MetricRollups.METRIC_ROLLUPS;
+import static org.togetherjava.tjbot.db.generated.tables.ModerationActions.MODERATION_ACTIONS;
+import static org.togetherjava.tjbot.db.generated.tables.PendingReminders.PENDING_REMINDERS;
+import static org.togetherjava.tjbot.db.generated.tables.ScamHistory.SCAM_HISTORY;
+
+/**
+ * Ensures that the hot queries of the stores are served by an index and never fall back to a full
+ * table {@code SCAN}. The queries mirror the ones issued by the stores, the database is created
+ * from the actual migrations. Purges are checked with the actual batch queries of
+ * {@link PurgeEngine}, given the conditions of the stores.
+ */
+final class QueryPlanTest {
+    private static final long GUILD_ID = 1;
+    private static final long USER_ID = 2;
+    private static final Instant NOW = Instant.now();
+    /**
+     * Value of {@code HelpSystemHelper.TicketStatus.ACTIVE}, which is not visible from here.
+     */
+    private static final int ACTIVE_TICKET_STATUS = 1;
+    private static final int PURGE_BATCH_SIZE = 1_000;
+
+    @TempDir
+    private static Path databaseDirectory;
+    private static Database database;
+
+    @BeforeAll
+    static void setUp() throws SQLException {
+        database = new Database("jdbc:sqlite:" + databaseDirectory.resolve("database.db"));
+    }
+
+    @AfterAll
+    static void tearDown() {
+        database.close();
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("provideStoreQueries")
+    void storeQueriesUseIndex(String queryName, Function<DSLContext, Query> queryFactory) {
+        // GIVEN a query issued by a store
+        // WHEN asking SQLite how it executes the query
+        List<String> plan = database.read(context -> {
+            String sql = queryFactory.apply(context).getSQL(ParamType.INLINED);
+            return context.fetch("EXPLAIN QUERY PLAN " + sql).getValues("detail", String.class);
+        });
+
+        // THEN it searches an index instead of scanning the table
+        assertFalse(plan.isEmpty(), "No query plan for '%s'".formatted(queryName));
+        assertTrue(plan.stream().noneMatch(step -> step.startsWith("SCAN")),
+                "Query '%s' scans a table: %s".formatted(queryName, plan));
+    }
+
+    private static Stream<Arguments> provideStoreQueries() {
+        return Stream.of(
+                // TopHelpersService#computeTopHelpersDescending
+                query("top helpers", context -> context
+                    .select(HELP_CHANNEL_MESSAGES.AUTHOR_ID,
+                            DSL.sum(HELP_CHANNEL_MESSAGES.MESSAGE_LENGTH))
+                    .from(HELP_CHANNEL_MESSAGES)
+                    .where(HELP_CHANNEL_MESSAGES.GUILD_ID.eq(GUILD_ID)
+                        .and(HELP_CHANNEL_MESSAGES.SENT_AT.between(NOW.minusSeconds(60), NOW)))
+                    .groupBy(HELP_CHANNEL_MESSAGES.AUTHOR_ID)
+                    .orderBy(DSL.two().desc())
+                    .limit(18)),
+                // AutoPruneHelperRoutine#isMemberInactive
+                query("inactive helper", context -> context.selectCount()
+                    .from(HELP_CHANNEL_MESSAGES)
+                    .where(HELP_CHANNEL_MESSAGES.GUILD_ID.eq(GUILD_ID)
+                        .and(HELP_CHANNEL_MESSAGES.AUTHOR_ID.eq(USER_ID))
+                        .and(HELP_CHANNEL_MESSAGES.SENT_AT.greaterThan(NOW)))),
+                // TopHelpersPurgeMessagesRoutine
+                purgeBatchLookup("purge help messages", HELP_CHANNEL_MESSAGES,
+                        HELP_CHANNEL_MESSAGES.SENT_AT.lessOrEqual(NOW)),
+                purgeBatchDeletion("purge help messages", HELP_CHANNEL_MESSAGES,
+                        HELP_CHANNEL_MESSAGES.SENT_AT.lessOrEqual(NOW)),
+                // ScamHistoryStore#hasRecentScamDuplicate
+                query("recent scam duplicate", context -> context.selectCount()
+                    .from(SCAM_HISTORY)
+                    .where(SCAM_HISTORY.SENT_AT.greaterOrEqual(NOW)
+                        .and(SCAM_HISTORY.GUILD_ID.eq(GUILD_ID))
+                        .and(SCAM_HISTORY.AUTHOR_ID.eq(USER_ID))
+                        .and(SCAM_HISTORY.CONTENT_HASH.eq("hash")))),
+                // ScamHistoryStore#markScamDuplicatesDeleted
+                query("undeleted scam duplicates", context -> context.selectFrom(SCAM_HISTORY)
+                    .where(SCAM_HISTORY.GUILD_ID.eq(GUILD_ID)
+                        .and(SCAM_HISTORY.AUTHOR_ID.eq(USER_ID))
+                        .and(SCAM_HISTORY.CONTENT_HASH.eq("hash"))
+                        .and(SCAM_HISTORY.IS_DELETED.isFalse()))),
+                // ScamHistoryStore#deleteHistoryOlderThan
+                purgeBatchLookup("purge scam history", SCAM_HISTORY,
+                        SCAM_HISTORY.SENT_AT.lessOrEqual(NOW)),
+                purgeBatchDeletion("purge scam history", SCAM_HISTORY,
+                        SCAM_HISTORY.SENT_AT.lessOrEqual(NOW)),
+                // ModerationActionsStore#findLastActionAgainstTargetByType
+                query("last action against target", context -> context
+                    .selectFrom(MODERATION_ACTIONS)
+                    .where(MODERATION_ACTIONS.GUILD_ID.eq(GUILD_ID)
+                        .and(MODERATION_ACTIONS.TARGET_ID.eq(USER_ID))
+                        .and(MODERATION_ACTIONS.ACTION_TYPE.eq(ModerationAction.BAN.name())))
+                    .orderBy(MODERATION_ACTIONS.ISSUED_AT.desc())
+                    .limit(1)),
+                // ModerationActionsStore#getActionsByTypeAscending
+                query("actions by type", context -> context.selectFrom(MODERATION_ACTIONS)
+                    .where(MODERATION_ACTIONS.GUILD_ID.eq(GUILD_ID)
+                        .and(MODERATION_ACTIONS.ACTION_TYPE.eq(ModerationAction.BAN.name())))
+                    .orderBy(MODERATION_ACTIONS.ISSUED_AT.asc())),
+                // ModerationActionsStore#getActionsByTargetAscending
+                query("actions by target", context -> context.selectFrom(MODERATION_ACTIONS)
+                    .where(MODERATION_ACTIONS.GUILD_ID.eq(GUILD_ID)
+                        .and(MODERATION_ACTIONS.TARGET_ID.eq(USER_ID)))
+                    .orderBy(MODERATION_ACTIONS.ISSUED_AT.asc())),
+                // ModerationActionsStore#getActionsByAuthorAscending
+                query("actions by author", context -> context.selectFrom(MODERATION_ACTIONS)
+                    .where(MODERATION_ACTIONS.GUILD_ID.eq(GUILD_ID)
+                        .and(MODERATION_ACTIONS.AUTHOR_ID.eq(USER_ID)))
+                    .orderBy(MODERATION_ACTIONS.ISSUED_AT.asc())),
+                // ModerationActionsStore#getExpiredActionsAscending
+                query("expired actions", context -> context.selectFrom(MODERATION_ACTIONS)
+                    .where(MODERATION_ACTIONS.ACTION_EXPIRES_AT.isNotNull()
+                        .and(MODERATION_ACTIONS.ACTION_EXPIRES_AT.lessOrEqual(NOW)))
+                    .orderBy(MODERATION_ACTIONS.ISSUED_AT.asc())),
+                // RemindRoutine#runRoutine
+                query("due reminders", context -> context.selectFrom(PENDING_REMINDERS)
+                    .where(PENDING_REMINDERS.REMIND_AT.lessOrEqual(NOW))),
+                // ReminderCommand#getPendingReminders
+                query("pending reminders of user", context -> context
+                    .selectFrom(PENDING_REMINDERS)
+                    .where(PENDING_REMINDERS.GUILD_ID.eq(GUILD_ID)
+                        .and(PENDING_REMINDERS.AUTHOR_ID.eq(USER_ID)))
+                    .orderBy(PENDING_REMINDERS.REMIND_AT.asc())),
+                // ReminderCommand, canceling a reminder
+                query("cancel reminder", context -> context.deleteFrom(PENDING_REMINDERS)
+                    .where(PENDING_REMINDERS.CONTENT.eq("content")
+                        .and(PENDING_REMINDERS.AUTHOR_ID.eq(USER_ID)))),
+                // ComponentIdStore#get
+                query("component id by uuid", context -> context.selectFrom(COMPONENT_IDS)
+                    .where(COMPONENT_IDS.UUID.eq("uuid"))),
+                // ComponentIdStore#flushHeat
+                query("heat component ids", context -> context.update(COMPONENT_IDS)
+                    .set(COMPONENT_IDS.LAST_USED, NOW)
+                    .where(COMPONENT_IDS.UUID.in("uuid", "other uuid"))),
+                // ComponentIdStore#evictDatabase
+                purgeBatchLookup("evict component ids", COMPONENT_IDS,
+                        COMPONENT_IDS.LIFESPAN.notEqual(Lifespan.PERMANENT.name())
+                            .and(COMPONENT_IDS.LAST_USED.lessOrEqual(NOW))),
+                purgeBatchDeletion("evict component ids", COMPONENT_IDS,
+                        COMPONENT_IDS.LIFESPAN.notEqual(Lifespan.PERMANENT.name())
+                            .and(COMPONENT_IDS.LAST_USED.lessOrEqual(NOW))),
+                // BookmarksSystem#getUsersBookmarks
+                query("bookmarks of user", context -> context.selectFrom(BOOKMARKS)
+                    .where(BOOKMARKS.AUTHOR_ID.eq(USER_ID))
+                    .orderBy(BOOKMARKS.CREATED_AT.desc())),
+                // BookmarksSystem#deleteLeftoverBookmarks
+                purgeBatchLookup("leftover bookmarks", BOOKMARKS,
+                        BOOKMARKS.DELETE_AT.isNotNull().and(BOOKMARKS.DELETE_AT.lessThan(NOW))),
+                purgeBatchDeletion("leftover bookmarks", BOOKMARKS,
+                        BOOKMARKS.DELETE_AT.isNotNull().and(BOOKMARKS.DELETE_AT.lessThan(NOW))),
+                // HelpThreadMetadataPurger
+                purgeBatchLookup("purge help threads", HELP_THREADS,
+                        HELP_THREADS.CREATED_AT.lessOrEqual(NOW)),
+                purgeBatchDeletion("purge help threads", HELP_THREADS,
+                        HELP_THREADS.CREATED_AT.lessOrEqual(NOW)),
+                // MarkHelpThreadCloseInDBRoutine
+                query("stale active help threads", context -> context.selectFrom(HELP_THREADS)
+                    .where(HELP_THREADS.TICKET_STATUS.eq(ACTIVE_TICKET_STATUS))
+                    .and(HELP_THREADS.CREATED_AT.lessThan(NOW))),
+                // MetricRollups#compact
+                purgeBatchLookup("compact metric events", METRIC_EVENTS,
+                        METRIC_EVENTS.HAPPENED_AT.lessThan(NOW)),
+                purgeBatchDeletion("compact metric events", METRIC_EVENTS,
+                        METRIC_EVENTS.HAPPENED_AT.lessThan(NOW)),
+                purgeBatchLookup("purge minute rollups", METRIC_ROLLUPS,
+                        METRIC_ROLLUPS.GRANULARITY.eq(Granularity.MINUTE.name())
+                            .and(METRIC_ROLLUPS.BUCKET_START.lessThan(NOW))),
+                purgeBatchDeletion("purge minute rollups", METRIC_ROLLUPS,
+                        METRIC_ROLLUPS.GRANULARITY.eq(Granularity.MINUTE.name())
+                            .and(METRIC_ROLLUPS.BUCKET_START.lessThan(NOW))),
+                // MetricRollups#countPerBucket
+                query("metric rollups per bucket", context -> context
+                    .select(METRIC_ROLLUPS.BUCKET_START, DSL.sum(METRIC_ROLLUPS.EVENT_COUNT))
+                    .from(METRIC_ROLLUPS)
+                    .where(METRIC_ROLLUPS.GRANULARITY.eq(Granularity.HOUR.name())
+                        .and(METRIC_ROLLUPS.EVENT.eq("slash"))
+                        .and(METRIC_ROLLUPS.BUCKET_START.greaterOrEqual(NOW))
+                        .and(METRIC_ROLLUPS.BUCKET_START.lessThan(NOW)))
+                    .groupBy(METRIC_ROLLUPS.BUCKET_START)),
+                // MetricDimensionDictionary#decode
+                query("metric event dimensions", context -> context
+                    .select(METRIC_EVENT_DIMENSIONS.EVENT_ID, METRIC_DIMENSION_KEYS.NAME,
+                            METRIC_DIMENSION_VALUES.VALUE)
+                    .from(METRIC_EVENT_DIMENSIONS)
+                    .join(METRIC_DIMENSION_KEYS)
+                    .on(METRIC_DIMENSION_KEYS.ID.eq(METRIC_EVENT_DIMENSIONS.KEY_ID))
+                    .join(METRIC_DIMENSION_VALUES)
+                    .on(METRIC_DIMENSION_VALUES.ID.eq(METRIC_EVENT_DIMENSIONS.VALUE_ID))
+                    .where(METRIC_EVENT_DIMENSIONS.EVENT_ID.in(1, 2, 3))));
+    }
+
+    private static Arguments query(String name, Function<DSLContext, Query> queryFactory) {
+        return Arguments.of(name, queryFactory);
+    }
+
+    private static Arguments purgeBatchLookup(String name, Table<?> table, Condition condition) {
+        return query(name + " (batch lookup)", context -> PurgeEngine.selectBatchQuery(context,
+                table, condition, Long.MIN_VALUE, PURGE_BATCH_SIZE));
+    }
+
+    private static Arguments purgeBatchDeletion(String name, Table<?> table, Condition condition) {
+        return query(name + " (batch deletion)", context -> PurgeEngine.deleteBatchQuery(context,
+                table, condition, Long.MIN_VALUE, PURGE_BATCH_SIZE));
+    }
+}
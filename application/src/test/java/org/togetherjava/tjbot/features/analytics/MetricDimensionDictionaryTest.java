@@ -0,0 +1,142 @@
+package org.togetherjava.tjbot.features.analytics;
+
+import org.jooq.Row3;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import org.togetherjava.tjbot.db.Database;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.togetherjava.tjbot.db.generated.tables.MetricDimensionKeys.METRIC_DIMENSION_KEYS;
+import static org.togetherjava.tjbot.db.generated.tables.MetricDimensionValues.METRIC_DIMENSION_VALUES;
+import static org.togetherjava.tjbot.db.generated.tables.MetricEventDimensions.METRIC_EVENT_DIMENSIONS;
+import static org.togetherjava.tjbot.db.generated.tables.MetricEvents.METRIC_EVENTS;
+
+final class MetricDimensionDictionaryTest {
+    private Database database;
+    private MetricDimensionDictionary dictionary;
+
+    @BeforeEach
+    void setUp() {
+        database = Database.createMemoryDatabase(METRIC_EVENTS, METRIC_DIMENSION_KEYS,
+                METRIC_DIMENSION_VALUES, METRIC_EVENT_DIMENSIONS);
+        dictionary = new MetricDimensionDictionary();
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.close();
+    }
+
+    @Test
+    @DisplayName("Dimensions are decoded as they were encoded, preserving the value types")
+    void encodesAndDecodes() {
+        // GIVEN two events with dimensions of different types
+        Map<String, Object> firstDimensions = Map.of("name", "tag", "userId", 123L, "ok", true);
+        Map<String, Object> secondDimensions = Map.of("name", "help", "ratio", 0.5);
+        int firstEvent = insertEvent(firstDimensions);
+        int secondEvent = insertEvent(secondDimensions);
+
+        // WHEN decoding them
+        List<Integer> eventIds = List.of(firstEvent, secondEvent);
+        Map<Integer, Map<String, Object>> decoded =
+                database.read(context -> MetricDimensionDictionary.decode(context, eventIds));
+
+        // THEN their dimensions are the same, numbers as decoded by Jackson
+        assertEquals(Map.of("name", "tag", "userId", 123, "ok", true), decoded.get(firstEvent));
+        assertEquals(secondDimensions, decoded.get(secondEvent));
+    }
+
+    @Test
+    @DisplayName("Keys and values are interned once and shared by all events")
+    void internsEntriesOnce() {
+        // GIVEN events sharing keys and values, within one transaction and across transactions
+        insertEvent(Map.of("name", "tag", "channel", "tag"));
+        insertEvent(Map.of("name", "tag"));
+
+        // WHEN counting the interned entries
+        int keys = database.read(context -> context.fetchCount(METRIC_DIMENSION_KEYS));
+        int values = database.read(context -> context.fetchCount(METRIC_DIMENSION_VALUES));
+
+        // THEN each distinct key and value is stored once
+        assertEquals(2, keys);
+        assertEquals(1, values);
+    }
+
+    @Test
+    @DisplayName("Entries interned by someone else are reused instead of inserted again")
+    void reusesEntriesInternedElsewhere() {
+        // GIVEN a key and a value interned by another dictionary, unknown to this one's cache
+        insertEvent(Map.of("name", "tag"));
+        MetricDimensionDictionary otherDictionary = new MetricDimensionDictionary();
+
+        // WHEN encoding the same dimensions with the other dictionary
+        int event = insertEvent(otherDictionary, Map.of("name", "tag"));
+
+        // THEN the existing entries are referenced
+        assertEquals(1, database.read(context -> context.fetchCount(METRIC_DIMENSION_KEYS)));
+        assertEquals(1, database.read(context -> context.fetchCount(METRIC_DIMENSION_VALUES)));
+        assertEquals(Map.of("name", "tag"), database
+            .read(context -> MetricDimensionDictionary.decode(context, List.of(event)))
+            .get(event));
+    }
+
+    @Test
+    @DisplayName("Events without dimensions are omitted when decoding")
+    void omitsEventsWithoutDimensions() {
+        int event = insertEvent(Map.of());
+
+        assertEquals(Map.of(), database
+            .read(context -> MetricDimensionDictionary.decode(context, List.of(event))));
+    }
+
+    @Test
+    @DisplayName("Values that can not be serialized are rejected")
+    void rejectsUnserializableValues() {
+        assertThrows(IllegalArgumentException.class,
+                () -> MetricDimensionDictionary.encodeValues(Map.of("name", new Object())));
+    }
+
+    private int insertEvent(Map<String, Object> dimensions) {
+        return insertEvent(dictionary, dimensions);
+    }
+
+    private int insertEvent(MetricDimensionDictionary usedDictionary,
+            Map<String, Object> dimensions) {
+        Map<String, String> encodedDimensions = MetricDimensionDictionary.encodeValues(dimensions);
+        List<Row3<Integer, Integer, Integer>> dimensionRows = new ArrayList<>();
+
+        InsertedEvent insertedEvent = database.writeTransactionAndProvide(context -> {
+            int id = context
+                .insertInto(METRIC_EVENTS, METRIC_EVENTS.EVENT, METRIC_EVENTS.HAPPENED_AT,
+                        METRIC_EVENTS.ROLLED_UP)
+                .values("event", Instant.now(), true)
+                .returningResult(METRIC_EVENTS.ID)
+                .fetchSingle(METRIC_EVENTS.ID);
+
+            MetricDimensionDictionary.Encoder encoder = usedDictionary.newEncoder(context);
+            encoder.encode(id, encodedDimensions, dimensionRows);
+            if (!dimensionRows.isEmpty()) {
+                context
+                    .insertInto(METRIC_EVENT_DIMENSIONS, METRIC_EVENT_DIMENSIONS.EVENT_ID,
+                            METRIC_EVENT_DIMENSIONS.KEY_ID, METRIC_EVENT_DIMENSIONS.VALUE_ID)
+                    .valuesOfRows(dimensionRows)
+                    .execute();
+            }
+            return new InsertedEvent(id, encoder);
+        });
+        insertedEvent.encoder().commit();
+        return insertedEvent.id();
+    }
+
+    private record InsertedEvent(int id, MetricDimensionDictionary.Encoder encoder) {
+    }
+}
@@ -0,0 +1,120 @@
+package org.togetherjava.tjbot.features.analytics;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class MetricEventBufferTest {
+    @Test
+    @DisplayName("Events are drained in insertion order")
+    void drainsInInsertionOrder() {
+        MetricEventBuffer<Integer> buffer = new MetricEventBuffer<>(8);
+        IntStream.range(0, 5).forEach(buffer::offer);
+
+        List<Integer> drained = new ArrayList<>();
+        int drainedCount = buffer.drainTo(drained);
+
+        assertEquals(5, drainedCount);
+        assertEquals(List.of(0, 1, 2, 3, 4), drained);
+        assertEquals(0, buffer.drainTo(new ArrayList<>()));
+    }
+
+    @Test
+    @DisplayName("Slots are reused once the buffer wraps around")
+    void wrapsAround() {
+        // GIVEN a buffer of capacity 4 whose head has moved past the middle
+        MetricEventBuffer<Integer> buffer = new MetricEventBuffer<>(4);
+        IntStream.range(0, 3).forEach(buffer::offer);
+        buffer.drainTo(new ArrayList<>());
+
+        // WHEN filling it completely, wrapping around the end of the slots
+        boolean allAdded = IntStream.range(3, 7).allMatch(buffer::offer);
+        List<Integer> drained = new ArrayList<>();
+        buffer.drainTo(drained);
+
+        // THEN all events fit and are drained in insertion order
+        assertTrue(allAdded);
+        assertEquals(List.of(3, 4, 5, 6), drained);
+        assertEquals(0, buffer.getDroppedCount());
+    }
+
+    @Test
+    @DisplayName("Events are dropped and counted while the buffer is full")
+    void dropsWhenFull() {
+        // GIVEN a full buffer
+        MetricEventBuffer<Integer> buffer = new MetricEventBuffer<>(4);
+        IntStream.range(0, 4).forEach(buffer::offer);
+
+        // WHEN offering more events
+        boolean firstAdded = buffer.offer(4);
+        boolean secondAdded = buffer.offer(5);
+
+        // THEN they are dropped and counted, without touching the buffered events
+        assertFalse(firstAdded);
+        assertFalse(secondAdded);
+        assertEquals(2, buffer.getDroppedCount());
+
+        List<Integer> drained = new ArrayList<>();
+        buffer.drainTo(drained);
+        assertEquals(List.of(0, 1, 2, 3), drained);
+
+        // AND events are accepted again once drained
+        assertTrue(buffer.offer(6));
+        assertEquals(2, buffer.getDroppedCount());
+    }
+
+    @Test
+    @DisplayName("The capacity is rounded up to the next power of two")
+    void roundsCapacityUp() {
+        MetricEventBuffer<Integer> buffer = new MetricEventBuffer<>(3);
+
+        assertTrue(IntStream.range(0, 4).allMatch(buffer::offer));
+        assertFalse(buffer.offer(4));
+    }
+
+    @Test
+    @DisplayName("Non-positive capacities are rejected")
+    void rejectsNonPositiveCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new MetricEventBuffer<>(0));
+    }
+
+    @Test
+    @DisplayName("No event of concurrent producers is lost or duplicated")
+    void concurrentProducersLoseNothing() throws Exception {
+        // GIVEN many producers offering into a small buffer, while it is drained
+        int producers = 8;
+        int eventsPerProducer = 10_000;
+        MetricEventBuffer<Integer> buffer = new MetricEventBuffer<>(64);
+        List<Integer> drained = new ArrayList<>();
+
+        // WHEN all of them have finished
+        try (ExecutorService executor = Executors.newFixedThreadPool(producers)) {
+            IntStream.range(0, producers)
+                .forEach(producer -> executor.submit(() -> IntStream
+                    .range(producer * eventsPerProducer, (producer + 1) * eventsPerProducer)
+                    .forEach(buffer::offer)));
+            executor.shutdown();
+            while (!executor.isTerminated()) {
+                buffer.drainTo(drained);
+            }
+        }
+        buffer.drainTo(drained);
+
+        // THEN every event was either drained exactly once or counted as dropped
+        Set<Integer> uniqueDrained = new HashSet<>(drained);
+        assertEquals(drained.size(), uniqueDrained.size());
+        assertEquals(producers * eventsPerProducer, drained.size() + buffer.getDroppedCount());
+    }
+}
@@ -0,0 +1,157 @@
+package org.togetherjava.tjbot.features.analytics;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import org.togetherjava.tjbot.config.MetricRollupsConfig;
+import org.togetherjava.tjbot.db.Database;
+import org.togetherjava.tjbot.features.analytics.MetricRollups.Granularity;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.togetherjava.tjbot.db.generated.tables.MetricDimensionKeys.METRIC_DIMENSION_KEYS;
+import static org.togetherjava.tjbot.db.generated.tables.MetricDimensionValues.METRIC_DIMENSION_VALUES;
+import static org.togetherjava.tjbot.db.generated.tables.MetricEventDimensions.METRIC_EVENT_DIMENSIONS;
+import static org.togetherjava.tjbot.db.generated.tables.MetricEvents.METRIC_EVENTS;
+import static org.togetherjava.tjbot.db.generated.tables.MetricRollups.METRIC_ROLLUPS;
+
+final class MetricRollupsTest {
+    private static final Instant TEN_FIFTEEN = Instant.parse("2024-01-01T10:15:30Z");
+    private static final Instant TEN_FORTY = Instant.parse("2024-01-01T10:40:00Z");
+    private static final Instant ELEVEN_FIVE = Instant.parse("2024-01-01T11:05:00Z");
+    private static final Instant DAY_END = Instant.parse("2024-01-02T00:00:00Z");
+
+    private Database database;
+    private MetricRollups rollups;
+
+    @BeforeEach
+    void setUp() {
+        database = Database.createMemoryDatabase(METRIC_EVENTS, METRIC_DIMENSION_KEYS,
+                METRIC_DIMENSION_VALUES, METRIC_EVENT_DIMENSIONS, METRIC_ROLLUPS);
+        rollups = new MetricRollups(database,
+                new MetricRollupsConfig(1, 1, Map.of("slash", List.of("name"))));
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.close();
+    }
+
+    @Test
+    @DisplayName("Events are counted per hour and per minute")
+    void countsPerBucket() {
+        // GIVEN events in two different hours
+        MetricRollups.Accumulator accumulator = rollups.newAccumulator();
+        accumulator.add("slash", TEN_FIFTEEN, Map.of("name", "tag"));
+        accumulator.add("slash", TEN_FORTY, Map.of("name", "tag"));
+        accumulator.add("slash", ELEVEN_FIVE, Map.of("name", "help"));
+        accumulator.add("other", TEN_FIFTEEN, Map.of());
+        database.write(accumulator::writeTo);
+
+        // WHEN counting them per bucket
+        SortedMap<Instant, Long> perHour =
+                rollups.countPerBucket(Granularity.HOUR, "slash", TEN_FIFTEEN, DAY_END);
+        SortedMap<Instant, Long> perMinute =
+                rollups.countPerBucket(Granularity.MINUTE, "slash", TEN_FIFTEEN, DAY_END);
+
+        // THEN the buckets start at the truncated time of their events
+        assertEquals(Map.of(TEN_FIFTEEN.truncatedTo(ChronoUnit.HOURS), 2L,
+                ELEVEN_FIVE.truncatedTo(ChronoUnit.HOURS), 1L), perHour);
+        assertEquals(Map.of(TEN_FIFTEEN.truncatedTo(ChronoUnit.MINUTES), 1L, TEN_FORTY, 1L,
+                ELEVEN_FIVE, 1L), perMinute);
+    }
+
+    @Test
+    @DisplayName("Writing counts twice adds them up")
+    void writesAddUp() {
+        MetricRollups.Accumulator first = rollups.newAccumulator();
+        first.add("slash", TEN_FIFTEEN, Map.of());
+        database.write(first::writeTo);
+        MetricRollups.Accumulator second = rollups.newAccumulator();
+        second.add("slash", TEN_FORTY, Map.of());
+        database.write(second::writeTo);
+
+        assertEquals(Map.of(TEN_FIFTEEN.truncatedTo(ChronoUnit.HOURS), 2L),
+                rollups.countPerBucket(Granularity.HOUR, "slash", TEN_FIFTEEN, DAY_END));
+    }
+
+    @Test
+    @DisplayName("Events are counted per value of a rolled up dimension, most frequent first")
+    void countsPerDimension() {
+        // GIVEN events with different values of a rolled up dimension, and one without it
+        MetricRollups.Accumulator accumulator = rollups.newAccumulator();
+        accumulator.add("slash", TEN_FIFTEEN, Map.of("name", "help", "channel", "general"));
+        accumulator.add("slash", TEN_FORTY, Map.of("name", "tag", "channel", "general"));
+        accumulator.add("slash", ELEVEN_FIVE, Map.of("name", "tag", "channel", "offtopic"));
+        accumulator.add("slash", ELEVEN_FIVE, Map.of("channel", "general"));
+        database.write(accumulator::writeTo);
+
+        // WHEN counting them per value of the dimension
+        Map<String, Long> perName =
+                rollups.countPerDimension(Granularity.HOUR, "slash", "name", TEN_FIFTEEN, DAY_END);
+
+        // THEN each value is counted, events without the dimension under "null"
+        assertEquals(Map.of("tag", 2L, "help", 1L, "null", 1L), perName);
+        assertEquals("tag", perName.keySet().iterator().next());
+    }
+
+    @Test
+    @DisplayName("Dimensions that are not rolled up are not counted")
+    void ignoresDimensionsNotRolledUp() {
+        MetricRollups.Accumulator accumulator = rollups.newAccumulator();
+        accumulator.add("slash", TEN_FIFTEEN, Map.of("name", "tag", "channel", "general"));
+        accumulator.add("slash", TEN_FORTY, Map.of("name", "tag", "channel", "offtopic"));
+        database.write(accumulator::writeTo);
+
+        assertEquals(Map.of("null", 2L), rollups.countPerDimension(Granularity.HOUR, "slash",
+                "channel", TEN_FIFTEEN, DAY_END));
+    }
+
+    @Test
+    @DisplayName("Dimension names that are not plain words are rejected")
+    void rejectsMalformedDimensionNames() {
+        for (String dimension : List.of("", "name.sub", "name') OR 1=1 --", "$")) {
+            assertThrows(IllegalArgumentException.class, () -> rollups
+                .countPerDimension(Granularity.HOUR, "slash", dimension, TEN_FIFTEEN, DAY_END),
+                    dimension);
+        }
+    }
+
+    @Test
+    @DisplayName("Compaction counts events not rolled up yet, deletes old events and minutes")
+    void compactsOldEvents() {
+        // GIVEN old raw events, one of which is counted in the rollups already
+        Instant old = Instant.now().minus(10, ChronoUnit.DAYS);
+        insertRawEvent(old, false);
+        insertRawEvent(old, false);
+        insertRawEvent(old, true);
+        insertRawEvent(Instant.now(), false);
+
+        // WHEN compacting them
+        rollups.compact();
+
+        // THEN only the events not counted yet are rolled up, per-minute rollups are purged
+        assertEquals(Map.of(old.truncatedTo(ChronoUnit.HOURS), 2L),
+                rollups.countPerBucket(Granularity.HOUR, "slash", old, Instant.now()));
+        assertTrue(
+                rollups.countPerBucket(Granularity.MINUTE, "slash", old, Instant.now()).isEmpty());
+        assertEquals(1, database.read(context -> context.fetchCount(METRIC_EVENTS)));
+    }
+
+    private void insertRawEvent(Instant happenedAt, boolean isRolledUp) {
+        database.write(context -> context
+            .insertInto(METRIC_EVENTS, METRIC_EVENTS.EVENT, METRIC_EVENTS.HAPPENED_AT,
+                    METRIC_EVENTS.ROLLED_UP)
+            .values("slash", happenedAt, isRolledUp)
+            .execute());
+    }
+}
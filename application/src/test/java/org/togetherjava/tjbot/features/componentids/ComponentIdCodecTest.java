@@ -0,0 +1,57 @@
+package org.togetherjava.tjbot.features.componentids;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class ComponentIdCodecTest {
+    @Test
+    void componentIdsRoundTrip() {
+        ComponentId componentId = new ComponentId("s-tag",
+                List.of("1234567890123456789", "", "a,b;c\"d\ne", "12:äöü ✓"));
+
+        String encoded = ComponentIdCodec.encode(componentId);
+
+        assertFalse(ComponentIdCodec.isLegacy(encoded));
+        assertEquals(componentId, ComponentIdCodec.decode(encoded));
+    }
+
+    @Test
+    void componentIdsWithoutElementsRoundTrip() {
+        ComponentId componentId = new ComponentId("s-tag", List.of());
+
+        assertEquals(componentId, ComponentIdCodec.decode(ComponentIdCodec.encode(componentId)));
+    }
+
+    @Test
+    void legacyComponentIdsAreDecoded() throws JsonProcessingException {
+        ComponentId componentId = new ComponentId("s-remind", List.of("123", "close"));
+        CsvMapper csv = new CsvMapper();
+        String legacy = csv.writerFor(ComponentId.class)
+            .with(csv.schemaFor(ComponentId.class))
+            .writeValueAsString(componentId);
+
+        assertTrue(ComponentIdCodec.isLegacy(legacy));
+        assertEquals(componentId, ComponentIdCodec.decode(legacy));
+    }
+
+    @Test
+    void malformedComponentIdsAreRejected() {
+        String encoded = ComponentIdCodec.encode(new ComponentId("s-tag", List.of("java")));
+        String truncated = encoded.substring(0, encoded.length() - 1);
+
+        assertThrows(InvalidComponentIdFormatException.class,
+                () -> ComponentIdCodec.decode(truncated));
+        assertThrows(InvalidComponentIdFormatException.class,
+                () -> ComponentIdCodec.decode(ComponentIdCodec.CURRENT_PREFIX));
+        assertThrows(InvalidComponentIdFormatException.class,
+                () -> ComponentIdCodec.decode("\u00019" + "5:s-tag"));
+    }
+}
@@ -0,0 +1,106 @@
+package org.togetherjava.tjbot.features.componentids;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import org.togetherjava.tjbot.db.Database;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.togetherjava.tjbot.db.generated.tables.ComponentIds.COMPONENT_IDS;
+
+final class ComponentIdStoreTest {
+    private static final ComponentId COMPONENT_ID =
+            new ComponentId("s-tag", List.of("java", "123"));
+
+    private Database database;
+    private ComponentIdStore store;
+
+    @BeforeEach
+    void setUp() {
+        database = Database.createMemoryDatabase(COMPONENT_IDS);
+        store = new ComponentIdStore(database);
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.close();
+        database.close();
+    }
+
+    @Test
+    @DisplayName("Component IDs are available before their insert is committed")
+    void pendingComponentIdsAreResolvable() {
+        // GIVEN a component ID whose insert is held back by a write queued before it
+        CountDownLatch commitAllowed = new CountDownLatch(1);
+        database.writeAsync(_ -> awaitUninterruptibly(commitAllowed));
+        UUID uuid = UUID.randomUUID();
+        store.putOrThrow(uuid, COMPONENT_ID, Lifespan.REGULAR);
+
+        try {
+            // WHEN getting it back before the insert is committed
+            Optional<ComponentId> componentId = store.get(uuid);
+
+            // THEN it is found, although not in the database yet
+            assertEquals(Optional.of(COMPONENT_ID), componentId);
+            assertFalse(isInDatabase(uuid));
+        } finally {
+            commitAllowed.countDown();
+        }
+
+        // Writes are committed in order, once this one is, the insert is too
+        database.writeAsync(_ -> {
+        }).join();
+        assertTrue(isInDatabase(uuid));
+        assertEquals(Optional.of(COMPONENT_ID), store.get(uuid));
+    }
+
+    @Test
+    @DisplayName("Putting an existing UUID throws, whether it is committed already or not")
+    void duplicateUuidsThrow() {
+        // GIVEN a component ID whose insert is held back by a write queued before it
+        CountDownLatch commitAllowed = new CountDownLatch(1);
+        database.writeAsync(_ -> awaitUninterruptibly(commitAllowed));
+        UUID uuid = UUID.randomUUID();
+        store.putOrThrow(uuid, COMPONENT_ID, Lifespan.REGULAR);
+        ComponentId otherComponentId = new ComponentId("s-tag", List.of("python"));
+
+        // WHEN putting another component ID with the same UUID
+        // THEN it throws while the first one is pending
+        try {
+            assertThrows(IllegalArgumentException.class,
+                    () -> store.putOrThrow(uuid, otherComponentId, Lifespan.REGULAR));
+        } finally {
+            commitAllowed.countDown();
+        }
+
+        // AND after it has been committed
+        database.writeAsync(_ -> {
+        }).join();
+        assertThrows(IllegalArgumentException.class,
+                () -> store.putOrThrow(uuid, otherComponentId, Lifespan.PERMANENT));
+        assertEquals(Optional.of(COMPONENT_ID), store.get(uuid));
+    }
+
+    private boolean isInDatabase(UUID uuid) {
+        return database.read(context -> context.fetchExists(COMPONENT_IDS,
+                COMPONENT_IDS.UUID.eq(uuid.toString())));
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package org.togetherjava.tjbot.features.componentids;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class SignedComponentIdsTest {
+    private static final byte[] KEY = "secret".getBytes(StandardCharsets.UTF_8);
+    private static final List<String> NAMES = List.of("s-tag", "s-remind", "u-bookmark");
+
+    private final SignedComponentIds signedComponentIds = new SignedComponentIds(KEY, NAMES);
+
+    @Test
+    void smallComponentIdsRoundTrip() {
+        ComponentId componentId =
+                new ComponentId("s-remind", List.of("1234567890123456789", "", "äöü ✓"));
+
+        String id = signedComponentIds.encode(componentId).orElseThrow();
+
+        assertTrue(SignedComponentIds.isSigned(id));
+        assertTrue(id.length() <= 100);
+        assertEquals(Optional.of(componentId), signedComponentIds.decode(id));
+    }
+
+    @Test
+    void idsExpireAfterTwentyDays() {
+        AtomicReference<Instant> now = new AtomicReference<>(Instant.parse("2026-01-01T00:00:00Z"));
+        SignedComponentIds clockedComponentIds = new SignedComponentIds(KEY, NAMES, now::get);
+        ComponentId componentId = new ComponentId("s-tag", List.of("java"));
+        String id = clockedComponentIds.encode(componentId).orElseThrow();
+
+        now.set(now.get().plus(Duration.ofDays(20)));
+        assertEquals(Optional.of(componentId), clockedComponentIds.decode(id));
+
+        now.set(now.get().plusSeconds(1));
+        assertEquals(Optional.empty(), clockedComponentIds.decode(id));
+    }
+
+    @Test
+    void largeComponentIdsAreNotSigned() {
+        ComponentId componentId = new ComponentId("s-tag", List.of("x".repeat(80)));
+
+        assertEquals(Optional.empty(), signedComponentIds.encode(componentId));
+    }
+
+    @Test
+    void unknownInteractorsAreNotSigned() {
+        ComponentId componentId = new ComponentId("s-unknown", List.of());
+
+        assertEquals(Optional.empty(), signedComponentIds.encode(componentId));
+    }
+
+    @Test
+    void uuidsAreNotSigned() {
+        assertFalse(SignedComponentIds.isSigned("4f8e5d3a-94c2-4a51-9f2e-0c3b5a7d1e6f"));
+    }
+
+    @Test
+    void tamperedIdsAreRejected() {
+        String id = signedComponentIds.encode(new ComponentId("s-tag", List.of("java")))
+            .orElseThrow();
+        // Changes a character within the signed part
+        char tamperedChar = id.charAt(8) == 'A' ? 'B' : 'A';
+        String tamperedId = id.substring(0, 8) + tamperedChar + id.substring(9);
+        String forgedId = new SignedComponentIds("other".getBytes(StandardCharsets.UTF_8), NAMES)
+            .encode(new ComponentId("s-tag", List.of("java")))
+            .orElseThrow();
+
+        assertThrows(InvalidComponentIdFormatException.class,
+                () -> signedComponentIds.decode(tamperedId));
+        assertThrows(InvalidComponentIdFormatException.class,
+                () -> signedComponentIds.decode(forgedId));
+        assertThrows(InvalidComponentIdFormatException.class,
+                () -> signedComponentIds.decode("~not base64!"));
+    }
+}
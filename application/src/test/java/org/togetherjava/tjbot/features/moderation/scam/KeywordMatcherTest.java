@@ -0,0 +1,21 @@
+package org.togetherjava.tjbot.features.moderation.scam;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+final class KeywordMatcherTest {
+    private final KeywordMatcher matcher = new KeywordMatcher(
+            List.of("nitro", "steamcommunity", "Steam", "^claim", "^hack$", ".exe$", "hacks"));
+
+    @ParameterizedTest
+    @CsvSource({"freenitro, true", "STEAMgift, true", "steamcommunity, true", "steam, true",
+            "stea, false", "claimed, true", "reclaim, false", "hack, true", "hacker, false",
+            "lifehacks, true", "setup.exe, true", "setup.exe.txt, false", "nitr, false"})
+    void matchesKeywordsWithTheirSyntax(String token, boolean expectedMatch) {
+        assertEquals(expectedMatch, matcher.matches(token));
+    }
+}
@@ -0,0 +1,115 @@
+package org.togetherjava.tjbot.features.moderation.scam;
+
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.entities.channel.unions.MessageChannelUnion;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import org.togetherjava.tjbot.db.Database;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.togetherjava.tjbot.db.generated.tables.ScamHistory.SCAM_HISTORY;
+
+final class ScamHistoryStoreTest {
+    private static final long GUILD_ID = 1;
+    private static final long AUTHOR_ID = 2;
+    private static final String SCAM = "Free nitro https://dlscord-gift.com";
+
+    private Database database;
+    private ScamHistoryStore scamHistoryStore;
+
+    @BeforeEach
+    void setUp() {
+        database = Database.createMemoryDatabase(SCAM_HISTORY);
+        scamHistoryStore = new ScamHistoryStore(database);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.close();
+    }
+
+    @Test
+    @DisplayName("Recent duplicates of the same author are detected")
+    void detectsRecentDuplicates() {
+        // GIVEN a recent scam message
+        scamHistoryStore.addScam(createMessageMock(10, AUTHOR_ID, SCAM, Duration.ofMinutes(1)),
+                false);
+
+        // WHEN checking for duplicates
+        // THEN only the same content of the same author is a duplicate
+        assertTrue(scamHistoryStore
+            .hasRecentScamDuplicate(createMessageMock(11, AUTHOR_ID, SCAM, Duration.ZERO)));
+        assertFalse(scamHistoryStore
+            .hasRecentScamDuplicate(createMessageMock(12, AUTHOR_ID, "other", Duration.ZERO)));
+        assertFalse(scamHistoryStore
+            .hasRecentScamDuplicate(createMessageMock(13, AUTHOR_ID + 1, SCAM, Duration.ZERO)));
+    }
+
+    @Test
+    @DisplayName("Old scam messages are no duplicates")
+    void ignoresOldScam() {
+        // GIVEN a scam message sent a while ago
+        scamHistoryStore.addScam(createMessageMock(10, AUTHOR_ID, SCAM, Duration.ofMinutes(20)),
+                false);
+
+        // WHEN checking for duplicates
+        boolean hasDuplicate = scamHistoryStore
+            .hasRecentScamDuplicate(createMessageMock(11, AUTHOR_ID, SCAM, Duration.ZERO));
+
+        // THEN it is not a duplicate anymore
+        assertFalse(hasDuplicate);
+    }
+
+    @Test
+    @DisplayName("Recent scam is restored from the database and duplicates can be deleted")
+    void restoresRecentScamFromDatabase() {
+        // GIVEN a recent scam message, written to the database
+        scamHistoryStore.addScam(createMessageMock(10, AUTHOR_ID, SCAM, Duration.ofMinutes(1)),
+                false);
+        assertEquals(1, scamHistoryStore
+            .markScamDuplicatesDeleted(GUILD_ID, AUTHOR_ID,
+                    ScamHistoryStore.hashMessageContent(
+                            createMessageMock(10, AUTHOR_ID, SCAM, Duration.ZERO)))
+            .size());
+
+        // WHEN creating a new store, as after a restart
+        ScamHistoryStore restartedStore = new ScamHistoryStore(database);
+
+        // THEN it still knows the recent scam
+        assertTrue(restartedStore
+            .hasRecentScamDuplicate(createMessageMock(11, AUTHOR_ID, SCAM, Duration.ZERO)));
+    }
+
+    private static Message createMessageMock(long messageId, long authorId, String content,
+            Duration sentAgo) {
+        Guild guild = mock(Guild.class);
+        when(guild.getIdLong()).thenReturn(GUILD_ID);
+        User author = mock(User.class);
+        when(author.getIdLong()).thenReturn(authorId);
+        MessageChannelUnion channel = mock(MessageChannelUnion.class);
+        when(channel.getIdLong()).thenReturn(3L);
+
+        Message message = mock(Message.class);
+        when(message.getIdLong()).thenReturn(messageId);
+        when(message.getGuild()).thenReturn(guild);
+        when(message.getAuthor()).thenReturn(author);
+        when(message.getChannel()).thenReturn(channel);
+        when(message.getContentRaw()).thenReturn(content);
+        when(message.getTimeCreated())
+            .thenReturn(OffsetDateTime.now(ZoneOffset.UTC).minus(sentAgo));
+        return message;
+    }
+}
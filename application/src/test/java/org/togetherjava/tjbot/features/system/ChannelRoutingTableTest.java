@@ -0,0 +1,121 @@
+package org.togetherjava.tjbot.features.system;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class ChannelRoutingTableTest {
+    private static final String EVERYWHERE = "everywhere";
+    private static final String MEMES = "memes";
+    private static final String QUESTIONS = "questions";
+    private static final String SUGGESTIONS = "suggestions";
+
+    private static final long MEMES_ID = 1;
+    private static final long FORUM_ID = 2;
+    private static final long THREAD_ID = 3;
+    private static final long OTHER_ID = 4;
+
+    private ChannelRoutingTable<String> routingTable;
+
+    @BeforeEach
+    void setUp() {
+        List<String> receivers = List.of(EVERYWHERE, MEMES, QUESTIONS, SUGGESTIONS);
+        List<Pattern> patterns = List.of(Pattern.compile(".*"), Pattern.compile("memes"),
+                Pattern.compile("questions"), Pattern.compile("tj-suggestions|suggestions"));
+        routingTable = new ChannelRoutingTable<>(receivers,
+                receiver -> patterns.get(receivers.indexOf(receiver)));
+    }
+
+    @Test
+    @DisplayName("Channels are routed to all receivers whose pattern matches, in order")
+    void routesByChannelName() {
+        assertEquals(List.of(EVERYWHERE, MEMES),
+                routingTable.getReceiversSubscribedTo(MEMES_ID, "memes"));
+        assertEquals(List.of(EVERYWHERE, SUGGESTIONS),
+                routingTable.getReceiversSubscribedTo(OTHER_ID, "tj-suggestions"));
+    }
+
+    @Test
+    @DisplayName("Patterns have to match the whole channel name")
+    void patternsMatchWholeName() {
+        assertEquals(List.of(EVERYWHERE),
+                routingTable.getReceiversSubscribedTo(OTHER_ID, "dank-memes"));
+    }
+
+    @Test
+    @DisplayName("Receivers of a channel are resolved once and cached by its id")
+    void cachesByChannelId() {
+        // GIVEN a channel that was routed already
+        List<String> receivers = routingTable.getReceiversSubscribedTo(MEMES_ID, "memes");
+
+        // WHEN routing it again, with a name that was not picked up yet
+        List<String> cachedReceivers =
+                routingTable.getReceiversSubscribedTo(MEMES_ID, "renamed-memes");
+
+        // THEN the cached receivers are used
+        assertSame(receivers, cachedReceivers);
+    }
+
+    @Test
+    @DisplayName("Invalidated channels are resolved again with their new name")
+    void invalidationResolvesAgain() {
+        // GIVEN a channel that was routed already
+        routingTable.getReceiversSubscribedTo(MEMES_ID, "memes");
+
+        // WHEN it is renamed and invalidated
+        routingTable.invalidate(MEMES_ID);
+        List<String> receivers = routingTable.getReceiversSubscribedTo(MEMES_ID, "chit-chat");
+
+        // THEN its receivers match the new name
+        assertEquals(List.of(EVERYWHERE), receivers);
+    }
+
+    @Test
+    @DisplayName("Threads are routed by their own name, not by the name of their forum")
+    void routesThreadsByOwnName() {
+        // GIVEN a forum and a thread within it
+        List<String> forumReceivers = routingTable.getReceiversSubscribedTo(FORUM_ID, "questions");
+
+        // WHEN routing the thread
+        List<String> threadReceivers =
+                routingTable.getReceiversSubscribedTo(THREAD_ID, "How to sort a list?");
+
+        // THEN only receivers matching the name of the thread get its events
+        assertEquals(List.of(EVERYWHERE, QUESTIONS), forumReceivers);
+        assertEquals(List.of(EVERYWHERE), threadReceivers);
+    }
+
+    @Test
+    @DisplayName("Threads and their forum are cached and invalidated independently")
+    void threadsAndForumsAreIndependent() {
+        // GIVEN a forum and a thread within it, both routed already
+        routingTable.getReceiversSubscribedTo(FORUM_ID, "questions");
+        List<String> threadReceivers =
+                routingTable.getReceiversSubscribedTo(THREAD_ID, "How to sort a list?");
+
+        // WHEN the forum is renamed and invalidated
+        routingTable.invalidate(FORUM_ID);
+
+        // THEN the forum is resolved again, while the thread keeps its receivers
+        assertEquals(List.of(EVERYWHERE),
+                routingTable.getReceiversSubscribedTo(FORUM_ID, "old-questions"));
+        assertSame(threadReceivers,
+                routingTable.getReceiversSubscribedTo(THREAD_ID, "How to sort a list?"));
+    }
+
+    @Test
+    @DisplayName("Channels without any matching receiver are routed nowhere")
+    void routesNowhereWithoutReceivers() {
+        ChannelRoutingTable<String> emptyTable =
+                new ChannelRoutingTable<>(List.of(), _ -> Pattern.compile(".*"));
+
+        assertTrue(emptyTable.getReceiversSubscribedTo(OTHER_ID, "memes").isEmpty());
+    }
+}
@@ -0,0 +1,185 @@
+package org.togetherjava.tjbot.features.system;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import net.dv8tion.jda.api.events.GenericEvent;
+import net.dv8tion.jda.api.events.RawGatewayEvent;
+import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+import net.dv8tion.jda.api.utils.data.DataObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.togetherjava.tjbot.jda.GatewayReplay;
+import org.togetherjava.tjbot.jda.JdaTester;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+final class GatewayEventRecorderTest {
+    private static final String MESSAGE_CREATE = """
+            {
+              "t": "MESSAGE_CREATE",
+              "d": {
+                "id": "100",
+                "channel_id": "200",
+                "content": "Hello World 123, see Main.java",
+                "author": {"id": "300", "username": "alice", "avatar": "a1b2c3"},
+                "attachments": [{"id": "400", "filename": "Main.java", "size": 42}],
+                "edited_timestamp": null
+              }
+            }""";
+    private static final String MESSAGE_CREATE_IN_THREAD = """
+            {
+              "t": "MESSAGE_CREATE",
+              "d": {
+                "id": "101",
+                "channel_id": "201",
+                "content": "Why does my loop never end?",
+                "thread": {
+                  "id": "201",
+                  "parent_id": "202",
+                  "name": "Infinite loop in Java 21",
+                  "topic": "Questions about loops"
+                }
+              }
+            }""";
+    private static final String MESSAGE_UPDATE_WITH_EMBED = """
+            {
+              "t": "MESSAGE_UPDATE",
+              "d": {
+                "id": "102",
+                "channel_id": "200",
+                "embeds": [{
+                  "title": "Tag: sorting",
+                  "description": "Use Collections.sort",
+                  "author": {"name": "alice", "url": "https://example.com/alice"},
+                  "fields": [{"name": "Example", "value": "list.sort(null)"}],
+                  "footer": {"text": "Requested by bob"}
+                }]
+              }
+            }""";
+    private static final String TYPING_START = """
+            {"t": "TYPING_START", "d": {"channel_id": "200", "user_id": "300"}}""";
+
+    @TempDir
+    private Path tempDir;
+    private JdaTester jdaTester;
+
+    @BeforeEach
+    void setUp() {
+        jdaTester = new JdaTester();
+    }
+
+    @Test
+    @DisplayName("Recorded events are scrubbed of everything users typed")
+    void recordsScrubbedEvents() throws IOException {
+        // GIVEN a recorder
+        Path recording = tempDir.resolve("recording.jsonl");
+
+        // WHEN recording a message and an event that is not of interest
+        try (GatewayEventRecorder recorder = new GatewayEventRecorder(recording)) {
+            recorder.onEvent(createRawEvent(MESSAGE_CREATE));
+            recorder.onEvent(createRawEvent(TYPING_START));
+        }
+
+        // THEN only the message is recorded, scrubbed
+        List<RecordedGatewayEvent> events = RecordedGatewayEvent.readRecording(recording);
+        assertEquals(1, events.size());
+
+        RecordedGatewayEvent event = events.getFirst();
+        assertEquals("MESSAGE_CREATE", event.type());
+        assertEquals("TEXT", event.channelType());
+        assertEquals("xxxxx xxxxx 000, xxx xxxx.xxxx", event.data().path("content").asText());
+        assertEquals("xxxxx", event.data().path("author").path("username").asText());
+        assertEquals("300", event.data().path("author").path("id").asText());
+        assertFalse(event.data().path("author").has("avatar"));
+        assertFalse(event.data().has("edited_timestamp"));
+        assertEquals("xxxx.java",
+                event.data().path("attachments").path(0).path("filename").asText());
+    }
+
+    @Test
+    @DisplayName("Names and topics of threads are scrubbed")
+    void scrubsThreadPayloads() throws IOException {
+        // GIVEN a recorder
+        Path recording = tempDir.resolve("recording.jsonl");
+
+        // WHEN recording a message that started a thread
+        try (GatewayEventRecorder recorder = new GatewayEventRecorder(recording)) {
+            recorder.onEvent(createRawEvent(MESSAGE_CREATE_IN_THREAD));
+        }
+
+        // THEN the name and topic of the thread are scrubbed, its ids are kept
+        JsonNode thread =
+                RecordedGatewayEvent.readRecording(recording).getFirst().data().path("thread");
+        assertEquals("xxxxxxxx xxxx xx xxxx 00", thread.path("name").asText());
+        assertEquals("xxxxxxxxx xxxxx xxxxx", thread.path("topic").asText());
+        assertEquals("201", thread.path("id").asText());
+        assertEquals("202", thread.path("parent_id").asText());
+    }
+
+    @Test
+    @DisplayName("All text of embeds is scrubbed")
+    void scrubsEmbedPayloads() throws IOException {
+        // GIVEN a recorder
+        Path recording = tempDir.resolve("recording.jsonl");
+
+        // WHEN recording a message updated with an embed
+        try (GatewayEventRecorder recorder = new GatewayEventRecorder(recording)) {
+            recorder.onEvent(createRawEvent(MESSAGE_UPDATE_WITH_EMBED));
+        }
+
+        // THEN none of the text of the embed is recorded
+        JsonNode embed = RecordedGatewayEvent.readRecording(recording)
+            .getFirst()
+            .data()
+            .path("embeds")
+            .path(0);
+        assertEquals("xxx: xxxxxxx", embed.path("title").asText());
+        assertEquals("xxx xxxxxxxxxxx.xxxx", embed.path("description").asText());
+        assertEquals("xxxxx", embed.path("author").path("name").asText());
+        assertEquals("xxxxx://xxxxxxx.xxx/xxxxx", embed.path("author").path("url").asText());
+        assertEquals("xxxxxxx", embed.path("fields").path(0).path("name").asText());
+        assertEquals("xxxx.xxxx(xxxx)", embed.path("fields").path(0).path("value").asText());
+        assertEquals("xxxxxxxxx xx xxx", embed.path("footer").path("text").asText());
+    }
+
+    @Test
+    @DisplayName("Recorded messages can be replayed against listeners")
+    void replaysRecordedMessages() throws IOException, InterruptedException {
+        // GIVEN a recording of a message
+        Path recording = tempDir.resolve("recording.jsonl");
+        try (GatewayEventRecorder recorder = new GatewayEventRecorder(recording)) {
+            recorder.onEvent(createRawEvent(MESSAGE_CREATE));
+        }
+        GatewayReplay replay =
+                new GatewayReplay(jdaTester, RecordedGatewayEvent.readRecording(recording));
+
+        // WHEN replaying it
+        List<GenericEvent> receivedEvents = new ArrayList<>();
+        GatewayReplay.Report report =
+                replay.replay(Map.of("listener", receivedEvents::add), Double.POSITIVE_INFINITY);
+
+        // THEN the listener receives the scrubbed message, with its attachment
+        assertEquals(1, report.replayedEvents());
+        assertEquals(1, report.nameToLatencies().get("listener").getCount());
+        assertEquals(1, receivedEvents.size());
+
+        MessageReceivedEvent event =
+                assertInstanceOf(MessageReceivedEvent.class, receivedEvents.getFirst());
+        assertEquals("xxxxx xxxxx 000, xxx xxxx.xxxx", event.getMessage().getContentRaw());
+        assertEquals("xxxx.java", event.getMessage().getAttachments().getFirst().getFileName());
+    }
+
+    private RawGatewayEvent createRawEvent(String gatewayPackage) {
+        return new RawGatewayEvent(jdaTester.getJdaMock(), 1, DataObject.fromJson(gatewayPackage));
+    }
+}
@@ -0,0 +1,171 @@
+package org.togetherjava.tjbot.features.system;
+
+import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
+import net.dv8tion.jda.api.events.interaction.component.ButtonInteractionEvent;
+import net.dv8tion.jda.api.requests.restaction.interactions.MessageEditCallbackAction;
+import net.dv8tion.jda.api.requests.restaction.interactions.ReplyCallbackAction;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import org.togetherjava.tjbot.config.InteractionDeadlineConfig;
+import org.togetherjava.tjbot.features.analytics.Metrics;
+import org.togetherjava.tjbot.features.utils.InteractionAcknowledgements;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+final class InteractionDeadlineGuardTest {
+    private static final int AUTO_DEFER_AFTER_MILLIS = 100;
+    private static final long VERIFY_TIMEOUT_MILLIS = 2_000;
+    private static final String PUBLIC_INTERACTOR = "ping";
+    private static final String EPHEMERAL_INTERACTOR = "tex";
+    private static final String OTHER_INTERACTOR = "tag";
+
+    private final Metrics metrics = mock(Metrics.class);
+    private final InteractionDeadlineGuard guard =
+            new InteractionDeadlineGuard(new InteractionDeadlineConfig(AUTO_DEFER_AFTER_MILLIS,
+                    Set.of(PUBLIC_INTERACTOR), Set.of(EPHEMERAL_INTERACTOR)), metrics);
+    private final ExecutorService handlerExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    /**
+     * Holds all stalled handlers until released.
+     */
+    private final CountDownLatch released = new CountDownLatch(1);
+    private final AtomicBoolean isAcknowledged = new AtomicBoolean();
+    private SlashCommandInteractionEvent slashEvent;
+
+    @BeforeEach
+    void setUp() {
+        slashEvent = mock(SlashCommandInteractionEvent.class);
+        when(slashEvent.deferReply(anyBoolean())).thenReturn(mock(ReplyCallbackAction.class));
+        when(slashEvent.isAcknowledged()).thenAnswer(_ -> isAcknowledged.get());
+    }
+
+    @AfterEach
+    void tearDown() {
+        released.countDown();
+        handlerExecutor.close();
+    }
+
+    @Test
+    @DisplayName("A stalled handler is deferred ephemerally if its interactor responds ephemerally")
+    void defersStalledHandlerEphemerally() {
+        // GIVEN a handler that stalls without acknowledging
+        InteractionDeadlineGuard.TrackedInteraction interaction =
+                guard.track(slashEvent, EPHEMERAL_INTERACTOR);
+
+        // WHEN it runs beyond the budget
+        runStalled(interaction, EPHEMERAL_INTERACTOR);
+
+        // THEN the interaction is deferred ephemerally, and counted
+        verify(slashEvent, timeout(VERIFY_TIMEOUT_MILLIS)).deferReply(true);
+        verify(metrics, timeout(VERIFY_TIMEOUT_MILLIS)).count("interaction_auto_deferred",
+                Map.of("name", EPHEMERAL_INTERACTOR));
+        assertFalse(InteractionAcknowledgements.claim(slashEvent),
+                "The handler must respond through the hook once deferred");
+    }
+
+    @Test
+    @DisplayName("A stalled handler is deferred publicly if its interactor is configured so")
+    void defersStalledHandlerPublicly() {
+        InteractionDeadlineGuard.TrackedInteraction interaction =
+                guard.track(slashEvent, PUBLIC_INTERACTOR);
+
+        runStalled(interaction, PUBLIC_INTERACTOR);
+
+        verify(slashEvent, timeout(VERIFY_TIMEOUT_MILLIS)).deferReply(false);
+    }
+
+    @Test
+    @DisplayName("Interactions of interactors that did not opt in are never deferred")
+    void doesNotDeferOtherInteractors() {
+        InteractionDeadlineGuard.TrackedInteraction interaction =
+                guard.track(slashEvent, OTHER_INTERACTOR);
+
+        runStalled(interaction, OTHER_INTERACTOR);
+
+        verify(slashEvent, after(5L * AUTO_DEFER_AFTER_MILLIS).never()).deferReply(anyBoolean());
+    }
+
+    @Test
+    @DisplayName("Interactions acknowledged by their handler are not deferred")
+    void doesNotDeferAcknowledgedInteractions() throws InterruptedException {
+        // GIVEN a handler that acknowledges right away, but keeps running
+        InteractionDeadlineGuard.TrackedInteraction interaction =
+                guard.track(slashEvent, EPHEMERAL_INTERACTOR);
+        AtomicBoolean isClaimed = new AtomicBoolean();
+        CountDownLatch acknowledged = new CountDownLatch(1);
+        handlerExecutor.execute(() -> interaction.run(EPHEMERAL_INTERACTOR, () -> {
+            isClaimed.set(InteractionAcknowledgements.claim(slashEvent));
+            isAcknowledged.set(true);
+            acknowledged.countDown();
+            awaitRelease();
+        }));
+
+        // WHEN it runs beyond the budget
+        assertTrue(acknowledged.await(VERIFY_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+
+        // THEN the guard leaves the interaction alone
+        assertTrue(isClaimed.get());
+        verify(slashEvent, after(5L * AUTO_DEFER_AFTER_MILLIS).never()).deferReply(anyBoolean());
+    }
+
+    @Test
+    @DisplayName("Component interactions are deferred once their interactor is identified")
+    void defersComponentInteractionsOnceIdentified() {
+        // GIVEN a button click, whose interactor is only known after parsing its component id
+        ButtonInteractionEvent buttonEvent = mock(ButtonInteractionEvent.class);
+        when(buttonEvent.deferEdit()).thenReturn(mock(MessageEditCallbackAction.class));
+        InteractionDeadlineGuard.TrackedInteraction interaction = guard.track(buttonEvent, null);
+
+        // WHEN it is identified, but waits for its handler beyond the budget
+        interaction.identify(EPHEMERAL_INTERACTOR);
+
+        // THEN its message is deferred for editing
+        verify(buttonEvent, timeout(VERIFY_TIMEOUT_MILLIS)).deferEdit();
+    }
+
+    @Test
+    @DisplayName("Untracked interactions are not deferred")
+    void doesNotDeferUntrackedInteractions() {
+        // GIVEN an interaction that failed to parse, and was untracked
+        InteractionDeadlineGuard.TrackedInteraction interaction =
+                guard.track(slashEvent, EPHEMERAL_INTERACTOR);
+        interaction.untrack();
+
+        // WHEN the budget passes
+        // THEN it is neither deferred nor reported as expired
+        verify(slashEvent, after(5L * AUTO_DEFER_AFTER_MILLIS).never()).deferReply(anyBoolean());
+        verify(metrics, never()).count("interaction_auto_deferred",
+                Map.of("name", EPHEMERAL_INTERACTOR));
+    }
+
+    private void runStalled(InteractionDeadlineGuard.TrackedInteraction interaction,
+            String interactorName) {
+        handlerExecutor.execute(() -> interaction.run(interactorName, this::awaitRelease));
+    }
+
+    private void awaitRelease() {
+        try {
+            released.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
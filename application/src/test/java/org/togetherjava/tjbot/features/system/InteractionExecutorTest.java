@@ -0,0 +1,139 @@
+package org.togetherjava.tjbot.features.system;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import org.togetherjava.tjbot.config.InteractionLimitsConfig;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class InteractionExecutorTest {
+    private static final String INTERACTOR = "tag";
+    private static final String OTHER_INTERACTOR = "help";
+    private static final String RESTRICTED_INTERACTOR = "chatgpt";
+    private static final long TIMEOUT_SECONDS = 10;
+
+    private final InteractionExecutor executor =
+            new InteractionExecutor(new InteractionLimitsConfig(
+                    new InteractionLimitsConfig.Bulkhead(2, 1),
+                    Map.of(RESTRICTED_INTERACTOR, new InteractionLimitsConfig.Bulkhead(1, 0))));
+    /**
+     * Holds all tasks submitted by a test until released.
+     */
+    private final CountDownLatch released = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        released.countDown();
+    }
+
+    @Test
+    @DisplayName("Interactions beyond the limit wait, beyond the queue limit they are rejected")
+    void limitsConcurrentAndQueuedInteractions() throws InterruptedException {
+        // GIVEN an interactor processing as many interactions as it may
+        CountDownLatch started = new CountDownLatch(2);
+        submitBlocking(INTERACTOR, started);
+        submitBlocking(INTERACTOR, started);
+        assertTrue(started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        // WHEN submitting two more interactions
+        CountDownLatch queuedStarted = new CountDownLatch(1);
+        AtomicBoolean isQueuedRejected = new AtomicBoolean();
+        executor.submit(INTERACTOR, queuedStarted::countDown, () -> isQueuedRejected.set(true));
+        AtomicBoolean isExcessRejected = new AtomicBoolean();
+        executor.submit(INTERACTOR, () -> {
+        }, () -> isExcessRejected.set(true));
+
+        // THEN the first one waits for processing, the second one is rejected right away
+        assertFalse(isQueuedRejected.get());
+        assertTrue(isExcessRejected.get());
+        assertFalse(queuedStarted.await(100, TimeUnit.MILLISECONDS));
+
+        // AND the waiting one is processed once there is room
+        released.countDown();
+        assertTrue(queuedStarted.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("A saturated interactor does not affect other interactors")
+    void isolatesInteractors() throws InterruptedException {
+        // GIVEN a saturated interactor
+        CountDownLatch started = new CountDownLatch(2);
+        submitBlocking(INTERACTOR, started);
+        submitBlocking(INTERACTOR, started);
+        submitBlocking(INTERACTOR, new CountDownLatch(1));
+        assertTrue(started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        // WHEN submitting an interaction of another interactor
+        CountDownLatch otherStarted = new CountDownLatch(1);
+        AtomicBoolean isOtherRejected = new AtomicBoolean();
+        executor.submit(OTHER_INTERACTOR, otherStarted::countDown,
+                () -> isOtherRejected.set(true));
+
+        // THEN it is processed right away
+        assertTrue(otherStarted.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertFalse(isOtherRejected.get());
+    }
+
+    @Test
+    @DisplayName("Interactors with an override use their own limits")
+    void appliesOverrides() throws InterruptedException {
+        // GIVEN a restricted interactor processing one interaction
+        CountDownLatch started = new CountDownLatch(1);
+        submitBlocking(RESTRICTED_INTERACTOR, started);
+        assertTrue(started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        // WHEN submitting another one
+        AtomicBoolean isRejected = new AtomicBoolean();
+        executor.submit(RESTRICTED_INTERACTOR, () -> {
+        }, () -> isRejected.set(true));
+
+        // THEN it is rejected, since the override allows neither concurrency nor queueing
+        assertTrue(isRejected.get());
+    }
+
+    @Test
+    @DisplayName("Limited tasks run on the calling thread and free their slot when failing")
+    void runLimitedOnCallingThread() {
+        // GIVEN an interactor allowing one interaction without queueing
+        Thread callingThread = Thread.currentThread();
+        AtomicReference<Thread> runningThread = new AtomicReference<>();
+
+        // WHEN running interactions that fail
+        for (int i = 0; i < 3; i++) {
+            assertThrows(IllegalStateException.class,
+                    () -> executor.runLimited(RESTRICTED_INTERACTOR, () -> {
+                        runningThread.set(Thread.currentThread());
+                        throw new IllegalStateException("Interaction failed");
+                    }, () -> {
+                        throw new AssertionError("Rejected although the bulkhead is free");
+                    }));
+        }
+
+        // THEN each of them ran on the calling thread, and was not rejected by its predecessors
+        assertEquals(callingThread, runningThread.get());
+    }
+
+    private void submitBlocking(String interactorName, CountDownLatch started) {
+        executor.submit(interactorName, () -> {
+            started.countDown();
+            try {
+                released.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, () -> {
+            throw new AssertionError("Rejected a blocking task of " + interactorName);
+        });
+    }
+}
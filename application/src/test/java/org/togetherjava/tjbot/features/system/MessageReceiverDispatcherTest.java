@@ -0,0 +1,170 @@
+package org.togetherjava.tjbot.features.system;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import org.togetherjava.tjbot.features.MessageReceiver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+final class MessageReceiverDispatcherTest {
+    private static final long CHANNEL_ID = 1;
+    /**
+     * Assigned to a different lane than {@link #CHANNEL_ID}.
+     */
+    private static final long OTHER_CHANNEL_ID = 2;
+    private static final long TIMEOUT_SECONDS = 10;
+
+    private final MessageReceiver firstReceiver = mock(MessageReceiver.class);
+    private final MessageReceiver secondReceiver = mock(MessageReceiver.class);
+
+    @Test
+    @DisplayName("Receivers see the events of a channel in order, one event after another")
+    void preservesOrderPerChannel() throws InterruptedException {
+        // GIVEN two receivers recording the events they are given
+        int events = 200;
+        MessageReceiverDispatcher dispatcher = new MessageReceiverDispatcher();
+        List<String> received = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch allReceived = new CountDownLatch(2 * events);
+
+        // WHEN dispatching many events of a channel
+        for (int event = 0; event < events; event++) {
+            int currentEvent = event;
+            dispatcher.dispatch(CHANNEL_ID, List.of(firstReceiver, secondReceiver), receiver -> {
+                received.add(nameOf(receiver) + currentEvent);
+                allReceived.countDown();
+            });
+        }
+
+        // THEN each event is given to both receivers, before the next event is processed
+        assertTrue(allReceived.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        List<String> expected = new ArrayList<>();
+        for (int event = 0; event < events; event++) {
+            expected.add("first" + event);
+            expected.add("second" + event);
+        }
+        assertEquals(expected, received);
+    }
+
+    @Test
+    @DisplayName("A failing receiver neither affects other receivers nor later events")
+    void isolatesFailures() throws InterruptedException {
+        // GIVEN a receiver that fails on every event
+        MessageReceiverDispatcher dispatcher = new MessageReceiverDispatcher();
+        List<String> received = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch allReceived = new CountDownLatch(2);
+        Consumer<MessageReceiver> receiverAction = receiver -> {
+            if (receiver == firstReceiver) {
+                throw new IllegalStateException("Receiver failed");
+            }
+            received.add(nameOf(receiver));
+            allReceived.countDown();
+        };
+
+        // WHEN dispatching two events to it and another receiver
+        dispatcher.dispatch(CHANNEL_ID, List.of(firstReceiver, secondReceiver), receiverAction);
+        dispatcher.dispatch(CHANNEL_ID, List.of(firstReceiver, secondReceiver), receiverAction);
+
+        // THEN the other receiver still gets both events
+        assertTrue(allReceived.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(List.of("second", "second"), received);
+    }
+
+    @Test
+    @DisplayName("A slow receiver delays its own channel, but neither other lanes nor its order")
+    void slowReceiverOnlyDelaysItsLane() throws InterruptedException {
+        // GIVEN a receiver that is stuck on the first event of a channel
+        MessageReceiverDispatcher dispatcher = new MessageReceiverDispatcher();
+        CountDownLatch released = new CountDownLatch(1);
+        List<Integer> channelEvents = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch channelDone = new CountDownLatch(2);
+        dispatcher.dispatch(CHANNEL_ID, List.of(firstReceiver), _ -> {
+            awaitUninterruptibly(released);
+            channelEvents.add(1);
+            channelDone.countDown();
+        });
+        dispatcher.dispatch(CHANNEL_ID, List.of(firstReceiver), _ -> {
+            channelEvents.add(2);
+            channelDone.countDown();
+        });
+
+        // WHEN dispatching an event of another channel
+        CountDownLatch otherChannelDone = new CountDownLatch(1);
+        dispatcher.dispatch(OTHER_CHANNEL_ID, List.of(firstReceiver),
+                _ -> otherChannelDone.countDown());
+
+        // THEN the other channel is not delayed, while the stuck channel waits for its receiver
+        try {
+            assertTrue(otherChannelDone.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            assertTrue(channelEvents.isEmpty());
+        } finally {
+            released.countDown();
+        }
+        assertTrue(channelDone.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(List.of(1, 2), channelEvents);
+        assertEquals(0, awaitQueueDepth(dispatcher));
+    }
+
+    @Test
+    @DisplayName("Dispatching blocks while the lane of the channel is full")
+    void blocksWhileLaneIsFull() throws Exception {
+        // GIVEN a lane of capacity one, with an event running and another one pending
+        MessageReceiverDispatcher dispatcher = new MessageReceiverDispatcher(1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch released = new CountDownLatch(1);
+        dispatcher.dispatch(CHANNEL_ID, List.of(firstReceiver), _ -> {
+            started.countDown();
+            awaitUninterruptibly(released);
+        });
+        assertTrue(started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        dispatcher.dispatch(CHANNEL_ID, List.of(firstReceiver), _ -> {
+        });
+
+        // WHEN dispatching yet another event
+        CountDownLatch lastReceived = new CountDownLatch(1);
+        CompletableFuture<Void> lastDispatch = CompletableFuture.runAsync(() -> dispatcher
+            .dispatch(CHANNEL_ID, List.of(firstReceiver), _ -> lastReceived.countDown()));
+
+        // THEN it waits for room in the lane, instead of queueing without limit
+        try {
+            assertFalse(lastReceived.await(200, TimeUnit.MILLISECONDS));
+            assertFalse(lastDispatch.isDone());
+        } finally {
+            released.countDown();
+        }
+        lastDispatch.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        assertTrue(lastReceived.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    }
+
+    private String nameOf(MessageReceiver receiver) {
+        return receiver == firstReceiver ? "first" : "second";
+    }
+
+    private static int awaitQueueDepth(MessageReceiverDispatcher dispatcher)
+            throws InterruptedException {
+        long deadlineNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+        while (dispatcher.getQueueDepth() != 0 && System.nanoTime() < deadlineNanos) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        return dispatcher.getQueueDepth();
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
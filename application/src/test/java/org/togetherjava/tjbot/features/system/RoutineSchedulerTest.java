@@ -0,0 +1,234 @@
+package org.togetherjava.tjbot.features.system;
+
+import net.dv8tion.jda.api.JDA;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import org.togetherjava.tjbot.features.Routine;
+import org.togetherjava.tjbot.features.analytics.Metrics;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+final class RoutineSchedulerTest {
+    private static final String ROUTINE_NAME = RecordingRoutine.class.getSimpleName();
+    private static final long TIMEOUT_SECONDS = 10;
+
+    private final LeaderElection leaderElection = mock(LeaderElection.class);
+    private final List<JDA> shards = List.of(mock(JDA.class));
+    /**
+     * Holds all executions of blocking routines until released.
+     */
+    private final CountDownLatch released = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        released.countDown();
+    }
+
+    @Test
+    @DisplayName("Scheduled executions are skipped while the routine is still running")
+    void skipsScheduledExecutionsWhileRunning() throws InterruptedException {
+        // GIVEN a running routine that is scheduled shortly after
+        RecordingRoutine routine =
+                new RecordingRoutine(new Routine.Schedule(Routine.ScheduleMode.FIXED_DELAY, 200,
+                        50, TimeUnit.MILLISECONDS, Duration.ZERO), Routine.Scope.SHARD,
+                        this::awaitRelease);
+        RoutineScheduler scheduler = createScheduler(routine);
+        scheduler.start(shards);
+        assertEquals(RoutineScheduler.TriggerResult.TRIGGERED, scheduler.triggerNow(ROUTINE_NAME));
+        routine.awaitExecutions(1);
+
+        // WHEN its scheduled executions come due
+        RoutineScheduler.RoutineStatus status =
+                awaitStatus(scheduler, candidate -> candidate.skippedExecutions() >= 1);
+
+        // THEN they are skipped instead of overlapping with the running one
+        assertTrue(status.isRunning());
+        assertEquals(1, routine.getExecutionCount());
+
+        // AND the schedule continues once the routine has finished
+        released.countDown();
+        routine.awaitExecutions(2);
+    }
+
+    @Test
+    @DisplayName("Fixed rate routines skip missed slots instead of catching up on them")
+    void skipsMissedSlotsAtFixedRate() throws InterruptedException {
+        // GIVEN a fixed rate routine whose first execution takes more than two periods
+        long periodMillis = 300;
+        long firstExecutionMillis = 700;
+        RecordingRoutine routine = new RecordingRoutine(
+                new Routine.Schedule(Routine.ScheduleMode.FIXED_RATE, 0, periodMillis,
+                        TimeUnit.MILLISECONDS, Duration.ZERO),
+                Routine.Scope.SHARD, new Runnable() {
+                    private boolean isFirstExecution = true;
+
+                    @Override
+                    public void run() {
+                        if (isFirstExecution) {
+                            isFirstExecution = false;
+                            sleepUninterruptibly(firstExecutionMillis);
+                        }
+                    }
+                });
+        RoutineScheduler scheduler = createScheduler(routine);
+
+        // WHEN it is scheduled
+        scheduler.start(shards);
+        routine.awaitExecutions(2);
+
+        // THEN the two missed slots are skipped, and the next execution keeps to the rate
+        assertEquals(2, scheduler.getStatuses().getFirst().skippedExecutions());
+        long millisBetweenExecutions =
+                TimeUnit.NANOSECONDS.toMillis(routine.getStartNanos(1) - routine.getStartNanos(0));
+        assertTrue(millisBetweenExecutions >= 3 * periodMillis - 100,
+                "The second execution started after only " + millisBetweenExecutions + "ms");
+    }
+
+    @Test
+    @DisplayName("Triggering a routine runs it, unless it is unknown, running or not started")
+    void triggersRoutines() throws InterruptedException {
+        // GIVEN a blocking routine whose first scheduled execution is far away
+        RecordingRoutine routine =
+                new RecordingRoutine(new Routine.Schedule(Routine.ScheduleMode.FIXED_DELAY, 1, 1,
+                        TimeUnit.HOURS, Duration.ZERO), Routine.Scope.SHARD, this::awaitRelease);
+        RoutineScheduler scheduler = createScheduler(routine);
+
+        // WHEN triggering routines, before and after starting
+        // THEN the results reflect the state of the scheduler and the routine
+        assertEquals(RoutineScheduler.TriggerResult.NOT_STARTED,
+                scheduler.triggerNow(ROUTINE_NAME));
+
+        scheduler.start(shards);
+        assertEquals(RoutineScheduler.TriggerResult.UNKNOWN_ROUTINE,
+                scheduler.triggerNow("UnknownRoutine"));
+        assertEquals(RoutineScheduler.TriggerResult.TRIGGERED, scheduler.triggerNow(ROUTINE_NAME));
+        routine.awaitExecutions(1);
+        assertEquals(RoutineScheduler.TriggerResult.ALREADY_RUNNING,
+                scheduler.triggerNow(ROUTINE_NAME));
+
+        released.countDown();
+        awaitStatus(scheduler, candidate -> !candidate.isRunning());
+        assertEquals(RoutineScheduler.TriggerResult.TRIGGERED, scheduler.triggerNow(ROUTINE_NAME));
+        routine.awaitExecutions(2);
+
+        // AND the schedule is not affected by manual executions
+        RoutineScheduler.RoutineStatus status = scheduler.getStatuses().getFirst();
+        assertTrue(status.nextExecutionAt().isPresent());
+        assertEquals(0, status.skippedExecutions());
+    }
+
+    @Test
+    @DisplayName("Singleton routines can only be triggered by the leader")
+    void triggersSingletonRoutinesOnlyOnLeader() throws InterruptedException {
+        // GIVEN a singleton routine in a process that is not the leader
+        RecordingRoutine routine =
+                new RecordingRoutine(new Routine.Schedule(Routine.ScheduleMode.FIXED_DELAY, 1, 1,
+                        TimeUnit.HOURS, Duration.ZERO), Routine.Scope.SINGLETON, () -> {
+                        });
+        RoutineScheduler scheduler = createScheduler(routine);
+        scheduler.start(shards);
+
+        // WHEN triggering it, before and after becoming the leader
+        // THEN it is only triggered once leading
+        assertEquals(RoutineScheduler.TriggerResult.NOT_LEADER,
+                scheduler.triggerNow(ROUTINE_NAME));
+        when(leaderElection.isLeader()).thenReturn(true);
+        assertEquals(RoutineScheduler.TriggerResult.TRIGGERED, scheduler.triggerNow(ROUTINE_NAME));
+        routine.awaitExecutions(1);
+    }
+
+    private RoutineScheduler createScheduler(Routine routine) {
+        return new RoutineScheduler(List.of(routine), leaderElection, mock(Metrics.class));
+    }
+
+    private static RoutineScheduler.RoutineStatus awaitStatus(RoutineScheduler scheduler,
+            Predicate<RoutineScheduler.RoutineStatus> condition) throws InterruptedException {
+        long deadlineNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+        while (System.nanoTime() < deadlineNanos) {
+            RoutineScheduler.RoutineStatus status = scheduler.getStatuses().getFirst();
+            if (condition.test(status)) {
+                return status;
+            }
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        throw new AssertionError("The routine did not reach the expected status in time");
+    }
+
+    private void awaitRelease() {
+        try {
+            released.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleepUninterruptibly(long millis) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Records when it is executed, and runs the given behavior on each execution.
+     */
+    private static final class RecordingRoutine implements Routine {
+        private final Schedule schedule;
+        private final Scope scope;
+        private final Runnable behavior;
+        private final List<Long> startNanos = Collections.synchronizedList(new ArrayList<>());
+
+        RecordingRoutine(Schedule schedule, Scope scope, Runnable behavior) {
+            this.schedule = schedule;
+            this.scope = scope;
+            this.behavior = behavior;
+        }
+
+        @Override
+        public Schedule createSchedule() {
+            return schedule;
+        }
+
+        @Override
+        public Scope getScope() {
+            return scope;
+        }
+
+        @Override
+        public void runRoutine(JDA jda) {
+            startNanos.add(System.nanoTime());
+            behavior.run();
+        }
+
+        int getExecutionCount() {
+            return startNanos.size();
+        }
+
+        long getStartNanos(int execution) {
+            return startNanos.get(execution);
+        }
+
+        void awaitExecutions(int executions) throws InterruptedException {
+            long deadlineNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+            while (getExecutionCount() < executions && System.nanoTime() < deadlineNanos) {
+                TimeUnit.MILLISECONDS.sleep(10);
+            }
+            assertTrue(getExecutionCount() >= executions,
+                    "The routine was executed only " + getExecutionCount() + " times");
+        }
+    }
+}
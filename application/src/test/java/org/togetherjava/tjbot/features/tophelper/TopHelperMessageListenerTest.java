@@ -13,6 +13,7 @@ import org.junit.jupiter.params.provider.MethodSource;
 import org.togetherjava.tjbot.config.Config;
 import org.togetherjava.tjbot.config.HelpSystemConfig;
 import org.togetherjava.tjbot.db.Database;
+import org.togetherjava.tjbot.features.utils.MessageAnalysis;
 import org.togetherjava.tjbot.jda.JdaTester;
 
 import java.util.List;
@@ -125,7 +126,7 @@ final class TopHelperMessageListenerTest {
         // GIVEN a string of invalid characters
 
         // WHEN counting the amount of valid characters
-        long validCharacterCount = TopHelpersMessageListener.countValidCharacters(invalidChars);
+        long validCharacterCount = MessageAnalysis.countValidCharacters(invalidChars);
 
         // THEN no characters are counted
         assertEquals(0, validCharacterCount,
@@ -139,7 +140,7 @@ final class TopHelperMessageListenerTest {
         // GIVEN a string of valid characters
 
         // WHEN counting the amount of valid characters
-        long validCharCount = TopHelpersMessageListener.countValidCharacters(validChars);
+        long validCharCount = MessageAnalysis.countValidCharacters(validChars);
 
         // THEN all characters are counted
         assertEquals(validChars.length(), validCharCount,
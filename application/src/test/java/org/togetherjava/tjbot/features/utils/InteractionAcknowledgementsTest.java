@@ -0,0 +1,47 @@
+package org.togetherjava.tjbot.features.utils;
+
+import net.dv8tion.jda.api.interactions.Interaction;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+final class InteractionAcknowledgementsTest {
+    @Test
+    void onlyTheFirstClaimSucceeds() {
+        Interaction interaction = mock(Interaction.class);
+        Interaction otherInteraction = mock(Interaction.class);
+
+        assertTrue(InteractionAcknowledgements.claim(interaction));
+        assertFalse(InteractionAcknowledgements.claim(interaction));
+        assertTrue(InteractionAcknowledgements.claim(otherInteraction));
+    }
+
+    @Test
+    void concurrentClaimsHaveASingleWinner() throws Exception {
+        Interaction interaction = mock(Interaction.class);
+        List<Callable<Boolean>> claims = IntStream.range(0, 16)
+            .<Callable<Boolean>>mapToObj(_ -> () -> InteractionAcknowledgements.claim(interaction))
+            .toList();
+
+        int winners = 0;
+        try (ExecutorService executor = Executors.newFixedThreadPool(claims.size())) {
+            for (Future<Boolean> claim : executor.invokeAll(claims)) {
+                if (claim.get()) {
+                    winners++;
+                }
+            }
+        }
+
+        assertEquals(1, winners);
+    }
+}
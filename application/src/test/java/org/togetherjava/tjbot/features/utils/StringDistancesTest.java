@@ -73,4 +73,42 @@ final class StringDistancesTest {
                     "Test '%s' failed".formatted(test.name));
         }
     }
+
+    @Test
+    void editDistanceAtMost() {
+        record TestCase(String name, int expectedDistance, String source, String destination,
+                int maxDistance) {
+        }
+        List<TestCase> tests = List.of(new TestCase("identity", 0, "-", "-", 0),
+                new TestCase("empty_identity", 0, "", "", 0),
+                new TestCase("within", 1, "hello", "hallo", 2),
+                new TestCase("at_max", 2, "hello", "hxllx", 2),
+                new TestCase("exceeds", 3, "hello", "world", 2),
+                new TestCase("length_exceeds", 3, "abc", "abcdefg", 2));
+
+        for (TestCase test : tests) {
+            assertEquals(test.expectedDistance,
+                    StringDistances.editDistanceAtMost(test.source, test.destination,
+                            test.maxDistance),
+                    "Test '%s' failed".formatted(test.name));
+        }
+    }
+
+    @Test
+    void hasSimilarWindow() {
+        record TestCase(String name, boolean expectedSimilar, String text, String pattern,
+                int maxDistance) {
+        }
+        List<TestCase> tests = List.of(new TestCase("contained", true, "discord.com", "discord", 0),
+                new TestCase("similar", true, "dlscord-gift.com", "discord", 1),
+                new TestCase("too_different", false, "docs.oracle.com", "discord", 2),
+                new TestCase("text_too_short", false, "disc", "discord", 3),
+                new TestCase("empty_pattern", true, "abc", "", 0));
+
+        for (TestCase test : tests) {
+            assertEquals(test.expectedSimilar,
+                    StringDistances.hasSimilarWindow(test.text, test.pattern, test.maxDistance),
+                    "Test '%s' failed".formatted(test.name));
+        }
+    }
 }
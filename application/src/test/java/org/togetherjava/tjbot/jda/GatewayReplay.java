@@ -0,0 +1,261 @@
+package org.togetherjava.tjbot.jda;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.channel.ChannelType;
+import net.dv8tion.jda.api.events.GenericEvent;
+import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+import net.dv8tion.jda.api.events.message.MessageUpdateEvent;
+import net.dv8tion.jda.api.hooks.EventListener;
+import net.dv8tion.jda.api.utils.FileUpload;
+import net.dv8tion.jda.api.utils.messages.MessageCreateBuilder;
+import net.dv8tion.jda.api.utils.messages.MessageCreateData;
+
+import org.togetherjava.tjbot.db.LatencyHistogram;
+import org.togetherjava.tjbot.features.MessageReceiver;
+import org.togetherjava.tjbot.features.system.GatewayEventRecorder;
+import org.togetherjava.tjbot.features.system.RecordedGatewayEvent;
+import org.togetherjava.tjbot.features.utils.MessageAnalysis;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Replays gateway events recorded by {@link GatewayEventRecorder} against event listeners, to
+ * measure how they cope with the shape of real traffic, offline.
+ * <p>
+ * Recorded events are turned into mocked JDA events by a {@link JdaTester}, whose mocks also stand
+ * in for the Discord API, so nothing is sent anywhere. Only created and updated messages are
+ * supported, they are replayed onto the text channel or thread channel of the tester, depending on
+ * the type of the channel they were recorded in. All other events are skipped and counted in the
+ * {@link Report}.
+ * <p>
+ * Recordings are scrubbed, so features reacting to what exactly was written, such as the scam
+ * detection, behave as for harmless messages. The shape of the messages, such as their length,
+ * code blocks and attachments, is preserved.
+ * <p>
+ * An example would be
+ *
+ * <pre>
+ * {@code
+ * GatewayReplay replay = new GatewayReplay(new JdaTester(),
+ *         RecordedGatewayEvent.readRecording(Path.of("gateway-events.jsonl")));
+ * GatewayReplay.Report report = replay.replay(Map.of("code", GatewayReplay
+ *     .asListener(new CodeMessageHandler(...), name -> name.startsWith("questions"))),
+ *         Double.POSITIVE_INFINITY);
+ * System.out.println(report.summarize());
+ * }
+ * </pre>
+ */
+public final class GatewayReplay {
+    private final JdaTester jdaTester;
+    private final List<RecordedGatewayEvent> recording;
+
+    /**
+     * Creates a new replay of the given recording.
+     *
+     * @param jdaTester the tester to create the mocked events with
+     * @param recording the recorded events, in the order they were received
+     */
+    public GatewayReplay(JdaTester jdaTester, List<RecordedGatewayEvent> recording) {
+        this.jdaTester = jdaTester;
+        this.recording = List.copyOf(recording);
+    }
+
+    /**
+     * Adapts the given message receiver to an event listener, as the core system would dispatch to
+     * it. Unlike the core system, all messages are given to the receiver, regardless of its channel
+     * pattern.
+     *
+     * @param receiver the receiver to adapt
+     * @param isHelpForumName tests whether a channel name is the name of a help forum, for the
+     *        analysis of the messages
+     * @return the listener calling the receiver for created and updated messages
+     */
+    public static EventListener asListener(MessageReceiver receiver,
+            Predicate<String> isHelpForumName) {
+        return event -> {
+            if (event instanceof MessageReceivedEvent receivedEvent) {
+                receiver.onMessageReceived(receivedEvent,
+                        new MessageAnalysis(receivedEvent.getMessage(), isHelpForumName));
+            } else if (event instanceof MessageUpdateEvent updateEvent) {
+                receiver.onMessageUpdated(updateEvent,
+                        new MessageAnalysis(updateEvent.getMessage(), isHelpForumName));
+            }
+        };
+    }
+
+    /**
+     * Replays the recording against the given listeners. Each event is given to all listeners, one
+     * after another, on the calling thread.
+     * <p>
+     * All mocked events are created upfront, so that creating them is not measured.
+     *
+     * @param nameToListener the listeners to replay to, by the name they are reported with
+     * @param speedup how much faster than recorded the events are replayed, e.g. {@code 2} for
+     *        twice as fast; {@link Double#POSITIVE_INFINITY} replays them as fast as possible
+     * @return the measurements of the replay
+     * @throws InterruptedException if interrupted while waiting for the next event
+     */
+    public Report replay(Map<String, ? extends EventListener> nameToListener, double speedup)
+            throws InterruptedException {
+        if (!(speedup > 0)) {
+            throw new IllegalArgumentException("speedup must be positive");
+        }
+
+        Map<String, Integer> skippedTypeToCount = new TreeMap<>();
+        List<TimedEvent> events = new ArrayList<>();
+        for (RecordedGatewayEvent recordedEvent : recording) {
+            Optional<GenericEvent> event = toEvent(recordedEvent);
+            if (event.isPresent()) {
+                events.add(new TimedEvent(recordedEvent.recordedAtMillis(), event.orElseThrow()));
+            } else {
+                skippedTypeToCount.merge(recordedEvent.type(), 1, Integer::sum);
+            }
+        }
+
+        Map<String, LatencyHistogram> nameToLatencies = new LinkedHashMap<>();
+        Map<String, Integer> nameToFailures = new LinkedHashMap<>();
+        nameToListener.keySet().forEach(name -> {
+            nameToLatencies.put(name, new LatencyHistogram());
+            nameToFailures.put(name, 0);
+        });
+
+        long allocatedBytesBefore = getAllocatedBytes();
+        long startNanos = System.nanoTime();
+        for (TimedEvent event : events) {
+            if (Double.isFinite(speedup)) {
+                long offsetMillis = event.recordedAtMillis - events.getFirst().recordedAtMillis;
+                long dueAtNanos = startNanos
+                        + (long) (TimeUnit.MILLISECONDS.toNanos(offsetMillis) / speedup);
+                TimeUnit.NANOSECONDS.sleep(dueAtNanos - System.nanoTime());
+            }
+
+            nameToListener.forEach((name, listener) -> {
+                long listenerStartNanos = System.nanoTime();
+                try {
+                    listener.onEvent(event.event);
+                } catch (RuntimeException _) {
+                    nameToFailures.merge(name, 1, Integer::sum);
+                }
+                nameToLatencies.get(name).record(System.nanoTime() - listenerStartNanos);
+            });
+        }
+        Duration duration = Duration.ofNanos(System.nanoTime() - startNanos);
+        long allocatedBytes = getAllocatedBytes() - allocatedBytesBefore;
+
+        return new Report(events.size(), skippedTypeToCount, duration, nameToLatencies,
+                nameToFailures, allocatedBytes);
+    }
+
+    private Optional<GenericEvent> toEvent(RecordedGatewayEvent recordedEvent) {
+        return switch (recordedEvent.type()) {
+            case "MESSAGE_CREATE" -> toMessage(recordedEvent).map(message -> jdaTester
+                .createMessageReceiveEvent(message,
+                        jdaTester.clientMessageToReceivedMessageMock(message).getAttachments(),
+                        toChannelType(recordedEvent)));
+            case "MESSAGE_UPDATE" -> toMessage(recordedEvent).map(message -> {
+                Message updatedMessage = jdaTester
+                    .createMessageReceiveEvent(message, List.of(), toChannelType(recordedEvent))
+                    .getMessage();
+                return new MessageUpdateEvent(jdaTester.getJdaMock(), 0, updatedMessage);
+            });
+            default -> Optional.empty();
+        };
+    }
+
+    private static Optional<MessageCreateData> toMessage(RecordedGatewayEvent recordedEvent) {
+        JsonNode data = recordedEvent.data();
+        List<FileUpload> attachments = new ArrayList<>();
+        data.path("attachments")
+            .forEach(attachment -> attachments.add(FileUpload.fromData(new byte[0],
+                    attachment.path("filename").asText("attachment"))));
+
+        MessageCreateBuilder message = new MessageCreateBuilder()
+            .setContent(data.path("content").asText(""))
+            .setFiles(attachments);
+        // Messages consisting of embeds or stickers only, and partial updates, are not supported
+        return message.isEmpty() ? Optional.empty() : Optional.of(message.build());
+    }
+
+    private static ChannelType toChannelType(RecordedGatewayEvent recordedEvent) {
+        boolean isThread = recordedEvent.channelType() != null && ChannelType
+            .valueOf(recordedEvent.channelType()) == ChannelType.GUILD_PUBLIC_THREAD;
+        return isThread ? ChannelType.GUILD_PUBLIC_THREAD : ChannelType.TEXT;
+    }
+
+    private static long getAllocatedBytes() {
+        if (ManagementFactory
+            .getThreadMXBean() instanceof com.sun.management.ThreadMXBean threadBean) {
+            return threadBean.getCurrentThreadAllocatedBytes();
+        }
+        return 0;
+    }
+
+    private record TimedEvent(long recordedAtMillis, GenericEvent event) {
+    }
+
+    /**
+     * The measurements of a replay.
+     *
+     * @param replayedEvents the amount of replayed events
+     * @param skippedTypeToCount the amount of skipped events, by their type
+     * @param duration how long the replay took, including the waits between events
+     * @param nameToLatencies how long each listener took per event, by the name of the listener
+     * @param nameToFailures how many events each listener failed on, by the name of the listener
+     * @param allocatedBytes how many bytes were allocated by the replaying thread, including the
+     *        allocations of the mocks; 0 if the JVM does not support measuring it
+     */
+    public record Report(int replayedEvents, Map<String, Integer> skippedTypeToCount,
+            Duration duration, Map<String, LatencyHistogram> nameToLatencies,
+            Map<String, Integer> nameToFailures, long allocatedBytes) {
+        /**
+         * Gets the amount of replayed events per second.
+         *
+         * @return the throughput of the replay
+         */
+        public double getEventsPerSecond() {
+            return replayedEvents / Math.max(duration.toNanos() / 1e9, 1e-9);
+        }
+
+        /**
+         * Gets the amount of bytes allocated per replayed event.
+         *
+         * @return the allocations per event
+         */
+        public double getAllocatedBytesPerEvent() {
+            return replayedEvents == 0 ? 0 : (double) allocatedBytes / replayedEvents;
+        }
+
+        /**
+         * Summarizes the measurements in a human-readable form, one line per listener.
+         *
+         * @return the summary
+         */
+        public String summarize() {
+            String listeners = nameToLatencies.entrySet()
+                .stream()
+                .map(entry -> "%s: mean %dµs, p99 %dµs, max %dµs, %d failures".formatted(
+                        entry.getKey(), entry.getValue().getMean().toNanos() / 1_000,
+                        entry.getValue().getPercentile(0.99).toNanos() / 1_000,
+                        entry.getValue().getMax().toNanos() / 1_000,
+                        nameToFailures.get(entry.getKey())))
+                .collect(Collectors.joining("\n"));
+
+            return """
+                    Replayed %d events in %dms (%.0f events/s, %.0f bytes allocated per event)
+                    Skipped %s
+                    %s""".formatted(replayedEvents, duration.toMillis(), getEventsPerSecond(),
+                    getAllocatedBytesPerEvent(), skippedTypeToCount, listeners);
+        }
+    }
+}
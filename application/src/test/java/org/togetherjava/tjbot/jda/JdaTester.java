@@ -160,6 +160,7 @@ public final class JdaTester {
         // Maybe offer a builder for multiple users and channels and what not
         jda = mock(JDAImpl.class);
         when(jda.getCacheFlags()).thenReturn(EnumSet.noneOf(CacheFlag.class));
+        when(jda.getShardInfo()).thenReturn(JDA.ShardInfo.SINGLE);
 
         SelfUserImpl selfUser = spy(new SelfUserImpl(SELF_USER_ID, jda));
         selfUser.setName("Self Tester");
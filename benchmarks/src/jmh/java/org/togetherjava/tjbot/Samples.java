@@ -0,0 +1,84 @@
+package org.togetherjava.tjbot;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Realistic inputs for the benchmarks, modeled after typical messages of the server.
+ */
+public final class Samples {
+    /**
+     * A typical unformatted Java snippet, as posted in help threads.
+     */
+    public static final String JAVA_CODE = """
+            import java.util.*;
+            public class Main{
+            public static void main(String[] args){Scanner scanner=new Scanner(System.in);
+            List<Integer> numbers=new ArrayList<>();
+            while(scanner.hasNextInt()){int n=scanner.nextInt();if(n<0){break;}numbers.add(n);}
+            int sum=0;for(int number:numbers){sum+=number;}
+            System.out.println("Sum: "+sum+", average: "+(double)sum/numbers.size());
+            Map<String,List<Integer>> groups=new HashMap<>();
+            for(int number:numbers){
+            groups.computeIfAbsent(number%2==0?"even":"odd",k->new ArrayList<>()).add(number);}
+            groups.forEach((key,value)->System.out.println(key+" -> "+value));}
+            private static int fib(int n){return n<2?n:fib(n-1)+fib(n-2);}
+            }""";
+
+    /**
+     * Messages by their kind, to be used as JMH parameter values.
+     */
+    public static final Map<String, String> MESSAGES = Map.of("chat",
+            "hey, does anyone know why my loop never terminates? I tried adding a break but it"
+                    + " still runs forever, even after the input is empty",
+            "code",
+            "my code throws a NullPointerException, what am I doing wrong?\n```java\n"
+                    + JAVA_CODE + "\n```\nthanks in advance!",
+            "links",
+            "see https://docs.oracle.com/en/java/javase/21/docs/api/java.base/java/util/List.html"
+                    + " and <https://stackoverflow.com/questions/218384>"
+                    + " or www.baeldung.com/java-streams",
+            "scam",
+            "@everyone Free Discord Nitro for 3 months, just login with your steam account here:"
+                    + " https://dlscord-gift.com/nitro and claim it before it expires!");
+
+    /**
+     * Real scam messages and real false positives of the scam detection, taken from
+     * {@code ScamDetectorTest}.
+     */
+    public static final List<String> SCAM_CORPUS = List.of(
+            "🤩bro steam gived nitro - https://nitro-ds.online/LfgUfMzqYyx12",
+            "@everyone, Free subscription for 3 months DISCORD NITRO"
+                    + " - https://e-giftpremium.com/x12",
+            """
+                    @everyone
+                    Discord Nitro distribution from STEAM.
+                    Get 3 month of Discord Nitro. Offer ends January 28, 2022 at 11am EDT. \
+                    Customize your profile, share your screen in HD, update your emoji and more!
+                    https://dlscrod-game.ru/promotionx12""",
+            "@everyone\nGifts for the new year, nitro for 3 months:"
+                    + " https://discofdapp.com/newyearsx12",
+            "airdrop discord nitro by steam, take it https://bit.ly/30RzoKx",
+            "@everyone steam gift 50$ - steamcommunity.com/gift-card/pay/51",
+            "catch 25$ https://u.to/ExatIO",
+            "https://learn.microsoft.com/en-us/dotnet/csharp/fundamentals/types"
+                    + "/anonymous-types",
+            "And according to quick google search. Median wage is about $23k usd",
+            """
+                    $ docker image prune -a
+                    WARNING! This will remove all images without at least one container \
+                    associated to them.
+                    Are you sure you want to continue? [y/N] y
+                    ...
+                    Total reclaimed space: 37.73GB""",
+            """
+                    The average wage here (not the median, which is lower) gives you a take-home \
+                    of about $68k in New Zealand dollars.
+                    The median house-price in my city (which is not at all the most expensive \
+                    city) is ~$740k.""",
+            "https://thehackernews.com/2025/07/alert-exposed-jdwp-interfaces-lead-to.html");
+
+    private Samples() {
+        throw new UnsupportedOperationException("Utility class, construction not supported");
+    }
+}
@@ -0,0 +1,74 @@
+package org.togetherjava.tjbot.features.componentids;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks serializing component IDs for the database, done for every created and every clicked
+ * component that is not cached. Also covers the legacy CSV format, for comparison.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ComponentIdCodecBenchmark {
+    private final ComponentId componentId =
+            new ComponentId("help-thread-created", List.of("1234567890123456789", "close"));
+    private final String serializedComponentId = ComponentIdCodec.encode(componentId);
+    private final String legacySerializedComponentId = serializeLegacy(componentId);
+
+    /**
+     * Serializes a typical component ID.
+     *
+     * @return the serialized component ID
+     */
+    @Benchmark
+    public String serialize() {
+        return ComponentIdCodec.encode(componentId);
+    }
+
+    /**
+     * Deserializes a typical component ID.
+     *
+     * @return the deserialized component ID
+     */
+    @Benchmark
+    public ComponentId deserialize() {
+        return ComponentIdCodec.decode(serializedComponentId);
+    }
+
+    /**
+     * Deserializes a typical component ID stored in the legacy CSV format, not migrated yet.
+     *
+     * @return the deserialized component ID
+     */
+    @Benchmark
+    public ComponentId deserializeLegacy() {
+        return ComponentIdCodec.decode(legacySerializedComponentId);
+    }
+
+    private static String serializeLegacy(ComponentId componentId) {
+        CsvMapper csv = new CsvMapper();
+        try {
+            return csv.writerFor(ComponentId.class)
+                .with(csv.schemaFor(ComponentId.class))
+                .writeValueAsString(componentId);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
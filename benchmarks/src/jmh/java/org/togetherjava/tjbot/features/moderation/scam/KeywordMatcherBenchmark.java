@@ -0,0 +1,109 @@
+package org.togetherjava.tjbot.features.moderation.scam;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.togetherjava.tjbot.Samples;
+import org.togetherjava.tjbot.config.Config;
+import org.togetherjava.tjbot.features.utils.MessageAnalysis;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks matching the tokens of the scam corpus against the suspicious keywords, comparing
+ * {@link KeywordMatcher} to checking each keyword one after another, as done before.
+ * <p>
+ * The keywords are configured as in {@code config.json.template}, whose path is given by the
+ * {@code tjbot.config} system property.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KeywordMatcherBenchmark {
+    private Set<String> keywords;
+    private KeywordMatcher matcher;
+    private List<String> tokens;
+
+    /**
+     * Compiles the keywords and tokenizes the corpus.
+     *
+     * @throws IOException if the config could not be loaded
+     */
+    @Setup
+    public void setUp() throws IOException {
+        Config config = Config.load(Path.of(System.getProperty("tjbot.config")));
+        keywords = config.getScamBlocker().getSuspiciousKeywords();
+        matcher = new KeywordMatcher(keywords);
+        tokens = Samples.SCAM_CORPUS.stream()
+            .map(MessageAnalysis::tokenize)
+            .flatMap(List::stream)
+            .filter(token -> !token.isBlank())
+            .toList();
+    }
+
+    /**
+     * Matches all tokens with the automaton.
+     *
+     * @return the amount of matching tokens
+     */
+    @Benchmark
+    public int automaton() {
+        int matches = 0;
+        for (String token : tokens) {
+            if (matcher.matches(token)) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Matches all tokens by checking each keyword one after another.
+     *
+     * @return the amount of matching tokens
+     */
+    @Benchmark
+    public int eachKeyword() {
+        int matches = 0;
+        for (String token : tokens) {
+            if (matchesAnyKeyword(token)) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    private boolean matchesAnyKeyword(String token) {
+        String preparedToken = token.toLowerCase(Locale.US);
+        return keywords.stream()
+            .map(keyword -> keyword.toLowerCase(Locale.US))
+            .anyMatch(keyword -> {
+                if (keyword.startsWith("^") && keyword.endsWith("$") && keyword.length() >= 2) {
+                    return preparedToken.equals(keyword.substring(1, keyword.length() - 1));
+                }
+                if (keyword.startsWith("^")) {
+                    return preparedToken.startsWith(keyword.substring(1));
+                }
+                if (keyword.endsWith("$")) {
+                    return preparedToken.endsWith(keyword.substring(0, keyword.length() - 1));
+                }
+                return preparedToken.contains(keyword);
+            });
+    }
+}
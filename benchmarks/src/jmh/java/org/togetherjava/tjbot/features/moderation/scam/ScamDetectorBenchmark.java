@@ -0,0 +1,62 @@
+package org.togetherjava.tjbot.features.moderation.scam;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.togetherjava.tjbot.Samples;
+import org.togetherjava.tjbot.config.Config;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the scam detection, which runs for every message.
+ * <p>
+ * The detector is configured as in {@code config.json.template}, whose path is given by the
+ * {@code tjbot.config} system property.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScamDetectorBenchmark {
+    @Param({"chat", "code", "links", "scam"})
+    private String messageKind;
+
+    private ScamDetector scamDetector;
+    private String message;
+
+    /**
+     * Creates the detector.
+     *
+     * @throws IOException if the config could not be loaded
+     */
+    @Setup
+    public void setUp() throws IOException {
+        Config config = Config.load(Path.of(System.getProperty("tjbot.config")));
+        scamDetector = new ScamDetector(config);
+        message = Samples.MESSAGES.get(messageKind);
+    }
+
+    /**
+     * Classifies a message.
+     *
+     * @return whether the message is scam
+     */
+    @Benchmark
+    public boolean isScam() {
+        return scamDetector.isScam(message);
+    }
+}
@@ -0,0 +1,80 @@
+package org.togetherjava.tjbot.features.system;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+/**
+ * Benchmarks dispatching message events to the message receivers subscribed to their channel, as
+ * done by {@link BotCore} for every message. The lookup in the {@link ChannelRoutingTable} is
+ * compared against matching the channel name against the pattern of each receiver.
+ * <p>
+ * The receivers mirror the message receivers registered in
+ * {@link org.togetherjava.tjbot.features.Features}, with the channel patterns of
+ * {@code config.json.template}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@OperationsPerInvocation(ChannelRoutingBenchmark.CHANNELS)
+public class ChannelRoutingBenchmark {
+    static final int CHANNELS = 200;
+    private static final List<String> RECEIVER_PATTERNS = List.of(".*", ".*", ".*", ".*", ".*",
+            ".*", ".*", ".*", ".*", "memes", "tj-suggestions",
+            "server-suggestions|tjbot-discussion|modernjava-discussion", "questions");
+
+    private final List<Pattern> patterns =
+            RECEIVER_PATTERNS.stream().map(Pattern::compile).toList();
+    private final List<Integer> receivers =
+            IntStream.range(0, RECEIVER_PATTERNS.size()).boxed().toList();
+    private final ChannelRoutingTable<Integer> routingTable = new ChannelRoutingTable<>(receivers,
+            receiver -> Pattern.compile(RECEIVER_PATTERNS.get(receiver)));
+    private final List<String> channelNames = IntStream.range(0, CHANNELS)
+        .mapToObj(i -> i % 10 == 0 ? "memes" : "channel-" + i)
+        .toList();
+
+    /**
+     * Dispatches one event to each channel by matching all patterns.
+     *
+     * @param blackhole consumes the receivers
+     */
+    @Benchmark
+    public void patternMatching(Blackhole blackhole) {
+        for (String channelName : channelNames) {
+            for (int i = 0; i < patterns.size(); i++) {
+                if (patterns.get(i).matcher(channelName).matches()) {
+                    blackhole.consume(receivers.get(i));
+                }
+            }
+        }
+    }
+
+    /**
+     * Dispatches one event to each channel by a lookup in the routing table.
+     *
+     * @param blackhole consumes the receivers
+     */
+    @Benchmark
+    public void routingTable(Blackhole blackhole) {
+        for (int channelId = 0; channelId < CHANNELS; channelId++) {
+            routingTable.getReceiversSubscribedTo(channelId, channelNames.get(channelId))
+                .forEach(blackhole::consume);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package org.togetherjava.tjbot.features.utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.togetherjava.tjbot.Samples;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks detecting links in messages.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LinkDetectionBenchmark {
+    @Param({"chat", "links"})
+    private String messageKind;
+
+    private String message;
+
+    /**
+     * Picks the message.
+     */
+    @Setup
+    public void setUp() {
+        message = Samples.MESSAGES.get(messageKind);
+    }
+
+    /**
+     * Extracts the links of a message.
+     *
+     * @return the links
+     */
+    @Benchmark
+    public List<String> extractLinks() {
+        return LinkDetection.extractLinks(message);
+    }
+}
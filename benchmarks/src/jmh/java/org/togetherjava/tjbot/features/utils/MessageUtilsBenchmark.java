@@ -0,0 +1,52 @@
+package org.togetherjava.tjbot.features.utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.togetherjava.tjbot.Samples;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks extracting code from messages, which runs for every message.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageUtilsBenchmark {
+    @Param({"chat", "code"})
+    private String messageKind;
+
+    private String message;
+
+    /**
+     * Picks the message.
+     */
+    @Setup
+    public void setUp() {
+        message = Samples.MESSAGES.get(messageKind);
+    }
+
+    /**
+     * Extracts the code of a message.
+     *
+     * @return the code, if any
+     */
+    @Benchmark
+    public Optional<CodeFence> extractCode() {
+        return MessageUtils.extractCode(message);
+    }
+}
@@ -0,0 +1,77 @@
+package org.togetherjava.tjbot.features.utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Benchmarks the string distances, as used by the autocompletion of tags and other commands.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StringDistancesBenchmark {
+    private static final List<String> WORDS = List.of("java", "stream", "optional", "record",
+            "generics", "lambda", "interface", "exception", "collections", "concurrency");
+
+    /**
+     * Roughly as many tag names as there are on the server.
+     */
+    private final List<String> candidates = IntStream.range(0, 200)
+        .mapToObj(i -> WORDS.get(i % WORDS.size()) + "-" + WORDS.get(i * 7 % WORDS.size()) + i)
+        .toList();
+
+    /**
+     * Computes the distance between two words.
+     *
+     * @return the distance
+     */
+    @Benchmark
+    public int editDistance() {
+        return StringDistances.editDistance("concurency", "concurrency");
+    }
+
+    /**
+     * Checks whether two dissimilar words are within a small distance, which gives up early.
+     *
+     * @return the bounded distance
+     */
+    @Benchmark
+    public int editDistanceAtMost() {
+        return StringDistances.editDistanceAtMost("concurrency", "collections", 2);
+    }
+
+    /**
+     * Checks whether a host is similar to a suspicious keyword, as done by the scam detection.
+     *
+     * @return whether the host is similar
+     */
+    @Benchmark
+    public boolean hasSimilarWindow() {
+        return StringDistances.hasSimilarWindow("docs.oracle.com", "discord", 2);
+    }
+
+    /**
+     * Autocompletes a partially typed tag name.
+     *
+     * @return the best matches
+     */
+    @Benchmark
+    public Collection<String> closeMatches() {
+        return StringDistances.closeMatches("strem-lam", candidates, 25);
+    }
+}
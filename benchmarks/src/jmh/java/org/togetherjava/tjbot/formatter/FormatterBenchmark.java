@@ -0,0 +1,38 @@
+package org.togetherjava.tjbot.formatter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.togetherjava.tjbot.Samples;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks formatting code, as done for messages with code blocks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FormatterBenchmark {
+    private final Formatter formatter = new Formatter();
+
+    /**
+     * Formats a typical snippet.
+     *
+     * @return the formatted code
+     */
+    @Benchmark
+    public String format() {
+        return formatter.format(Samples.JAVA_CODE);
+    }
+}
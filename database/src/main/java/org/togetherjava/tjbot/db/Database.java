@@ -6,13 +6,22 @@ import org.jooq.SQLDialect;
 import org.jooq.Table;
 import org.jooq.exception.DataAccessException;
 import org.jooq.impl.DSL;
+import org.jooq.impl.DefaultConfiguration;
+import org.jooq.impl.DefaultExecuteListenerProvider;
+import org.jooq.impl.DefaultTransactionListenerProvider;
 import org.sqlite.SQLiteConfig;
 import org.sqlite.SQLiteDataSource;
 
 import org.togetherjava.tjbot.db.util.CheckedConsumer;
 import org.togetherjava.tjbot.db.util.CheckedFunction;
 
+import javax.annotation.Nullable;
+
+import java.sql.Connection;
 import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -22,29 +31,61 @@ import java.util.concurrent.locks.ReentrantLock;
  * Create an instance using {@link #Database(String)} and prefer to re-use it. The underlying
  * connections are handled automatically by the system.
  * <p>
+ * Writes are serialized on a single connection, while reads are served by a bounded pool of
+ * read-only connections (see {@link DatabaseConfig#readPoolSize()}). Since the database runs in WAL
+ * mode, readers see the last committed state and scale independently of the writer.
+ * <p>
+ * Writes that do not have to be visible immediately should prefer {@link #writeAsync}, which
+ * commits many of them in a single transaction instead of paying a full commit each.
+ * <p>
  * Instances of this class are thread-safe and can be used to concurrently write to the database.
  */
-public final class Database {
+public final class Database implements AutoCloseable {
 
     static {
         System.setProperty("org.jooq.no-logo", "true");
         System.setProperty("org.jooq.no-tips", "true");
     }
 
+    private static final String MEMORY_DATABASE_URL = "jdbc:sqlite:";
+
+    private final Connection writeConnection;
     private final DSLContext dslContext;
+    /**
+     * Pool serving read-only access, {@code null} if reads share the writer connection instead.
+     */
+    @Nullable
+    private final ReadConnectionPool readPool;
     /**
      * Lock used to implement thread-safety across this class. Any database modifying method must
      * use this lock.
      */
     private final Lock writeLock = new ReentrantLock();
+    private final GroupCommitWriter groupCommitWriter;
+    private final QueryStatistics queryStatistics = new QueryStatistics();
+    private final InstrumentationListener instrumentation;
 
     /**
-     * Creates an instance of a new database.
+     * Creates an instance of a new database with the default configuration.
      *
      * @param jdbcUrl the url to the database in the format expected by JDBC
      * @throws SQLException if no connection could be established
      */
     public Database(String jdbcUrl) throws SQLException {
+        this(jdbcUrl, DatabaseConfig.defaults());
+    }
+
+    /**
+     * Creates an instance of a new database.
+     * <p>
+     * In-memory databases can not share their content across connections and hence always route
+     * reads through the writer connection, regardless of the given configuration.
+     *
+     * @param jdbcUrl the url to the database in the format expected by JDBC
+     * @param config the configuration to use, e.g. for the read connection pool
+     * @throws SQLException if no connection could be established
+     */
+    public Database(String jdbcUrl, DatabaseConfig config) throws SQLException {
         SQLiteConfig sqliteConfig = new SQLiteConfig();
         sqliteConfig.enforceForeignKeys(true);
         // In WAL mode only concurrent writes pose a problem, so we synchronize those
@@ -57,7 +98,32 @@ public final class Database {
                 Flyway.configure().dataSource(dataSource).locations("classpath:/db/").load();
         flyway.migrate();
 
-        dslContext = DSL.using(dataSource.getConnection(), SQLDialect.SQLITE);
+        instrumentation = new InstrumentationListener(queryStatistics,
+                TimeUnit.MILLISECONDS.toNanos(config.slowQueryThresholdMillis()));
+
+        writeConnection = dataSource.getConnection();
+        dslContext = createContext(writeConnection);
+
+        groupCommitWriter = new GroupCommitWriter(dslContext, writeLock, queryStatistics,
+                config.writeQueueCapacity(), config.maxWriteBatchSize(),
+                Duration.ofMillis(config.maxWriteLingerMillis()));
+
+        // Opened only after the writer, so that the database file and its WAL exist already
+        readPool = config.readPoolSize() == 0 || isMemoryDatabase(jdbcUrl) ? null
+                : new ReadConnectionPool(jdbcUrl, config.readPoolSize(), config.readPragmas(),
+                        this::createContext);
+    }
+
+    private DSLContext createContext(Connection connection) {
+        return DSL.using(new DefaultConfiguration().set(connection)
+            .set(SQLDialect.SQLITE)
+            .set(new DefaultExecuteListenerProvider(instrumentation))
+            .set(new DefaultTransactionListenerProvider(instrumentation)));
+    }
+
+    private static boolean isMemoryDatabase(String jdbcUrl) {
+        return MEMORY_DATABASE_URL.equals(jdbcUrl) || jdbcUrl.contains(":memory:")
+                || jdbcUrl.contains("mode=memory");
     }
 
     /**
@@ -68,7 +134,7 @@ public final class Database {
      */
     public static Database createMemoryDatabase(Table<?>... tables) {
         try {
-            Database database = new Database("jdbc:sqlite:");
+            Database database = new Database(MEMORY_DATABASE_URL);
             database.write(context -> context.ddl(tables).executeBatch());
             return database;
         } catch (SQLException e) {
@@ -86,8 +152,22 @@ public final class Database {
      */
     public <T> T read(
             CheckedFunction<? super DSLContext, T, ? extends DataAccessException> action) {
+        if (readPool == null) {
+            return readOn(getDslContext(), action);
+        }
+
+        DSLContext readContext = readPool.acquire();
         try {
-            return action.accept(getDslContext());
+            return readOn(readContext, action);
+        } finally {
+            readPool.release(readContext);
+        }
+    }
+
+    private static <T> T readOn(DSLContext context,
+            CheckedFunction<? super DSLContext, T, ? extends DataAccessException> action) {
+        try {
+            return action.accept(context);
         } catch (DataAccessException e) {
             throw new DatabaseException(e);
         }
@@ -118,7 +198,7 @@ public final class Database {
      */
     public <T> T writeAndProvide(
             CheckedFunction<? super DSLContext, T, ? extends DataAccessException> action) {
-        writeLock.lock();
+        lockForWriting();
         try {
             return action.accept(getDslContext());
         } catch (DataAccessException e) {
@@ -142,6 +222,41 @@ public final class Database {
         });
     }
 
+    /**
+     * Queues the given write to be committed asynchronously, together with other queued writes in
+     * a single transaction.
+     * <p>
+     * The write runs within its own savepoint, if it fails, only its own changes are rolled back.
+     * Callers that need durability, e.g. before replying to a user, can wait on the returned
+     * future. Blocks if too many writes are queued already.
+     *
+     * @param action the action to apply to the DSL context, e.g. a query
+     * @param <T> the type returned by the given action
+     * @return future that completes with the result of the action once it has been committed, or
+     *         exceptionally with a {@link DatabaseException} if an error occurred
+     */
+    public <T> CompletableFuture<T> writeAsyncAndProvide(
+            CheckedFunction<? super DSLContext, T, ? extends DataAccessException> action) {
+        return groupCommitWriter.submit(action);
+    }
+
+    /**
+     * Queues the given write to be committed asynchronously, together with other queued writes in
+     * a single transaction. See {@link #writeAsyncAndProvide(CheckedFunction)} for details.
+     *
+     * @param action the action to apply to the DSL context, e.g. a query
+     * @return future that completes once the write has been committed, or exceptionally with a
+     *         {@link DatabaseException} if an error occurred
+     */
+    public CompletableFuture<Void> writeAsync(
+            CheckedConsumer<? super DSLContext, ? extends DataAccessException> action) {
+        return writeAsyncAndProvide(context -> {
+            action.accept(context);
+            // noinspection ReturnOfNull
+            return null;
+        });
+    }
+
     /**
      * Acquires a transaction that can only read from the database.
      *
@@ -153,15 +268,16 @@ public final class Database {
      */
     public <T> T readTransaction(
             CheckedFunction<? super DSLContext, T, DataAccessException> handler) {
-        var holder = new ResultHolder<T>();
+        if (readPool == null) {
+            return transactionOn(getDslContext(), handler);
+        }
 
+        DSLContext readContext = readPool.acquire();
         try {
-            getDslContext().transaction(config -> holder.result = handler.accept(config.dsl()));
-        } catch (DataAccessException e) {
-            throw new DatabaseException(e);
+            return transactionOn(readContext, handler);
+        } finally {
+            readPool.release(readContext);
         }
-
-        return holder.result;
     }
 
     /**
@@ -192,18 +308,12 @@ public final class Database {
      */
     public <T> T writeTransactionAndProvide(
             CheckedFunction<? super DSLContext, T, DataAccessException> handler) {
-        var holder = new ResultHolder<T>();
-
-        writeLock.lock();
+        lockForWriting();
         try {
-            getDslContext().transaction(config -> holder.result = handler.accept(config.dsl()));
-        } catch (DataAccessException e) {
-            throw new DatabaseException(e);
+            return transactionOn(getDslContext(), handler);
         } finally {
             writeLock.unlock();
         }
-
-        return holder.result;
     }
 
     /**
@@ -222,10 +332,62 @@ public final class Database {
         });
     }
 
+    private static <T> T transactionOn(DSLContext context,
+            CheckedFunction<? super DSLContext, T, DataAccessException> handler) {
+        var holder = new ResultHolder<T>();
+
+        try {
+            context.transaction(config -> holder.result = handler.accept(config.dsl()));
+        } catch (DataAccessException e) {
+            throw new DatabaseException(e);
+        }
+
+        return holder.result;
+    }
+
+    private void lockForWriting() {
+        long lockRequestedAt = System.nanoTime();
+        writeLock.lock();
+        queryStatistics.recordWriteLockWait(System.nanoTime() - lockRequestedAt);
+    }
+
+    /**
+     * Gets statistics about all queries executed on this database so far, such as their latencies
+     * and how long writes had to wait for each other.
+     *
+     * @return the query statistics of this database
+     */
+    public QueryStatistics getQueryStatistics() {
+        return queryStatistics;
+    }
+
     private DSLContext getDslContext() {
         return dslContext;
     }
 
+    /**
+     * Commits all queued asynchronous writes and closes all connections held by this database.
+     * The instance must not be used afterwards.
+     *
+     * @throws DatabaseException if a connection could not be closed properly
+     */
+    @Override
+    public void close() {
+        groupCommitWriter.close();
+
+        writeLock.lock();
+        try {
+            if (readPool != null) {
+                readPool.close();
+            }
+            writeConnection.close();
+        } catch (SQLException e) {
+            throw new DatabaseException(e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
     /**
      * Utility classed used to wrap a result, for example to bypass <i>effectively final</i>
      * restrictions.
@@ -0,0 +1,79 @@
+package org.togetherjava.tjbot.db;
+
+import java.util.Map;
+
+/**
+ * Tuning options of a {@link Database}.
+ *
+ * @param readPoolSize amount of read-only connections that serve {@link Database#read} and
+ *        {@link Database#readTransaction} concurrently, {@code 0} to route all reads through the
+ *        single writer connection instead
+ * @param readPragmas PRAGMAs to apply to each read-only connection after it has been opened, e.g.
+ *        {@code "cache_size" -> "-8000"}
+ * @param writeQueueCapacity maximal amount of writes submitted by {@link Database#writeAsync} that
+ *        wait to be committed, further submissions block until there is space again
+ * @param maxWriteBatchSize maximal amount of asynchronous writes committed in a single transaction
+ * @param maxWriteLingerMillis maximal time in milliseconds to wait for further asynchronous writes
+ *        to join a batch, after its first write arrived
+ * @param slowQueryThresholdMillis queries taking longer than this many milliseconds are logged as
+ *        slow queries
+ */
+public record DatabaseConfig(int readPoolSize, Map<String, String> readPragmas,
+        int writeQueueCapacity, int maxWriteBatchSize, long maxWriteLingerMillis,
+        long slowQueryThresholdMillis) {
+    private static final int DEFAULT_READ_POOL_SIZE = 4;
+    private static final int DEFAULT_WRITE_QUEUE_CAPACITY = 10_000;
+    private static final int DEFAULT_MAX_WRITE_BATCH_SIZE = 500;
+    private static final long DEFAULT_MAX_WRITE_LINGER_MILLIS = 10;
+    private static final long DEFAULT_SLOW_QUERY_THRESHOLD_MILLIS = 200;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param readPoolSize amount of read-only connections that serve {@link Database#read} and
+     *        {@link Database#readTransaction} concurrently, {@code 0} to route all reads through
+     *        the single writer connection instead
+     * @param readPragmas PRAGMAs to apply to each read-only connection after it has been opened,
+     *        e.g. {@code "cache_size" -> "-8000"}
+     * @param writeQueueCapacity maximal amount of writes submitted by {@link Database#writeAsync}
+     *        that wait to be committed, further submissions block until there is space again
+     * @param maxWriteBatchSize maximal amount of asynchronous writes committed in a single
+     *        transaction
+     * @param maxWriteLingerMillis maximal time in milliseconds to wait for further asynchronous
+     *        writes to join a batch, after its first write arrived
+     * @param slowQueryThresholdMillis queries taking longer than this many milliseconds are logged
+     *        as slow queries
+     */
+    public DatabaseConfig {
+        if (readPoolSize < 0) {
+            throw new IllegalArgumentException(
+                    "The read pool size must not be negative, but was " + readPoolSize);
+        }
+        readPragmas = readPragmas == null ? Map.of() : Map.copyOf(readPragmas);
+        if (writeQueueCapacity <= 0 || maxWriteBatchSize <= 0) {
+            throw new IllegalArgumentException(
+                    "The write queue capacity and batch size must be positive, but were %d and %d"
+                        .formatted(writeQueueCapacity, maxWriteBatchSize));
+        }
+        if (maxWriteLingerMillis < 0) {
+            throw new IllegalArgumentException(
+                    "The write linger must not be negative, but was " + maxWriteLingerMillis);
+        }
+        if (slowQueryThresholdMillis < 0) {
+            throw new IllegalArgumentException(
+                    "The slow query threshold must not be negative, but was "
+                            + slowQueryThresholdMillis);
+        }
+    }
+
+    /**
+     * Creates the default configuration, used if nothing else was specified.
+     *
+     * @return the default configuration
+     */
+    public static DatabaseConfig defaults() {
+        return new DatabaseConfig(DEFAULT_READ_POOL_SIZE, Map.of(), DEFAULT_WRITE_QUEUE_CAPACITY,
+                DEFAULT_MAX_WRITE_BATCH_SIZE, DEFAULT_MAX_WRITE_LINGER_MILLIS,
+                DEFAULT_SLOW_QUERY_THRESHOLD_MILLIS);
+    }
+}
@@ -0,0 +1,216 @@
+package org.togetherjava.tjbot.db;
+
+import org.jooq.DSLContext;
+import org.jooq.exception.DataAccessException;
+
+import org.togetherjava.tjbot.db.util.CheckedFunction;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Writer that commits many queued writes in a single transaction ("group commit").
+ * <p>
+ * Writes are submitted with {@link #submit(CheckedFunction)} and executed by a single dedicated
+ * thread. It drains the bounded queue into batches of at most a configured size, waiting at most a
+ * configured linger time for further writes to join a batch once the first arrived. Each write runs
+ * in its own savepoint, so a failing write only rolls back itself and not the rest of its batch.
+ * <p>
+ * Futures are completed once the batch has been committed, hence waiting on them guarantees
+ * durability. They are completed by the writer thread, dependent actions should therefore be
+ * short or executed asynchronously.
+ */
+final class GroupCommitWriter implements AutoCloseable {
+    private static final Duration CLOSED_POLL_INTERVAL = Duration.ofMillis(100);
+
+    private final DSLContext context;
+    private final Lock writeLock;
+    private final QueryStatistics statistics;
+    private final BlockingQueue<PendingWrite<?>> queue;
+    private final int maxBatchSize;
+    private final long maxLingerNanos;
+    private final Thread writerThread;
+    private volatile boolean isClosed;
+
+    /**
+     * Creates a new writer and starts its writer thread.
+     *
+     * @param context the context of the writer connection to commit batches on
+     * @param writeLock the lock that guards the writer connection, held while a batch is committed
+     * @param statistics the statistics to record the time spent waiting on the lock in
+     * @param queueCapacity maximal amount of writes waiting to be committed, submitting further
+     *        writes blocks until there is space again
+     * @param maxBatchSize maximal amount of writes committed in a single transaction
+     * @param maxLinger maximal time to wait for further writes to join a batch, after its first
+     *        write arrived
+     */
+    GroupCommitWriter(DSLContext context, Lock writeLock, QueryStatistics statistics,
+            int queueCapacity, int maxBatchSize, Duration maxLinger) {
+        this.context = context;
+        this.writeLock = writeLock;
+        this.statistics = statistics;
+        this.maxBatchSize = maxBatchSize;
+        maxLingerNanos = maxLinger.toNanos();
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        writerThread = Thread.ofPlatform()
+            .name("database-group-commit")
+            .daemon(true)
+            .start(this::processQueue);
+    }
+
+    /**
+     * Queues the given write for the next batch. Blocks while the queue is full, until the writer
+     * is closed.
+     *
+     * @param action the action to apply to the DSL context, e.g. a query
+     * @param <T> the type returned by the given action
+     * @return future that completes with the result of the action, once its batch is committed;
+     *         or exceptionally if the writer has been closed before the write was queued
+     */
+    <T> CompletableFuture<T> submit(
+            CheckedFunction<? super DSLContext, T, ? extends DataAccessException> action) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        PendingWrite<T> write = new PendingWrite<>(action, result);
+
+        try {
+            boolean isQueued = false;
+            while (!isQueued) {
+                if (isClosed) {
+                    write.rejectClosed();
+                    return result;
+                }
+                isQueued = queue.offer(write, CLOSED_POLL_INTERVAL.toNanos(), TimeUnit.NANOSECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.completeExceptionally(new DatabaseException(e));
+            return result;
+        }
+
+        // The writer might have stopped before the write was queued. If it is still queued then,
+        // it is taken back, otherwise the writer or close() have taken care of it already.
+        if (isClosed && queue.remove(write)) {
+            write.rejectClosed();
+        }
+        return result;
+    }
+
+    private void processQueue() {
+        List<PendingWrite<?>> batch = new ArrayList<>(maxBatchSize);
+        while (!isClosed || !queue.isEmpty()) {
+            try {
+                PendingWrite<?> first =
+                        queue.poll(CLOSED_POLL_INTERVAL.toNanos(), TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                fillBatch(batch);
+            } catch (InterruptedException e) {
+                // Only happens during shutdown, the remaining writes are still committed
+                isClosed = true;
+            }
+
+            if (!batch.isEmpty()) {
+                commitBatch(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void fillBatch(List<PendingWrite<?>> batch) throws InterruptedException {
+        long lingerDeadline = System.nanoTime() + maxLingerNanos;
+        while (batch.size() < maxBatchSize) {
+            long remainingLinger = lingerDeadline - System.nanoTime();
+            PendingWrite<?> next = remainingLinger <= 0 ? queue.poll()
+                    : queue.poll(remainingLinger, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void commitBatch(List<PendingWrite<?>> batch) {
+        List<Runnable> completions = new ArrayList<>(batch.size());
+
+        long lockRequestedAt = System.nanoTime();
+        writeLock.lock();
+        statistics.recordWriteLockWait(System.nanoTime() - lockRequestedAt);
+        try {
+            context.transaction(config -> {
+                DSLContext transactionContext = config.dsl();
+                batch.forEach(write -> completions.add(write.executeIn(transactionContext)));
+            });
+        } catch (RuntimeException e) {
+            DatabaseException failure = new DatabaseException(e);
+            batch.forEach(write -> write.result().completeExceptionally(failure));
+            return;
+        } finally {
+            writeLock.unlock();
+        }
+
+        completions.forEach(Runnable::run);
+    }
+
+    /**
+     * Stops accepting new writes and waits for all queued writes to be committed. Writes that were
+     * queued concurrently to closing, after the writer thread stopped, are completed exceptionally.
+     */
+    @Override
+    public void close() {
+        isClosed = true;
+        // The caller closes the writer connection afterwards, hence the writer thread has to be
+        // waited for even if interrupted
+        boolean wasInterrupted = false;
+        while (writerThread.isAlive()) {
+            try {
+                writerThread.join();
+            } catch (InterruptedException _) {
+                wasInterrupted = true;
+            }
+        }
+        if (wasInterrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        List<PendingWrite<?>> remainingWrites = new ArrayList<>();
+        queue.drainTo(remainingWrites);
+        remainingWrites.forEach(PendingWrite::rejectClosed);
+    }
+
+    private record PendingWrite<T>(
+            CheckedFunction<? super DSLContext, T, ? extends DataAccessException> action,
+            CompletableFuture<T> result) {
+
+        /**
+         * Executes the write within its own savepoint of the given transaction.
+         *
+         * @param transactionContext the context of the batch transaction
+         * @return the action that completes the future of this write, to be run after the batch
+         *         has been committed
+         */
+        Runnable executeIn(DSLContext transactionContext) {
+            try {
+                T value = transactionContext
+                    .transactionResult(savepoint -> action.accept(savepoint.dsl()));
+                return () -> result.complete(value);
+            } catch (RuntimeException e) {
+                DatabaseException failure = new DatabaseException(e);
+                return () -> result.completeExceptionally(failure);
+            }
+        }
+
+        void rejectClosed() {
+            result.completeExceptionally(
+                    new IllegalStateException("The database has already been closed"));
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package org.togetherjava.tjbot.db;
+
+import org.jooq.ExecuteContext;
+import org.jooq.ExecuteListener;
+import org.jooq.TransactionContext;
+import org.jooq.TransactionListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Optional;
+
+/**
+ * Listener attached to all DSL contexts of a {@link Database}, recording its
+ * {@link QueryStatistics} and logging slow queries.
+ * <p>
+ * A query is considered slow if its execution, including fetching its results, takes longer than
+ * the configured threshold. Slow queries are logged with their SQL, without bind values, and the
+ * feature that issued them.
+ */
+final class InstrumentationListener implements ExecuteListener, TransactionListener {
+    private static final Logger logger = LoggerFactory.getLogger(InstrumentationListener.class);
+
+    private static final String START_KEY = "tjbot.instrumentation.start";
+    private static final String FETCHED_ROWS_KEY = "tjbot.instrumentation.rows";
+    private static final String APPLICATION_PACKAGE = "org.togetherjava.tjbot.";
+    private static final String DATABASE_PACKAGE = "org.togetherjava.tjbot.db.";
+
+    private final QueryStatistics statistics;
+    private final long slowQueryThresholdNanos;
+
+    InstrumentationListener(QueryStatistics statistics, long slowQueryThresholdNanos) {
+        this.statistics = statistics;
+        this.slowQueryThresholdNanos = slowQueryThresholdNanos;
+    }
+
+    @Override
+    public void start(ExecuteContext context) {
+        context.data(START_KEY, System.nanoTime());
+    }
+
+    @Override
+    public void recordEnd(ExecuteContext context) {
+        int[] fetchedRows = (int[]) context.data(FETCHED_ROWS_KEY);
+        if (fetchedRows == null) {
+            context.data(FETCHED_ROWS_KEY, new int[] {1});
+        } else {
+            fetchedRows[0]++;
+        }
+    }
+
+    @Override
+    public void end(ExecuteContext context) {
+        Object start = context.data(START_KEY);
+        String sql = context.sql();
+        if (!(start instanceof Long startNanos) || sql == null) {
+            return;
+        }
+        long elapsedNanos = System.nanoTime() - startNanos;
+
+        int[] fetchedRows = (int[]) context.data(FETCHED_ROWS_KEY);
+        long rows = fetchedRows != null ? fetchedRows[0] : Math.max(context.rows(), 0);
+
+        statistics.recordQuery(sql, elapsedNanos, rows);
+
+        if (elapsedNanos >= slowQueryThresholdNanos && logger.isWarnEnabled()) {
+            logger.warn("Slow query took {} ms ({} rows), issued by {}: {}",
+                    elapsedNanos / 1_000_000, rows, findCallingFeature().orElse("unknown"),
+                    QueryStatistics.normalize(sql));
+        }
+    }
+
+    @Override
+    public void beginStart(TransactionContext context) {
+        context.data(START_KEY, System.nanoTime());
+    }
+
+    @Override
+    public void commitEnd(TransactionContext context) {
+        recordTransaction(context);
+    }
+
+    @Override
+    public void rollbackEnd(TransactionContext context) {
+        recordTransaction(context);
+    }
+
+    private void recordTransaction(TransactionContext context) {
+        if (context.data(START_KEY) instanceof Long startNanos) {
+            statistics.recordTransaction(System.nanoTime() - startNanos);
+        }
+    }
+
+    /**
+     * Walks the current stack to find the first method outside of the database module, which is
+     * usually the store or feature that issued the query. Only used for slow queries, since
+     * walking the stack is not cheap.
+     *
+     * @return the calling class and method, if found; not found if the query was issued by an
+     *         asynchronous write for example
+     */
+    private static Optional<String> findCallingFeature() {
+        return StackWalker.getInstance()
+            .walk(frames -> frames
+                .filter(frame -> frame.getClassName().startsWith(APPLICATION_PACKAGE)
+                        && !frame.getClassName().startsWith(DATABASE_PACKAGE))
+                .findFirst()
+                .map(frame -> frame.getClassName() + "#" + frame.getMethodName()));
+    }
+}
@@ -0,0 +1,112 @@
+package org.togetherjava.tjbot.db;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of durations, with buckets of exponentially growing size.
+ * <p>
+ * Bucket {@code i} counts durations of less than {@code 2^i} microseconds, the last bucket counts
+ * everything longer. Percentiles are hence approximated by the upper bound of their bucket, which
+ * is precise enough to spot latency spikes.
+ * <p>
+ * Instances are thread-safe and optimized for concurrent recording.
+ */
+public final class LatencyHistogram {
+    private static final int BUCKET_COUNT = 32;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKET_COUNT];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Creates a new empty histogram.
+     */
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records the given duration.
+     *
+     * @param nanos the duration in nanoseconds
+     */
+    public void record(long nanos) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(Math.max(nanos, 0));
+        int bucket = Math.min(Long.SIZE - Long.numberOfLeadingZeros(micros), BUCKET_COUNT - 1);
+
+        buckets[bucket].increment();
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+
+    /**
+     * Gets the amount of recorded durations.
+     *
+     * @return the amount of recorded durations
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Gets the sum of all recorded durations.
+     *
+     * @return the total duration
+     */
+    public Duration getTotal() {
+        return Duration.ofNanos(totalNanos.sum());
+    }
+
+    /**
+     * Gets the average of all recorded durations.
+     *
+     * @return the mean duration, zero if nothing was recorded yet
+     */
+    public Duration getMean() {
+        long recorded = getCount();
+        return recorded == 0 ? Duration.ZERO : Duration.ofNanos(totalNanos.sum() / recorded);
+    }
+
+    /**
+     * Gets the longest recorded duration.
+     *
+     * @return the maximal duration, zero if nothing was recorded yet
+     */
+    public Duration getMax() {
+        return Duration.ofNanos(maxNanos.get());
+    }
+
+    /**
+     * Approximates the given percentile of all recorded durations.
+     *
+     * @param percentile the percentile to compute, between {@code 0.0} and {@code 1.0}, e.g.
+     *        {@code 0.99}
+     * @return the upper bound of the bucket containing the percentile, but at most the longest
+     *         recorded duration
+     */
+    public Duration getPercentile(double percentile) {
+        if (percentile < 0 || percentile > 1) {
+            throw new IllegalArgumentException(
+                    "The percentile must be between 0 and 1, but was " + percentile);
+        }
+
+        long threshold = (long) Math.ceil(getCount() * percentile);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT - 1; i++) {
+            seen += buckets[i].sum();
+            if (seen >= threshold) {
+                Duration bucketBound = Duration.ofNanos(TimeUnit.MICROSECONDS.toNanos(1L << i));
+                Duration max = getMax();
+                return bucketBound.compareTo(max) < 0 ? bucketBound : max;
+            }
+        }
+        return getMax();
+    }
+}
@@ -0,0 +1,294 @@
+package org.togetherjava.tjbot.db;
+
+import org.jooq.Condition;
+import org.jooq.DSLContext;
+import org.jooq.Delete;
+import org.jooq.Field;
+import org.jooq.Record;
+import org.jooq.Record1;
+import org.jooq.Select;
+import org.jooq.Table;
+import org.jooq.impl.DSL;
+import org.jooq.impl.SQLDataType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Deletes large amounts of rows from a table in bounded batches, without blocking other writes for
+ * long.
+ * <p>
+ * The table is walked in ascending {@code rowid} order, i.e. by its primary key. Each batch seeks
+ * to the {@code rowid} after the last batch and looks up at most {@link #getBatchSize()} matching
+ * rows from there, which it deletes by their {@code rowid} range in a transaction of its own.
+ * Hence, batches never rescan rows that previous batches have already passed. The write lock of the
+ * database is released between batches, with a short pause, so that interactive writes can
+ * interleave with a long-running purge.
+ * <p>
+ * Rows that start to match the condition during a purge, behind the current position, are left for
+ * the next purge.
+ * <p>
+ * Progress is logged and summarized in a {@link PurgeResult}, including the achieved rows per
+ * second.
+ * <p>
+ * Instances are thread-safe and can be shared.
+ */
+public final class PurgeEngine {
+    private static final Logger logger = LoggerFactory.getLogger(PurgeEngine.class);
+
+    private static final int DEFAULT_BATCH_SIZE = 1_000;
+    private static final Duration DEFAULT_PAUSE_BETWEEN_BATCHES = Duration.ofMillis(10);
+    private static final int LOG_PROGRESS_EVERY_BATCHES = 50;
+    private static final Field<Long> ROWID = DSL.field(DSL.name("rowid"), SQLDataType.BIGINT);
+
+    private final Database database;
+    private final int batchSize;
+    private final Duration pauseBetweenBatches;
+
+    /**
+     * Creates a new instance with default settings.
+     *
+     * @param database the database to purge rows from
+     */
+    public PurgeEngine(Database database) {
+        this(database, DEFAULT_BATCH_SIZE, DEFAULT_PAUSE_BETWEEN_BATCHES);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param database the database to purge rows from
+     * @param batchSize the maximal amount of rows deleted per batch, while holding the write lock
+     * @param pauseBetweenBatches time to wait after each batch, giving other writers the chance to
+     *        acquire the write lock
+     */
+    public PurgeEngine(Database database, int batchSize, Duration pauseBetweenBatches) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException(
+                    "The batch size must be positive, but was " + batchSize);
+        }
+
+        this.database = database;
+        this.batchSize = batchSize;
+        this.pauseBetweenBatches = pauseBetweenBatches;
+    }
+
+    /**
+     * Gets the maximal amount of rows deleted per batch.
+     *
+     * @return the batch size
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Deletes all rows of the given table that match the given condition.
+     *
+     * @param table the table to purge, must not be a {@code WITHOUT ROWID} table
+     * @param condition the condition matching all rows to delete
+     * @return the result of the purge
+     * @throws DatabaseException if an error occurs while deleting a batch, batches that were
+     *         deleted before stay deleted
+     */
+    public PurgeResult purge(Table<?> table, Condition condition) {
+        return purge(table, condition, null);
+    }
+
+    /**
+     * Deletes all rows of the given table that match the given condition and hands each deleted
+     * batch of records to the given consumer.
+     * <p>
+     * The consumer is called after its batch has been committed, without holding the write lock.
+     *
+     * @param table the table to purge, must not be a {@code WITHOUT ROWID} table
+     * @param condition the condition matching all rows to delete
+     * @param deletedRecordsConsumer consumer of each batch of deleted records
+     * @param <R> the type of the records in the table
+     * @return the result of the purge
+     * @throws DatabaseException if an error occurs while deleting a batch, batches that were
+     *         deleted before stay deleted
+     */
+    public <R extends Record> PurgeResult purge(Table<R> table, Condition condition,
+            Consumer<? super List<R>> deletedRecordsConsumer) {
+        return purge(table, condition, null, deletedRecordsConsumer);
+    }
+
+    /**
+     * Deletes all rows of the given table that match the given condition and hands each batch of
+     * records to the given handler, before they are deleted.
+     * <p>
+     * The handler is called within the transaction of its batch, while holding the write lock. It
+     * may hence write derived data consistently, for example aggregate the records into another
+     * table. If the handler throws, its batch is rolled back and the purge stops.
+     *
+     * @param table the table to purge, must not be a {@code WITHOUT ROWID} table
+     * @param condition the condition matching all rows to delete
+     * @param batchHandler handler of each batch of records, given the context of the transaction
+     * @param <R> the type of the records in the table
+     * @return the result of the purge
+     * @throws DatabaseException if an error occurs while deleting a batch, batches that were
+     *         deleted before stay deleted
+     */
+    public <R extends Record> PurgeResult purgeTransactionally(Table<R> table, Condition condition,
+            BiConsumer<? super DSLContext, ? super List<R>> batchHandler) {
+        return purge(table, condition, batchHandler, null);
+    }
+
+    private <R extends Record> PurgeResult purge(Table<R> table, Condition condition,
+            @Nullable BiConsumer<? super DSLContext, ? super List<R>> batchHandler,
+            @Nullable Consumer<? super List<R>> deletedRecordsConsumer) {
+        boolean fetchRecords = batchHandler != null || deletedRecordsConsumer != null;
+        long startNanos = System.nanoTime();
+        long deletedRows = 0;
+        int batches = 0;
+        long afterRowid = Long.MIN_VALUE;
+
+        while (true) {
+            long batchAfterRowid = afterRowid;
+            DeletedBatch<R> batch = database.writeTransactionAndProvide(context -> deleteBatch(
+                    context, table, condition, batchAfterRowid, fetchRecords, batchHandler));
+            if (batch.matchedRows() == 0) {
+                break;
+            }
+            afterRowid = batch.lastRowid();
+            deletedRows += batch.deletedRows();
+            batches++;
+
+            if (deletedRecordsConsumer != null) {
+                deletedRecordsConsumer.accept(batch.records());
+            }
+            if (batches % LOG_PROGRESS_EVERY_BATCHES == 0) {
+                logger.debug("Purging {}: {} rows deleted so far", table.getName(), deletedRows);
+            }
+            if (batch.matchedRows() < batchSize || !pause()) {
+                break;
+            }
+        }
+
+        PurgeResult result = new PurgeResult(table.getName(), deletedRows, batches,
+                Duration.ofNanos(System.nanoTime() - startNanos));
+        if (deletedRows > 0) {
+            logger.debug("Purged {} rows from {} in {} batches, took {} ({} rows/s)",
+                    result.deletedRows(), result.table(), result.batches(), result.elapsed(),
+                    Math.round(result.rowsPerSecond()));
+        }
+        return result;
+    }
+
+    private <R extends Record> DeletedBatch<R> deleteBatch(DSLContext context, Table<R> table,
+            Condition condition, long afterRowid, boolean fetchRecords,
+            @Nullable BiConsumer<? super DSLContext, ? super List<R>> batchHandler) {
+        List<Long> rowids =
+                selectBatchQuery(context, table, condition, afterRowid, batchSize).fetch(ROWID);
+        if (rowids.isEmpty()) {
+            return new DeletedBatch<>(0, 0, afterRowid, List.of());
+        }
+
+        long lastRowid = rowids.getLast();
+        Condition batchCondition = batchCondition(condition, afterRowid, lastRowid);
+        List<R> records =
+                fetchRecords ? context.selectFrom(table).where(batchCondition).fetch() : List.of();
+        if (batchHandler != null) {
+            batchHandler.accept(context, records);
+        }
+        int deletedRows =
+                deleteBatchQuery(context, table, condition, afterRowid, lastRowid).execute();
+        return new DeletedBatch<>(rowids.size(), deletedRows, lastRowid, records);
+    }
+
+    /**
+     * Creates the query that looks up the {@code rowid}s of the next batch of matching rows.
+     *
+     * @param context the context to create the query in
+     * @param table the table to purge
+     * @param condition the condition matching all rows to delete
+     * @param afterRowid the last {@code rowid} of the previous batch
+     * @param batchSize the maximal amount of rows in the batch
+     * @return the query, selecting the {@code rowid}s of the batch in ascending order
+     */
+    static Select<Record1<Long>> selectBatchQuery(DSLContext context, Table<?> table,
+            Condition condition, long afterRowid, int batchSize) {
+        return context.select(ROWID)
+            .from(table)
+            .where(ROWID.greaterThan(afterRowid))
+            .and(condition)
+            .orderBy(ROWID)
+            .limit(batchSize);
+    }
+
+    /**
+     * Creates the query that deletes a batch of matching rows, by their {@code rowid} range.
+     *
+     * @param context the context to create the query in
+     * @param table the table to purge
+     * @param condition the condition matching all rows to delete
+     * @param afterRowid the last {@code rowid} of the previous batch
+     * @param lastRowid the last {@code rowid} of the batch
+     * @return the query deleting the batch
+     */
+    static Delete<?> deleteBatchQuery(DSLContext context, Table<?> table, Condition condition,
+            long afterRowid, long lastRowid) {
+        return context.deleteFrom(table).where(batchCondition(condition, afterRowid, lastRowid));
+    }
+
+    private static Condition batchCondition(Condition condition, long afterRowid,
+            long lastRowid) {
+        return ROWID.greaterThan(afterRowid).and(ROWID.lessOrEqual(lastRowid)).and(condition);
+    }
+
+    /**
+     * Pauses between two batches.
+     *
+     * @return whether the purge should continue, {@code false} if interrupted
+     */
+    private boolean pause() {
+        try {
+            Thread.sleep(pauseBetweenBatches);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Interrupted while purging, stopping early");
+            return false;
+        }
+    }
+
+    /**
+     * A deleted batch.
+     *
+     * @param matchedRows the amount of rows that matched when looking up the batch
+     * @param deletedRows the amount of rows actually deleted
+     * @param lastRowid the last {@code rowid} of the batch, where the next batch continues
+     * @param records the deleted records, if requested
+     * @param <R> the type of the records
+     */
+    private record DeletedBatch<R>(int matchedRows, int deletedRows, long lastRowid,
+            List<R> records) {
+    }
+
+    /**
+     * Outcome of a purge.
+     *
+     * @param table the name of the purged table
+     * @param deletedRows the total amount of deleted rows
+     * @param batches the amount of batches the rows were deleted in
+     * @param elapsed the time the purge took, including pauses between batches
+     */
+    public record PurgeResult(String table, long deletedRows, int batches, Duration elapsed) {
+        /**
+         * Gets the throughput of the purge.
+         *
+         * @return the deleted rows per second
+         */
+        public double rowsPerSecond() {
+            long elapsedNanos = Math.max(elapsed.toNanos(), 1);
+            return deletedRows * 1_000_000_000.0 / elapsedNanos;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package org.togetherjava.tjbot.db;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Statistics about the queries executed by a {@link Database}, see
+ * {@link Database#getQueryStatistics()}.
+ * <p>
+ * Queries are grouped by their normalized SQL, i.e. the SQL with placeholders instead of bind
+ * values, where lists of placeholders (such as in {@code IN (?, ?, ?)}) are collapsed into a single
+ * one. The SQL usually reveals which store issued the query, by the tables it touches.
+ * <p>
+ * Instances are thread-safe.
+ */
+public final class QueryStatistics {
+    /**
+     * Upper bound for distinct query shapes, to not grow unbounded in case of dynamically built
+     * SQL. Anything beyond is accounted to {@link #OTHER_QUERIES}.
+     */
+    private static final int MAX_QUERY_SHAPES = 500;
+    /**
+     * Upper bound for distinct raw SQL whose shape is remembered, see {@link #rawSqlToShape}.
+     * Beyond that, the SQL is normalized again on each execution.
+     */
+    private static final int MAX_RAW_SQLS = 2_000;
+    private static final String OTHER_QUERIES = "<other>";
+    private static final Pattern PLACEHOLDER_LIST = Pattern.compile("\\?(?:\\s*,\\s*\\?)+");
+
+    /**
+     * Shapes by their normalized SQL.
+     */
+    private final Map<String, QueryShape> sqlToShape = new ConcurrentHashMap<>();
+    /**
+     * Shapes by the raw SQL as executed, so that the SQL of repeated queries does not have to be
+     * normalized again. Several raw SQLs share the same shape if they only differ in the length of
+     * their placeholder lists.
+     */
+    private final Map<String, QueryShape> rawSqlToShape = new ConcurrentHashMap<>();
+    private final LatencyHistogram writeLockWaits = new LatencyHistogram();
+    private final LatencyHistogram transactionDurations = new LatencyHistogram();
+
+    QueryStatistics() {}
+
+    void recordQuery(String sql, long nanos, long rows) {
+        QueryShape shape = rawSqlToShape.get(sql);
+        if (shape == null) {
+            String normalizedSql = normalize(sql);
+            shape = sqlToShape.size() < MAX_QUERY_SHAPES
+                    ? sqlToShape.computeIfAbsent(normalizedSql, _ -> new QueryShape())
+                    : sqlToShape.computeIfAbsent(OTHER_QUERIES, _ -> new QueryShape());
+            if (rawSqlToShape.size() < MAX_RAW_SQLS) {
+                rawSqlToShape.putIfAbsent(sql, shape);
+            }
+        }
+
+        shape.latency.record(nanos);
+        if (rows > 0) {
+            shape.rows.add(rows);
+        }
+    }
+
+    void recordWriteLockWait(long nanos) {
+        writeLockWaits.record(nanos);
+    }
+
+    void recordTransaction(long nanos) {
+        transactionDurations.record(nanos);
+    }
+
+    static String normalize(String sql) {
+        return PLACEHOLDER_LIST.matcher(sql).replaceAll("?");
+    }
+
+    /**
+     * Gets the time spent waiting to acquire write access to the database, measured for each
+     * write.
+     *
+     * @return the histogram of write lock waiting times
+     */
+    public LatencyHistogram getWriteLockWaits() {
+        return writeLockWaits;
+    }
+
+    /**
+     * Gets the durations of all transactions, including the savepoints used within transactions.
+     *
+     * @return the histogram of transaction durations
+     */
+    public LatencyHistogram getTransactionDurations() {
+        return transactionDurations;
+    }
+
+    /**
+     * Gets the statistics of all queries, grouped by their normalized SQL.
+     *
+     * @return the statistics of each query, the query with the highest total time spent first
+     */
+    public List<QueryStatistic> getQueries() {
+        return sqlToShape.entrySet()
+            .stream()
+            .map(entry -> new QueryStatistic(entry.getKey(), entry.getValue().latency,
+                    entry.getValue().rows.sum()))
+            .sorted(Comparator.comparing((QueryStatistic query) -> query.latency().getTotal())
+                .reversed())
+            .toList();
+    }
+
+    /**
+     * Statistics of a single query.
+     *
+     * @param sql the normalized SQL of the query, without bind values
+     * @param latency the latency of each execution of the query
+     * @param rows the total amount of rows returned or affected by all executions of the query
+     */
+    public record QueryStatistic(String sql, LatencyHistogram latency, long rows) {
+        /**
+         * Gets a short, human-readable summary of these statistics.
+         *
+         * @return the summary
+         */
+        public String summarize() {
+            return "%d× mean %s, p99 %s, max %s, %d rows: %s".formatted(latency.getCount(),
+                    formatDuration(latency.getMean()), formatDuration(latency.getPercentile(0.99)),
+                    formatDuration(latency.getMax()), rows, sql);
+        }
+
+        private static String formatDuration(Duration duration) {
+            return "%.2fms".formatted(duration.toNanos() / 1_000_000.0);
+        }
+    }
+
+    private static final class QueryShape {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder rows = new LongAdder();
+    }
+}
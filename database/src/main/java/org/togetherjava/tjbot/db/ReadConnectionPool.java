@@ -0,0 +1,141 @@
+package org.togetherjava.tjbot.db;
+
+import org.jooq.DSLContext;
+import org.sqlite.SQLiteConfig;
+import org.sqlite.SQLiteDataSource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Bounded pool of read-only connections to a SQLite database.
+ * <p>
+ * In WAL mode, readers operate on a snapshot of the last committed state and neither block each
+ * other nor the writer. Hence, each connection of this pool can serve a reader concurrently to all
+ * others, while writes stay on the single connection owned by {@link Database}.
+ * <p>
+ * Lease a connection with {@link #acquire()} and hand it back with {@link #release(DSLContext)}.
+ * If all connections are in use, {@link #acquire()} blocks until one is released.
+ */
+final class ReadConnectionPool implements AutoCloseable {
+    private static final Pattern PRAGMA_NAME = Pattern.compile("\\w+");
+    /**
+     * PRAGMA values are either a keyword, such as {@code NORMAL}, or a possibly negative number.
+     */
+    private static final Pattern PRAGMA_VALUE = Pattern.compile("\\w+|-?\\d+(?:\\.\\d+)?");
+
+    private final List<Connection> connections;
+    private final BlockingQueue<DSLContext> idleContexts;
+
+    /**
+     * Opens all connections of the pool.
+     *
+     * @param jdbcUrl the url to the database in the format expected by JDBC
+     * @param size the amount of connections to open, must be positive
+     * @param pragmas PRAGMAs to apply to each connection after it has been opened
+     * @param contextFactory creates the DSL context bound to a connection of the pool
+     * @throws SQLException if a connection could not be established
+     */
+    ReadConnectionPool(String jdbcUrl, int size, Map<String, String> pragmas,
+            Function<? super Connection, DSLContext> contextFactory) throws SQLException {
+        if (size <= 0) {
+            throw new IllegalArgumentException("The pool size must be positive, but was " + size);
+        }
+        pragmas.forEach(ReadConnectionPool::requireValidPragma);
+
+        SQLiteConfig sqliteConfig = new SQLiteConfig();
+        sqliteConfig.setReadOnly(true);
+
+        SQLiteDataSource dataSource = new SQLiteDataSource(sqliteConfig);
+        dataSource.setUrl(jdbcUrl);
+
+        connections = new ArrayList<>(size);
+        idleContexts = new ArrayBlockingQueue<>(size);
+        try {
+            for (int i = 0; i < size; i++) {
+                Connection connection = dataSource.getConnection();
+                connections.add(connection);
+                applyPragmas(connection, pragmas);
+
+                idleContexts.add(contextFactory.apply(connection));
+            }
+        } catch (SQLException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Leases a connection from the pool, waiting for one to become available if necessary.
+     * <p>
+     * The connection has to be handed back using {@link #release(DSLContext)} once done.
+     *
+     * @return the DSL context bound to the leased connection
+     * @throws DatabaseException if interrupted while waiting for a connection
+     */
+    DSLContext acquire() {
+        try {
+            return idleContexts.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DatabaseException(e);
+        }
+    }
+
+    /**
+     * Hands back a connection previously leased by {@link #acquire()}.
+     *
+     * @param context the DSL context bound to the leased connection
+     */
+    void release(DSLContext context) {
+        idleContexts.add(context);
+    }
+
+    @Override
+    public void close() throws SQLException {
+        SQLException failure = null;
+        for (Connection connection : connections) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private static void applyPragmas(Connection connection, Map<String, String> pragmas)
+            throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            for (Map.Entry<String, String> pragma : pragmas.entrySet()) {
+                statement.execute("PRAGMA %s = %s".formatted(pragma.getKey(), pragma.getValue()));
+            }
+        }
+    }
+
+    private static void requireValidPragma(String name, String value) {
+        // Both are inserted into the SQL as they are, PRAGMA does not support bind parameters
+        if (!PRAGMA_NAME.matcher(name).matches()) {
+            throw new IllegalArgumentException("'%s' is not a valid PRAGMA name".formatted(name));
+        }
+        if (!PRAGMA_VALUE.matcher(value).matches()) {
+            throw new IllegalArgumentException(
+                    "'%s' is not a valid value for PRAGMA %s".formatted(value, name));
+        }
+    }
+}